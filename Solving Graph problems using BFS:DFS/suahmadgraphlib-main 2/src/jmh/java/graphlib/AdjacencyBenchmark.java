@@ -0,0 +1,103 @@
+package graphlib;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The object graph's own adjacency, without a CompactGraph: Dijkstra from
+ * the hub, a scan of every edge with its weight, and a lookup of every
+ * edge by its target. Setup prints the heap the graph's nodes and edges
+ * take per edge.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AdjacencyBenchmark
+{
+    @Param({"100000"})
+    public int size;
+
+    @Param({"rmat", "road"})
+    public String shape;
+
+    private Graph graph;
+    private String start;
+
+    @Setup
+    public void setup()
+    {
+        long before = usedHeap();
+        graph = BenchmarkGraphs.undirectedWeighted(shape, size);
+        long after = usedHeap();
+        long edges = 0;
+        for (Node node : graph.getAllNodes())
+        {
+            edges += node.getNeighbors().size();
+        }
+        System.out.printf("%n%d nodes, %d edges, %.1f bytes per edge%n", graph.getNumNodes(), edges,
+            (double) (after - before) / edges);
+        start = BenchmarkGraphs.hub(graph);
+    }
+
+    private static long usedHeap()
+    {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++)
+        {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    @Benchmark
+    public Map<Node, Double> dijkstra()
+    {
+        return graph.dijkstra(start);
+    }
+
+    @Benchmark
+    public double scanEdges()
+    {
+        double total = 0;
+        for (Node node : graph.getAllNodes())
+        {
+            for (Node neighbor : node.getNeighbors())
+            {
+                total += node.getWeight(neighbor);
+            }
+        }
+        return total;
+    }
+
+    @Benchmark
+    public int lookupEdges()
+    {
+        int found = 0;
+        for (Node node : graph.getAllNodes())
+        {
+            for (Node neighbor : node.getNeighbors())
+            {
+                if (neighbor.hasEdge(node))
+                {
+                    found++;
+                }
+            }
+        }
+        return found;
+    }
+}
@@ -0,0 +1,108 @@
+package graphlib;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import graphlib.generate.EdgeSink;
+import graphlib.generate.ErdosRenyiGenerator;
+import graphlib.generate.GeometricGenerator;
+import graphlib.generate.GraphGenerator;
+import graphlib.generate.GridGenerator;
+import graphlib.generate.RMatGenerator;
+
+/**
+ * Builds the graphs the benchmarks run on. Every shape is generated from
+ * a fixed seed, so two runs of a benchmark see exactly the same graph.
+ *
+ * Shapes:
+ * <ul>
+ * <li><b>grid</b>: a square 4-neighbour grid, like the island files</li>
+ * <li><b>random</b>: Erdos-Renyi with average degree 8</li>
+ * <li><b>rmat</b>: R-MAT with average degree 16, skewed like web graphs</li>
+ * <li><b>road</b>: random geometric graph with average degree about 7</li>
+ * <li><b>star</b>: one hub connected to every other node, plus a ring</li>
+ * </ul>
+ */
+public class BenchmarkGraphs
+{
+    private static final long SEED = 42;
+
+    public static GraphGenerator generator(String shape, int numNodes)
+    {
+        switch (shape)
+        {
+            case "grid":
+                int side = (int) Math.ceil(Math.sqrt(numNodes));
+                return new GridGenerator(side, side, false);
+            case "random":
+                return new ErdosRenyiGenerator(numNodes, numNodes * 4L, SEED);
+            case "rmat":
+                int scale = 32 - Integer.numberOfLeadingZeros(numNodes - 1);
+                return new RMatGenerator(scale, (1L << scale) * 8, SEED);
+            case "road":
+                return new GeometricGenerator(numNodes, 1.5, SEED);
+            case "star":
+                return new GraphGenerator(SEED)
+                {
+                    public int getNumNodes()
+                    {
+                        return numNodes;
+                    }
+
+                    public void generate(EdgeSink sink)
+                    {
+                        for (int i = 1; i < numNodes; i++)
+                        {
+                            sink.edge(0, i, 1 + i % 100);
+                            sink.edge(i, i % (numNodes - 1) + 1, 1 + i % 7);
+                        }
+                    }
+                };
+            default:
+                throw new IllegalArgumentException("Unknown shape " + shape);
+        }
+    }
+
+    /**
+     * Returns the edge list of a shape in the text format of the loaders.
+     */
+    public static byte[] edgeList(String shape, int numNodes, boolean weighted)
+    {
+        try
+        {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            generator(shape, numNodes).writeEdgeList(out, weighted);
+            return out.toByteArray();
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns the shape as an undirected graph, with nodes named by their id.
+     */
+    public static Graph undirectedWeighted(String shape, int numNodes)
+    {
+        return generator(shape, numNodes).toGraph(false);
+    }
+
+    /**
+     * Returns the name of the node with the most neighbors, so that traversals
+     * start inside a large component rather than at an isolated node.
+     */
+    public static String hub(Graph graph)
+    {
+        Node hub = null;
+        for (Node node : graph.getAllNodes())
+        {
+            if (hub == null || node.getNeighbors().size() > hub.getNeighbors().size())
+            {
+                hub = node;
+            }
+        }
+        return hub.getName();
+    }
+}
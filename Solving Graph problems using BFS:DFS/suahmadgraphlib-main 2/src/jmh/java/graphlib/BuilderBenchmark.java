@@ -0,0 +1,117 @@
+package graphlib;
+
+import java.io.ByteArrayInputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Building an undirected weighted graph with {@link GraphBuilder} against
+ * the current loader, both from the text edge list and, to leave parsing
+ * out, from the same edges already split into arrays. Each iteration
+ * prints the peak heap it saw; run with <code>-prof gc</code> for the
+ * bytes allocated per build.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class BuilderBenchmark
+{
+    @Param({"100000"})
+    public int size;
+
+    @Param({"rmat", "road"})
+    public String shape;
+
+    private byte[] edgeList;
+    private String[] sources;
+    private String[] targets;
+    private double[] weights;
+
+    @Setup
+    public void setup()
+    {
+        edgeList = BenchmarkGraphs.edgeList(shape, size, true);
+        String[] lines = new String(edgeList, StandardCharsets.US_ASCII).split("\n");
+        sources = new String[lines.length];
+        targets = new String[lines.length];
+        weights = new double[lines.length];
+        for (int i = 0; i < lines.length; i++)
+        {
+            String[] fields = lines[i].split(" ");
+            sources[i] = fields[0];
+            targets[i] = fields[1];
+            weights[i] = Double.parseDouble(fields[2]);
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void resetPeak()
+    {
+        System.gc();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+        {
+            pool.resetPeakUsage();
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void printPeak()
+    {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+        {
+            if (pool.getType() == MemoryType.HEAP)
+            {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        System.out.printf("  peak heap %.0f MB%n", peak / 1e6);
+    }
+
+    @Benchmark
+    public Graph loader()
+    {
+        return Graph.readUndirectedWeightedGraph(new ByteArrayInputStream(edgeList));
+    }
+
+    @Benchmark
+    public Graph nodeByNode()
+    {
+        Graph graph = new Graph();
+        for (int i = 0; i < sources.length; i++)
+        {
+            Node a = graph.getOrCreateNode(sources[i]);
+            Node b = graph.getOrCreateNode(targets[i]);
+            a.addUndirectedEdge(b, weights[i]);
+        }
+        return graph;
+    }
+
+    @Benchmark
+    public Graph builder()
+    {
+        GraphBuilder builder = new GraphBuilder(false);
+        builder.addEdges(sources, targets, weights);
+        return builder.build();
+    }
+}
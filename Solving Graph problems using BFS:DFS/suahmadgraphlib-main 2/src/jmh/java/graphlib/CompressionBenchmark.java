@@ -0,0 +1,72 @@
+package graphlib;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * BFS over a {@link CompactGraph} and over the same graph as a
+ * {@link CompressedGraph}, both in BFS order. The setup prints the bits per
+ * edge of the compressed lists.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CompressionBenchmark
+{
+    @Param({"1000000"})
+    public int size;
+
+    @Param({"grid", "rmat", "road"})
+    public String shape;
+
+    @Param({"0", "7"})
+    public int window;
+
+    private CompactGraph compact;
+    private CompressedGraph compressed;
+    private int start;
+    private int count;
+
+    @Setup
+    public void setup()
+    {
+        Graph graph = BenchmarkGraphs.undirectedWeighted(shape, size);
+        CompactGraph g = graph.getCompactGraph();
+        Permutation order = GraphReordering.bfsOrder(g);
+        compact = g.permute(order);
+        compressed = CompressedGraph.compress(compact, window, CompressedGraph.DEFAULT_MAX_REF_COUNT);
+        start = order.getNewId(graph.getNodeId(BenchmarkGraphs.hub(graph)));
+        System.out.printf("%n%s window %d: %.2f bits/edge, %.2f with offsets%n", shape, window,
+            compressed.getBitsPerEdge(), compressed.getBitsPerEdgeWithOffsets());
+    }
+
+    @Benchmark
+    public int bfsCompact()
+    {
+        count = 0;
+        compact.bfs(start, node -> count++);
+        return count;
+    }
+
+    @Benchmark
+    public int bfsCompressed()
+    {
+        count = 0;
+        compressed.bfs(start, node -> count++);
+        return count;
+    }
+}
@@ -0,0 +1,56 @@
+package graphlib;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Single-source shortest paths from one node over the whole graph.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DijkstraBenchmark
+{
+    @Param({"1000", "100000"})
+    public int size;
+
+    @Param({"grid", "random", "rmat", "road", "star"})
+    public String shape;
+
+    private Graph graph;
+    private String start;
+
+    @Setup
+    public void setup()
+    {
+        graph = BenchmarkGraphs.undirectedWeighted(shape, size);
+        start = BenchmarkGraphs.hub(graph);
+    }
+
+    @Benchmark
+    public Map<Node, Double> dijkstra()
+    {
+        return graph.dijkstra(start);
+    }
+
+    @Benchmark
+    public ShortestPaths shortestPaths()
+    {
+        return graph.shortestPaths(start);
+    }
+}
@@ -0,0 +1,92 @@
+package graphlib;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import graphlib.durable.DurableGraph;
+
+/**
+ * Cost per logged edge of {@link DurableGraph} when committing after every
+ * <code>perCommit</code> edges: 1 is a force per mutation, larger batches
+ * show what group commit saves.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DurabilityBenchmark
+{
+    private static final int EDGES = 4096;
+
+    @Param({"1", "64", "4096"})
+    public int perCommit;
+
+    private Path dir;
+    private DurableGraph store;
+    private Node[] nodes;
+    private int next;
+
+    @Setup
+    public void setup() throws IOException
+    {
+        dir = Files.createTempDirectory("graphlib-wal");
+        store = new DurableGraph(dir);
+        store.setCompactionThreshold(16L << 20);
+        Graph g = store.open();
+        nodes = new Node[1 << 16];
+        for (int i = 0; i < nodes.length; i++)
+        {
+            nodes[i] = g.getOrCreateNode("n" + i);
+        }
+        store.commit();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException
+    {
+        store.close();
+        try (Stream<Path> files = Files.list(dir))
+        {
+            for (Path file : (Iterable<Path>) files::iterator)
+            {
+                Files.delete(file);
+            }
+        }
+        Files.delete(dir);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EDGES)
+    public void logEdges() throws IOException
+    {
+        int mask = nodes.length - 1;
+        for (int i = 1; i <= EDGES; i++)
+        {
+            next++;
+            nodes[next & mask].addDirectedEdge(nodes[(next * 31) & mask], i);
+            if (i % perCommit == 0)
+            {
+                store.commit();
+            }
+        }
+    }
+}
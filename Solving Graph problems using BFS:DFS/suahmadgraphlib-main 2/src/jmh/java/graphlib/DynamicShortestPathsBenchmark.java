@@ -0,0 +1,86 @@
+package graphlib;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * One random road weight change, repaired incrementally for one tracked
+ * source, against rerunning Dijkstra from that source.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DynamicShortestPathsBenchmark
+{
+    @Param({"100000"})
+    public int size;
+
+    @Param({"grid", "road"})
+    public String shape;
+
+    private Graph graph;
+    private DynamicShortestPaths dynamic;
+    private String source;
+    private List<String[]> edges = new ArrayList<>();
+    private double[] weights;
+    private Random random = new Random(42);
+    private int next;
+
+    @Setup
+    public void setup()
+    {
+        graph = BenchmarkGraphs.undirectedWeighted(shape, size);
+        source = BenchmarkGraphs.hub(graph);
+        dynamic = new DynamicShortestPaths(graph);
+        dynamic.track(source);
+        for (Node node : graph.getAllNodes())
+        {
+            for (Node neighbor : node.getNeighbors())
+            {
+                if (node.getId() < neighbor.getId())
+                {
+                    edges.add(new String[] {node.getName(), neighbor.getName()});
+                }
+            }
+        }
+        weights = new double[edges.size()];
+        for (int i = 0; i < weights.length; i++)
+        {
+            weights[i] = graph.getNode(graph.getNodeId(edges.get(i)[0]))
+                .getWeight(graph.getNode(graph.getNodeId(edges.get(i)[1])));
+        }
+    }
+
+    @Benchmark
+    public int repair()
+    {
+        // traffic: each change doubles or halves a road's base weight
+        int i = next++ % edges.size();
+        double factor = random.nextBoolean() ? 0.5 : 2.0;
+        dynamic.setUndirectedWeight(edges.get(i)[0], edges.get(i)[1], weights[i] * factor);
+        return dynamic.getLastAffected();
+    }
+
+    @Benchmark
+    public ShortestPaths recompute()
+    {
+        return graph.shortestPaths(source);
+    }
+}
@@ -0,0 +1,95 @@
+package graphlib;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import graphlib.external.EdgeFileWriter;
+import graphlib.external.ExternalGraph;
+import graphlib.generate.RMatGenerator;
+
+/**
+ * Out-of-core BFS and connected components over an undirected R-MAT edge
+ * file, in a JVM whose heap is a fraction of the file: at the default
+ * scale 23 the file holds about 250M edges, 2 GB, against a 256 MB heap.
+ * Each call prints its passes, bytes read and throughput.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx256m")
+@State(Scope.Benchmark)
+public class ExternalGraphBenchmark
+{
+    @Param({"23"})
+    public int scale;
+
+    @Param({"16"})
+    public int edgeFactor;
+
+    private Path file;
+    private ExternalGraph graph;
+    private int start = -1;
+
+    @Setup
+    public void setup() throws IOException
+    {
+        file = Files.createTempFile("graphlib", ".edges");
+        RMatGenerator generator = new RMatGenerator(scale, (long) edgeFactor << scale, 42);
+        long startTime = System.nanoTime();
+        try (EdgeFileWriter writer = new EdgeFileWriter(file, generator.getNumNodes(), true))
+        {
+            // start the BFS at the first edge's source, which is most
+            // likely in the giant component; many R-MAT nodes are isolated
+            generator.generate((source, target, weight) ->
+            {
+                if (start < 0)
+                {
+                    start = source;
+                }
+                writer.edge(source, target, weight);
+            });
+        }
+        graph = ExternalGraph.open(file);
+        System.out.printf("%nwrote %d edges, %.1f MB, in %.1f s, max heap %.0f MB%n", graph.getNumEdges(),
+            Files.size(file) / 1e6, (System.nanoTime() - startTime) / 1e9, Runtime.getRuntime().maxMemory() / 1e6);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException
+    {
+        graph.close();
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public int[] bfs() throws IOException
+    {
+        int[] levels = graph.bfs(start, node -> { });
+        System.out.println(graph.getLastStats());
+        return levels;
+    }
+
+    @Benchmark
+    public int[] connectedComponents() throws IOException
+    {
+        int[] labels = graph.connectedComponents();
+        System.out.println(graph.getLastStats());
+        return labels;
+    }
+}
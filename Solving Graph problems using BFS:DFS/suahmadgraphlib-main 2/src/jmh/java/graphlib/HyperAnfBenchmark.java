@@ -0,0 +1,66 @@
+package graphlib;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Reachable set sizes of every node, from the exact sets of
+ * {@link Graph#getReachableNodes()} against HyperANF estimates. The exact
+ * sets grow as n^2, so the default size is small; run only the estimates
+ * on larger graphs with e.g. <code>-p size=100000 HyperAnfBenchmark.hyperAnf</code>.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HyperAnfBenchmark
+{
+    @Param({"2000"})
+    public int size;
+
+    @Param({"rmat", "road"})
+    public String shape;
+
+    @Param({"6"})
+    public int log2Registers;
+
+    @Param({"1"})
+    public int threads;
+
+    private Graph graph;
+    private CompactGraph compact;
+
+    @Setup
+    public void setup()
+    {
+        graph = BenchmarkGraphs.undirectedWeighted(shape, size);
+        compact = graph.getCompactGraph();
+    }
+
+    @Benchmark
+    public Map<String, Set<String>> exactSets()
+    {
+        return graph.getReachableNodes();
+    }
+
+    @Benchmark
+    public NeighborhoodFunction hyperAnf()
+    {
+        return HyperAnf.run(compact, log2Registers, Integer.MAX_VALUE, 0, threads);
+    }
+}
@@ -0,0 +1,75 @@
+package graphlib;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Random point-to-point queries with ALT, exact and approximate, against a
+ * full Dijkstra from the source, plus the constant-time bounds.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LandmarkBenchmark
+{
+    @Param({"1000000"})
+    public int size;
+
+    @Param({"grid", "road"})
+    public String shape;
+
+    @Param({"FARTHEST", "AVOID"})
+    public LandmarkSelection selection;
+
+    private CompactGraph graph;
+    private LandmarkIndex index;
+    private Random random = new Random(42);
+
+    @Setup
+    public void setup()
+    {
+        graph = BenchmarkGraphs.undirectedWeighted(shape, size).getCompactGraph();
+        index = LandmarkIndex.build(graph, 16, selection, 42);
+    }
+
+    @Benchmark
+    public Route alt()
+    {
+        return index.findPath(random.nextInt(size), random.nextInt(size));
+    }
+
+    @Benchmark
+    public Route altApproximate()
+    {
+        return index.findPath(random.nextInt(size), random.nextInt(size), 0.1);
+    }
+
+    @Benchmark
+    public ShortestPaths dijkstra()
+    {
+        return graph.shortestPaths(random.nextInt(size));
+    }
+
+    @Benchmark
+    public double bounds()
+    {
+        int s = random.nextInt(size);
+        int t = random.nextInt(size);
+        return index.upperBound(s, t) - index.lowerBound(s, t);
+    }
+}
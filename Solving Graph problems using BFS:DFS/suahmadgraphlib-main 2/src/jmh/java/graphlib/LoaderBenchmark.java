@@ -0,0 +1,117 @@
+package graphlib;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parsing in-memory edge lists with the four readXxxGraph loaders, and
+ * with {@link PipelinedLoader}, also from gzip. The unweighted loaders get
+ * the same edge lists without the weight column.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LoaderBenchmark
+{
+    @Param({"1000", "100000"})
+    public int size;
+
+    @Param({"grid", "random", "rmat", "road"})
+    public String shape;
+
+    private byte[] weighted;
+    private byte[] unweighted;
+    private byte[] gzipped;
+
+    @Setup
+    public void setup() throws IOException
+    {
+        weighted = BenchmarkGraphs.edgeList(shape, size, true);
+        unweighted = BenchmarkGraphs.edgeList(shape, size, false);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out))
+        {
+            gzip.write(weighted);
+        }
+        gzipped = out.toByteArray();
+    }
+
+    @Benchmark
+    public Graph readUndirectedUnweighted()
+    {
+        return Graph.readUndirectedUnweightedGraph(new ByteArrayInputStream(unweighted));
+    }
+
+    @Benchmark
+    public Graph readDirectedUnweighted()
+    {
+        return Graph.readDirectedUnweightedGraph(new ByteArrayInputStream(unweighted));
+    }
+
+    @Benchmark
+    public Graph readUndirectedWeighted()
+    {
+        return Graph.readUndirectedWeightedGraph(new ByteArrayInputStream(weighted));
+    }
+
+    @Benchmark
+    public Graph readDirectedWeighted()
+    {
+        return Graph.readDirectedWeightedGraph(new ByteArrayInputStream(weighted));
+    }
+
+    @Benchmark
+    public Graph pipelinedUndirectedUnweighted() throws IOException
+    {
+        return new PipelinedLoader(false, false).load(new ByteArrayInputStream(unweighted));
+    }
+
+    @Benchmark
+    public Graph pipelinedDirectedUnweighted() throws IOException
+    {
+        return new PipelinedLoader(true, false).load(new ByteArrayInputStream(unweighted));
+    }
+
+    @Benchmark
+    public Graph pipelinedUndirectedWeighted() throws IOException
+    {
+        return new PipelinedLoader(false, true).load(new ByteArrayInputStream(weighted));
+    }
+
+    @Benchmark
+    public Graph pipelinedDirectedWeighted() throws IOException
+    {
+        return new PipelinedLoader(true, true).load(new ByteArrayInputStream(weighted));
+    }
+
+    @Benchmark
+    public Graph readUndirectedWeightedGzip() throws IOException
+    {
+        return Graph.readUndirectedWeightedGraph(new GZIPInputStream(new ByteArrayInputStream(gzipped)));
+    }
+
+    @Benchmark
+    public Graph pipelinedUndirectedWeightedGzip() throws IOException
+    {
+        return new PipelinedLoader(false, true).load(new ByteArrayInputStream(gzipped));
+    }
+}
@@ -0,0 +1,56 @@
+package graphlib;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parallel Boruvka against sequential Kruskal, by thread count.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MstBenchmark
+{
+    @Param({"1000000"})
+    public int size;
+
+    @Param({"rmat", "road"})
+    public String shape;
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    private CompactGraph graph;
+
+    @Setup
+    public void setup()
+    {
+        graph = BenchmarkGraphs.undirectedWeighted(shape, size).getCompactGraph();
+    }
+
+    @Benchmark
+    public SpanningForest boruvka()
+    {
+        return MinimumSpanningForest.boruvka(graph, threads);
+    }
+
+    @Benchmark
+    public SpanningForest kruskal()
+    {
+        return MinimumSpanningForest.kruskal(graph);
+    }
+}
@@ -0,0 +1,89 @@
+package graphlib;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Expiring 1% of the nodes of a graph, plus as many edge changes, one call
+ * at a time against one {@link MutationBatch}. Each call gets a fresh copy
+ * of the graph.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MutationBenchmark
+{
+    @Param({"100000"})
+    public int size;
+
+    @Param({"rmat", "road"})
+    public String shape;
+
+    private Graph graph;
+    private String[] expired;
+    private String[] edgeSources;
+    private String[] edgeTargets;
+
+    @Setup(Level.Iteration)
+    public void setup()
+    {
+        graph = BenchmarkGraphs.undirectedWeighted(shape, size);
+        Random random = new Random(42);
+        int n = graph.getNumNodes();
+        expired = new String[n / 100];
+        edgeSources = new String[n / 100];
+        edgeTargets = new String[n / 100];
+        for (int i = 0; i < expired.length; i++)
+        {
+            expired[i] = graph.getNodeName(random.nextInt(n));
+            edgeSources[i] = graph.getNodeName(random.nextInt(n));
+            edgeTargets[i] = graph.getNodeName(random.nextInt(n));
+        }
+    }
+
+    @Benchmark
+    public Graph oneByOne()
+    {
+        for (int i = 0; i < expired.length; i++)
+        {
+            graph.getOrCreateNode(edgeSources[i]).addUndirectedEdge(graph.getOrCreateNode(edgeTargets[i]), 1.0);
+        }
+        for (String name : expired)
+        {
+            graph.removeNode(name);
+        }
+        return graph;
+    }
+
+    @Benchmark
+    public Graph batch()
+    {
+        MutationBatch batch = new MutationBatch();
+        for (int i = 0; i < expired.length; i++)
+        {
+            batch.addUndirectedEdge(edgeSources[i], edgeTargets[i], 1.0);
+        }
+        for (String name : expired)
+        {
+            batch.removeNode(name);
+        }
+        graph.apply(batch);
+        return graph;
+    }
+}
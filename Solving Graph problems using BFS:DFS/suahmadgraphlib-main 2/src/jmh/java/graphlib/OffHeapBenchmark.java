@@ -0,0 +1,83 @@
+package graphlib;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * BFS and shortest paths over the same graph on the heap, in a
+ * {@link CompactGraph}, and off the heap, in an {@link OffHeapGraph}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OffHeapBenchmark
+{
+    @Param({"100000", "1000000"})
+    public int size;
+
+    @Param({"grid", "rmat"})
+    public String shape;
+
+    private CompactGraph onHeap;
+    private OffHeapGraph offHeap;
+    private int start;
+    private int count;
+
+    @Setup
+    public void setup()
+    {
+        Graph graph = BenchmarkGraphs.undirectedWeighted(shape, size);
+        start = graph.getNodeId(BenchmarkGraphs.hub(graph));
+        onHeap = graph.getCompactGraph();
+        offHeap = OffHeapGraph.copyOf(onHeap);
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        offHeap.close();
+    }
+
+    @Benchmark
+    public int bfsOnHeap()
+    {
+        count = 0;
+        onHeap.bfs(start, node -> count++);
+        return count;
+    }
+
+    @Benchmark
+    public int bfsOffHeap()
+    {
+        count = 0;
+        offHeap.bfs(start, node -> count++);
+        return count;
+    }
+
+    @Benchmark
+    public ShortestPaths shortestPathsOnHeap()
+    {
+        return onHeap.shortestPaths(start);
+    }
+
+    @Benchmark
+    public ShortestPaths shortestPathsOffHeap()
+    {
+        return offHeap.shortestPaths(start);
+    }
+}
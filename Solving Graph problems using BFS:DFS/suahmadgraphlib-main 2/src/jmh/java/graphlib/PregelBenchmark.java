@@ -0,0 +1,68 @@
+package graphlib;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import graphlib.pregel.ConnectedComponents;
+import graphlib.pregel.PageRank;
+import graphlib.pregel.PregelEngine;
+
+/**
+ * Scaling of the reference vertex programs with the number of worker
+ * threads.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PregelBenchmark
+{
+    @Param({"1000000"})
+    public int size;
+
+    @Param({"rmat", "road"})
+    public String shape;
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    private PregelEngine engine;
+
+    @Setup
+    public void setup()
+    {
+        engine = new PregelEngine(BenchmarkGraphs.undirectedWeighted(shape, size).getCompactGraph(), threads);
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        engine.close();
+    }
+
+    @Benchmark
+    public double[] pageRank()
+    {
+        return PageRank.run(engine, 0.85, 10);
+    }
+
+    @Benchmark
+    public int[] connectedComponents()
+    {
+        return ConnectedComponents.run(engine);
+    }
+}
@@ -0,0 +1,92 @@
+package graphlib;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Answering <code>queries</code> reachability queries from distinct sources
+ * with one batched multi-source traversal, against one BFS per query.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QueryBatchingBenchmark
+{
+    @Param({"1000000"})
+    public int size;
+
+    @Param({"rmat", "road"})
+    public String shape;
+
+    @Param({"1", "8", "64"})
+    public int queries;
+
+    private CompactGraph graph;
+    private TraversalBatcher batcher;
+    private TraversalBatcher.Scratch scratch = new TraversalBatcher.Scratch();
+    private int[] sources;
+    private int[] targets;
+
+    @Setup
+    public void setup()
+    {
+        graph = BenchmarkGraphs.undirectedWeighted(shape, size).getCompactGraph();
+        batcher = new TraversalBatcher(graph, 1, TraversalBatcher.MAX_SOURCES);
+        batcher.close();
+        sources = new int[queries];
+        targets = new int[queries];
+        java.util.SplittableRandom random = new java.util.SplittableRandom(42);
+        for (int i = 0; i < queries; i++)
+        {
+            sources[i] = random.nextInt(graph.getNumNodes());
+            targets[i] = random.nextInt(graph.getNumNodes());
+        }
+    }
+
+    @Benchmark
+    public int batched()
+    {
+        List<TraversalBatcher.Query> batch = new ArrayList<>();
+        for (int i = 0; i < queries; i++)
+        {
+            batch.add(TraversalBatcher.Query.reachable(sources[i], targets[i]));
+        }
+        batcher.run(graph, batch, scratch);
+        int reached = 0;
+        for (TraversalBatcher.Query query : batch)
+        {
+            reached += query.hops >= 0 ? 1 : 0;
+        }
+        return reached;
+    }
+
+    @Benchmark
+    public int oneBfsPerQuery()
+    {
+        int reached = 0;
+        for (int i = 0; i < queries; i++)
+        {
+            int target = targets[i];
+            boolean[] found = new boolean[1];
+            graph.bfs(sources[i], node -> found[0] |= node == target);
+            reached += found[0] ? 1 : 0;
+        }
+        return reached;
+    }
+}
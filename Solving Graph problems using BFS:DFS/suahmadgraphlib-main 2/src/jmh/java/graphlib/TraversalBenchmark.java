@@ -0,0 +1,115 @@
+package graphlib;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Full traversals from one start node, through every traversal entry point
+ * of {@link Graph}, plus {@link Graph#getNumComponents()}.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TraversalBenchmark
+{
+    @Param({"1000", "100000"})
+    public int size;
+
+    @Param({"grid", "random", "rmat", "road", "star"})
+    public String shape;
+
+    private Graph graph;
+    private String start;
+    private int startId;
+
+    static class CountingVisitor implements NodeVisitor, IntNodeVisitor
+    {
+        private int count = 0;
+
+        public void visit(Node node)
+        {
+            count += 1;
+        }
+
+        public void visit(int nodeId)
+        {
+            count += 1;
+        }
+    }
+
+    @Setup
+    public void setup()
+    {
+        graph = BenchmarkGraphs.undirectedWeighted(shape, size);
+        start = BenchmarkGraphs.hub(graph);
+        startId = graph.getNodeId(start);
+    }
+
+    @Benchmark
+    public int bfs()
+    {
+        CountingVisitor visitor = new CountingVisitor();
+        graph.bfs(start, (NodeVisitor) visitor);
+        return visitor.count;
+    }
+
+    @Benchmark
+    public int dfs()
+    {
+        CountingVisitor visitor = new CountingVisitor();
+        graph.dfs(start, (NodeVisitor) visitor);
+        return visitor.count;
+    }
+
+    @Benchmark
+    public int bfs2()
+    {
+        CountingVisitor visitor = new CountingVisitor();
+        graph.bfs2(start, visitor);
+        return visitor.count;
+    }
+
+    @Benchmark
+    public int dfs2()
+    {
+        CountingVisitor visitor = new CountingVisitor();
+        graph.dfs2(start, visitor);
+        return visitor.count;
+    }
+
+    @Benchmark
+    public int bfsIds()
+    {
+        CountingVisitor visitor = new CountingVisitor();
+        graph.bfs(startId, (IntNodeVisitor) visitor);
+        return visitor.count;
+    }
+
+    @Benchmark
+    public int dfsIds()
+    {
+        CountingVisitor visitor = new CountingVisitor();
+        graph.dfs(startId, (IntNodeVisitor) visitor);
+        return visitor.count;
+    }
+
+    @Benchmark
+    public int numComponents()
+    {
+        return graph.getNumComponents();
+    }
+}
@@ -0,0 +1,73 @@
+package graphlib;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Triangle counting by thread count, against nested hash probes through the
+ * Node API.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TriangleBenchmark
+{
+    @Param({"100000"})
+    public int size;
+
+    @Param({"rmat", "road"})
+    public String shape;
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    private Graph graph;
+    private CompactGraph compact;
+
+    @Setup
+    public void setup()
+    {
+        graph = BenchmarkGraphs.undirectedWeighted(shape, size);
+        compact = graph.getCompactGraph();
+    }
+
+    @Benchmark
+    public TriangleCount sortedIntersection()
+    {
+        return TriangleCounter.count(compact, threads);
+    }
+
+    @Benchmark
+    public long hashProbes()
+    {
+        long wedgesClosed = 0;
+        for (Node u : graph.getAllNodes())
+        {
+            for (Node v : u.getNeighbors())
+            {
+                for (Node w : u.getNeighbors())
+                {
+                    if (v.getId() < w.getId() && v.hasEdge(w))
+                    {
+                        wedgesClosed++;
+                    }
+                }
+            }
+        }
+        return wedgesClosed / 3;
+    }
+}
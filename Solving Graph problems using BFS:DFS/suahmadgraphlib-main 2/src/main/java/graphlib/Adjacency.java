@@ -0,0 +1,21 @@
+package graphlib;
+
+/**
+ * Read-only adjacency over dense node ids, in compressed sparse row form:
+ * the out-edges of node <code>u</code> are the edge indexes
+ * <code>getFirstEdge(u) .. getEndEdge(u) - 1</code>.
+ */
+public interface Adjacency
+{
+    public int getNumNodes();
+
+    public int getNumEdges();
+
+    public int getFirstEdge(int node);
+
+    public int getEndEdge(int node);
+
+    public int getTarget(int edge);
+
+    public double getWeight(int edge);
+}
@@ -0,0 +1,246 @@
+package graphlib;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Brandes betweenness centrality over a {@link CompactGraph}.
+ *
+ * Each source costs one BFS, or one Dijkstra when weighted, and one sweep
+ * back over the nodes in reverse order of distance. Sources are spread over
+ * threads, and each thread adds into its own score array, which are summed
+ * at the end. Weighted runs need positive edge weights.
+ */
+public class Betweenness
+{
+    private static final int CHUNKS_PER_THREAD = 64;
+
+    private Betweenness()
+    {
+    }
+
+    /**
+     * Sweeps every node as a source.
+     */
+    public static BetweennessCentrality exact(CompactGraph g, boolean weighted, int numThreads)
+    {
+        int[] sources = new int[g.getNumNodes()];
+        for (int i = 0; i < sources.length; i++)
+        {
+            sources[i] = i;
+        }
+        return new BetweennessCentrality(run(g, weighted, sources, numThreads), sources.length);
+    }
+
+    /**
+     * Sweeps <code>numSamples</code> distinct random sources and scales the
+     * scores up by n / numSamples. See
+     * {@link BetweennessCentrality#getErrorBound(double)} and
+     * {@link #samplesFor(int, double, double)}.
+     */
+    public static BetweennessCentrality sample(CompactGraph g, boolean weighted, int numSamples, long seed, int numThreads)
+    {
+        if (numSamples < 1)
+        {
+            throw new IllegalArgumentException("Sample count must be positive: " + numSamples);
+        }
+        int n = g.getNumNodes();
+        int k = Math.min(numSamples, n);
+        // the first k steps of a Fisher-Yates shuffle
+        int[] nodes = new int[n];
+        for (int i = 0; i < n; i++)
+        {
+            nodes[i] = i;
+        }
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int i = 0; i < k; i++)
+        {
+            int j = i + random.nextInt(n - i);
+            int swap = nodes[i];
+            nodes[i] = nodes[j];
+            nodes[j] = swap;
+        }
+        double[] scores = run(g, weighted, Arrays.copyOf(nodes, k), numThreads);
+        double scale = (double) n / k;
+        for (int i = 0; i < n; i++)
+        {
+            scores[i] *= scale;
+        }
+        return new BetweennessCentrality(scores, k);
+    }
+
+    /**
+     * Returns how many sources {@link #sample} needs so that, with
+     * probability at least <code>1 - delta</code>, every score is within
+     * <code>epsilon * n * (n - 2)</code> of the exact one.
+     */
+    public static int samplesFor(int numNodes, double epsilon, double delta)
+    {
+        double k = Math.ceil(Math.log(2.0 * numNodes / delta) / (2 * epsilon * epsilon));
+        return (int) Math.min(k, Integer.MAX_VALUE);
+    }
+
+    private static double[] run(CompactGraph g, boolean weighted, int[] sources, int numThreads)
+    {
+        int n = g.getNumNodes();
+        // one per worker, created by the worker that uses it
+        Workspace[] workspaces = new Workspace[numThreads];
+        int numChunks = Math.min(sources.length, numThreads * CHUNKS_PER_THREAD);
+        ExecutorService pool = ParallelChunks.newPool(numThreads, "graphlib-betweenness");
+        try
+        {
+            ParallelChunks.forEach(pool, numThreads, numChunks, sources.length, (worker, start, end) ->
+            {
+                if (workspaces[worker] == null)
+                {
+                    workspaces[worker] = new Workspace(n, weighted);
+                }
+                Workspace workspace = workspaces[worker];
+                for (int i = start; i < end; i++)
+                {
+                    workspace.sweep(g, sources[i]);
+                }
+            });
+        }
+        finally
+        {
+            if (pool != null)
+            {
+                pool.shutdown();
+            }
+        }
+        double[] scores = new double[n];
+        for (Workspace workspace : workspaces)
+        {
+            if (workspace == null)
+            {
+                continue;
+            }
+            for (int i = 0; i < n; i++)
+            {
+                scores[i] += workspace.scores[i];
+            }
+        }
+        return scores;
+    }
+
+    /**
+     * One thread's arrays. Only the entries of nodes reached by a sweep are
+     * touched, and they are reset at its end.
+     */
+    private static class Workspace
+    {
+        double[] scores;
+        double[] distance;
+        double[] sigma;
+        double[] delta;
+        // nodes in the order they were settled; also the BFS queue
+        int[] order;
+        IndexedMinHeap heap;
+
+        Workspace(int n, boolean weighted)
+        {
+            scores = new double[n];
+            distance = new double[n];
+            sigma = new double[n];
+            delta = new double[n];
+            order = new int[n];
+            Arrays.fill(distance, Double.POSITIVE_INFINITY);
+            heap = weighted ? new IndexedMinHeap(n) : null;
+        }
+
+        void sweep(CompactGraph g, int source)
+        {
+            int settled = heap == null ? bfs(g, source) : dijkstra(g, source);
+            for (int i = settled - 1; i >= 0; i--)
+            {
+                int v = order[i];
+                double sum = 0;
+                for (int e = g.getFirstEdge(v); e < g.getEndEdge(v); e++)
+                {
+                    int w = g.getTarget(e);
+                    // w follows v on a shortest path, so its delta is final
+                    if (distance[w] == distance[v] + length(g, e))
+                    {
+                        sum += (1 + delta[w]) / sigma[w];
+                    }
+                }
+                delta[v] = sigma[v] * sum;
+                if (v != source)
+                {
+                    scores[v] += delta[v];
+                }
+            }
+            for (int i = 0; i < settled; i++)
+            {
+                int v = order[i];
+                distance[v] = Double.POSITIVE_INFINITY;
+                sigma[v] = 0;
+                delta[v] = 0;
+            }
+        }
+
+        private double length(CompactGraph g, int edge)
+        {
+            return heap == null ? 1 : g.getWeight(edge);
+        }
+
+        private int bfs(CompactGraph g, int source)
+        {
+            int head = 0;
+            int tail = 0;
+            distance[source] = 0;
+            sigma[source] = 1;
+            order[tail++] = source;
+            while (head < tail)
+            {
+                int v = order[head++];
+                double next = distance[v] + 1;
+                for (int e = g.getFirstEdge(v); e < g.getEndEdge(v); e++)
+                {
+                    int w = g.getTarget(e);
+                    if (distance[w] == Double.POSITIVE_INFINITY)
+                    {
+                        distance[w] = next;
+                        order[tail++] = w;
+                    }
+                    if (distance[w] == next)
+                    {
+                        sigma[w] += sigma[v];
+                    }
+                }
+            }
+            return tail;
+        }
+
+        private int dijkstra(CompactGraph g, int source)
+        {
+            int settled = 0;
+            distance[source] = 0;
+            sigma[source] = 1;
+            heap.insertOrDecrease(source, 0);
+            while (!heap.isEmpty())
+            {
+                int v = heap.removeMin();
+                order[settled++] = v;
+                for (int e = g.getFirstEdge(v); e < g.getEndEdge(v); e++)
+                {
+                    int w = g.getTarget(e);
+                    double candidate = distance[v] + g.getWeight(e);
+                    if (candidate < distance[w])
+                    {
+                        distance[w] = candidate;
+                        sigma[w] = sigma[v];
+                        heap.insertOrDecrease(w, candidate);
+                    }
+                    else if (candidate == distance[w])
+                    {
+                        sigma[w] += sigma[v];
+                    }
+                }
+            }
+            return settled;
+        }
+    }
+}
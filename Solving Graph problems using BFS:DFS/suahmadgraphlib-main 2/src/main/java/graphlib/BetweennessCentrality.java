@@ -0,0 +1,93 @@
+package graphlib;
+
+/**
+ * Betweenness scores of every node: the number of shortest paths between
+ * ordered pairs of other nodes that pass through it, with pairs joined by
+ * several shortest paths counted fractionally. On an undirected graph, where
+ * each edge is stored both ways, every unordered pair counts twice.
+ */
+public class BetweennessCentrality
+{
+    private double[] scores;
+    private int numSources;
+
+    BetweennessCentrality(double[] scores, int numSources)
+    {
+        this.scores = scores;
+        this.numSources = numSources;
+    }
+
+    public double getScore(int node)
+    {
+        return scores[node];
+    }
+
+    public double[] getScores()
+    {
+        return scores.clone();
+    }
+
+    /**
+     * Returns the number of sources swept, which is the number of nodes for
+     * an exact result.
+     */
+    public int getNumSources()
+    {
+        return numSources;
+    }
+
+    public boolean isExact()
+    {
+        return numSources == scores.length;
+    }
+
+    /**
+     * Returns an error bound that holds for all nodes at once with
+     * probability at least <code>1 - delta</code>, or 0 for an exact result.
+     *
+     * A single source adds between 0 and n - 2 to a node's score, so by
+     * Hoeffding's bound over k sources, and a union bound over the n nodes,
+     * every estimate is within n (n - 2) sqrt(ln(2n / delta) / 2k).
+     */
+    public double getErrorBound(double delta)
+    {
+        if (isExact())
+        {
+            return 0;
+        }
+        int n = scores.length;
+        return (double) n * (n - 2) * Math.sqrt(Math.log(2.0 * n / delta) / (2.0 * numSources));
+    }
+
+    /**
+     * Returns the <code>k</code> highest scoring nodes, highest first.
+     */
+    public int[] getTopNodes(int k)
+    {
+        k = Math.min(k, scores.length);
+        if (k <= 0)
+        {
+            return new int[0];
+        }
+        // a min-heap of the k best so far
+        IndexedMinHeap heap = new IndexedMinHeap(scores.length);
+        for (int node = 0; node < scores.length; node++)
+        {
+            if (heap.size() < k)
+            {
+                heap.insertOrDecrease(node, scores[node]);
+            }
+            else if (scores[node] > heap.getKey(heap.peekMin()))
+            {
+                heap.removeMin();
+                heap.insertOrDecrease(node, scores[node]);
+            }
+        }
+        int[] top = new int[k];
+        for (int i = k - 1; i >= 0; i--)
+        {
+            top[i] = heap.removeMin();
+        }
+        return top;
+    }
+}
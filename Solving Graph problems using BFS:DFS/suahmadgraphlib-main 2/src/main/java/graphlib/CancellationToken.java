@@ -0,0 +1,20 @@
+package graphlib;
+
+/**
+ * Lets one thread stop operations running on others. Pass it in a
+ * {@link WorkLimit}; one token can stop any number of operations.
+ */
+public class CancellationToken
+{
+    private volatile boolean cancelled;
+
+    public void cancel()
+    {
+        cancelled = true;
+    }
+
+    public boolean isCancelled()
+    {
+        return cancelled;
+    }
+}
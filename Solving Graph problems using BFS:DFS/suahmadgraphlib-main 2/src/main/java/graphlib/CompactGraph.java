@@ -0,0 +1,348 @@
+package graphlib;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Immutable compressed sparse row (CSR) snapshot of a graph over dense node ids.
+ *
+ * The out-edges of node <code>u</code> are the edge indexes
+ * <code>getFirstEdge(u) .. getEndEdge(u) - 1</code>, and each edge index gives
+ * a target node id and a weight. Nothing here allocates, so loops over a
+ * CompactGraph are safe to use on hot paths.
+ */
+public class CompactGraph implements Adjacency
+{
+    final int[] offsets;
+    final int[] targets;
+    final double[] weights;
+    private TraversalScratch scratch = new TraversalScratch();
+
+    CompactGraph(int[] offsets, int[] targets, double[] weights)
+    {
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+    }
+
+    /**
+     * Builds a snapshot of the given nodes, where each node sits at the index
+     * of its id.
+     */
+    static CompactGraph fromNodes(List<Node> nodeList)
+    {
+        int numNodes = nodeList.size();
+        int[] offsets = new int[numNodes + 1];
+        for (int i = 0; i < numNodes; i++)
+        {
+            offsets[i + 1] = offsets[i] + nodeList.get(i).getDegree();
+        }
+        int[] targets = new int[offsets[numNodes]];
+        double[] weights = new double[offsets[numNodes]];
+        for (int i = 0; i < numNodes; i++)
+        {
+            Node node = nodeList.get(i);
+            for (int j = 0; j < node.getDegree(); j++)
+            {
+                targets[offsets[i] + j] = node.getNeighbor(j).getId();
+                weights[offsets[i] + j] = node.getWeightAt(j);
+            }
+        }
+        return new CompactGraph(offsets, targets, weights);
+    }
+
+    public int getNumNodes()
+    {
+        return offsets.length - 1;
+    }
+
+    public int getNumEdges()
+    {
+        return targets.length;
+    }
+
+    public int getDegree(int node)
+    {
+        return offsets[node + 1] - offsets[node];
+    }
+
+    public int getFirstEdge(int node)
+    {
+        return offsets[node];
+    }
+
+    public int getEndEdge(int node)
+    {
+        return offsets[node + 1];
+    }
+
+    public int getTarget(int edge)
+    {
+        return targets[edge];
+    }
+
+    public double getWeight(int edge)
+    {
+        return weights[edge];
+    }
+
+    void checkNode(int id)
+    {
+        if (id < 0 || id >= getNumNodes())
+        {
+            throw new IllegalArgumentException("Node id " + id + " not found");
+        }
+    }
+
+    /**
+     * Breadth-first traversal from <code>startId</code>. Reuses its work
+     * arrays between calls, so it does not allocate once warmed up.
+     */
+    public void bfs(int startId, IntNodeVisitor visitor)
+    {
+        checkNode(startId);
+        bfs(startId, visitor, null, null);
+    }
+
+    /**
+     * Depth-first traversal from <code>startId</code>, in the same order as
+     * {@link Graph#dfs(String, NodeVisitor)}.
+     */
+    public void dfs(int startId, IntNodeVisitor visitor)
+    {
+        checkNode(startId);
+        dfs(startId, visitor, null, null);
+    }
+
+    /**
+     * {@link #bfs(int, IntNodeVisitor)} under a {@link WorkLimit}. If it
+     * stops early, the visitor has seen a prefix of the full visit order.
+     */
+    public WorkStatus bfs(int startId, IntNodeVisitor visitor, WorkLimit limit)
+    {
+        checkNode(startId);
+        WorkMeter meter = limit.start();
+        bfs(startId, visitor, null, meter);
+        return meter.getStatus();
+    }
+
+    /**
+     * {@link #dfs(int, IntNodeVisitor)} under a {@link WorkLimit}. If it
+     * stops early, the visitor has seen a prefix of the full visit order.
+     */
+    public WorkStatus dfs(int startId, IntNodeVisitor visitor, WorkLimit limit)
+    {
+        checkNode(startId);
+        WorkMeter meter = limit.start();
+        dfs(startId, visitor, null, meter);
+        return meter.getStatus();
+    }
+
+    /**
+     * The traversals behind the public methods. <code>counters</code> and
+     * <code>meter</code> may be null.
+     */
+    void bfs(int startId, IntNodeVisitor visitor, TraversalCounters counters, WorkMeter meter)
+    {
+        TraversalScratch work = scratch.acquire(getNumNodes(), getNumNodes());
+        int visited = 0;
+        long edgesScanned = 0;
+        int maxQueue = 0;
+        try
+        {
+            int[] queue = work.buffer;
+            int[] marks = work.marks;
+            int epoch = work.getEpoch();
+            int head = 0;
+            int tail = 0;
+            marks[startId] = epoch;
+            queue[tail++] = startId;
+            while (head < tail)
+            {
+                if (meter != null && meter.shouldStop(edgesScanned))
+                {
+                    break;
+                }
+                maxQueue = Math.max(maxQueue, tail - head);
+                int node = queue[head++];
+                visitor.visit(node);
+                visited++;
+                edgesScanned += offsets[node + 1] - offsets[node];
+                for (int e = offsets[node]; e < offsets[node + 1]; e++)
+                {
+                    int neighbor = targets[e];
+                    if (marks[neighbor] != epoch)
+                    {
+                        // mark when queued, so each node is queued only once
+                        marks[neighbor] = epoch;
+                        queue[tail++] = neighbor;
+                    }
+                }
+            }
+        }
+        finally
+        {
+            work.release();
+        }
+        if (counters != null)
+        {
+            counters.visited = visited;
+            counters.edgesScanned = edgesScanned;
+            counters.maxFrontier = maxQueue;
+        }
+    }
+
+    void dfs(int startId, IntNodeVisitor visitor, TraversalCounters counters, WorkMeter meter)
+    {
+        // every push follows an edge scan, so the stack never exceeds E + 1
+        TraversalScratch work = scratch.acquire(getNumNodes(), getNumEdges() + 1);
+        int visited = 0;
+        long edgesScanned = 0;
+        long duplicates = 0;
+        int maxStack = 0;
+        try
+        {
+            int[] stack = work.buffer;
+            int[] marks = work.marks;
+            int epoch = work.getEpoch();
+            int top = 0;
+            stack[top++] = startId;
+            while (top > 0)
+            {
+                if (meter != null && meter.shouldStop(edgesScanned))
+                {
+                    break;
+                }
+                maxStack = Math.max(maxStack, top);
+                int node = stack[--top];
+                if (marks[node] == epoch)
+                {
+                    // skip nodes we have already visited
+                    duplicates++;
+                    continue;
+                }
+                visitor.visit(node);
+                marks[node] = epoch;
+                visited++;
+                edgesScanned += offsets[node + 1] - offsets[node];
+                for (int e = offsets[node]; e < offsets[node + 1]; e++)
+                {
+                    int neighbor = targets[e];
+                    if (marks[neighbor] != epoch)
+                    {
+                        stack[top++] = neighbor;
+                    }
+                }
+            }
+        }
+        finally
+        {
+            work.release();
+        }
+        if (counters != null)
+        {
+            counters.visited = visited;
+            counters.edgesScanned = edgesScanned;
+            counters.duplicates = duplicates;
+            counters.maxFrontier = maxStack;
+        }
+    }
+
+    /**
+     * Single-source shortest paths over this snapshot.
+     */
+    public ShortestPaths shortestPaths(int startId)
+    {
+        checkNode(startId);
+        return ShortestPaths.compute(this, startId, 0);
+    }
+
+    /**
+     * {@link #shortestPaths(int)} under a {@link WorkLimit}. A partial
+     * result holds the nodes settled before it stopped, with their exact
+     * distances and paths; every other node is unreachable in it.
+     */
+    public PartialResult<ShortestPaths> shortestPaths(int startId, WorkLimit limit)
+    {
+        checkNode(startId);
+        WorkMeter meter = limit.start();
+        ShortestPaths paths = ShortestPaths.compute(this, startId, 0, meter);
+        return new PartialResult<>(paths, meter.getStatus(), paths.edgesScanned);
+    }
+
+    /**
+     * Returns a copy of this graph with node <code>u</code> renamed to
+     * <code>permutation.getNewId(u)</code>. Each neighbor list of the copy is
+     * sorted by new id, so that scanning it walks memory forwards.
+     */
+    public CompactGraph permute(Permutation permutation)
+    {
+        int n = getNumNodes();
+        if (permutation.size() != n)
+        {
+            throw new IllegalArgumentException("Permutation has " + permutation.size() + " ids, graph has " + n + " nodes");
+        }
+        int[] newOffsets = new int[n + 1];
+        for (int newId = 0; newId < n; newId++)
+        {
+            newOffsets[newId + 1] = newOffsets[newId] + getDegree(permutation.getOldId(newId));
+        }
+        int[] newTargets = new int[targets.length];
+        double[] newWeights = new double[weights.length];
+        long[] sortKeys = new long[0];
+        for (int newId = 0; newId < n; newId++)
+        {
+            int oldId = permutation.getOldId(newId);
+            int degree = getDegree(oldId);
+            if (sortKeys.length < degree)
+            {
+                sortKeys = new long[Math.max(degree, sortKeys.length * 2)];
+            }
+            // sort (new target, edge) pairs packed into longs
+            for (int i = 0; i < degree; i++)
+            {
+                int edge = offsets[oldId] + i;
+                sortKeys[i] = ((long) permutation.getNewId(targets[edge]) << 32) | edge;
+            }
+            Arrays.sort(sortKeys, 0, degree);
+            int out = newOffsets[newId];
+            for (int i = 0; i < degree; i++)
+            {
+                int edge = (int) sortKeys[i];
+                newTargets[out + i] = (int) (sortKeys[i] >>> 32);
+                newWeights[out + i] = weights[edge];
+            }
+        }
+        return new CompactGraph(newOffsets, newTargets, newWeights);
+    }
+
+    /**
+     * Returns the graph with every edge reversed.
+     */
+    public CompactGraph transpose()
+    {
+        int n = getNumNodes();
+        int[] newOffsets = new int[n + 1];
+        for (int e = 0; e < targets.length; e++)
+        {
+            newOffsets[targets[e] + 1]++;
+        }
+        for (int u = 0; u < n; u++)
+        {
+            newOffsets[u + 1] += newOffsets[u];
+        }
+        int[] next = Arrays.copyOf(newOffsets, n);
+        int[] newTargets = new int[targets.length];
+        double[] newWeights = new double[weights.length];
+        for (int u = 0; u < n; u++)
+        {
+            for (int e = offsets[u]; e < offsets[u + 1]; e++)
+            {
+                int slot = next[targets[e]]++;
+                newTargets[slot] = u;
+                newWeights[slot] = weights[e];
+            }
+        }
+        return new CompactGraph(newOffsets, newTargets, newWeights);
+    }
+}
@@ -0,0 +1,348 @@
+package graphlib;
+
+import java.util.Arrays;
+
+/**
+ * Unweighted adjacency lists compressed the way WebGraph does it, for
+ * graphs whose neighbors have nearby ids, e.g. after
+ * {@link GraphReordering}.
+ *
+ * Each node's sorted neighbor list is one record in a byte array, made of
+ * variable-length integers (7 bits per byte):
+ * <ul>
+ * <li>the out-degree, times <code>window + 1</code> plus the distance back
+ * to a reference node within the window, or 0 for none, so that small
+ * lists still fit in one byte;</li>
+ * <li>with a reference, copy blocks: alternating lengths of runs of the
+ * reference's list to copy and to skip;</li>
+ * <li>the remaining neighbors as gaps: the first relative to the node
+ * itself, zig-zag encoded since it can be negative, and each next one as
+ * the distance to the previous neighbor minus one.</li>
+ * </ul>
+ * Records start at known offsets, so any node's list can be decoded on its
+ * own. References are at most <code>maxRefCount</code> deep, which bounds
+ * the cost of decoding a list.
+ */
+public class CompressedGraph
+{
+    public static final int DEFAULT_WINDOW = 7;
+    public static final int DEFAULT_MAX_REF_COUNT = 3;
+
+    final byte[] data;
+    final int[] offsets;
+    final int window;
+    final int maxRefCount;
+    private int numEdges;
+    private int maxDegree;
+    private int referencedNodes;
+
+    private CompressedGraph(byte[] data, int[] offsets, int window, int maxRefCount)
+    {
+        this.data = data;
+        this.offsets = offsets;
+        this.window = window;
+        this.maxRefCount = maxRefCount;
+    }
+
+    /**
+     * Compresses the graph with the default window and reference depth.
+     */
+    public static CompressedGraph compress(Adjacency g)
+    {
+        return compress(g, DEFAULT_WINDOW, DEFAULT_MAX_REF_COUNT);
+    }
+
+    /**
+     * Compresses the graph, trying the previous <code>window</code> nodes as
+     * references for each list. A window of 0 turns reference compression
+     * off. Weights and parallel edges are dropped.
+     */
+    public static CompressedGraph compress(Adjacency g, int window, int maxRefCount)
+    {
+        if (window < 0 || maxRefCount < 0)
+        {
+            throw new IllegalArgumentException("Window and reference count must not be negative");
+        }
+        int n = g.getNumNodes();
+        int[][] lists = new int[window + 1][];
+        int[] refCounts = new int[n];
+        ByteSink out = new ByteSink(Math.max(16, g.getNumEdges()));
+        ByteSink candidate = new ByteSink(16);
+        ByteSink best = new ByteSink(16);
+        int[] offsets = new int[n + 1];
+        int numEdges = 0;
+        int maxDegree = 0;
+        int referencedNodes = 0;
+        for (int u = 0; u < n; u++)
+        {
+            int[] list = sortedTargets(g, u);
+            lists[u % (window + 1)] = list;
+            numEdges += list.length;
+            maxDegree = Math.max(maxDegree, list.length);
+
+            best.size = 0;
+            encode(u, list, null, 0, window, best);
+            int bestRef = 0;
+            for (int delta = 1; delta <= window && delta <= u; delta++)
+            {
+                if (refCounts[u - delta] >= maxRefCount || list.length == 0)
+                {
+                    continue;
+                }
+                candidate.size = 0;
+                encode(u, list, lists[(u - delta) % (window + 1)], delta, window, candidate);
+                if (candidate.size < best.size)
+                {
+                    ByteSink swap = best;
+                    best = candidate;
+                    candidate = swap;
+                    bestRef = delta;
+                }
+            }
+            if (bestRef > 0)
+            {
+                refCounts[u] = refCounts[u - bestRef] + 1;
+                referencedNodes++;
+            }
+            out.write(best.bytes, best.size);
+            offsets[u + 1] = out.size;
+        }
+        CompressedGraph compressed = new CompressedGraph(Arrays.copyOf(out.bytes, out.size), offsets, window, maxRefCount);
+        compressed.numEdges = numEdges;
+        compressed.maxDegree = maxDegree;
+        compressed.referencedNodes = referencedNodes;
+        return compressed;
+    }
+
+    private static int[] sortedTargets(Adjacency g, int u)
+    {
+        int[] list = new int[g.getEndEdge(u) - g.getFirstEdge(u)];
+        for (int e = g.getFirstEdge(u), i = 0; e < g.getEndEdge(u); e++, i++)
+        {
+            list[i] = g.getTarget(e);
+        }
+        Arrays.sort(list);
+        int size = 0;
+        for (int i = 0; i < list.length; i++)
+        {
+            if (size == 0 || list[size - 1] != list[i])
+            {
+                list[size++] = list[i];
+            }
+        }
+        return size == list.length ? list : Arrays.copyOf(list, size);
+    }
+
+    /**
+     * Encodes one record. <code>ref</code> is the list of the node
+     * <code>refDelta</code> back, or null for no reference.
+     */
+    private static void encode(int u, int[] list, int[] ref, int refDelta, int window, ByteSink out)
+    {
+        out.writeVarint(list.length * (window + 1) + refDelta);
+        int residualCount = list.length;
+        boolean[] copied = null;
+        if (ref != null)
+        {
+            // mark which entries of the reference list are also ours
+            copied = new boolean[list.length];
+            boolean[] inList = new boolean[ref.length];
+            for (int i = 0, j = 0; i < ref.length && j < list.length; )
+            {
+                if (ref[i] < list[j])
+                {
+                    i++;
+                }
+                else if (ref[i] > list[j])
+                {
+                    j++;
+                }
+                else
+                {
+                    inList[i++] = true;
+                    copied[j++] = true;
+                    residualCount--;
+                }
+            }
+            // alternating copy and skip runs, starting with copy; the last
+            // run is implied by whether the block count is even
+            int[] runs = new int[ref.length + 1];
+            int numRuns = 0;
+            boolean copying = true;
+            int run = 0;
+            for (int i = 0; i < ref.length; i++)
+            {
+                if (inList[i] != copying)
+                {
+                    runs[numRuns++] = run;
+                    copying = !copying;
+                    run = 0;
+                }
+                run++;
+            }
+            out.writeVarint(numRuns);
+            for (int i = 0; i < numRuns; i++)
+            {
+                out.writeVarint(runs[i]);
+            }
+        }
+        int previous = -1;
+        for (int j = 0; j < list.length; j++)
+        {
+            if (copied != null && copied[j])
+            {
+                continue;
+            }
+            if (previous < 0)
+            {
+                int gap = list[j] - u;
+                out.writeVarint((gap << 1) ^ (gap >> 31));
+            }
+            else
+            {
+                out.writeVarint(list[j] - previous - 1);
+            }
+            previous = list[j];
+        }
+    }
+
+    public int getNumNodes()
+    {
+        return offsets.length - 1;
+    }
+
+    public int getNumEdges()
+    {
+        return numEdges;
+    }
+
+    public int getMaxDegree()
+    {
+        return maxDegree;
+    }
+
+    public int getDegree(int node)
+    {
+        int value = 0;
+        for (int pos = offsets[node], shift = 0; ; pos++, shift += 7)
+        {
+            byte b = data[pos];
+            value |= (b & 0x7F) << shift;
+            if (b >= 0)
+            {
+                return value / (window + 1);
+            }
+        }
+    }
+
+    /**
+     * Returns how many nodes are encoded relative to a reference node.
+     */
+    public int getReferencedNodes()
+    {
+        return referencedNodes;
+    }
+
+    /**
+     * Returns the bits per edge of the encoded lists alone.
+     */
+    public double getBitsPerEdge()
+    {
+        return numEdges == 0 ? 0.0 : 8.0 * data.length / numEdges;
+    }
+
+    /**
+     * Returns the bits per edge including the int offset of each record.
+     */
+    public double getBitsPerEdgeWithOffsets()
+    {
+        return numEdges == 0 ? 0.0 : 8.0 * getSizeInBytes() / numEdges;
+    }
+
+    public long getSizeInBytes()
+    {
+        return data.length + 4L * offsets.length;
+    }
+
+    /**
+     * Returns a cursor for decoding neighbor lists. A cursor is not thread
+     * safe, but several cursors may read the same graph.
+     */
+    public NeighborCursor newCursor()
+    {
+        return new NeighborCursor(this);
+    }
+
+    /**
+     * Breadth-first traversal from <code>startId</code>, visiting neighbors in
+     * increasing id order.
+     */
+    public void bfs(int startId, IntNodeVisitor visitor)
+    {
+        if (startId < 0 || startId >= getNumNodes())
+        {
+            throw new IllegalArgumentException("Node id " + startId + " not found");
+        }
+        NeighborCursor cursor = newCursor();
+        int n = getNumNodes();
+        int[] queue = new int[n];
+        boolean[] marked = new boolean[n];
+        int head = 0;
+        int tail = 0;
+        marked[startId] = true;
+        queue[tail++] = startId;
+        while (head < tail)
+        {
+            int node = queue[head++];
+            visitor.visit(node);
+            cursor.reset(node);
+            while (cursor.hasNext())
+            {
+                int neighbor = cursor.next();
+                if (!marked[neighbor])
+                {
+                    marked[neighbor] = true;
+                    queue[tail++] = neighbor;
+                }
+            }
+        }
+    }
+
+    /**
+     * Growable byte buffer for the encoder.
+     */
+    private static class ByteSink
+    {
+        byte[] bytes;
+        int size;
+
+        ByteSink(int capacity)
+        {
+            bytes = new byte[capacity];
+        }
+
+        void writeVarint(int value)
+        {
+            if (size + 5 > bytes.length)
+            {
+                bytes = Arrays.copyOf(bytes, bytes.length * 2 + 5);
+            }
+            while ((value & ~0x7F) != 0)
+            {
+                bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        void write(byte[] source, int length)
+        {
+            if (size + length > bytes.length)
+            {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + length));
+            }
+            System.arraycopy(source, 0, bytes, size, length);
+            size += length;
+        }
+    }
+}
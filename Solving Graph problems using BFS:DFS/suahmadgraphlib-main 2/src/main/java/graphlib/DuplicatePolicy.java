@@ -0,0 +1,26 @@
+package graphlib;
+
+/**
+ * Which weight {@link GraphBuilder} keeps when the same edge is added more
+ * than once.
+ */
+public enum DuplicatePolicy
+{
+    MIN,
+    MAX,
+    // the weight added last, as repeated Node.addDirectedEdge calls would leave it
+    LAST;
+
+    double merge(double kept, double added)
+    {
+        switch (this)
+        {
+            case MIN:
+                return Math.min(kept, added);
+            case MAX:
+                return Math.max(kept, added);
+            default:
+                return added;
+        }
+    }
+}
@@ -0,0 +1,374 @@
+package graphlib;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Shortest-path trees from a set of tracked sources that are repaired in
+ * place when edge weights change, in the style of Ramalingam and Reps,
+ * instead of rerunning Dijkstra.
+ *
+ * When an edge gets cheaper, a Dijkstra search starts from its head and
+ * stops where distances no longer improve. When a tree edge gets dearer,
+ * only the subtree below it can change: those nodes are cut off, seeded
+ * with their best distance through an in-edge from outside the subtree,
+ * and settled with a Dijkstra search confined to them. Either way the work
+ * is proportional to the nodes whose distance changes and their edges.
+ *
+ * Weights must be changed through {@link #setWeight(String, String, double)}
+ * so the trees can follow. Any other change to the graph, seen through its
+ * {@link Graph#getVersion() version}, makes the next call recompute every
+ * tree from scratch.
+ */
+public class DynamicShortestPaths
+{
+    private Graph graph;
+    private int version;
+    private Map<Integer, Tree> trees = new LinkedHashMap<>();
+    // in-neighbors of each node, for repairing after an increase
+    private int[][] inEdges;
+    private int[] inDegrees;
+
+    private IndexedMinHeap heap;
+    private int[] marks;
+    private int epoch;
+    private int[] stack;
+    private int[] cut;
+
+    private long repairs;
+    private long recomputes;
+    private int lastAffected;
+
+    /**
+     * The distances and predecessors from one source.
+     */
+    private static class Tree
+    {
+        int source;
+        double[] distances;
+        int[] predecessors;
+    }
+
+    public DynamicShortestPaths(Graph graph)
+    {
+        this.graph = graph;
+        rebuild();
+    }
+
+    /**
+     * Starts tracking shortest paths from <code>sourceName</code>, with one
+     * Dijkstra run.
+     */
+    public void track(String sourceName)
+    {
+        int source = nodeId(sourceName);
+        checkVersion();
+        if (!trees.containsKey(source))
+        {
+            trees.put(source, compute(source));
+        }
+    }
+
+    public void untrack(String sourceName)
+    {
+        trees.remove(nodeId(sourceName));
+    }
+
+    private int nodeId(String name)
+    {
+        int id = graph.getNodeId(name);
+        if (id < 0)
+        {
+            throw new IllegalArgumentException("Node " + name + " not found");
+        }
+        return id;
+    }
+
+    /**
+     * Sets the weight of the edge from <code>fromName</code> to
+     * <code>toName</code>, adding it if needed, and repairs every tracked
+     * tree.
+     */
+    public void setWeight(String fromName, String toName, double weight)
+    {
+        if (weight < 0 || Double.isNaN(weight))
+        {
+            throw new IllegalArgumentException("Weight must not be negative: " + weight);
+        }
+        int from = nodeId(fromName);
+        int to = nodeId(toName);
+        checkVersion();
+        lastAffected = 0;
+        update(from, to, weight);
+        repairs++;
+    }
+
+    /**
+     * Sets the weight of the edge in both directions, as for a road in an
+     * undirected graph.
+     */
+    public void setUndirectedWeight(String aName, String bName, double weight)
+    {
+        if (weight < 0 || Double.isNaN(weight))
+        {
+            throw new IllegalArgumentException("Weight must not be negative: " + weight);
+        }
+        int a = nodeId(aName);
+        int b = nodeId(bName);
+        checkVersion();
+        lastAffected = 0;
+        update(a, b, weight);
+        update(b, a, weight);
+        repairs++;
+    }
+
+    private void update(int from, int to, double weight)
+    {
+        Node fromNode = graph.getNode(from);
+        Node toNode = graph.getNode(to);
+        boolean existed = fromNode.hasEdge(toNode);
+        double oldWeight = existed ? fromNode.getWeight(toNode) : Double.POSITIVE_INFINITY;
+        fromNode.addDirectedEdge(toNode, weight);
+        version = graph.getVersion();
+        if (!existed)
+        {
+            addInEdge(to, from);
+        }
+        for (Tree tree : trees.values())
+        {
+            if (weight < oldWeight)
+            {
+                decreased(tree, from, to, weight);
+            }
+            else if (weight > oldWeight)
+            {
+                increased(tree, from, to);
+            }
+        }
+    }
+
+    public double getDistance(String sourceName, String targetName)
+    {
+        return tree(sourceName).distances[nodeId(targetName)];
+    }
+
+    /**
+     * Returns the predecessor of the target on its shortest path from the
+     * source, or -1 if it is the source or unreachable.
+     */
+    public int getPredecessor(String sourceName, String targetName)
+    {
+        return tree(sourceName).predecessors[nodeId(targetName)];
+    }
+
+    /**
+     * Returns a copy of the current tree from the source.
+     */
+    public ShortestPaths getShortestPaths(String sourceName)
+    {
+        Tree tree = tree(sourceName);
+        return new ShortestPaths(tree.source, version, tree.distances.clone(), tree.predecessors.clone());
+    }
+
+    private Tree tree(String sourceName)
+    {
+        int source = nodeId(sourceName);
+        checkVersion();
+        Tree tree = trees.get(source);
+        if (tree == null)
+        {
+            throw new IllegalArgumentException("Source " + sourceName + " is not tracked");
+        }
+        return tree;
+    }
+
+    /**
+     * Returns how many weight changes were repaired incrementally.
+     */
+    public long getRepairs()
+    {
+        return repairs;
+    }
+
+    /**
+     * Returns how many times the trees were recomputed because the graph
+     * changed behind our back.
+     */
+    public long getRecomputes()
+    {
+        return recomputes;
+    }
+
+    /**
+     * Returns how many nodes the last weight change touched, summed over
+     * the tracked trees.
+     */
+    public int getLastAffected()
+    {
+        return lastAffected;
+    }
+
+    private void checkVersion()
+    {
+        if (graph.getVersion() != version)
+        {
+            rebuild();
+            for (Map.Entry<Integer, Tree> entry : trees.entrySet())
+            {
+                entry.setValue(compute(entry.getKey()));
+            }
+            recomputes++;
+        }
+    }
+
+    private void rebuild()
+    {
+        int n = graph.getNumNodes();
+        version = graph.getVersion();
+        inEdges = new int[n][];
+        inDegrees = new int[n];
+        for (int u = 0; u < n; u++)
+        {
+            Node node = graph.getNode(u);
+            for (int i = 0; i < node.getDegree(); i++)
+            {
+                addInEdge(node.getNeighbor(i).getId(), u);
+            }
+        }
+        heap = new IndexedMinHeap(n);
+        marks = new int[n];
+        epoch = 0;
+        stack = new int[n];
+        cut = new int[n];
+    }
+
+    private void addInEdge(int to, int from)
+    {
+        int[] list = inEdges[to];
+        if (list == null)
+        {
+            list = inEdges[to] = new int[2];
+        }
+        else if (inDegrees[to] == list.length)
+        {
+            list = inEdges[to] = Arrays.copyOf(list, list.length * 2);
+        }
+        list[inDegrees[to]++] = from;
+    }
+
+    private Tree compute(int source)
+    {
+        ShortestPaths paths = ShortestPaths.compute(graph.getCompactGraph(), source, version);
+        Tree tree = new Tree();
+        tree.source = source;
+        tree.distances = new double[graph.getNumNodes()];
+        tree.predecessors = new int[graph.getNumNodes()];
+        for (int u = 0; u < tree.distances.length; u++)
+        {
+            tree.distances[u] = paths.getDistance(u);
+            tree.predecessors[u] = paths.getPredecessor(u);
+        }
+        return tree;
+    }
+
+    private void decreased(Tree tree, int from, int to, double weight)
+    {
+        double distance = tree.distances[from] + weight;
+        if (distance < tree.distances[to])
+        {
+            tree.distances[to] = distance;
+            tree.predecessors[to] = from;
+            heap.insertOrDecrease(to, distance);
+            settle(tree);
+        }
+    }
+
+    private void increased(Tree tree, int from, int to)
+    {
+        if (tree.predecessors[to] != from)
+        {
+            // not a tree edge, so no shortest path used it
+            return;
+        }
+        // cut off the subtree below the edge
+        epoch++;
+        int size = 0;
+        int top = 0;
+        stack[top++] = to;
+        marks[to] = epoch;
+        while (top > 0)
+        {
+            int node = stack[--top];
+            cut[size++] = node;
+            Node nodeObject = graph.getNode(node);
+            for (int i = 0; i < nodeObject.getDegree(); i++)
+            {
+                int id = nodeObject.getNeighbor(i).getId();
+                if (tree.predecessors[id] == node && marks[id] != epoch)
+                {
+                    marks[id] = epoch;
+                    stack[top++] = id;
+                }
+            }
+        }
+        for (int i = 0; i < size; i++)
+        {
+            tree.distances[cut[i]] = Double.POSITIVE_INFINITY;
+            tree.predecessors[cut[i]] = -1;
+        }
+        // seed each cut node with its best way in from outside the subtree
+        for (int i = 0; i < size; i++)
+        {
+            int node = cut[i];
+            Node nodeObject = graph.getNode(node);
+            for (int k = 0; k < inDegrees[node]; k++)
+            {
+                int parent = inEdges[node][k];
+                if (marks[parent] == epoch)
+                {
+                    continue;
+                }
+                double distance = tree.distances[parent] + graph.getNode(parent).getWeight(nodeObject);
+                if (distance < tree.distances[node])
+                {
+                    tree.distances[node] = distance;
+                    tree.predecessors[node] = parent;
+                }
+            }
+            if (tree.distances[node] < Double.POSITIVE_INFINITY)
+            {
+                heap.insertOrDecrease(node, tree.distances[node]);
+            }
+        }
+        lastAffected += size;
+        settle(tree);
+    }
+
+    /**
+     * Runs Dijkstra from the nodes in the heap until it is empty. Only nodes
+     * whose distance improves are queued, so the search stays inside the
+     * affected region.
+     */
+    private void settle(Tree tree)
+    {
+        while (!heap.isEmpty())
+        {
+            int node = heap.removeMin();
+            lastAffected++;
+            Node nodeObject = graph.getNode(node);
+            double distance = tree.distances[node];
+            for (int i = 0; i < nodeObject.getDegree(); i++)
+            {
+                int id = nodeObject.getNeighbor(i).getId();
+                double newDistance = distance + nodeObject.getWeightAt(i);
+                if (newDistance < tree.distances[id])
+                {
+                    tree.distances[id] = newDistance;
+                    tree.predecessors[id] = node;
+                    heap.insertOrDecrease(id, newDistance);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package graphlib;
+
+import java.util.Arrays;
+
+import graphlib.generate.EdgeSink;
+
+/**
+ * Builds a {@link Graph} from edges added in bulk, instead of one
+ * {@link Graph#getOrCreateNode(String)} pair and one neighbor insert per
+ * edge.
+ *
+ * Edges are kept as (source id, target id, weight) triples in flat arrays,
+ * with names mapped to ids by a {@link NameDictionary}, and no Node exists
+ * until {@link #build()}. Building counts every node's degree, lays the
+ * edges out grouped by source, merges parallel edges under the
+ * {@link DuplicatePolicy}, and only then creates each node with its
+ * neighbor and weight arrays sized for its final degree, so they are never
+ * grown. Nodes of high degree still build their lookup index as edges are
+ * added.
+ *
+ * Node ids follow the order in which names are first seen, the same as a
+ * loader calling getOrCreateNode would give them. A builder makes one
+ * graph; it is empty again after {@link #build()}.
+ */
+public class GraphBuilder implements EdgeSink
+{
+    private final boolean directed;
+    private DuplicatePolicy duplicatePolicy = DuplicatePolicy.LAST;
+    private NameDictionary names = new NameDictionary();
+    private int[] sources = new int[1024];
+    private int[] targets = new int[1024];
+    private double[] weights = new double[1024];
+    private int size;
+    // nodes 0 .. numbered - 1 are known to be named by their id
+    private int numbered;
+
+    /**
+     * If <code>directed</code> is false every edge is added both ways.
+     */
+    public GraphBuilder(boolean directed)
+    {
+        this.directed = directed;
+    }
+
+    /**
+     * Sets which weight a repeated edge keeps. Defaults to
+     * {@link DuplicatePolicy#LAST}.
+     */
+    public void setDuplicatePolicy(DuplicatePolicy duplicatePolicy)
+    {
+        this.duplicatePolicy = duplicatePolicy;
+    }
+
+    /**
+     * Reserves room for this many more edges, e.g. when the edge count is
+     * known up front.
+     */
+    public void ensureCapacity(int numEdges)
+    {
+        if (size + numEdges > sources.length)
+        {
+            int capacity = Math.max(size + numEdges, Math.max(1024, sources.length * 2));
+            sources = Arrays.copyOf(sources, capacity);
+            targets = Arrays.copyOf(targets, capacity);
+            weights = Arrays.copyOf(weights, capacity);
+        }
+    }
+
+    /**
+     * Returns the id the node will have in the built graph, adding it if
+     * needed, so that a node without edges is kept too.
+     */
+    public int addNode(String name)
+    {
+        return names.findOrAdd(name);
+    }
+
+    public int getNumNodes()
+    {
+        return names.size();
+    }
+
+    public int getNumEdges()
+    {
+        return size;
+    }
+
+    public void addEdge(String source, String target, double weight)
+    {
+        int sourceId = names.findOrAdd(source);
+        add(sourceId, names.findOrAdd(target), weight);
+    }
+
+    /**
+     * Adds an edge between nodes given by the ids {@link #addNode(String)}
+     * returned.
+     */
+    public void addEdge(int source, int target, double weight)
+    {
+        checkNode(source);
+        checkNode(target);
+        add(source, target, weight);
+    }
+
+    /**
+     * Adds the edges <code>sources[i] -&gt; targets[i]</code> with weight
+     * <code>weights[i]</code>.
+     */
+    public void addEdges(String[] sources, String[] targets, double[] weights)
+    {
+        checkLengths(sources.length, targets.length, weights.length);
+        ensureCapacity(sources.length);
+        for (int i = 0; i < sources.length; i++)
+        {
+            addEdge(sources[i], targets[i], weights[i]);
+        }
+    }
+
+    public void addEdges(int[] sources, int[] targets, double[] weights)
+    {
+        checkLengths(sources.length, targets.length, weights.length);
+        ensureCapacity(sources.length);
+        for (int i = 0; i < sources.length; i++)
+        {
+            addEdge(sources[i], targets[i], weights[i]);
+        }
+    }
+
+    /**
+     * Adds the nodes named <code>0 .. numNodes - 1</code>, each with its
+     * number as its id. This only works while every node added so far is
+     * named by its own id.
+     */
+    public void addNumberedNodes(int numNodes)
+    {
+        for (int id = numbered; id < numNodes; id++)
+        {
+            if (names.findOrAdd(Integer.toString(id)) != id)
+            {
+                throw new IllegalStateException("Node " + id + " was already added under another id");
+            }
+            numbered = id + 1;
+        }
+    }
+
+    /**
+     * Takes edges from a stream of triples, such as a
+     * {@link graphlib.generate.GraphGenerator}, between numbered nodes as
+     * with {@link #addNumberedNodes(int)}.
+     */
+    public void edge(int source, int target, double weight)
+    {
+        addNumberedNodes(Math.max(source, target) + 1);
+        add(source, target, weight);
+    }
+
+    private void add(int source, int target, double weight)
+    {
+        if (size == sources.length)
+        {
+            ensureCapacity(1);
+        }
+        sources[size] = source;
+        targets[size] = target;
+        weights[size] = weight;
+        size++;
+    }
+
+    private void checkNode(int id)
+    {
+        if (id < 0 || id >= names.size())
+        {
+            throw new IllegalArgumentException("Node id " + id + " not found");
+        }
+    }
+
+    private static void checkLengths(int sources, int targets, int weights)
+    {
+        if (sources != targets || sources != weights)
+        {
+            throw new IllegalArgumentException("Edge arrays differ in length: " + sources + ", " + targets + ", " + weights);
+        }
+    }
+
+    public Graph build()
+    {
+        int n = names.size();
+        // count degrees, then place every edge in its source's range, in
+        // the order the edges were added
+        int[] offsets = new int[n + 1];
+        for (int e = 0; e < size; e++)
+        {
+            offsets[sources[e] + 1]++;
+            if (!directed)
+            {
+                offsets[targets[e] + 1]++;
+            }
+        }
+        for (int u = 0; u < n; u++)
+        {
+            offsets[u + 1] += offsets[u];
+        }
+        int[] adjTargets = new int[offsets[n]];
+        double[] adjWeights = new double[offsets[n]];
+        int[] next = Arrays.copyOf(offsets, n);
+        for (int e = 0; e < size; e++)
+        {
+            int slot = next[sources[e]]++;
+            adjTargets[slot] = targets[e];
+            adjWeights[slot] = weights[e];
+            if (!directed)
+            {
+                slot = next[targets[e]]++;
+                adjTargets[slot] = sources[e];
+                adjWeights[slot] = weights[e];
+            }
+        }
+        // the triples are no longer needed, so let them go before the nodes
+        // are allocated
+        sources = new int[0];
+        targets = new int[0];
+        weights = new double[0];
+        size = 0;
+        numbered = 0;
+
+        // merge parallel edges, compacting the ranges in place: owner[t] is
+        // the last source that had an edge to t, at index slotOf[t]
+        int[] owner = new int[n];
+        Arrays.fill(owner, -1);
+        int[] slotOf = new int[n];
+        int write = 0;
+        int start = 0;
+        for (int u = 0; u < n; u++)
+        {
+            int end = offsets[u + 1];
+            offsets[u] = write;
+            for (int e = start; e < end; e++)
+            {
+                int t = adjTargets[e];
+                if (owner[t] == u)
+                {
+                    adjWeights[slotOf[t]] = duplicatePolicy.merge(adjWeights[slotOf[t]], adjWeights[e]);
+                }
+                else
+                {
+                    owner[t] = u;
+                    slotOf[t] = write;
+                    adjTargets[write] = t;
+                    adjWeights[write] = adjWeights[e];
+                    write++;
+                }
+            }
+            start = end;
+        }
+        offsets[n] = write;
+
+        Graph graph = new Graph(names);
+        names = new NameDictionary();
+        for (int u = 0; u < n; u++)
+        {
+            Node node = graph.getNode(u);
+            node.presize(offsets[u + 1] - offsets[u]);
+            for (int e = offsets[u]; e < offsets[u + 1]; e++)
+            {
+                node.putEdge(graph.getNode(adjTargets[e]), adjWeights[e]);
+            }
+        }
+        return graph;
+    }
+}
@@ -0,0 +1,123 @@
+package graphlib;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Opt-in metrics for the traversals of a {@link Graph}. Attach one with
+ * {@link Graph#setMetrics(GraphMetrics)}; while none is attached the
+ * traversals skip the clock reads and recording entirely.
+ *
+ * Every call is aggregated into one histogram per counter and operation,
+ * and {@link #scrape()} renders them in the Prometheus text format. Listeners
+ * see the counters of each individual call, e.g. to log slow queries.
+ */
+public class GraphMetrics
+{
+    static final String[] COUNTERS = {
+        "nodes_visited", "edges_scanned", "duplicate_pushes", "max_frontier",
+        "heap_pushes", "heap_pops", "wall_time_nanoseconds"
+    };
+
+    private Map<String, Histogram[]> histograms = new ConcurrentHashMap<>();
+    private List<Consumer<TraversalStats>> listeners = new CopyOnWriteArrayList<>();
+
+    public void addListener(Consumer<TraversalStats> listener)
+    {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Consumer<TraversalStats> listener)
+    {
+        listeners.remove(listener);
+    }
+
+    public void record(TraversalStats stats)
+    {
+        Histogram[] h = histograms.computeIfAbsent(stats.getOperation(), op -> newHistograms());
+        h[0].record(stats.getNodesVisited());
+        h[1].record(stats.getEdgesScanned());
+        h[2].record(stats.getDuplicatePushes());
+        h[3].record(stats.getMaxFrontier());
+        h[4].record(stats.getHeapPushes());
+        h[5].record(stats.getHeapPops());
+        h[6].record(stats.getWallNanos());
+        for (Consumer<TraversalStats> listener : listeners)
+        {
+            listener.accept(stats);
+        }
+    }
+
+    private static Histogram[] newHistograms()
+    {
+        Histogram[] h = new Histogram[COUNTERS.length];
+        for (int i = 0; i < h.length; i++)
+        {
+            h[i] = new Histogram();
+        }
+        return h;
+    }
+
+    /**
+     * Returns the histogram of one counter (e.g. "edges_scanned") for one
+     * operation (e.g. "bfs"), or null if that operation has not run.
+     */
+    public Histogram getHistogram(String operation, String counter)
+    {
+        Histogram[] h = histograms.get(operation);
+        if (h == null)
+        {
+            return null;
+        }
+        for (int i = 0; i < COUNTERS.length; i++)
+        {
+            if (COUNTERS[i].equals(counter))
+            {
+                return h[i];
+            }
+        }
+        throw new IllegalArgumentException("Unknown counter " + counter);
+    }
+
+    /**
+     * Returns all histograms in the Prometheus text exposition format, with
+     * the operation as a label. Empty buckets above the largest recorded
+     * value are left out.
+     */
+    public String scrape()
+    {
+        // sort by operation so that scrapes are stable
+        Map<String, Histogram[]> sorted = new TreeMap<>(histograms);
+        StringBuilder sb = new StringBuilder();
+        for (int c = 0; c < COUNTERS.length; c++)
+        {
+            String name = "graphlib_" + COUNTERS[c];
+            sb.append("# TYPE ").append(name).append(" histogram\n");
+            for (Map.Entry<String, Histogram[]> entry : sorted.entrySet())
+            {
+                appendHistogram(sb, name, "operation=\"" + entry.getKey() + "\"", entry.getValue()[c]);
+            }
+        }
+        return sb.toString();
+    }
+
+    static void appendHistogram(StringBuilder sb, String name, String labels, Histogram h)
+    {
+        long cumulative = 0;
+        long count = h.getCount();
+        int lastBucket = Histogram.bucketOf(h.getMax());
+        for (int b = 0; b <= lastBucket && b < Histogram.getNumBuckets() - 1; b++)
+        {
+            cumulative += h.getBucketCount(b);
+            sb.append(name).append("_bucket{").append(labels).append(",le=\"").append(Histogram.upperBound(b))
+                .append("\"} ").append(cumulative).append('\n');
+        }
+        sb.append(name).append("_bucket{").append(labels).append(",le=\"+Inf\"} ").append(count).append('\n');
+        sb.append(name).append("_sum{").append(labels).append("} ").append(h.getSum()).append('\n');
+        sb.append(name).append("_count{").append(labels).append("} ").append(count).append('\n');
+    }
+}
@@ -0,0 +1,668 @@
+package graphlib;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * A local HTTP server answering graph queries, on the JDK's built-in HTTP
+ * server and bound to the loopback address. Every endpoint takes GET query
+ * parameters and answers with JSON:
+ * <ul>
+ * <li><code>/reachable?from=A&amp;to=B</code>: whether B can be reached from
+ * A, and in how many hops</li>
+ * <li><code>/khop?from=A&amp;k=2&amp;limit=100</code>: how many nodes are
+ * within k hops of A, and up to <code>limit</code> of them</li>
+ * <li><code>/path?from=A&amp;to=B</code>: the weighted shortest path</li>
+ * <li><code>/component?node=A</code>: the node's connected component and
+ * its size, following edges both ways</li>
+ * <li><code>/metrics</code>: latency and batch size histograms in the
+ * Prometheus text format</li>
+ * </ul>
+ *
+ * Reachability and k-hop queries are batched: concurrent queries share one
+ * multi-source traversal, see {@link TraversalBatcher}. Concurrent path
+ * queries from the same source share one Dijkstra. A query that cannot get
+ * one of the {@link #setMaxConcurrentQueries(int) query permits} within the
+ * {@link #setAdmissionTimeout(long) admission timeout} is turned away with
+ * 503. At most {@link #setMaxWaitingQueries(int) a set number} wait for a
+ * permit at once; the server answers any beyond that 503 straight away, on
+ * its own thread, so that nothing queues without bound. Latencies count
+ * from when the server hands a request over.
+ *
+ * Requests run on virtual threads where the JDK has them (21 and later) and
+ * on a pool of platform threads otherwise. The server answers from a
+ * snapshot of the graph and of its node names, and never reads the graph
+ * itself while serving; call {@link #refresh()} after changing it.
+ */
+public class GraphQueryServer implements Closeable
+{
+    static final String[] ENDPOINTS = {"reachable", "khop", "path", "component"};
+
+    private Graph graph;
+    private volatile Snapshot snapshot;
+    private int maxConcurrent = 4 * Runtime.getRuntime().availableProcessors();
+    private int maxWaiting = 256;
+    private long admissionTimeoutMillis = 100;
+    private int maxBatchSources = TraversalBatcher.MAX_SOURCES;
+    private Semaphore admission;
+    private final ThreadLocal<Long> dispatchTime = new ThreadLocal<>();
+    private HttpServer server;
+    private ExecutorService executor;
+    private TraversalBatcher batcher;
+    private ConcurrentHashMap<Integer, CompletableFuture<ShortestPaths>> pathsInFlight = new ConcurrentHashMap<>();
+    // component labels of the current snapshot, built on first use
+    private int[] components;
+    private int[] componentSizes;
+    private CompactGraph componentsSnapshot;
+    private Map<String, Histogram> latencies = new HashMap<>();
+    private LongAdder rejected = new LongAdder();
+    private LongAdder sharedPaths = new LongAdder();
+
+    public GraphQueryServer(Graph graph)
+    {
+        this.graph = graph;
+        for (String endpoint : ENDPOINTS)
+        {
+            latencies.put(endpoint, new Histogram());
+        }
+    }
+
+    /**
+     * Sets how many queries may run at once. Takes effect on
+     * {@link #start(int)}.
+     */
+    public GraphQueryServer setMaxConcurrentQueries(int maxConcurrent)
+    {
+        if (maxConcurrent < 1)
+        {
+            throw new IllegalArgumentException("Query limit must be positive: " + maxConcurrent);
+        }
+        this.maxConcurrent = maxConcurrent;
+        return this;
+    }
+
+    /**
+     * Sets how many queries may wait for a permit at once. Takes effect on
+     * {@link #start(int)}.
+     */
+    public GraphQueryServer setMaxWaitingQueries(int maxWaiting)
+    {
+        if (maxWaiting < 0)
+        {
+            throw new IllegalArgumentException("Waiting query limit must not be negative: " + maxWaiting);
+        }
+        this.maxWaiting = maxWaiting;
+        return this;
+    }
+
+    /**
+     * Sets how many distinct sources one batched traversal serves, from 1 to
+     * 64. Batching pays on small-world graphs; on road networks and other
+     * graphs with a large diameter, 1 is faster. Takes effect on
+     * {@link #start(int)}.
+     */
+    public GraphQueryServer setMaxBatchSources(int maxBatchSources)
+    {
+        if (maxBatchSources < 1 || maxBatchSources > TraversalBatcher.MAX_SOURCES)
+        {
+            throw new IllegalArgumentException("Batch sources must be between 1 and " + TraversalBatcher.MAX_SOURCES + ": " + maxBatchSources);
+        }
+        this.maxBatchSources = maxBatchSources;
+        return this;
+    }
+
+    /**
+     * Sets how long a query waits for a permit before it is rejected.
+     */
+    public GraphQueryServer setAdmissionTimeout(long millis)
+    {
+        this.admissionTimeoutMillis = millis;
+        return this;
+    }
+
+    /**
+     * Starts serving on the given port of the loopback address, or on a free
+     * port if it is 0; see {@link #getPort()}.
+     */
+    public synchronized GraphQueryServer start(int port) throws IOException
+    {
+        if (server != null)
+        {
+            throw new IllegalStateException("Server already started");
+        }
+        snapshot = new Snapshot(graph);
+        admission = new Semaphore(maxConcurrent, true);
+        batcher = new TraversalBatcher(snapshot.graph, Runtime.getRuntime().availableProcessors(), maxBatchSources);
+        executor = newRequestExecutor();
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.setExecutor(new Dispatcher(maxConcurrent + maxWaiting));
+        server.createContext("/reachable", exchange -> handle(exchange, "reachable", this::reachable));
+        server.createContext("/khop", exchange -> handle(exchange, "khop", this::kHop));
+        server.createContext("/path", exchange -> handle(exchange, "path", this::path));
+        server.createContext("/component", exchange -> handle(exchange, "component", this::component));
+        server.createContext("/metrics", exchange -> send(exchange, 200, "text/plain; version=0.0.4", scrape()));
+        server.start();
+        return this;
+    }
+
+    public int getPort()
+    {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Answers later queries from a new snapshot of the graph. Queries already
+     * running finish on the old one.
+     */
+    public synchronized void refresh()
+    {
+        snapshot = new Snapshot(graph);
+        batcher.setGraph(snapshot.graph);
+    }
+
+    public synchronized void close()
+    {
+        if (server != null)
+        {
+            server.stop(0);
+            batcher.close();
+            executor.shutdownNow();
+            server = null;
+        }
+    }
+
+    /**
+     * Returns the latency histogram of an endpoint, in microseconds.
+     */
+    public Histogram getLatencyHistogram(String endpoint)
+    {
+        Histogram h = latencies.get(endpoint);
+        if (h == null)
+        {
+            throw new IllegalArgumentException("Unknown endpoint " + endpoint);
+        }
+        return h;
+    }
+
+    /**
+     * Returns the number of queries turned away by admission control.
+     */
+    public long getRejectedQueries()
+    {
+        return rejected.sum();
+    }
+
+    /**
+     * Returns the number of traversals run for reachability and k-hop
+     * queries; fewer than the queries when they were batched.
+     */
+    public long getBatchedTraversals()
+    {
+        return batcher.getTraversals();
+    }
+
+    /**
+     * Returns the number of path queries that shared another query's
+     * Dijkstra.
+     */
+    public long getSharedPathQueries()
+    {
+        return sharedPaths.sum();
+    }
+
+    /**
+     * Returns the histograms in the Prometheus text exposition format.
+     */
+    public String scrape()
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append("# TYPE graphlib_query_latency_micros histogram\n");
+        for (Map.Entry<String, Histogram> entry : new TreeMap<>(latencies).entrySet())
+        {
+            GraphMetrics.appendHistogram(sb, "graphlib_query_latency_micros", "endpoint=\"" + entry.getKey() + "\"",
+                entry.getValue());
+        }
+        sb.append("# TYPE graphlib_query_batch_size histogram\n");
+        GraphMetrics.appendHistogram(sb, "graphlib_query_batch_size", "endpoint=\"traversal\"", batcher.getBatchSizes());
+        sb.append("# TYPE graphlib_query_rejected counter\n");
+        sb.append("graphlib_query_rejected ").append(getRejectedQueries()).append('\n');
+        return sb.toString();
+    }
+
+    /**
+     * Uses Executors.newVirtualThreadPerTaskExecutor() when the JDK has it,
+     * and otherwise a thread for each request the Dispatcher lets through.
+     */
+    private ExecutorService newRequestExecutor()
+    {
+        try
+        {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        }
+        catch (ReflectiveOperationException e)
+        {
+            int threads = maxConcurrent + maxWaiting;
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable ->
+                {
+                    Thread thread = new Thread(runnable, "graphlib-query");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            pool.allowCoreThreadTimeOut(true);
+            return pool;
+        }
+    }
+
+    /**
+     * Hands up to <code>slots</code> requests at a time to the request
+     * threads, and runs the rest where the HTTP server dispatches them, with
+     * no dispatch time set so that {@link #handle} turns them away without
+     * waiting.
+     */
+    private final class Dispatcher implements Executor
+    {
+        private final Semaphore slots;
+
+        Dispatcher(int slots)
+        {
+            this.slots = new Semaphore(slots);
+        }
+
+        public void execute(Runnable exchange)
+        {
+            long time = System.nanoTime();
+            if (!slots.tryAcquire())
+            {
+                exchange.run();
+                return;
+            }
+            try
+            {
+                executor.execute(() ->
+                {
+                    dispatchTime.set(time);
+                    try
+                    {
+                        exchange.run();
+                    }
+                    finally
+                    {
+                        dispatchTime.remove();
+                        slots.release();
+                    }
+                });
+            }
+            catch (RejectedExecutionException e)
+            {
+                slots.release();
+                throw e;
+            }
+        }
+    }
+
+    private interface Handler
+    {
+        String handle(Map<String, String> params) throws InterruptedException;
+    }
+
+    /**
+     * The adjacency of the graph with an immutable copy of its names, taken
+     * together so that request threads resolve and render names without
+     * touching the graph's NameDictionary while it may be changing. Ids are
+     * never reused, so a later snapshot only adds names.
+     */
+    private static final class Snapshot
+    {
+        final CompactGraph graph;
+        final String[] names;
+        final Map<String, Integer> ids;
+
+        Snapshot(Graph source)
+        {
+            graph = source.getCompactGraph();
+            names = new String[graph.getNumNodes()];
+            ids = new HashMap<>(names.length * 2);
+            for (int id = 0; id < names.length; id++)
+            {
+                Node node = source.getNode(id);
+                names[id] = node.getName();
+                if (!node.isRemoved())
+                {
+                    ids.put(names[id], id);
+                }
+            }
+        }
+    }
+
+    /**
+     * A query that cannot be answered, with its HTTP status.
+     */
+    private static class QueryException extends RuntimeException
+    {
+        private static final long serialVersionUID = 1L;
+
+        int status;
+
+        QueryException(int status, String message)
+        {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    private void handle(HttpExchange exchange, String endpoint, Handler handler) throws IOException
+    {
+        Long dispatched = dispatchTime.get();
+        long start = dispatched != null ? dispatched : System.nanoTime();
+        int status;
+        String body;
+        try
+        {
+            if (dispatched == null || !admission.tryAcquire(admissionTimeoutMillis, TimeUnit.MILLISECONDS))
+            {
+                rejected.increment();
+                exchange.getResponseHeaders().add("Retry-After", "1");
+                throw new QueryException(503, "Server busy");
+            }
+            try
+            {
+                body = handler.handle(parseQuery(exchange.getRequestURI().getRawQuery()));
+                status = 200;
+            }
+            finally
+            {
+                admission.release();
+            }
+        }
+        catch (QueryException e)
+        {
+            status = e.status;
+            body = "{\"error\":" + json(e.getMessage()) + "}";
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            status = 503;
+            body = "{\"error\":\"Server stopping\"}";
+        }
+        catch (RuntimeException e)
+        {
+            status = 500;
+            body = "{\"error\":" + json(String.valueOf(e)) + "}";
+        }
+        // recorded before the reply goes out, so a client sees its own query
+        latencies.get(endpoint).record((System.nanoTime() - start) / 1000);
+        send(exchange, status, "application/json", body);
+    }
+
+    private static void send(HttpExchange exchange, int status, String contentType, String body) throws IOException
+    {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody())
+        {
+            out.write(bytes);
+        }
+    }
+
+    private String reachable(Map<String, String> params) throws InterruptedException
+    {
+        int from = node(params, "from");
+        int to = node(params, "to");
+        TraversalBatcher.Query query = await(batcher.submit(TraversalBatcher.Query.reachable(from, to)));
+        return "{\"from\":" + json(params.get("from")) + ",\"to\":" + json(params.get("to")) + ",\"reachable\":"
+            + (query.hops >= 0) + ",\"hops\":" + query.hops + "}";
+    }
+
+    private String kHop(Map<String, String> params) throws InterruptedException
+    {
+        int from = node(params, "from");
+        int k = intParam(params, "k", -1);
+        int limit = intParam(params, "limit", 100);
+        if (k < 0 || limit < 0)
+        {
+            throw new QueryException(400, "k and limit must be non-negative");
+        }
+        TraversalBatcher.Query query = await(batcher.submit(TraversalBatcher.Query.kHop(from, k, limit)));
+        // read after the batch ran, so it is at least as new as its graph
+        String[] names = snapshot.names;
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\"from\":").append(json(params.get("from"))).append(",\"k\":").append(k).append(",\"count\":")
+            .append(query.count).append(",\"nodes\":[");
+        for (int i = 0; i < query.nodes.length; i++)
+        {
+            sb.append(i > 0 ? "," : "").append(json(names[query.nodes[i]]));
+        }
+        return sb.append("]}").toString();
+    }
+
+    private String path(Map<String, String> params) throws InterruptedException
+    {
+        int from = node(params, "from");
+        int to = node(params, "to");
+        ShortestPaths paths = await(shortestPaths(from));
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\"from\":").append(json(params.get("from"))).append(",\"to\":").append(json(params.get("to")))
+            .append(",\"distance\":").append(paths.isReachable(to) ? String.valueOf(paths.getDistance(to)) : "null")
+            .append(",\"path\":[");
+        int[] path = paths.getPath(to);
+        String[] names = snapshot.names;
+        for (int i = 0; i < path.length; i++)
+        {
+            sb.append(i > 0 ? "," : "").append(json(names[path[i]]));
+        }
+        return sb.append("]}").toString();
+    }
+
+    /**
+     * Runs a Dijkstra from the source, or joins the one already running.
+     */
+    private CompletableFuture<ShortestPaths> shortestPaths(int source)
+    {
+        CompletableFuture<ShortestPaths> mine = new CompletableFuture<>();
+        CompletableFuture<ShortestPaths> running = pathsInFlight.putIfAbsent(source, mine);
+        if (running != null)
+        {
+            sharedPaths.increment();
+            return running;
+        }
+        try
+        {
+            mine.complete(snapshot.graph.shortestPaths(source));
+        }
+        catch (RuntimeException e)
+        {
+            mine.completeExceptionally(e);
+        }
+        finally
+        {
+            pathsInFlight.remove(source, mine);
+        }
+        return mine;
+    }
+
+    private String component(Map<String, String> params)
+    {
+        int node = node(params, "node");
+        int[] labels;
+        int[] sizes;
+        synchronized (this)
+        {
+            CompactGraph current = snapshot.graph;
+            if (componentsSnapshot != current)
+            {
+                labelComponents(current);
+            }
+            labels = components;
+            sizes = componentSizes;
+        }
+        return "{\"node\":" + json(params.get("node")) + ",\"component\":" + labels[node] + ",\"size\":"
+            + sizes[labels[node]] + "}";
+    }
+
+    /**
+     * Labels weakly connected components with a union-find, numbering them
+     * in order of their first node.
+     */
+    private void labelComponents(CompactGraph g)
+    {
+        int n = g.getNumNodes();
+        int[] parent = new int[n];
+        for (int i = 0; i < n; i++)
+        {
+            parent[i] = i;
+        }
+        for (int u = 0; u < n; u++)
+        {
+            for (int e = g.getFirstEdge(u); e < g.getEndEdge(u); e++)
+            {
+                int a = find(parent, u);
+                int b = find(parent, g.getTarget(e));
+                if (a != b)
+                {
+                    parent[Math.max(a, b)] = Math.min(a, b);
+                }
+            }
+        }
+        int[] labels = new int[n];
+        int[] sizes = new int[n];
+        int count = 0;
+        for (int u = 0; u < n; u++)
+        {
+            int root = find(parent, u);
+            labels[u] = root == u ? count++ : labels[root];
+            sizes[labels[u]]++;
+        }
+        components = labels;
+        componentSizes = sizes;
+        componentsSnapshot = g;
+    }
+
+    private static int find(int[] parent, int node)
+    {
+        while (parent[node] != node)
+        {
+            parent[node] = parent[parent[node]];
+            node = parent[node];
+        }
+        return node;
+    }
+
+    private static <T> T await(CompletableFuture<T> future) throws InterruptedException
+    {
+        try
+        {
+            return future.get();
+        }
+        catch (ExecutionException e)
+        {
+            if (e.getCause() instanceof RuntimeException)
+            {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private int node(Map<String, String> params, String name)
+    {
+        String value = params.get(name);
+        if (value == null)
+        {
+            throw new QueryException(400, "Missing parameter " + name);
+        }
+        Integer id = snapshot.ids.get(value);
+        if (id == null)
+        {
+            throw new QueryException(404, "Node " + value + " not found");
+        }
+        return id;
+    }
+
+    private static int intParam(Map<String, String> params, String name, int defaultValue)
+    {
+        String value = params.get(name);
+        if (value == null)
+        {
+            if (defaultValue < 0)
+            {
+                throw new QueryException(400, "Missing parameter " + name);
+            }
+            return defaultValue;
+        }
+        try
+        {
+            return Integer.parseInt(value);
+        }
+        catch (NumberFormatException e)
+        {
+            throw new QueryException(400, "Parameter " + name + " is not a number: " + value);
+        }
+    }
+
+    static Map<String, String> parseQuery(String query)
+    {
+        Map<String, String> params = new HashMap<>();
+        if (query == null)
+        {
+            return params;
+        }
+        for (String pair : query.split("&"))
+        {
+            int eq = pair.indexOf('=');
+            if (eq > 0)
+            {
+                params.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                    URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return params;
+    }
+
+    static String json(String value)
+    {
+        StringBuilder sb = new StringBuilder("\"");
+        for (int i = 0; i < value.length(); i++)
+        {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\')
+            {
+                sb.append('\\').append(c);
+            }
+            else if (c < 0x20)
+            {
+                sb.append(String.format("\\u%04x", (int) c));
+            }
+            else
+            {
+                sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
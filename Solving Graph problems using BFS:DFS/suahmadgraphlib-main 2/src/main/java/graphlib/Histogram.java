@@ -0,0 +1,95 @@
+package graphlib;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread-safe histogram of non-negative longs with power-of-two buckets:
+ * bucket 0 counts zeros, and bucket i counts values in
+ * <code>(2^(i-2), 2^(i-1)]</code>, so a value <code>v</code> is counted by every
+ * upper bound <code>le >= v</code> in the cumulative view.
+ */
+public class Histogram
+{
+    private static final int NUM_BUCKETS = 65;
+
+    private AtomicLongArray buckets = new AtomicLongArray(NUM_BUCKETS);
+    private LongAdder count = new LongAdder();
+    private LongAdder sum = new LongAdder();
+    private LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    public void record(long value)
+    {
+        if (value < 0)
+        {
+            value = 0;
+        }
+        buckets.incrementAndGet(bucketOf(value));
+        count.increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    static int bucketOf(long value)
+    {
+        return value == 0 ? 0 : 65 - Long.numberOfLeadingZeros(value - 1);
+    }
+
+    /**
+     * Returns the inclusive upper bound of a bucket.
+     */
+    static long upperBound(int bucket)
+    {
+        if (bucket >= NUM_BUCKETS - 1)
+        {
+            return Long.MAX_VALUE;
+        }
+        return bucket == 0 ? 0 : 1L << (bucket - 1);
+    }
+
+    static int getNumBuckets()
+    {
+        return NUM_BUCKETS;
+    }
+
+    long getBucketCount(int bucket)
+    {
+        return buckets.get(bucket);
+    }
+
+    public long getCount()
+    {
+        return count.sum();
+    }
+
+    public long getSum()
+    {
+        return sum.sum();
+    }
+
+    public long getMax()
+    {
+        return max.get();
+    }
+
+    /**
+     * Returns an upper bound on the given quantile (between 0 and 1): the
+     * bucket boundary below which at least that fraction of values fall.
+     */
+    public long getQuantileUpperBound(double quantile)
+    {
+        long total = getCount();
+        long needed = (long) Math.ceil(quantile * total);
+        long seen = 0;
+        for (int i = 0; i < NUM_BUCKETS; i++)
+        {
+            seen += buckets.get(i);
+            if (seen >= needed && seen > 0)
+            {
+                return Math.min(upperBound(i), getMax());
+            }
+        }
+        return getMax();
+    }
+}
@@ -0,0 +1,234 @@
+package graphlib;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * HyperANF: approximate neighborhood function by HyperLogLog counters.
+ *
+ * Every node keeps a HyperLogLog counter of the nodes within distance t of
+ * it along out-edges, starting at t = 0 with just itself. Round t + 1 sets
+ * each counter to the union of its own and its out-neighbors' counters,
+ * which for HyperLogLog is a register-wise max. The sum of the estimates
+ * after round t is the neighborhood function N(t), and once no counter
+ * changes each one estimates the size of its node's reachable set.
+ *
+ * A round is one pass over the edges, so the whole run takes
+ * O(diameter * E) time. Counters hold 2^log2Registers one-byte registers,
+ * packed eight to a long so that a union takes a word-wise max instead of
+ * one compare per register, and two generations of them are kept: that is
+ * 2^(log2Registers + 1) bytes per node. Each estimate has a relative
+ * standard error of about 1.04 / sqrt(2^log2Registers). A round merges
+ * in only the neighbors whose counters changed in the round before, and
+ * copies and re-estimates only the counters that did; its nodes are spread
+ * over threads.
+ */
+public class HyperAnf
+{
+    private static final int CHUNKS_PER_THREAD = 64;
+    private static final long HIGH_BITS = 0x8080808080808080L;
+
+    private HyperAnf()
+    {
+    }
+
+    /**
+     * Runs until no counter changes, or for at most
+     * <code>maxIterations</code> rounds. <code>log2Registers</code> must be
+     * between 4 and 16; the seed picks the hash function.
+     */
+    public static NeighborhoodFunction run(Adjacency g, int log2Registers, int maxIterations, long seed, int numThreads)
+    {
+        if (log2Registers < 4 || log2Registers > 16)
+        {
+            throw new IllegalArgumentException("Register count must be 2^4 .. 2^16: 2^" + log2Registers);
+        }
+        if (maxIterations < 0)
+        {
+            throw new IllegalArgumentException("Iteration count must not be negative: " + maxIterations);
+        }
+        int n = g.getNumNodes();
+        int m = 1 << log2Registers;
+        int words = m / 8;
+        if ((long) n * words > Integer.MAX_VALUE)
+        {
+            throw new IllegalArgumentException("Too many counters: " + n + " nodes of 2^" + log2Registers + " registers");
+        }
+        long[] current = new long[n * words];
+        long[] next = new long[n * words];
+        for (int u = 0; u < n; u++)
+        {
+            long hash = mix(u + seed * 0x9E3779B97F4A7C15L);
+            int register = (int) (hash >>> (64 - log2Registers));
+            // the rank of the first one bit after the register bits
+            int rank = Math.min(Long.numberOfLeadingZeros(hash << log2Registers), 64 - log2Registers) + 1;
+            current[u * words + register / 8] |= (long) rank << (8 * (register % 8));
+        }
+        double[] estimates = new double[n];
+        double[] neighborhood = new double[16];
+        // changed[u] is set if node u's counter grew in the last round
+        boolean[] changed = new boolean[n];
+        boolean[] nextChanged = new boolean[n];
+        Arrays.fill(changed, true);
+        neighborhood[0] = estimateChanged(current, words, changed, estimates);
+
+        int iterations = 0;
+        boolean converged = false;
+        ExecutorService pool = ParallelChunks.newPool(numThreads, "graphlib-hyperanf");
+        try
+        {
+            while (iterations < maxIterations)
+            {
+                AtomicBoolean any = new AtomicBoolean();
+                long[] from = current;
+                long[] to = next;
+                boolean[] fromChanged = changed;
+                boolean[] toChanged = nextChanged;
+                ParallelChunks.forEach(pool, numThreads, numThreads * CHUNKS_PER_THREAD, n, (start, end) ->
+                {
+                    boolean grew = false;
+                    for (int u = start; u < end; u++)
+                    {
+                        int base = u * words;
+                        // the other generation is two rounds old, so it only
+                        // needs catching up if the counter changed last round
+                        if (fromChanged[u])
+                        {
+                            System.arraycopy(from, base, to, base, words);
+                        }
+                        // an unchanged neighbor's counter is already in ours
+                        boolean merged = false;
+                        for (int e = g.getFirstEdge(u); e < g.getEndEdge(u); e++)
+                        {
+                            int v = g.getTarget(e);
+                            if (fromChanged[v])
+                            {
+                                union(to, base, from, v * words, words);
+                                merged = true;
+                            }
+                        }
+                        toChanged[u] = merged && !equal(to, from, base, words);
+                        grew |= toChanged[u];
+                    }
+                    if (grew)
+                    {
+                        any.set(true);
+                    }
+                });
+                current = to;
+                next = from;
+                changed = toChanged;
+                nextChanged = fromChanged;
+                if (!any.get())
+                {
+                    converged = true;
+                    break;
+                }
+                iterations++;
+                if (iterations == neighborhood.length)
+                {
+                    neighborhood = Arrays.copyOf(neighborhood, iterations * 2);
+                }
+                neighborhood[iterations] = estimateChanged(current, words, changed, estimates);
+            }
+        }
+        finally
+        {
+            if (pool != null)
+            {
+                pool.shutdown();
+            }
+        }
+        return new NeighborhoodFunction(Arrays.copyOf(neighborhood, iterations + 1), estimates, converged,
+            1.04 / Math.sqrt(m));
+    }
+
+    /**
+     * Sets <code>a[aStart ..]</code> to the byte-wise max of itself and
+     * <code>b[bStart ..]</code>. Registers stay below 128, so subtracting
+     * them from lanes with the high bit set never borrows across lanes, and
+     * the high bit left in each lane says which side was larger.
+     */
+    private static void union(long[] a, int aStart, long[] b, int bStart, int words)
+    {
+        for (int i = 0; i < words; i++)
+        {
+            long x = a[aStart + i];
+            long y = b[bStart + i];
+            if (x == y)
+            {
+                continue;
+            }
+            long xAtLeastY = (((x | HIGH_BITS) - y) & HIGH_BITS) >>> 7;
+            long mask = xAtLeastY * 0xFF;
+            a[aStart + i] = (x & mask) | (y & ~mask);
+        }
+    }
+
+    private static boolean equal(long[] a, long[] b, int start, int words)
+    {
+        for (int i = start; i < start + words; i++)
+        {
+            if (a[i] != b[i])
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // re-estimates the changed counters and returns the sum of all
+    private static double estimateChanged(long[] counters, int words, boolean[] changed, double[] estimates)
+    {
+        double total = 0;
+        for (int u = 0; u < estimates.length; u++)
+        {
+            if (changed[u])
+            {
+                estimates[u] = estimate(counters, u * words, words);
+            }
+            total += estimates[u];
+        }
+        return total;
+    }
+
+    /**
+     * The HyperLogLog estimate of one counter, with linear counting for
+     * small cardinalities.
+     */
+    static double estimate(long[] counters, int start, int words)
+    {
+        int m = words * 8;
+        double sum = 0;
+        int zeros = 0;
+        for (int i = start; i < start + words; i++)
+        {
+            long word = counters[i];
+            for (int shift = 0; shift < 64; shift += 8)
+            {
+                int register = (int) (word >>> shift) & 0xFF;
+                sum += Double.longBitsToDouble((1023L - register) << 52);
+                if (register == 0)
+                {
+                    zeros++;
+                }
+            }
+        }
+        double alpha = m == 16 ? 0.673 : m == 32 ? 0.697 : m == 64 ? 0.709 : 0.7213 / (1 + 1.079 / m);
+        double raw = alpha * m * m / sum;
+        if (raw <= 2.5 * m && zeros > 0)
+        {
+            return m * Math.log((double) m / zeros);
+        }
+        return raw;
+    }
+
+    // the splitmix64 finalizer
+    private static long mix(long z)
+    {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,167 @@
+package graphlib;
+
+import java.util.Arrays;
+
+/**
+ * Binary min-heap of node ids keyed by a double, with decrease-key. Unlike a
+ * PriorityQueue of Path objects it holds each node at most once and
+ * allocates nothing after construction.
+ */
+class IndexedMinHeap
+{
+    private int[] heap;
+    // position of each node in heap, or -1 if it is not in the heap
+    private int[] positions;
+    private double[] keys;
+    private int size;
+
+    IndexedMinHeap(int capacity)
+    {
+        heap = new int[capacity];
+        positions = new int[capacity];
+        keys = new double[capacity];
+        Arrays.fill(positions, -1);
+    }
+
+    boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    int size()
+    {
+        return size;
+    }
+
+    boolean contains(int node)
+    {
+        return positions[node] >= 0;
+    }
+
+    double getKey(int node)
+    {
+        return keys[node];
+    }
+
+    /**
+     * Inserts the node, or lowers its key if it is already in the heap with
+     * a larger key. Returns false if nothing changed.
+     */
+    boolean insertOrDecrease(int node, double key)
+    {
+        int position = positions[node];
+        if (position < 0)
+        {
+            keys[node] = key;
+            heap[size] = node;
+            positions[node] = size;
+            siftUp(size++);
+            return true;
+        }
+        if (key < keys[node])
+        {
+            keys[node] = key;
+            siftUp(position);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Sets the key of a node in the heap to any value, moving it up or down.
+     */
+    void update(int node, double key)
+    {
+        if (positions[node] < 0)
+        {
+            insertOrDecrease(node, key);
+            return;
+        }
+        double old = keys[node];
+        keys[node] = key;
+        if (key < old)
+        {
+            siftUp(positions[node]);
+        }
+        else
+        {
+            siftDown(positions[node]);
+        }
+    }
+
+    int peekMin()
+    {
+        return heap[0];
+    }
+
+    int removeMin()
+    {
+        int min = heap[0];
+        positions[min] = -1;
+        size--;
+        if (size > 0)
+        {
+            heap[0] = heap[size];
+            positions[heap[0]] = 0;
+            siftDown(0);
+        }
+        return min;
+    }
+
+    void clear()
+    {
+        for (int i = 0; i < size; i++)
+        {
+            positions[heap[i]] = -1;
+        }
+        size = 0;
+    }
+
+    private void siftUp(int position)
+    {
+        int node = heap[position];
+        double key = keys[node];
+        while (position > 0)
+        {
+            int parent = (position - 1) >>> 1;
+            int parentNode = heap[parent];
+            if (keys[parentNode] <= key)
+            {
+                break;
+            }
+            heap[position] = parentNode;
+            positions[parentNode] = position;
+            position = parent;
+        }
+        heap[position] = node;
+        positions[node] = position;
+    }
+
+    private void siftDown(int position)
+    {
+        int node = heap[position];
+        double key = keys[node];
+        while (true)
+        {
+            int child = 2 * position + 1;
+            if (child >= size)
+            {
+                break;
+            }
+            if (child + 1 < size && keys[heap[child + 1]] < keys[heap[child]])
+            {
+                child++;
+            }
+            int childNode = heap[child];
+            if (keys[childNode] >= key)
+            {
+                break;
+            }
+            heap[position] = childNode;
+            positions[childNode] = position;
+            position = child;
+        }
+        heap[position] = node;
+        positions[node] = position;
+    }
+}
@@ -0,0 +1,10 @@
+package graphlib;
+
+/**
+ * Visitor over dense node ids, see {@link Graph#bfs(int, IntNodeVisitor)}.
+ * Use {@link Graph#getNode(int)} to get back to the node itself.
+ */
+public interface IntNodeVisitor
+{
+    public void visit(int nodeId);
+}
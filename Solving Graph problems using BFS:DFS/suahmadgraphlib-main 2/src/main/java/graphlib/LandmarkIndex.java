@@ -0,0 +1,407 @@
+package graphlib;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * ALT (A*, landmarks, triangle inequality) distance oracle for weighted
+ * graphs without coordinates.
+ *
+ * For a few landmarks L the index stores d(L, v) and d(v, L) for every node
+ * v, as floats laid out node by node so that the distances of one node sit
+ * in one or two cache lines. By the triangle inequality
+ * <code>max(d(L, t) - d(L, v), d(v, L) - d(t, L))</code> is a lower bound on
+ * d(v, t), and <code>d(v, L) + d(L, t)</code> is an upper bound. The lower
+ * bound is an admissible and consistent A* heuristic, so
+ * {@link #findPath(int, int)} returns exact shortest paths while settling
+ * far fewer nodes than Dijkstra.
+ *
+ * Bounds are widened by the float rounding error, so they stay valid.
+ * Queries share work arrays and are synchronized.
+ */
+public class LandmarkIndex
+{
+    // relative error of a float, doubled for the two values in a bound
+    private static final double FLOAT_ERROR = 0x1p-23;
+
+    private CompactGraph graph;
+    private int[] landmarks;
+    private int k;
+    // d(landmark i, v) at [v * k + i]
+    private float[] fromLandmark;
+    // d(v, landmark i) at [v * k + i]
+    private float[] toLandmark;
+
+    private IndexedMinHeap heap;
+    private double[] distances;
+    private int[] predecessors;
+    private int[] seen;
+    private int epoch;
+
+    private LandmarkIndex(CompactGraph graph, int k)
+    {
+        this.graph = graph;
+        this.k = k;
+        int n = graph.getNumNodes();
+        this.landmarks = new int[k];
+        this.fromLandmark = new float[n * k];
+        this.toLandmark = new float[n * k];
+    }
+
+    /**
+     * Picks <code>numLandmarks</code> landmarks and runs two Dijkstra sweeps
+     * from each, one on the graph and one on its transpose.
+     */
+    public static LandmarkIndex build(CompactGraph graph, int numLandmarks, LandmarkSelection selection, long seed)
+    {
+        int n = graph.getNumNodes();
+        if (numLandmarks < 1 || numLandmarks > n)
+        {
+            throw new IllegalArgumentException("Landmark count must be in 1.." + n + ": " + numLandmarks);
+        }
+        LandmarkIndex index = new LandmarkIndex(graph, numLandmarks);
+        CompactGraph reverse = graph.transpose();
+        Random random = new Random(seed);
+        for (int i = 0; i < numLandmarks; i++)
+        {
+            int landmark;
+            switch (selection)
+            {
+                case FARTHEST:
+                    landmark = index.farthest(i, random);
+                    break;
+                case AVOID:
+                    landmark = index.avoid(i, random);
+                    break;
+                default:
+                    landmark = index.unused(i, random.nextInt(n));
+                    break;
+            }
+            index.landmarks[i] = landmark;
+            index.store(i, ShortestPaths.compute(graph, landmark, 0), index.fromLandmark);
+            index.store(i, ShortestPaths.compute(reverse, landmark, 0), index.toLandmark);
+        }
+        return index;
+    }
+
+    private void store(int i, ShortestPaths paths, float[] table)
+    {
+        for (int v = 0; v < graph.getNumNodes(); v++)
+        {
+            table[v * k + i] = (float) paths.getDistance(v);
+        }
+    }
+
+    /**
+     * Returns <code>candidate</code>, or the next node after it that is not
+     * a landmark yet.
+     */
+    private int unused(int count, int candidate)
+    {
+        int n = graph.getNumNodes();
+        for (int tries = 0; tries < n; tries++, candidate = (candidate + 1) % n)
+        {
+            boolean used = false;
+            for (int j = 0; j < count; j++)
+            {
+                used |= landmarks[j] == candidate;
+            }
+            if (!used)
+            {
+                return candidate;
+            }
+        }
+        throw new IllegalStateException("No node left for a landmark");
+    }
+
+    private int farthest(int count, Random random)
+    {
+        int n = graph.getNumNodes();
+        if (count == 0)
+        {
+            // farthest from a random start, to land on the periphery
+            ShortestPaths paths = ShortestPaths.compute(graph, random.nextInt(n), 0);
+            return argMax(paths, 0);
+        }
+        double[] nearest = new double[n];
+        Arrays.fill(nearest, Double.POSITIVE_INFINITY);
+        for (int v = 0; v < n; v++)
+        {
+            for (int j = 0; j < count; j++)
+            {
+                float d = fromLandmark[v * k + j];
+                if (d < nearest[v])
+                {
+                    nearest[v] = d;
+                }
+            }
+        }
+        int best = -1;
+        for (int v = 0; v < n; v++)
+        {
+            // unreached nodes are ignored unless nothing else is left
+            double score = nearest[v] == Double.POSITIVE_INFINITY ? -1 : nearest[v];
+            if (score > 0 && (best < 0 || score > nearest[best]))
+            {
+                best = v;
+            }
+        }
+        return best >= 0 ? best : unused(count, random.nextInt(n));
+    }
+
+    private static int argMax(ShortestPaths paths, int fallback)
+    {
+        int best = fallback;
+        double bestDistance = -1;
+        for (int v = 0; v < paths.getNumNodes(); v++)
+        {
+            double d = paths.getDistance(v);
+            if (d != Double.POSITIVE_INFINITY && d > bestDistance)
+            {
+                bestDistance = d;
+                best = v;
+            }
+        }
+        return best;
+    }
+
+    private int avoid(int count, Random random)
+    {
+        int n = graph.getNumNodes();
+        int root = random.nextInt(n);
+        ShortestPaths tree = ShortestPaths.compute(graph, root, 0);
+        if (count == 0)
+        {
+            return argMax(tree, root);
+        }
+        // nodes in decreasing distance, so children come before parents
+        Integer[] order = new Integer[n];
+        for (int v = 0; v < n; v++)
+        {
+            order[v] = v;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(tree.getDistance(b), tree.getDistance(a)));
+        double[] size = new double[n];
+        boolean[] hasLandmark = new boolean[n];
+        for (int j = 0; j < count; j++)
+        {
+            hasLandmark[landmarks[j]] = true;
+        }
+        for (int v : order)
+        {
+            if (!tree.isReachable(v))
+            {
+                continue;
+            }
+            // weight: how far the current bound falls short at v
+            size[v] += tree.getDistance(v) - lowerBound(root, v, count);
+            int parent = tree.getPredecessor(v);
+            if (parent >= 0)
+            {
+                hasLandmark[parent] |= hasLandmark[v];
+                if (!hasLandmark[v])
+                {
+                    size[parent] += size[v];
+                }
+            }
+        }
+        int best = -1;
+        for (int v = 0; v < n; v++)
+        {
+            if (tree.isReachable(v) && !hasLandmark[v] && (best < 0 || size[v] > size[best]))
+            {
+                best = v;
+            }
+        }
+        if (best < 0)
+        {
+            return unused(count, random.nextInt(n));
+        }
+        // walk down to a leaf through the heaviest children
+        int[] heaviestChild = new int[n];
+        Arrays.fill(heaviestChild, -1);
+        for (int v = 0; v < n; v++)
+        {
+            int parent = tree.getPredecessor(v);
+            if (parent >= 0 && !hasLandmark[v]
+                && (heaviestChild[parent] < 0 || size[v] > size[heaviestChild[parent]]))
+            {
+                heaviestChild[parent] = v;
+            }
+        }
+        while (heaviestChild[best] >= 0)
+        {
+            best = heaviestChild[best];
+        }
+        return unused(count, best);
+    }
+
+    public int getNumLandmarks()
+    {
+        return k;
+    }
+
+    public int[] getLandmarks()
+    {
+        return landmarks.clone();
+    }
+
+    /**
+     * Returns the heap taken by the landmark distances.
+     */
+    public long getSizeInBytes()
+    {
+        return 8L * fromLandmark.length;
+    }
+
+    /**
+     * Returns a lower bound on d(source, target), or infinity if the
+     * landmarks prove the target unreachable.
+     */
+    public double lowerBound(int source, int target)
+    {
+        return lowerBound(source, target, k);
+    }
+
+    // uses only the first count landmarks, while they are being picked
+    private double lowerBound(int source, int target, int count)
+    {
+        double best = 0.0;
+        int s = source * k;
+        int t = target * k;
+        for (int i = 0; i < count; i++)
+        {
+            best = Math.max(best, bound(fromLandmark[t + i], fromLandmark[s + i]));
+            best = Math.max(best, bound(toLandmark[s + i], toLandmark[t + i]));
+        }
+        return best;
+    }
+
+    /**
+     * Returns a lower bound on d(x, y) from <code>far = d(a, y)</code> and
+     * <code>near = d(a, x)</code>, or the same with the roles of the
+     * landmark reversed.
+     */
+    private static double bound(float far, float near)
+    {
+        if (near == Float.POSITIVE_INFINITY)
+        {
+            return 0.0;
+        }
+        if (far == Float.POSITIVE_INFINITY)
+        {
+            // reaching y from x would give a path to y through x
+            return Double.POSITIVE_INFINITY;
+        }
+        return (double) far - near - FLOAT_ERROR * ((double) far + near);
+    }
+
+    /**
+     * Returns an upper bound on d(source, target): the shortest detour
+     * through a landmark, or infinity if no landmark connects them.
+     */
+    public double upperBound(int source, int target)
+    {
+        double best = Double.POSITIVE_INFINITY;
+        int s = source * k;
+        int t = target * k;
+        for (int i = 0; i < k; i++)
+        {
+            double through = (double) toLandmark[s + i] + fromLandmark[t + i];
+            best = Math.min(best, through * (1 + FLOAT_ERROR));
+        }
+        return source == target ? 0.0 : best;
+    }
+
+    /**
+     * Finds an exact shortest path with A*, guided by the landmark bounds.
+     */
+    public Route findPath(int source, int target)
+    {
+        return findPath(source, target, 0.0);
+    }
+
+    /**
+     * Finds a path at most <code>1 + epsilon</code> times longer than the
+     * shortest one, by inflating the heuristic. Larger epsilons settle fewer
+     * nodes.
+     */
+    public synchronized Route findPath(int source, int target, double epsilon)
+    {
+        graph.checkNode(source);
+        graph.checkNode(target);
+        if (epsilon < 0)
+        {
+            throw new IllegalArgumentException("Epsilon must not be negative: " + epsilon);
+        }
+        int n = graph.getNumNodes();
+        if (heap == null)
+        {
+            heap = new IndexedMinHeap(n);
+            distances = new double[n];
+            predecessors = new int[n];
+            seen = new int[n];
+        }
+        heap.clear();
+        epoch++;
+        double weight = 1 + epsilon;
+        int settled = 0;
+        if (lowerBound(source, target) != Double.POSITIVE_INFINITY)
+        {
+            reach(source, 0.0, -1);
+            heap.insertOrDecrease(source, weight * lowerBound(source, target));
+        }
+        while (!heap.isEmpty())
+        {
+            int node = heap.removeMin();
+            settled++;
+            if (node == target)
+            {
+                return new Route(distances[target], path(source, target), settled);
+            }
+            double distance = distances[node];
+            for (int e = graph.getFirstEdge(node); e < graph.getEndEdge(node); e++)
+            {
+                int neighbor = graph.getTarget(e);
+                double newDistance = distance + graph.getWeight(e);
+                if (seen[neighbor] != epoch || newDistance < distances[neighbor])
+                {
+                    double h = lowerBound(neighbor, target);
+                    if (h == Double.POSITIVE_INFINITY)
+                    {
+                        continue;
+                    }
+                    reach(neighbor, newDistance, node);
+                    // the heuristic is not consistent: it is inflated by
+                    // 1 + epsilon and its bounds are widened for float
+                    // rounding, so a settled node can still be improved.
+                    // The heap then takes it back and it is settled again
+                    heap.insertOrDecrease(neighbor, newDistance + weight * h);
+                }
+            }
+        }
+        return new Route(Double.POSITIVE_INFINITY, new int[0], settled);
+    }
+
+    private void reach(int node, double distance, int predecessor)
+    {
+        seen[node] = epoch;
+        distances[node] = distance;
+        predecessors[node] = predecessor;
+    }
+
+    private int[] path(int source, int target)
+    {
+        int length = 1;
+        for (int node = target; node != source; node = predecessors[node])
+        {
+            length++;
+        }
+        int[] path = new int[length];
+        for (int i = length - 1, node = target; i >= 0; i--, node = predecessors[node])
+        {
+            path[i] = node;
+        }
+        return path;
+    }
+}
@@ -0,0 +1,18 @@
+package graphlib;
+
+/**
+ * How {@link LandmarkIndex} picks its landmarks.
+ */
+public enum LandmarkSelection
+{
+    /** Uniformly at random. Cheap, and a baseline for the others. */
+    RANDOM,
+    /** Each landmark is the node farthest from the ones already picked. */
+    FARTHEST,
+    /**
+     * Goldberg and Werneck's avoid: grows a shortest-path tree from a random
+     * root and picks a leaf of the subtree where the current landmarks give
+     * the worst lower bounds.
+     */
+    AVOID
+}
@@ -0,0 +1,83 @@
+package graphlib;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Per-stage statistics of one {@link PipelinedLoader} run.
+ */
+public class LoadStats
+{
+    private List<StageStats> stages;
+    private long compressedBytes;
+    private long elapsedNanos;
+
+    LoadStats(long compressedBytes, long elapsedNanos, StageStats... stages)
+    {
+        this.compressedBytes = compressedBytes;
+        this.elapsedNanos = elapsedNanos;
+        this.stages = Collections.unmodifiableList(Arrays.asList(stages));
+    }
+
+    /**
+     * Returns the read, parse and build stages, in pipeline order.
+     */
+    public List<StageStats> getStages()
+    {
+        return stages;
+    }
+
+    public StageStats getStage(String name)
+    {
+        for (StageStats stage : stages)
+        {
+            if (stage.getName().equals(name))
+            {
+                return stage;
+            }
+        }
+        throw new IllegalArgumentException("No stage " + name);
+    }
+
+    /**
+     * Returns the stage that was busy the longest.
+     */
+    public StageStats getBottleneck()
+    {
+        StageStats bottleneck = stages.get(0);
+        for (StageStats stage : stages)
+        {
+            if (stage.getBusyNanos() > bottleneck.getBusyNanos())
+            {
+                bottleneck = stage;
+            }
+        }
+        return bottleneck;
+    }
+
+    /**
+     * Returns the bytes read from the input stream, before decompression.
+     */
+    public long getCompressedBytes()
+    {
+        return compressedBytes;
+    }
+
+    public long getElapsedNanos()
+    {
+        return elapsedNanos;
+    }
+
+    public String toString()
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("load: %.1f MB in, %.1f ms, bottleneck %s\n", compressedBytes / 1e6, elapsedNanos / 1e6,
+            getBottleneck().getName()));
+        for (StageStats stage : stages)
+        {
+            sb.append("  ").append(stage).append('\n');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,310 @@
+package graphlib;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Minimum spanning forests of undirected weighted graphs. Every stored edge
+ * counts as undirected, so a {@link CompactGraph} of an undirected
+ * {@link Graph}, with each edge stored both ways, works as is.
+ *
+ * Equal weights are broken by the smaller and then the larger endpoint id,
+ * which makes the minimum forest unique, so both algorithms return the
+ * same edges.
+ */
+public class MinimumSpanningForest
+{
+    private static final int CHUNKS_PER_THREAD = 16;
+
+    private MinimumSpanningForest()
+    {
+    }
+
+    /**
+     * Sequential Kruskal: sorts the edges and adds each one that joins two
+     * trees, with a union-find. The baseline for {@link #boruvka}.
+     */
+    public static SpanningForest kruskal(CompactGraph g)
+    {
+        int n = g.getNumNodes();
+        int[] sources = edgeSources(g);
+        int[] order = new int[g.getNumEdges()];
+        for (int e = 0; e < order.length; e++)
+        {
+            order[e] = e;
+        }
+        sort(g, sources, order);
+        int[] parent = new int[n];
+        for (int i = 0; i < n; i++)
+        {
+            parent[i] = i;
+        }
+        ForestBuilder forest = new ForestBuilder(n);
+        for (int e : order)
+        {
+            int a = find(parent, sources[e]);
+            int b = find(parent, g.getTarget(e));
+            if (a != b)
+            {
+                parent[a] = b;
+                forest.add(sources[e], g.getTarget(e), g.getWeight(e));
+                if (forest.size == n - 1)
+                {
+                    break;
+                }
+            }
+        }
+        return forest.build();
+    }
+
+    /**
+     * Parallel Boruvka. In each round every component picks its lightest
+     * edge to another component, the picked edges join the forest, and the
+     * components they connect merge, so there are at most log2(n) rounds.
+     * Picking is spread over <code>numThreads</code> threads, which claim
+     * chunks of nodes; merging is sequential, over the components only.
+     */
+    public static SpanningForest boruvka(CompactGraph g, int numThreads)
+    {
+        int n = g.getNumNodes();
+        int[] sources = edgeSources(g);
+        int[] parent = new int[n];
+        // the root of each node's component as of the start of the round
+        int[] component = new int[n];
+        for (int i = 0; i < n; i++)
+        {
+            parent[i] = i;
+            component[i] = i;
+        }
+        AtomicIntegerArray best = new AtomicIntegerArray(n);
+        int[] roots = new int[n];
+        ForestBuilder forest = new ForestBuilder(n);
+        ExecutorService pool = ParallelChunks.newPool(numThreads, "graphlib-boruvka");
+        try
+        {
+            int numChunks = numThreads * CHUNKS_PER_THREAD;
+            while (true)
+            {
+                for (int i = 0; i < n; i++)
+                {
+                    best.setPlain(i, -1);
+                }
+                ParallelChunks.forEach(pool, numThreads, numChunks, n, (start, end) ->
+                {
+                    for (int u = start; u < end; u++)
+                    {
+                        int cu = component[u];
+                        for (int e = g.getFirstEdge(u); e < g.getEndEdge(u); e++)
+                        {
+                            if (component[g.getTarget(e)] != cu)
+                            {
+                                offer(g, sources, best, cu, e);
+                            }
+                        }
+                    }
+                });
+
+                int numRoots = 0;
+                for (int c = 0; c < n; c++)
+                {
+                    if (best.getPlain(c) >= 0)
+                    {
+                        roots[numRoots++] = c;
+                    }
+                }
+                if (numRoots == 0)
+                {
+                    break;
+                }
+                for (int i = 0; i < numRoots; i++)
+                {
+                    int e = best.getPlain(roots[i]);
+                    int a = find(parent, sources[e]);
+                    int b = find(parent, g.getTarget(e));
+                    // two components that picked the same edge add it once
+                    if (a != b)
+                    {
+                        parent[a] = b;
+                        forest.add(sources[e], g.getTarget(e), g.getWeight(e));
+                    }
+                }
+                ParallelChunks.forEach(pool, numThreads, numChunks, n, (start, end) ->
+                {
+                    for (int u = start; u < end; u++)
+                    {
+                        component[u] = root(parent, u);
+                    }
+                });
+            }
+        }
+        finally
+        {
+            if (pool != null)
+            {
+                pool.shutdown();
+            }
+        }
+        return forest.build();
+    }
+
+    /**
+     * Makes <code>e</code> the best edge of component <code>c</code> if it is
+     * lighter than the current one.
+     */
+    private static void offer(CompactGraph g, int[] sources, AtomicIntegerArray best, int c, int e)
+    {
+        int current = best.get(c);
+        while (current < 0 || lighter(g, sources, e, current))
+        {
+            int witness = best.compareAndExchange(c, current, e);
+            if (witness == current)
+            {
+                return;
+            }
+            current = witness;
+        }
+    }
+
+    private static boolean lighter(CompactGraph g, int[] sources, int e, int f)
+    {
+        int compare = Double.compare(g.getWeight(e), g.getWeight(f));
+        if (compare != 0)
+        {
+            return compare < 0;
+        }
+        int eLow = Math.min(sources[e], g.getTarget(e));
+        int fLow = Math.min(sources[f], g.getTarget(f));
+        if (eLow != fLow)
+        {
+            return eLow < fLow;
+        }
+        return Math.max(sources[e], g.getTarget(e)) < Math.max(sources[f], g.getTarget(f));
+    }
+
+    private static int[] edgeSources(CompactGraph g)
+    {
+        int[] sources = new int[g.getNumEdges()];
+        for (int u = 0; u < g.getNumNodes(); u++)
+        {
+            for (int e = g.getFirstEdge(u); e < g.getEndEdge(u); e++)
+            {
+                sources[e] = u;
+            }
+        }
+        return sources;
+    }
+
+    private static int find(int[] parent, int node)
+    {
+        while (parent[node] != node)
+        {
+            parent[node] = parent[parent[node]];
+            node = parent[node];
+        }
+        return node;
+    }
+
+    // like find, but without writing, so threads can share it
+    private static int root(int[] parent, int node)
+    {
+        while (parent[node] != node)
+        {
+            node = parent[node];
+        }
+        return node;
+    }
+
+    /**
+     * Bottom-up merge sort of edge indexes by weight, with the same
+     * tie-breaking as Boruvka. The weights and endpoint keys move along with
+     * the indexes, so comparisons do not chase the edge arrays.
+     */
+    private static void sort(CompactGraph g, int[] sources, int[] order)
+    {
+        int m = order.length;
+        double[] weights = new double[m];
+        long[] ties = new long[m];
+        for (int e = 0; e < m; e++)
+        {
+            weights[e] = g.getWeight(order[e]);
+            int u = sources[order[e]];
+            int v = g.getTarget(order[e]);
+            ties[e] = ((long) Math.min(u, v) << 32) | Math.max(u, v);
+        }
+        int[] fromOrder = order;
+        double[] fromWeights = weights;
+        long[] fromTies = ties;
+        int[] toOrder = new int[m];
+        double[] toWeights = new double[m];
+        long[] toTies = new long[m];
+        for (int width = 1; width < m; width *= 2)
+        {
+            for (int low = 0; low < m; low += 2 * width)
+            {
+                int mid = Math.min(low + width, m);
+                int high = Math.min(low + 2 * width, m);
+                int i = low;
+                int j = mid;
+                for (int k = low; k < high; k++)
+                {
+                    boolean takeLeft = j >= high;
+                    if (!takeLeft && i < mid)
+                    {
+                        int compare = Double.compare(fromWeights[i], fromWeights[j]);
+                        takeLeft = compare < 0 || (compare == 0 && fromTies[i] <= fromTies[j]);
+                    }
+                    int from = takeLeft ? i++ : j++;
+                    toOrder[k] = fromOrder[from];
+                    toWeights[k] = fromWeights[from];
+                    toTies[k] = fromTies[from];
+                }
+            }
+            int[] swapOrder = fromOrder;
+            fromOrder = toOrder;
+            toOrder = swapOrder;
+            double[] swapWeights = fromWeights;
+            fromWeights = toWeights;
+            toWeights = swapWeights;
+            long[] swapTies = fromTies;
+            fromTies = toTies;
+            toTies = swapTies;
+        }
+        if (fromOrder != order)
+        {
+            System.arraycopy(fromOrder, 0, order, 0, m);
+        }
+    }
+
+    private static class ForestBuilder
+    {
+        int numNodes;
+        int[] sources;
+        int[] targets;
+        double[] weights;
+        int size;
+
+        ForestBuilder(int numNodes)
+        {
+            this.numNodes = numNodes;
+            int capacity = Math.max(0, numNodes - 1);
+            sources = new int[capacity];
+            targets = new int[capacity];
+            weights = new double[capacity];
+        }
+
+        void add(int source, int target, double weight)
+        {
+            sources[size] = source;
+            targets[size] = target;
+            weights[size] = weight;
+            size++;
+        }
+
+        SpanningForest build()
+        {
+            return new SpanningForest(numNodes, Arrays.copyOf(sources, size),
+                Arrays.copyOf(targets, size), Arrays.copyOf(weights, size));
+        }
+    }
+}
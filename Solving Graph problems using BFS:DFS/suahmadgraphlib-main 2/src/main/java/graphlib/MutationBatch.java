@@ -0,0 +1,103 @@
+package graphlib;
+
+import java.util.Arrays;
+
+/**
+ * Edge and node additions and removals to apply to a graph together with
+ * {@link Graph#apply(MutationBatch)}.
+ *
+ * The edge changes are grouped by source node, so each adjacency list is
+ * changed once however many of the batch's edges it holds, and the graph's
+ * version moves once for the whole batch. Changes to the same edge take
+ * effect in the order they were added to the batch. Node removals come
+ * after all edge changes, so a batch that removes a node also drops any
+ * edge it adds to that node.
+ */
+public class MutationBatch
+{
+    static final byte ADD = 0;
+    static final byte REMOVE = 1;
+
+    byte[] types = new byte[16];
+    String[] sources = new String[16];
+    String[] targets = new String[16];
+    double[] weights = new double[16];
+    int size;
+    String[] removedNodes = new String[0];
+    int numRemovedNodes;
+
+    public void addDirectedEdge(String source, String target, double weight)
+    {
+        add(ADD, source, target, weight);
+    }
+
+    public void addUndirectedEdge(String a, String b, double weight)
+    {
+        add(ADD, a, b, weight);
+        add(ADD, b, a, weight);
+    }
+
+    public void removeDirectedEdge(String source, String target)
+    {
+        add(REMOVE, source, target, 0);
+    }
+
+    public void removeUndirectedEdge(String a, String b)
+    {
+        add(REMOVE, a, b, 0);
+        add(REMOVE, b, a, 0);
+    }
+
+    /**
+     * Removes the node and all of its edges, both ways. Does nothing if
+     * there is no such node when the batch is applied.
+     */
+    public void removeNode(String name)
+    {
+        if (numRemovedNodes == removedNodes.length)
+        {
+            removedNodes = Arrays.copyOf(removedNodes, Math.max(16, numRemovedNodes * 2));
+        }
+        removedNodes[numRemovedNodes++] = name;
+    }
+
+    /**
+     * Returns the number of directed edge changes, counting an undirected
+     * change twice.
+     */
+    public int getNumEdgeChanges()
+    {
+        return size;
+    }
+
+    public int getNumNodeRemovals()
+    {
+        return numRemovedNodes;
+    }
+
+    public void clear()
+    {
+        Arrays.fill(sources, 0, size, null);
+        Arrays.fill(targets, 0, size, null);
+        Arrays.fill(removedNodes, 0, numRemovedNodes, null);
+        size = 0;
+        numRemovedNodes = 0;
+    }
+
+    private void add(byte type, String source, String target, double weight)
+    {
+        if (size == types.length)
+        {
+            int capacity = size * 2;
+            types = Arrays.copyOf(types, capacity);
+            sources = Arrays.copyOf(sources, capacity);
+            targets = Arrays.copyOf(targets, capacity);
+            weights = Arrays.copyOf(weights, capacity);
+        }
+        types[size] = type;
+        sources[size] = source;
+        targets[size] = target;
+        weights[size] = weight;
+        size++;
+    }
+}
@@ -0,0 +1,29 @@
+package graphlib;
+
+/**
+ * Told about every change to a {@link Graph}, right after it is made, on
+ * the thread that made it. See
+ * {@link Graph#setMutationListener(MutationListener)}.
+ */
+public interface MutationListener
+{
+    /**
+     * Called for a new node, and for a removed node brought back by
+     * {@link Graph#getOrCreateNode(String)}.
+     */
+    public void nodeAdded(Node node);
+
+    /**
+     * Called for every directed edge added or re-weighted, so an undirected
+     * edge comes as two calls.
+     */
+    public void edgeAdded(Node source, Node target, double weight);
+
+    public void edgeRemoved(Node source, Node target);
+
+    /**
+     * Called once the node and all of its edges, both ways, are gone. The
+     * edges are not reported one by one.
+     */
+    public void nodeRemoved(Node node);
+}
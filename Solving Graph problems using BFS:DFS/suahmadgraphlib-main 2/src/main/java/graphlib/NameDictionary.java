@@ -0,0 +1,274 @@
+package graphlib;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Maps node names to dense int ids without keeping a String per name.
+ *
+ * The UTF-8 bytes of all names sit back to back in one byte pool, and an
+ * open-addressing hash table with linear probing maps names to ids. Lookups
+ * by an ASCII String or by a slice of a byte array do not allocate.
+ * {@link #getName(int)} decodes a new String on every call.
+ */
+public class NameDictionary
+{
+    private static final int EMPTY = 0;
+    // the largest array some JVMs will allocate
+    static final int MAX_POOL_SIZE = Integer.MAX_VALUE - 8;
+
+    private byte[] pool = new byte[1024];
+    private int poolSize;
+    // name i is pool[offsets[i] .. offsets[i + 1])
+    private int[] offsets = new int[65];
+    private int[] hashes = new int[64];
+    // id + 1 of the name in each slot, or EMPTY
+    private int[] table = new int[128];
+    private int size;
+
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Returns the id of the name, or -1 if it is not in the dictionary.
+     */
+    public int find(String name)
+    {
+        if (!isAscii(name))
+        {
+            byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+            return find(bytes, 0, bytes.length);
+        }
+        int hash = hashAscii(name);
+        int mask = table.length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask)
+        {
+            int entry = table[slot];
+            if (entry == EMPTY)
+            {
+                return -1;
+            }
+            int id = entry - 1;
+            if (hashes[id] == hash && equalsAscii(id, name))
+            {
+                return id;
+            }
+        }
+    }
+
+    public int find(byte[] bytes, int offset, int length)
+    {
+        int hash = hashBytes(bytes, offset, length);
+        int mask = table.length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask)
+        {
+            int entry = table[slot];
+            if (entry == EMPTY)
+            {
+                return -1;
+            }
+            int id = entry - 1;
+            if (hashes[id] == hash && equalsBytes(id, bytes, offset, length))
+            {
+                return id;
+            }
+        }
+    }
+
+    /**
+     * Returns the id of the name, adding it with the next free id if needed.
+     */
+    public int findOrAdd(String name)
+    {
+        int id = find(name);
+        if (id >= 0)
+        {
+            return id;
+        }
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        return add(bytes, 0, bytes.length, hashBytes(bytes, 0, bytes.length));
+    }
+
+    public int findOrAdd(byte[] bytes, int offset, int length)
+    {
+        int id = find(bytes, offset, length);
+        if (id >= 0)
+        {
+            return id;
+        }
+        return add(bytes, offset, length, hashBytes(bytes, offset, length));
+    }
+
+    private int add(byte[] bytes, int offset, int length, int hash)
+    {
+        if ((long) poolSize + length > pool.length)
+        {
+            pool = Arrays.copyOf(pool, grownPoolSize(pool.length, (long) poolSize + length));
+        }
+        System.arraycopy(bytes, offset, pool, poolSize, length);
+        poolSize += length;
+        if (size + 1 >= hashes.length)
+        {
+            hashes = Arrays.copyOf(hashes, hashes.length * 2);
+            offsets = Arrays.copyOf(offsets, hashes.length + 1);
+        }
+        int id = size++;
+        hashes[id] = hash;
+        offsets[id + 1] = poolSize;
+        // keep the table at most half full
+        if (size * 2 > table.length)
+        {
+            rehash(table.length * 2);
+        }
+        else
+        {
+            insert(id);
+        }
+        return id;
+    }
+
+    /**
+     * Doubles the pool, or grows it to <code>needed</code> bytes if that is
+     * more, but not past {@link #MAX_POOL_SIZE}.
+     */
+    static int grownPoolSize(int current, long needed)
+    {
+        if (needed > MAX_POOL_SIZE)
+        {
+            throw new IllegalStateException("Names take more than " + MAX_POOL_SIZE + " bytes: " + needed);
+        }
+        return (int) Math.min(Math.max(2L * current, needed), MAX_POOL_SIZE);
+    }
+
+    private void insert(int id)
+    {
+        int mask = table.length - 1;
+        int slot = hashes[id] & mask;
+        while (table[slot] != EMPTY)
+        {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = id + 1;
+    }
+
+    private void rehash(int capacity)
+    {
+        table = new int[capacity];
+        for (int id = 0; id < size; id++)
+        {
+            insert(id);
+        }
+    }
+
+    public String getName(int id)
+    {
+        if (id < 0 || id >= size)
+        {
+            throw new IllegalArgumentException("Name id " + id + " not found");
+        }
+        return new String(pool, offsets[id], offsets[id + 1] - offsets[id], StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the heap used by the dictionary, counting array capacity.
+     */
+    public long getSizeInBytes()
+    {
+        return 16L * 4 + pool.length + 4L * (offsets.length + hashes.length + table.length);
+    }
+
+    /**
+     * Estimates the heap a HashMap&lt;String, ?&gt; with the same names would
+     * use on a 64-bit JVM with compressed oops: a 32-byte map entry, a table
+     * slot at the default load factor, and a String with its byte array.
+     */
+    public long getStringMapSizeInBytes()
+    {
+        long total = 0;
+        for (int id = 0; id < size; id++)
+        {
+            int length = offsets[id + 1] - offsets[id];
+            // String object plus byte[] header and contents, 8-byte aligned
+            total += 24 + ((16 + length + 7) & ~7);
+        }
+        long tableSlots = Integer.highestOneBit(Math.max(1, (int) (size / 0.75f)) * 2 - 1);
+        return total + 32L * size + 4 * tableSlots + 16;
+    }
+
+    /**
+     * Returns how many bytes the dictionary saves over String keys, see
+     * {@link #getStringMapSizeInBytes()}.
+     */
+    public long getSavedBytes()
+    {
+        return getStringMapSizeInBytes() - getSizeInBytes();
+    }
+
+    private boolean equalsAscii(int id, String name)
+    {
+        int start = offsets[id];
+        int length = offsets[id + 1] - start;
+        if (length != name.length())
+        {
+            return false;
+        }
+        for (int i = 0; i < length; i++)
+        {
+            if (pool[start + i] != name.charAt(i))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean equalsBytes(int id, byte[] bytes, int offset, int length)
+    {
+        int start = offsets[id];
+        return Arrays.equals(pool, start, offsets[id + 1], bytes, offset, offset + length);
+    }
+
+    private static boolean isAscii(String name)
+    {
+        for (int i = 0; i < name.length(); i++)
+        {
+            if (name.charAt(i) >= 0x80)
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // FNV-1a over the UTF-8 bytes, plus a final mix so that linear probing
+    // sees well spread low bits
+    private static int hashAscii(String name)
+    {
+        int h = 0x811C9DC5;
+        for (int i = 0; i < name.length(); i++)
+        {
+            h = (h ^ name.charAt(i)) * 0x01000193;
+        }
+        return mix(h);
+    }
+
+    private static int hashBytes(byte[] bytes, int offset, int length)
+    {
+        int h = 0x811C9DC5;
+        for (int i = offset; i < offset + length; i++)
+        {
+            h = (h ^ (bytes[i] & 0xFF)) * 0x01000193;
+        }
+        return mix(h);
+    }
+
+    private static int mix(int h)
+    {
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        return h;
+    }
+}
@@ -0,0 +1,154 @@
+package graphlib;
+
+/**
+ * Decodes the neighbor lists of a {@link CompressedGraph}. After
+ * {@link #reset(int)} the neighbors of the node can be read in increasing id
+ * order with {@link #next()}, or by index with {@link #get(int)}. The
+ * decode buffers are reused, so a warmed-up cursor does not allocate.
+ */
+public class NeighborCursor
+{
+    private CompressedGraph graph;
+    // one decoded list per reference depth, plus merge space
+    private int[][] lists;
+    private int[][] copies;
+    private int position;
+    private int[] current;
+    private int size;
+    private int index;
+
+    NeighborCursor(CompressedGraph graph)
+    {
+        this.graph = graph;
+        int levels = graph.window > 0 ? graph.maxRefCount + 1 : 1;
+        int capacity = Math.max(1, graph.getMaxDegree());
+        lists = new int[levels][capacity];
+        copies = new int[levels][capacity];
+    }
+
+    /**
+     * Decodes the neighbors of <code>node</code> and moves to the first one.
+     */
+    public NeighborCursor reset(int node)
+    {
+        if (node < 0 || node >= graph.getNumNodes())
+        {
+            throw new IllegalArgumentException("Node id " + node + " not found");
+        }
+        size = decode(node, 0);
+        current = lists[0];
+        index = 0;
+        return this;
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public boolean hasNext()
+    {
+        return index < size;
+    }
+
+    public int next()
+    {
+        return current[index++];
+    }
+
+    public int get(int i)
+    {
+        if (i < 0 || i >= size)
+        {
+            throw new IndexOutOfBoundsException("Neighbor " + i + " of " + size);
+        }
+        return current[i];
+    }
+
+    private int decode(int node, int level)
+    {
+        byte[] data = graph.data;
+        position = graph.offsets[node];
+        int header = readVarint(data);
+        int degree = header / (graph.window + 1);
+        int refDelta = header % (graph.window + 1);
+        int[] out = lists[level];
+        int copied = 0;
+        if (refDelta > 0)
+        {
+            int saved = position;
+            int refSize = decode(node - refDelta, level + 1);
+            position = saved;
+            int[] ref = lists[level + 1];
+            int[] copy = copies[level];
+            int numRuns = readVarint(data);
+            int i = 0;
+            boolean copying = true;
+            for (int r = 0; r < numRuns; r++)
+            {
+                int run = readVarint(data);
+                if (copying)
+                {
+                    System.arraycopy(ref, i, copy, copied, run);
+                    copied += run;
+                }
+                i += run;
+                copying = !copying;
+            }
+            if (copying)
+            {
+                System.arraycopy(ref, i, copy, copied, refSize - i);
+                copied += refSize - i;
+            }
+        }
+        // read the residuals, then merge them with the copied neighbors
+        int residualCount = degree - copied;
+        int[] residuals = copied == 0 ? out : lists[level + 1];
+        int previous = 0;
+        for (int j = 0; j < residualCount; j++)
+        {
+            int value = readVarint(data);
+            if (j == 0)
+            {
+                previous = node + ((value >>> 1) ^ -(value & 1));
+            }
+            else
+            {
+                previous += value + 1;
+            }
+            residuals[j] = previous;
+        }
+        if (copied > 0)
+        {
+            int[] copy = copies[level];
+            int a = 0;
+            int b = 0;
+            for (int k = 0; k < degree; k++)
+            {
+                if (b >= residualCount || (a < copied && copy[a] < residuals[b]))
+                {
+                    out[k] = copy[a++];
+                }
+                else
+                {
+                    out[k] = residuals[b++];
+                }
+            }
+        }
+        return degree;
+    }
+
+    private int readVarint(byte[] data)
+    {
+        int value = 0;
+        for (int shift = 0; ; shift += 7)
+        {
+            byte b = data[position++];
+            value |= (b & 0x7F) << shift;
+            if (b >= 0)
+            {
+                return value;
+            }
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package graphlib;
+
+/**
+ * The estimates of a {@link HyperAnf} run: the neighborhood function N(t),
+ * the number of ordered pairs (u, v) with v within distance t of u, and the
+ * size of every node's reachable set, counting the node itself.
+ */
+public class NeighborhoodFunction
+{
+    private double[] neighborhood;
+    private double[] reachable;
+    private boolean converged;
+    private double relativeError;
+
+    NeighborhoodFunction(double[] neighborhood, double[] reachable, boolean converged, double relativeError)
+    {
+        this.neighborhood = neighborhood;
+        this.reachable = reachable;
+        this.converged = converged;
+        this.relativeError = relativeError;
+    }
+
+    /**
+     * Returns the number of rounds run, after which N(t) is known for
+     * <code>t = 0 .. getIterations()</code>.
+     */
+    public int getIterations()
+    {
+        return neighborhood.length - 1;
+    }
+
+    /**
+     * Returns false if the run stopped at its iteration limit while counters
+     * were still growing, in which case the reachable set sizes only count
+     * nodes within <code>getIterations()</code> steps.
+     */
+    public boolean isConverged()
+    {
+        return converged;
+    }
+
+    /**
+     * Returns N(t); past the last round this is N(getIterations()).
+     */
+    public double getNeighborhood(int t)
+    {
+        return neighborhood[Math.min(t, neighborhood.length - 1)];
+    }
+
+    public double[] getNeighborhoodFunction()
+    {
+        return neighborhood.clone();
+    }
+
+    public double getReachableSize(int node)
+    {
+        return reachable[node];
+    }
+
+    public double[] getReachableSizes()
+    {
+        return reachable.clone();
+    }
+
+    /**
+     * Returns the relative standard error of each counter's estimate.
+     */
+    public double getRelativeStandardError()
+    {
+        return relativeError;
+    }
+
+    public double getEffectiveDiameter()
+    {
+        return getEffectiveDiameter(0.9);
+    }
+
+    /**
+     * Returns the distance within which the given fraction of all reachable
+     * pairs lie, interpolating linearly between rounds.
+     */
+    public double getEffectiveDiameter(double fraction)
+    {
+        if (fraction <= 0 || fraction > 1)
+        {
+            throw new IllegalArgumentException("Fraction must be in (0, 1]: " + fraction);
+        }
+        double target = fraction * neighborhood[neighborhood.length - 1];
+        if (neighborhood[0] >= target)
+        {
+            return 0;
+        }
+        int t = 1;
+        while (neighborhood[t] < target)
+        {
+            t++;
+        }
+        return t - 1 + (target - neighborhood[t - 1]) / (neighborhood[t] - neighborhood[t - 1]);
+    }
+}
@@ -1,31 +1,311 @@
 package graphlib;
 
+import java.util.AbstractCollection;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.Map;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 
+/**
+ * A named node with weighted out-edges.
+ *
+ * The edges are kept in two parallel arrays, neighbors and their weights,
+ * so a weight is a plain double rather than a boxed Double in a map entry,
+ * and {@link #getNeighbor(int)} and {@link #getWeightAt(int)} read edge i
+ * directly. Up to {@link #LINEAR_SCAN_MAX} neighbors, finding an edge by
+ * its target is a scan of the array; above that an open-addressing table
+ * of positions, hashed by neighbor id, makes it O(1). Removing an edge
+ * moves the last edge into its place, so the order of the edges is the
+ * order they were added in only until the first removal.
+ */
 public class Node
 {
+    static final int LINEAR_SCAN_MAX = 8;
+    private static final Node[] NO_NODES = new Node[0];
+    private static final double[] NO_WEIGHTS = new double[0];
+
     private String name;
-    private Map<Node, Double> neighbors;
+    // edge i goes to neighbors[i] with weight weights[i], for i < degree
+    private Node[] neighbors = NO_NODES;
+    private double[] weights = NO_WEIGHTS;
+    private int degree;
+    // position + 1 of each neighbor, by hash, or null below LINEAR_SCAN_MAX
+    private int[] index;
+    // counts edges added and removed, so iterators can fail fast
+    private int modCount;
+    // dense id assigned by the owning graph, or -1 for a free-standing node
+    private int id;
+    private Graph graph;
+    // set by Graph.removeNode; a removed node keeps its id but has no edges
+    private boolean removed;
+    private Collection<Node> neighborView;
 
     public Node(String name)
+    {
+        this(name, -1, null);
+    }
+
+    Node(String name, int id, Graph graph)
     {
         this.name = name;
-        neighbors = new java.util.HashMap<>();
+        this.id = id;
+        this.graph = graph;
     }
 
     public String getName()
     {
-        return name;
+        // nodes owned by a graph keep their name in its name dictionary
+        return name != null ? name : graph.getNodeName(id);
+    }
+
+    /**
+     * Returns the dense id of this node within its graph, in the range
+     * <code>0 .. graph.getNumNodes() - 1</code>, or -1 if the node was not
+     * created through {@link Graph#getOrCreateNode(String)}.
+     */
+    public int getId()
+    {
+        return id;
+    }
+
+    /**
+     * Returns true if the node was removed from its graph. Its id stays
+     * reserved, and getting the node by name again brings it back.
+     */
+    public boolean isRemoved()
+    {
+        return removed;
+    }
+
+    void setRemoved(boolean removed)
+    {
+        this.removed = removed;
+    }
+
+    // sizes the edge arrays for the given number of neighbors, so that
+    // adding them never copies
+    void presize(int expectedDegree)
+    {
+        if (neighbors.length < expectedDegree)
+        {
+            neighbors = Arrays.copyOf(neighbors, expectedDegree);
+            weights = Arrays.copyOf(weights, expectedDegree);
+        }
+    }
+
+    // returns the position of the edge to neighbor, or -1
+    private int indexOf(Node neighbor)
+    {
+        if (index == null)
+        {
+            for (int i = 0; i < degree; i++)
+            {
+                if (neighbors[i] == neighbor)
+                {
+                    return i;
+                }
+            }
+            return -1;
+        }
+        int mask = index.length - 1;
+        for (int slot = hash(neighbor) & mask; ; slot = (slot + 1) & mask)
+        {
+            int entry = index[slot];
+            if (entry == 0)
+            {
+                return -1;
+            }
+            if (neighbors[entry - 1] == neighbor)
+            {
+                return entry - 1;
+            }
+        }
+    }
+
+    private static int hash(Node node)
+    {
+        int h = node.id >= 0 ? node.id * 0x9E3779B9 : System.identityHashCode(node);
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Adds or re-weights the edge without telling the graph, and returns
+     * false if it was already there.
+     */
+    boolean putEdge(Node neighbor, double weight)
+    {
+        int i = indexOf(neighbor);
+        if (i >= 0)
+        {
+            weights[i] = weight;
+            return false;
+        }
+        if (degree == neighbors.length)
+        {
+            int capacity = Math.max(4, degree * 2);
+            neighbors = Arrays.copyOf(neighbors, capacity);
+            weights = Arrays.copyOf(weights, capacity);
+        }
+        neighbors[degree] = neighbor;
+        weights[degree] = weight;
+        degree++;
+        modCount++;
+        if (index != null && degree * 2 <= index.length)
+        {
+            insertIndex(degree - 1);
+        }
+        else if (degree > LINEAR_SCAN_MAX)
+        {
+            // keep the table at most half full
+            index = new int[Integer.highestOneBit(degree * 4 - 1)];
+            for (int j = 0; j < degree; j++)
+            {
+                insertIndex(j);
+            }
+        }
+        return true;
+    }
+
+    private void insertIndex(int position)
+    {
+        int mask = index.length - 1;
+        int slot = hash(neighbors[position]) & mask;
+        while (index[slot] != 0)
+        {
+            slot = (slot + 1) & mask;
+        }
+        index[slot] = position + 1;
+    }
+
+    /**
+     * Removes the edge without telling the graph, and returns false if there
+     * was none.
+     */
+    boolean dropEdge(Node neighbor)
+    {
+        int i = indexOf(neighbor);
+        if (i < 0)
+        {
+            return false;
+        }
+        int last = degree - 1;
+        if (index != null)
+        {
+            deleteIndex(i);
+            if (i != last)
+            {
+                // the last edge moves to position i
+                index[slotOf(last)] = i + 1;
+            }
+        }
+        neighbors[i] = neighbors[last];
+        weights[i] = weights[last];
+        neighbors[last] = null;
+        degree = last;
+        modCount++;
+        return true;
+    }
+
+    private int slotOf(int position)
+    {
+        int mask = index.length - 1;
+        int slot = hash(neighbors[position]) & mask;
+        while (index[slot] != position + 1)
+        {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    // linear probing delete: shift later entries of the cluster back into
+    // the hole, unless that would move them before their home slot
+    private void deleteIndex(int position)
+    {
+        int mask = index.length - 1;
+        int hole = slotOf(position);
+        for (int next = (hole + 1) & mask; index[next] != 0; next = (next + 1) & mask)
+        {
+            int home = hash(neighbors[index[next] - 1]) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask))
+            {
+                index[hole] = index[next];
+                hole = next;
+            }
+        }
+        index[hole] = 0;
     }
 
+    // drops every edge to a removed node, without telling the graph
+    void dropRemovedNeighbors()
+    {
+        int kept = 0;
+        for (int i = 0; i < degree; i++)
+        {
+            if (!neighbors[i].removed)
+            {
+                neighbors[kept] = neighbors[i];
+                weights[kept] = weights[i];
+                kept++;
+            }
+        }
+        if (kept == degree)
+        {
+            return;
+        }
+        Arrays.fill(neighbors, kept, degree, null);
+        degree = kept;
+        modCount++;
+        index = null;
+        if (degree > LINEAR_SCAN_MAX)
+        {
+            index = new int[Integer.highestOneBit(degree * 4 - 1)];
+            for (int j = 0; j < degree; j++)
+            {
+                insertIndex(j);
+            }
+        }
+    }
+
+    void clearEdges()
+    {
+        neighbors = NO_NODES;
+        weights = NO_WEIGHTS;
+        degree = 0;
+        index = null;
+        modCount++;
+    }
+
+    /**
+     * Adds an edge, or re-weights the one there is. A node owned by a graph
+     * only takes edges to nodes of the same graph.
+     */
     public void addDirectedEdge(Node neighbor, double weight)
     {
-        neighbors.put(neighbor, weight);
+        checkEdgeTo(neighbor);
+        putEdge(neighbor, weight);
+        if (graph != null)
+        {
+            graph.edgeAdded(this, neighbor, weight);
+        }
+    }
+
+    private void checkEdgeTo(Node neighbor)
+    {
+        if (removed || neighbor.removed)
+        {
+            throw new IllegalStateException("Cannot add edge " + this + " -> " + neighbor + " to a removed node");
+        }
+        if (graph != null && neighbor.graph != graph)
+        {
+            throw new IllegalArgumentException("Cannot add edge " + this + " -> " + neighbor + " to a node of another graph");
+        }
     }
 
     public void addUndirectedEdge(Node neighbor, double weight)
     {
+        // checked both ways first, so that a rejected edge is not half added
+        neighbor.checkEdgeTo(this);
         addDirectedEdge(neighbor, weight);
         neighbor.addDirectedEdge(this, weight);
     }
@@ -37,29 +317,177 @@ public class Node
 
     public void addUnweightedUndirectedEdge(Node neighbor)
     {
+        neighbor.checkEdgeTo(this);
         addUnweightedDirectedEdge(neighbor);
         neighbor.addUnweightedDirectedEdge(this);
     }
 
+    /**
+     * Removes the edge to <code>neighbor</code>, and returns false if there
+     * was none.
+     */
+    public boolean removeDirectedEdge(Node neighbor)
+    {
+        if (!dropEdge(neighbor))
+        {
+            return false;
+        }
+        if (graph != null)
+        {
+            graph.edgeRemoved(this, neighbor);
+        }
+        return true;
+    }
+
+    /**
+     * Removes the edges both ways between this node and
+     * <code>neighbor</code>, and returns false if there were none.
+     */
+    public boolean removeUndirectedEdge(Node neighbor)
+    {
+        boolean removedOut = removeDirectedEdge(neighbor);
+        boolean removedIn = neighbor.removeDirectedEdge(this);
+        return removedOut || removedIn;
+    }
+
+    /**
+     * Returns a live view of the neighbors. Removing a node from it, or
+     * through one of its iterators, removes the directed edge to that node.
+     * Its iterators fail fast, throwing ConcurrentModificationException if an
+     * edge is otherwise added or removed while they are in use. Loops on hot
+     * paths can use {@link #getDegree()} and {@link #getNeighbor(int)}
+     * instead, which do not create an iterator.
+     */
     public Collection<Node> getNeighbors()
     {
-        return neighbors.keySet();
+        if (neighborView == null)
+        {
+            neighborView = new NeighborView();
+        }
+        return neighborView;
+    }
+
+    private class NeighborView extends AbstractCollection<Node>
+    {
+        @Override
+        public Iterator<Node> iterator()
+        {
+            return new Iterator<Node>()
+            {
+                private int next;
+                // position of the edge next() returned, or -1
+                private int last = -1;
+                private int expectedModCount = modCount;
+
+                @Override
+                public boolean hasNext()
+                {
+                    return next < degree;
+                }
+
+                @Override
+                public Node next()
+                {
+                    if (modCount != expectedModCount)
+                    {
+                        throw new ConcurrentModificationException();
+                    }
+                    if (next >= degree)
+                    {
+                        throw new NoSuchElementException();
+                    }
+                    last = next;
+                    return neighbors[next++];
+                }
+
+                @Override
+                public void remove()
+                {
+                    if (last < 0)
+                    {
+                        throw new IllegalStateException();
+                    }
+                    if (modCount != expectedModCount)
+                    {
+                        throw new ConcurrentModificationException();
+                    }
+                    removeDirectedEdge(neighbors[last]);
+                    // the last edge moved into the hole, and is yet to be seen
+                    next = last;
+                    last = -1;
+                    expectedModCount = modCount;
+                }
+            };
+        }
+
+        @Override
+        public int size()
+        {
+            return degree;
+        }
+
+        @Override
+        public boolean contains(Object o)
+        {
+            return o instanceof Node && indexOf((Node) o) >= 0;
+        }
+
+        @Override
+        public boolean remove(Object o)
+        {
+            return o instanceof Node && removeDirectedEdge((Node) o);
+        }
+    }
+
+    public int getDegree()
+    {
+        return degree;
+    }
+
+    /**
+     * Returns the target of edge <code>i</code>, for
+     * <code>0 &lt;= i &lt; getDegree()</code>.
+     */
+    public Node getNeighbor(int i)
+    {
+        checkEdge(i);
+        return neighbors[i];
+    }
+
+    public double getWeightAt(int i)
+    {
+        checkEdge(i);
+        return weights[i];
+    }
+
+    private void checkEdge(int i)
+    {
+        if (i < 0 || i >= degree)
+        {
+            throw new IndexOutOfBoundsException("Edge " + i + " of " + degree);
+        }
     }
 
     public double getWeight(Node neighbor)
     {
-        return neighbors.get(neighbor);
+        int i = indexOf(neighbor);
+        if (i < 0)
+        {
+            // as unboxing the missing map value did
+            throw new NullPointerException("No edge " + this + " -> " + neighbor);
+        }
+        return weights[i];
     }
 
     
     public String toString()
     {
-        return name;
+        return getName();
     }
 
     public boolean hasEdge(Node neighbor)
     {
-        return neighbors.containsKey(neighbor);
+        return indexOf(neighbor) >= 0;
     }
 
 }
@@ -0,0 +1,113 @@
+package graphlib;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A long-indexed array of ints or doubles outside the Java heap, held in
+ * direct or memory-mapped ByteBuffers. A single buffer is limited to 2 GB,
+ * so the array is split into chunks of <code>1 &lt;&lt; chunkShift</code>
+ * bytes; chunks are a multiple of 8 bytes, so no element straddles two.
+ */
+class OffHeapArray
+{
+    static final int DEFAULT_CHUNK_SHIFT = 30;
+
+    private ByteBuffer[] chunks;
+    private int chunkShift;
+    private long chunkMask;
+    private long sizeInBytes;
+
+    private OffHeapArray(ByteBuffer[] chunks, int chunkShift, long sizeInBytes)
+    {
+        this.chunks = chunks;
+        this.chunkShift = chunkShift;
+        this.chunkMask = (1L << chunkShift) - 1;
+        this.sizeInBytes = sizeInBytes;
+    }
+
+    static OffHeapArray allocate(long bytes, int chunkShift)
+    {
+        ByteBuffer[] chunks = new ByteBuffer[numChunks(bytes, chunkShift)];
+        for (int i = 0; i < chunks.length; i++)
+        {
+            long start = (long) i << chunkShift;
+            int length = (int) Math.min(1L << chunkShift, bytes - start);
+            chunks[i] = ByteBuffer.allocateDirect(length).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        return new OffHeapArray(chunks, chunkShift, bytes);
+    }
+
+    /**
+     * Maps <code>bytes</code> bytes of the file starting at
+     * <code>position</code>. The mapping stays valid after the channel is
+     * closed.
+     */
+    static OffHeapArray map(FileChannel channel, FileChannel.MapMode mode, long position, long bytes, int chunkShift)
+        throws IOException
+    {
+        ByteBuffer[] chunks = new ByteBuffer[numChunks(bytes, chunkShift)];
+        for (int i = 0; i < chunks.length; i++)
+        {
+            long start = (long) i << chunkShift;
+            long length = Math.min(1L << chunkShift, bytes - start);
+            chunks[i] = channel.map(mode, position + start, length).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        return new OffHeapArray(chunks, chunkShift, bytes);
+    }
+
+    private static int numChunks(long bytes, int chunkShift)
+    {
+        if (chunkShift < 3 || chunkShift > 30)
+        {
+            throw new IllegalArgumentException("Chunk shift must be in 3..30: " + chunkShift);
+        }
+        return (int) ((bytes + (1L << chunkShift) - 1) >>> chunkShift);
+    }
+
+    int getInt(long index)
+    {
+        long offset = index << 2;
+        return chunks[(int) (offset >>> chunkShift)].getInt((int) (offset & chunkMask));
+    }
+
+    void putInt(long index, int value)
+    {
+        long offset = index << 2;
+        chunks[(int) (offset >>> chunkShift)].putInt((int) (offset & chunkMask), value);
+    }
+
+    double getDouble(long index)
+    {
+        long offset = index << 3;
+        return chunks[(int) (offset >>> chunkShift)].getDouble((int) (offset & chunkMask));
+    }
+
+    void putDouble(long index, double value)
+    {
+        long offset = index << 3;
+        chunks[(int) (offset >>> chunkShift)].putDouble((int) (offset & chunkMask), value);
+    }
+
+    long getSizeInBytes()
+    {
+        return sizeInBytes;
+    }
+
+    /**
+     * Writes changes to a mapped array back to its file.
+     */
+    void force()
+    {
+        for (ByteBuffer chunk : chunks)
+        {
+            if (chunk instanceof MappedByteBuffer)
+            {
+                ((MappedByteBuffer) chunk).force();
+            }
+        }
+    }
+}
@@ -0,0 +1,330 @@
+package graphlib;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A {@link CompactGraph}-style adjacency whose offsets, targets and weights
+ * live outside the Java heap, in direct buffers or in a memory-mapped file.
+ * The garbage collector never scans or copies the graph, so pause times do
+ * not grow with it; only the per-traversal work arrays and results are on
+ * the heap.
+ *
+ * A graph written with {@link #write(Adjacency, Path)} can be mapped again
+ * by a later process with {@link #map(Path)} without reading it onto the
+ * heap. The file is little-endian: a 16-byte header (magic, format version,
+ * node count, edge count), then n + 1 offsets, E targets and E weights,
+ * each section padded to 8 bytes.
+ *
+ * Java 17 has no way to free a direct or mapped buffer on demand, so
+ * {@link #close()} drops the buffers and the memory is returned once they
+ * are garbage collected.
+ */
+public class OffHeapGraph implements Adjacency, Closeable
+{
+    private static final int MAGIC = 0x484F4C47;
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+
+    private int numNodes;
+    private int numEdges;
+    private OffHeapArray offsets;
+    private OffHeapArray targets;
+    private OffHeapArray weights;
+    private TraversalScratch scratch = new TraversalScratch();
+
+    private OffHeapGraph(int numNodes, int numEdges, OffHeapArray offsets, OffHeapArray targets, OffHeapArray weights)
+    {
+        this.numNodes = numNodes;
+        this.numEdges = numEdges;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+    }
+
+    /**
+     * Copies the adjacency into newly allocated direct memory.
+     */
+    public static OffHeapGraph copyOf(Adjacency g)
+    {
+        return copyOf(g, OffHeapArray.DEFAULT_CHUNK_SHIFT);
+    }
+
+    static OffHeapGraph copyOf(Adjacency g, int chunkShift)
+    {
+        int n = g.getNumNodes();
+        int m = g.getNumEdges();
+        OffHeapGraph copy = new OffHeapGraph(n, m,
+            OffHeapArray.allocate(4L * (n + 1), chunkShift),
+            OffHeapArray.allocate(4L * m, chunkShift),
+            OffHeapArray.allocate(8L * m, chunkShift));
+        copy.fill(g);
+        return copy;
+    }
+
+    /**
+     * Writes the adjacency to a file in the format read by {@link #map(Path)}.
+     */
+    public static void write(Adjacency g, Path file) throws IOException
+    {
+        int n = g.getNumNodes();
+        int m = g.getNumEdges();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))
+        {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(n).putInt(m).flip();
+            while (header.hasRemaining())
+            {
+                channel.write(header, header.position());
+            }
+            OffHeapGraph mapped = map(channel, FileChannel.MapMode.READ_WRITE, n, m, OffHeapArray.DEFAULT_CHUNK_SHIFT);
+            mapped.fill(g);
+            mapped.offsets.force();
+            mapped.targets.force();
+            mapped.weights.force();
+        }
+    }
+
+    /**
+     * Maps a file written by {@link #write(Adjacency, Path)} read-only.
+     */
+    public static OffHeapGraph map(Path file) throws IOException
+    {
+        return map(file, OffHeapArray.DEFAULT_CHUNK_SHIFT);
+    }
+
+    static OffHeapGraph map(Path file, int chunkShift) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+        {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining())
+            {
+                if (channel.read(header) < 0)
+                {
+                    break;
+                }
+            }
+            header.flip();
+            if (header.remaining() < HEADER_BYTES || header.getInt() != MAGIC)
+            {
+                throw new IOException(file + " is not an off-heap graph file");
+            }
+            int version = header.getInt();
+            if (version != FORMAT_VERSION)
+            {
+                throw new IOException(file + " has unsupported format version " + version);
+            }
+            int n = header.getInt();
+            int m = header.getInt();
+            if (channel.size() < fileSize(n, m))
+            {
+                throw new IOException(file + " is truncated");
+            }
+            return map(channel, FileChannel.MapMode.READ_ONLY, n, m, chunkShift);
+        }
+    }
+
+    private static OffHeapGraph map(FileChannel channel, FileChannel.MapMode mode, int n, int m, int chunkShift)
+        throws IOException
+    {
+        long offsetsStart = HEADER_BYTES;
+        long targetsStart = offsetsStart + pad(4L * (n + 1));
+        long weightsStart = targetsStart + pad(4L * m);
+        return new OffHeapGraph(n, m,
+            OffHeapArray.map(channel, mode, offsetsStart, 4L * (n + 1), chunkShift),
+            OffHeapArray.map(channel, mode, targetsStart, 4L * m, chunkShift),
+            OffHeapArray.map(channel, mode, weightsStart, 8L * m, chunkShift));
+    }
+
+    private static long fileSize(int n, int m)
+    {
+        return HEADER_BYTES + pad(4L * (n + 1)) + pad(4L * m) + 8L * m;
+    }
+
+    private static long pad(long bytes)
+    {
+        return (bytes + 7) & ~7L;
+    }
+
+    private void fill(Adjacency g)
+    {
+        offsets.putInt(0, 0);
+        for (int u = 0; u < numNodes; u++)
+        {
+            offsets.putInt(u + 1, g.getEndEdge(u));
+            for (int e = g.getFirstEdge(u); e < g.getEndEdge(u); e++)
+            {
+                targets.putInt(e, g.getTarget(e));
+                weights.putDouble(e, g.getWeight(e));
+            }
+        }
+    }
+
+    public int getNumNodes()
+    {
+        return numNodes;
+    }
+
+    public int getNumEdges()
+    {
+        return numEdges;
+    }
+
+    public int getDegree(int node)
+    {
+        return getEndEdge(node) - getFirstEdge(node);
+    }
+
+    public int getFirstEdge(int node)
+    {
+        checkOpen();
+        return offsets.getInt(node);
+    }
+
+    public int getEndEdge(int node)
+    {
+        checkOpen();
+        return offsets.getInt(node + 1);
+    }
+
+    public int getTarget(int edge)
+    {
+        checkOpen();
+        return targets.getInt(edge);
+    }
+
+    public double getWeight(int edge)
+    {
+        checkOpen();
+        return weights.getDouble(edge);
+    }
+
+    /**
+     * Returns the memory the graph takes outside the heap.
+     */
+    public long getOffHeapBytes()
+    {
+        checkOpen();
+        return offsets.getSizeInBytes() + targets.getSizeInBytes() + weights.getSizeInBytes();
+    }
+
+    public void close()
+    {
+        offsets = null;
+        targets = null;
+        weights = null;
+    }
+
+    private void checkOpen()
+    {
+        if (offsets == null)
+        {
+            throw new IllegalStateException("Off-heap graph is closed");
+        }
+    }
+
+    private void checkNode(int id)
+    {
+        checkOpen();
+        if (id < 0 || id >= numNodes)
+        {
+            throw new IllegalArgumentException("Node id " + id + " not found");
+        }
+    }
+
+    /**
+     * Breadth-first traversal from <code>startId</code>, in the same order as
+     * {@link CompactGraph#bfs(int, IntNodeVisitor)}.
+     */
+    public void bfs(int startId, IntNodeVisitor visitor)
+    {
+        checkNode(startId);
+        TraversalScratch work = scratch.acquire(numNodes, numNodes);
+        try
+        {
+            int[] queue = work.buffer;
+            int[] marks = work.marks;
+            int epoch = work.getEpoch();
+            int head = 0;
+            int tail = 0;
+            marks[startId] = epoch;
+            queue[tail++] = startId;
+            while (head < tail)
+            {
+                int node = queue[head++];
+                visitor.visit(node);
+                int end = getEndEdge(node);
+                for (int e = getFirstEdge(node); e < end; e++)
+                {
+                    int neighbor = targets.getInt(e);
+                    if (marks[neighbor] != epoch)
+                    {
+                        marks[neighbor] = epoch;
+                        queue[tail++] = neighbor;
+                    }
+                }
+            }
+        }
+        finally
+        {
+            work.release();
+        }
+    }
+
+    /**
+     * Depth-first traversal from <code>startId</code>, in the same order as
+     * {@link CompactGraph#dfs(int, IntNodeVisitor)}.
+     */
+    public void dfs(int startId, IntNodeVisitor visitor)
+    {
+        checkNode(startId);
+        TraversalScratch work = scratch.acquire(numNodes, numEdges + 1);
+        try
+        {
+            int[] stack = work.buffer;
+            int[] marks = work.marks;
+            int epoch = work.getEpoch();
+            int top = 0;
+            stack[top++] = startId;
+            while (top > 0)
+            {
+                int node = stack[--top];
+                if (marks[node] == epoch)
+                {
+                    continue;
+                }
+                visitor.visit(node);
+                marks[node] = epoch;
+                int end = getEndEdge(node);
+                for (int e = getFirstEdge(node); e < end; e++)
+                {
+                    int neighbor = targets.getInt(e);
+                    if (marks[neighbor] != epoch)
+                    {
+                        stack[top++] = neighbor;
+                    }
+                }
+            }
+        }
+        finally
+        {
+            work.release();
+        }
+    }
+
+    /**
+     * Single-source shortest paths with Dijkstra. The result is on the heap.
+     */
+    public ShortestPaths shortestPaths(int startId)
+    {
+        checkNode(startId);
+        return ShortestPaths.compute(this, startId, 0);
+    }
+}
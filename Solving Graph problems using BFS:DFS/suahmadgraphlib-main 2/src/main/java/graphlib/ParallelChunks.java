@@ -0,0 +1,100 @@
+package graphlib;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs a loop over <code>0 .. n - 1</code> on a thread pool. The range is
+ * cut into many more chunks than threads, and threads claim the next chunk
+ * when they finish one, so a few expensive nodes do not hold up the rest.
+ */
+final class ParallelChunks
+{
+    interface Chunk
+    {
+        void run(int start, int end);
+    }
+
+    /**
+     * A chunk that is also told which worker runs it, numbered
+     * <code>0 .. numThreads - 1</code>, so that each worker can keep its own
+     * scratch space without a ThreadLocal.
+     */
+    interface WorkerChunk
+    {
+        void run(int worker, int start, int end);
+    }
+
+    private ParallelChunks()
+    {
+    }
+
+    /**
+     * Returns a pool of daemon threads, or null for one thread, in which case
+     * {@link #forEach} runs on the caller.
+     */
+    static ExecutorService newPool(int numThreads, String name)
+    {
+        if (numThreads < 1)
+        {
+            throw new IllegalArgumentException("Thread count must be positive: " + numThreads);
+        }
+        return numThreads > 1 ? Executors.newFixedThreadPool(numThreads, runnable ->
+        {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+    }
+
+    static void forEach(ExecutorService pool, int numThreads, int numChunks, int n, Chunk chunk)
+    {
+        forEach(pool, numThreads, numChunks, n, (worker, start, end) -> chunk.run(start, end));
+    }
+
+    static void forEach(ExecutorService pool, int numThreads, int numChunks, int n, WorkerChunk chunk)
+    {
+        if (pool == null)
+        {
+            chunk.run(0, 0, n);
+            return;
+        }
+        int chunkSize = Math.max(1, (n + numChunks - 1) / numChunks);
+        AtomicInteger next = new AtomicInteger();
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int t = 0; t < numThreads; t++)
+        {
+            int worker = t;
+            tasks.add(() ->
+            {
+                for (int start = next.getAndAdd(chunkSize); start < n; start = next.getAndAdd(chunkSize))
+                {
+                    chunk.run(worker, start, Math.min(n, start + chunkSize));
+                }
+                return null;
+            });
+        }
+        try
+        {
+            for (Future<Void> result : pool.invokeAll(tasks))
+            {
+                result.get();
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted", e);
+        }
+        catch (ExecutionException e)
+        {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package graphlib;
+
+/**
+ * The result of an operation run under a {@link WorkLimit}: complete if the
+ * status is {@link WorkStatus#COMPLETED}, and otherwise whatever the
+ * operation had finished when it stopped. Each operation documents what its
+ * partial value holds.
+ */
+public class PartialResult<T>
+{
+    private T value;
+    private WorkStatus status;
+    private long edgesScanned;
+
+    PartialResult(T value, WorkStatus status, long edgesScanned)
+    {
+        this.value = value;
+        this.status = status;
+        this.edgesScanned = edgesScanned;
+    }
+
+    public T getValue()
+    {
+        return value;
+    }
+
+    public WorkStatus getStatus()
+    {
+        return status;
+    }
+
+    public boolean isComplete()
+    {
+        return status.isComplete();
+    }
+
+    public long getEdgesScanned()
+    {
+        return edgesScanned;
+    }
+}
@@ -0,0 +1,106 @@
+package graphlib;
+
+import java.util.Random;
+
+/**
+ * A renumbering of dense node ids. Node <code>oldId</code> becomes
+ * <code>getNewId(oldId)</code>, and results computed on a permuted graph are
+ * mapped back with {@link #getOldId(int)}.
+ */
+public class Permutation
+{
+    private int[] oldToNew;
+    private int[] newToOld;
+
+    private Permutation(int[] oldToNew, int[] newToOld)
+    {
+        this.oldToNew = oldToNew;
+        this.newToOld = newToOld;
+    }
+
+    /**
+     * Builds the permutation that puts <code>order[i]</code> at new id
+     * <code>i</code>. The order must hold every id below its length once.
+     */
+    public static Permutation fromOrder(int[] order)
+    {
+        int n = order.length;
+        int[] oldToNew = new int[n];
+        java.util.Arrays.fill(oldToNew, -1);
+        for (int newId = 0; newId < n; newId++)
+        {
+            int oldId = order[newId];
+            if (oldId < 0 || oldId >= n || oldToNew[oldId] >= 0)
+            {
+                throw new IllegalArgumentException("Order is not a permutation at position " + newId + ": " + oldId);
+            }
+            oldToNew[oldId] = newId;
+        }
+        return new Permutation(oldToNew, order.clone());
+    }
+
+    public static Permutation identity(int n)
+    {
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++)
+        {
+            order[i] = i;
+        }
+        return new Permutation(order, order.clone());
+    }
+
+    /**
+     * Returns a seeded random permutation, e.g. to simulate the scattered
+     * layout of nodes that were numbered in hash order.
+     */
+    public static Permutation random(int n, long seed)
+    {
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++)
+        {
+            order[i] = i;
+        }
+        Random random = new Random(seed);
+        for (int i = n - 1; i > 0; i--)
+        {
+            int j = random.nextInt(i + 1);
+            int tmp = order[i];
+            order[i] = order[j];
+            order[j] = tmp;
+        }
+        return fromOrder(order);
+    }
+
+    public int size()
+    {
+        return oldToNew.length;
+    }
+
+    public int getNewId(int oldId)
+    {
+        return oldToNew[oldId];
+    }
+
+    public int getOldId(int newId)
+    {
+        return newToOld[newId];
+    }
+
+    public Permutation inverse()
+    {
+        return new Permutation(newToOld, oldToNew);
+    }
+
+    /**
+     * Maps an array of new ids, e.g. a path, back to old ids.
+     */
+    public int[] toOldIds(int[] newIds)
+    {
+        int[] oldIds = new int[newIds.length];
+        for (int i = 0; i < newIds.length; i++)
+        {
+            oldIds[i] = newToOld[newIds[i]];
+        }
+        return oldIds;
+    }
+}
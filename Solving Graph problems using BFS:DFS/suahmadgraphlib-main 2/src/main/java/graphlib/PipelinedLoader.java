@@ -0,0 +1,600 @@
+package graphlib;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPInputStream;
+
+import graphlib.jfr.GraphLoadEvent;
+
+/**
+ * Loads the same edge lists as the readXxxGraph methods, with reading,
+ * parsing and building on separate threads.
+ *
+ * The read stage decompresses the input into chunks that end at a line
+ * break. The parse stage splits a chunk into name slices and weights without
+ * creating Strings. The build stage, on the calling thread, looks the names
+ * up in the graph's name dictionary and adds the edges. Stages hand chunks
+ * and batches on through bounded queues and recycle them, so memory stays at
+ * a few chunks however large the input is.
+ *
+ * Gzip input is detected and decompressed on the read stage. Other formats,
+ * such as zstd, can be passed in as a decompressing InputStream, which then
+ * also runs on the read stage. Unlike Scanner, an edge record has to sit on
+ * one line.
+ */
+public class PipelinedLoader
+{
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+    public static final int DEFAULT_QUEUE_CAPACITY = 4;
+
+    private static final Chunk END_CHUNK = new Chunk(0);
+    private static final EdgeBatch END_BATCH = new EdgeBatch();
+    // 10^i, all exactly representable as doubles
+    private static final double[] POWERS_OF_TEN = new double[23];
+
+    static
+    {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++)
+        {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private boolean directed;
+    private boolean weighted;
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+    private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+    private LoadStats lastStats;
+
+    public PipelinedLoader(boolean directed, boolean weighted)
+    {
+        this.directed = directed;
+        this.weighted = weighted;
+    }
+
+    /**
+     * Sets the size of the chunks the read stage fills. A line longer than
+     * a chunk still loads, in a chunk grown to fit it.
+     */
+    public PipelinedLoader setChunkSize(int chunkSize)
+    {
+        if (chunkSize < 1)
+        {
+            throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+        }
+        this.chunkSize = chunkSize;
+        return this;
+    }
+
+    /**
+     * Sets how many chunks, and how many parsed batches, may wait between
+     * two stages.
+     */
+    public PipelinedLoader setQueueCapacity(int queueCapacity)
+    {
+        if (queueCapacity < 1)
+        {
+            throw new IllegalArgumentException("Queue capacity must be positive: " + queueCapacity);
+        }
+        this.queueCapacity = queueCapacity;
+        return this;
+    }
+
+    /**
+     * Returns the statistics of the last load, or null before the first.
+     */
+    public LoadStats getLastStats()
+    {
+        return lastStats;
+    }
+
+    public Graph load(Path file) throws IOException
+    {
+        try (InputStream in = Files.newInputStream(file))
+        {
+            return load(in);
+        }
+    }
+
+    public Graph load(InputStream in) throws IOException
+    {
+        GraphLoadEvent event = new GraphLoadEvent();
+        event.begin();
+        long start = System.nanoTime();
+        CountingInputStream counted = new CountingInputStream(in);
+        Run run = new Run(decompress(counted));
+        Graph graph = new Graph();
+        Thread reader = new Thread(run::read, "graphlib-load-read");
+        Thread parser = new Thread(run::parse, "graphlib-load-parse");
+        reader.setDaemon(true);
+        parser.setDaemon(true);
+        reader.start();
+        parser.start();
+        boolean done = false;
+        try
+        {
+            run.build(graph);
+            // after a failure a stage may still be blocked on a queue
+            if (run.failure.get() == null)
+            {
+                reader.join();
+                parser.join();
+                done = true;
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while loading", e);
+        }
+        finally
+        {
+            if (!done)
+            {
+                reader.interrupt();
+                parser.interrupt();
+            }
+        }
+        Throwable failure = run.failure.get();
+        if (failure instanceof IOException)
+        {
+            throw (IOException) failure;
+        }
+        if (failure instanceof RuntimeException)
+        {
+            throw (RuntimeException) failure;
+        }
+        if (failure != null)
+        {
+            throw new IOException(failure);
+        }
+        lastStats = new LoadStats(counted.getCount(), System.nanoTime() - start, run.readStage.toStats(),
+            run.parseStage.toStats(), run.buildStage.toStats());
+        Graph.commitLoad(event, "pipelined-" + (directed ? "directed-" : "undirected-") + (weighted ? "weighted" : "unweighted"),
+            counted, run.buildStage.records, graph);
+        return graph;
+    }
+
+    /**
+     * Wraps gzip input in a decompressor, going by its first bytes.
+     */
+    private static InputStream decompress(InputStream in) throws IOException
+    {
+        BufferedInputStream buffered = new BufferedInputStream(in, 1 << 16);
+        buffered.mark(4);
+        int b0 = buffered.read();
+        int b1 = buffered.read();
+        int b2 = buffered.read();
+        int b3 = buffered.read();
+        buffered.reset();
+        if (b0 == 0x1F && b1 == 0x8B)
+        {
+            return new GZIPInputStream(buffered, 1 << 16);
+        }
+        if (b0 == 0x28 && b1 == 0xB5 && b2 == 0x2F && b3 == 0xFD)
+        {
+            throw new IOException("Input is zstd compressed; pass it through a zstd InputStream first");
+        }
+        return buffered;
+    }
+
+    private static boolean isSpace(byte b)
+    {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t' || b == '\f' || b == 0x0B;
+    }
+
+    /**
+     * Parses a decimal weight. Plain decimals of up to 15 digits are read
+     * directly, which rounds exactly like {@link Double#parseDouble}: the
+     * digits and the power of ten are both exact doubles, and the division
+     * rounds once. Anything else goes through Double.parseDouble.
+     */
+    static double parseWeight(byte[] data, int start, int end)
+    {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (data[i] == '-' || data[i] == '+'))
+        {
+            negative = data[i] == '-';
+            i++;
+        }
+        long digits = 0;
+        int numDigits = 0;
+        int scale = 0;
+        boolean point = false;
+        for (; i < end; i++)
+        {
+            byte b = data[i];
+            if (b >= '0' && b <= '9' && numDigits < 15)
+            {
+                digits = digits * 10 + (b - '0');
+                numDigits++;
+                if (point)
+                {
+                    scale++;
+                }
+            }
+            else if (b == '.' && !point)
+            {
+                point = true;
+            }
+            else
+            {
+                return Double.parseDouble(new String(data, start, end - start, StandardCharsets.US_ASCII));
+            }
+        }
+        if (numDigits == 0)
+        {
+            return Double.parseDouble(new String(data, start, end - start, StandardCharsets.US_ASCII));
+        }
+        double value = digits / POWERS_OF_TEN[scale];
+        return negative ? -value : value;
+    }
+
+    private static class Chunk
+    {
+        byte[] data;
+        int length;
+
+        Chunk(int size)
+        {
+            data = new byte[size];
+        }
+    }
+
+    /**
+     * The records of one chunk: for record i, the source name is
+     * <code>chunk.data[names[4i] ..][names[4i + 1] bytes]</code> and the
+     * target name the next two entries.
+     */
+    private static class EdgeBatch
+    {
+        Chunk chunk;
+        int[] names = new int[4 * 1024];
+        double[] weights = new double[1024];
+        int size;
+
+        void add(int sourceStart, int sourceLength, int targetStart, int targetLength, double weight)
+        {
+            if (size == weights.length)
+            {
+                names = Arrays.copyOf(names, names.length * 2);
+                weights = Arrays.copyOf(weights, weights.length * 2);
+            }
+            names[4 * size] = sourceStart;
+            names[4 * size + 1] = sourceLength;
+            names[4 * size + 2] = targetStart;
+            names[4 * size + 3] = targetLength;
+            weights[size] = weight;
+            size++;
+        }
+    }
+
+    /**
+     * Counters of one stage. Each is written by its own stage's thread only.
+     */
+    private static class Stage
+    {
+        String name;
+        long bytes;
+        long records;
+        long startNanos;
+        long endNanos;
+        long waitNanos;
+
+        Stage(String name)
+        {
+            this.name = name;
+        }
+
+        <T> T take(BlockingQueue<T> queue) throws InterruptedException
+        {
+            long start = System.nanoTime();
+            T item = queue.take();
+            waitNanos += System.nanoTime() - start;
+            return item;
+        }
+
+        <T> void put(BlockingQueue<T> queue, T item) throws InterruptedException
+        {
+            long start = System.nanoTime();
+            queue.put(item);
+            waitNanos += System.nanoTime() - start;
+        }
+
+        StageStats toStats()
+        {
+            return new StageStats(name, bytes, records, Math.max(0, endNanos - startNanos - waitNanos), waitNanos);
+        }
+    }
+
+    /**
+     * The queues and counters of one load.
+     */
+    private class Run
+    {
+        InputStream input;
+        BlockingQueue<Chunk> freeChunks;
+        BlockingQueue<Chunk> filledChunks;
+        BlockingQueue<EdgeBatch> freeBatches;
+        BlockingQueue<EdgeBatch> parsedBatches;
+        Stage readStage = new Stage("read");
+        Stage parseStage = new Stage("parse");
+        Stage buildStage = new Stage("build");
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        Run(InputStream input)
+        {
+            this.input = input;
+            // one chunk in each stage, plus full queues on both sides
+            int numChunks = 2 * queueCapacity + 3;
+            int numBatches = queueCapacity + 2;
+            freeChunks = new ArrayBlockingQueue<>(numChunks);
+            filledChunks = new ArrayBlockingQueue<>(queueCapacity + 1);
+            freeBatches = new ArrayBlockingQueue<>(numBatches);
+            parsedBatches = new ArrayBlockingQueue<>(queueCapacity + 1);
+            for (int i = 0; i < numChunks; i++)
+            {
+                freeChunks.add(new Chunk(chunkSize));
+            }
+            for (int i = 0; i < numBatches; i++)
+            {
+                freeBatches.add(new EdgeBatch());
+            }
+        }
+
+        void read()
+        {
+            readStage.startNanos = System.nanoTime();
+            try
+            {
+                // the part of the last chunk after its last line break
+                byte[] carry = new byte[0];
+                int carryLength = 0;
+                boolean eof = false;
+                while (!eof)
+                {
+                    Chunk chunk = readStage.take(freeChunks);
+                    if (chunk.data.length < 2 * carryLength)
+                    {
+                        chunk.data = new byte[2 * carryLength];
+                    }
+                    System.arraycopy(carry, 0, chunk.data, 0, carryLength);
+                    int filled = carryLength;
+                    int cut;
+                    while (true)
+                    {
+                        while (filled < chunk.data.length)
+                        {
+                            int n = input.read(chunk.data, filled, chunk.data.length - filled);
+                            if (n < 0)
+                            {
+                                eof = true;
+                                break;
+                            }
+                            filled += n;
+                        }
+                        if (eof)
+                        {
+                            cut = filled;
+                            break;
+                        }
+                        cut = lastLineBreak(chunk.data, filled) + 1;
+                        if (cut > 0)
+                        {
+                            break;
+                        }
+                        // a line longer than the chunk
+                        chunk.data = Arrays.copyOf(chunk.data, chunk.data.length * 2);
+                    }
+                    carryLength = filled - cut;
+                    if (carry.length < carryLength)
+                    {
+                        carry = new byte[Math.max(carryLength, 2 * carry.length)];
+                    }
+                    System.arraycopy(chunk.data, cut, carry, 0, carryLength);
+                    chunk.length = cut;
+                    readStage.bytes += cut;
+                    readStage.put(filledChunks, chunk);
+                }
+                readStage.put(filledChunks, END_CHUNK);
+            }
+            catch (InterruptedException e)
+            {
+                // the load failed elsewhere
+            }
+            catch (Throwable t)
+            {
+                fail(t, filledChunks, END_CHUNK);
+            }
+            readStage.endNanos = System.nanoTime();
+        }
+
+        void parse()
+        {
+            parseStage.startNanos = System.nanoTime();
+            try
+            {
+                while (true)
+                {
+                    Chunk chunk = parseStage.take(filledChunks);
+                    if (chunk == END_CHUNK)
+                    {
+                        parseStage.put(parsedBatches, END_BATCH);
+                        break;
+                    }
+                    EdgeBatch batch = parseStage.take(freeBatches);
+                    batch.chunk = chunk;
+                    batch.size = 0;
+                    parseChunk(chunk, batch);
+                    parseStage.bytes += chunk.length;
+                    parseStage.records += batch.size;
+                    parseStage.put(parsedBatches, batch);
+                }
+            }
+            catch (InterruptedException e)
+            {
+                // the load failed elsewhere
+            }
+            catch (Throwable t)
+            {
+                fail(t, parsedBatches, END_BATCH);
+            }
+            parseStage.endNanos = System.nanoTime();
+        }
+
+        void build(Graph graph) throws InterruptedException
+        {
+            buildStage.startNanos = System.nanoTime();
+            while (true)
+            {
+                EdgeBatch batch = buildStage.take(parsedBatches);
+                if (batch == END_BATCH)
+                {
+                    break;
+                }
+                byte[] data = batch.chunk.data;
+                int[] names = batch.names;
+                for (int i = 0; i < batch.size; i++)
+                {
+                    Node nodeA = graph.getOrCreateNode(data, names[4 * i], names[4 * i + 1]);
+                    Node nodeB = graph.getOrCreateNode(data, names[4 * i + 2], names[4 * i + 3]);
+                    if (weighted && directed)
+                    {
+                        nodeA.addDirectedEdge(nodeB, batch.weights[i]);
+                    }
+                    else if (weighted)
+                    {
+                        nodeA.addUndirectedEdge(nodeB, batch.weights[i]);
+                    }
+                    else if (directed)
+                    {
+                        nodeA.addUnweightedDirectedEdge(nodeB);
+                    }
+                    else
+                    {
+                        nodeA.addUnweightedUndirectedEdge(nodeB);
+                    }
+                }
+                buildStage.bytes += batch.chunk.length;
+                buildStage.records += batch.size;
+                // the free queues hold every chunk and batch, so these never block
+                freeChunks.put(batch.chunk);
+                batch.chunk = null;
+                freeBatches.put(batch);
+            }
+            buildStage.endNanos = System.nanoTime();
+        }
+
+        private void parseChunk(Chunk chunk, EdgeBatch batch) throws IOException
+        {
+            byte[] data = chunk.data;
+            int end = chunk.length;
+            int i = 0;
+            while (true)
+            {
+                while (i < end && isSpace(data[i]))
+                {
+                    i++;
+                }
+                if (i == end)
+                {
+                    return;
+                }
+                int sourceStart = i;
+                i = tokenEnd(data, i, end);
+                int sourceEnd = i;
+                i = nextToken(data, i, end, sourceStart);
+                int targetStart = i;
+                i = tokenEnd(data, i, end);
+                int targetEnd = i;
+                double weight = 1.0;
+                if (weighted)
+                {
+                    i = nextToken(data, i, end, sourceStart);
+                    int weightStart = i;
+                    i = tokenEnd(data, i, end);
+                    try
+                    {
+                        weight = parseWeight(data, weightStart, i);
+                    }
+                    catch (NumberFormatException e)
+                    {
+                        throw new IOException("Bad weight in edge record: " + record(data, sourceStart, i), e);
+                    }
+                }
+                batch.add(sourceStart, sourceEnd - sourceStart, targetStart, targetEnd - targetStart, weight);
+            }
+        }
+
+        // skips the spaces before the next token of the record, which has to
+        // be on the same line
+        private int nextToken(byte[] data, int i, int end, int recordStart) throws IOException
+        {
+            while (i < end && isSpace(data[i]))
+            {
+                if (data[i] == '\n')
+                {
+                    throw new IOException("Edge record cut short at the end of its line: " + record(data, recordStart, i));
+                }
+                i++;
+            }
+            if (i == end)
+            {
+                throw new IOException("Edge record cut short at the end of the input: " + record(data, recordStart, i));
+            }
+            return i;
+        }
+
+        private int tokenEnd(byte[] data, int i, int end)
+        {
+            while (i < end && !isSpace(data[i]))
+            {
+                i++;
+            }
+            return i;
+        }
+
+        private String record(byte[] data, int start, int end)
+        {
+            return "'" + new String(data, start, Math.min(end - start, 200), StandardCharsets.UTF_8).trim() + "'";
+        }
+
+        private int lastLineBreak(byte[] data, int length)
+        {
+            for (int i = length - 1; i >= 0; i--)
+            {
+                if (data[i] == '\n')
+                {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Records the first failure and tells the next stage to stop.
+         */
+        private <T> void fail(Throwable t, BlockingQueue<T> next, T end)
+        {
+            failure.compareAndSet(null, t);
+            try
+            {
+                next.put(end);
+            }
+            catch (InterruptedException e)
+            {
+                // the load failed elsewhere
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package graphlib;
+
+/**
+ * A point-to-point shortest path found by {@link LandmarkIndex}, with the
+ * number of nodes the search settled to find it.
+ */
+public class Route
+{
+    private double distance;
+    private int[] path;
+    private int settledNodes;
+
+    Route(double distance, int[] path, int settledNodes)
+    {
+        this.distance = distance;
+        this.path = path;
+        this.settledNodes = settledNodes;
+    }
+
+    /**
+     * Returns the length of the path, or infinity if the target is
+     * unreachable.
+     */
+    public double getDistance()
+    {
+        return distance;
+    }
+
+    /**
+     * Returns the node ids from source to target, or an empty array if the
+     * target is unreachable.
+     */
+    public int[] getPath()
+    {
+        return path;
+    }
+
+    public int getSettledNodes()
+    {
+        return settledNodes;
+    }
+}
@@ -0,0 +1,146 @@
+package graphlib;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded cache of single-source {@link ShortestPaths} results, keyed by
+ * source node id.
+ *
+ * Eviction is least-recently-used, weighted by each result's size in bytes,
+ * so the cache holds as many sources as fit in <code>maxBytes</code>. Every
+ * lookup compares the graph's {@link Graph#getVersion() version} with the
+ * version the cache was filled at, so adding a node or an edge (including
+ * through {@link Node#addDirectedEdge}) empties the cache before the next
+ * lookup can see a stale result.
+ *
+ * All methods are synchronized; the Dijkstra run on a miss happens while
+ * holding the lock.
+ */
+public class ShortestPathCache
+{
+    private Graph graph;
+    private long maxBytes;
+    private long currentBytes;
+    private int version;
+    private LinkedHashMap<Integer, ShortestPaths> entries;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    public ShortestPathCache(Graph graph, long maxBytes)
+    {
+        this.graph = graph;
+        this.maxBytes = maxBytes;
+        this.version = graph.getVersion();
+        // access order turns the map into an LRU list
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    public synchronized ShortestPaths get(String sourceName)
+    {
+        int sourceId = graph.getNodeId(sourceName);
+        if (sourceId < 0)
+        {
+            throw new IllegalArgumentException("Node " + sourceName + " not found");
+        }
+        return get(sourceId);
+    }
+
+    public synchronized ShortestPaths get(int sourceId)
+    {
+        if (graph.getVersion() != version)
+        {
+            invalidate();
+            version = graph.getVersion();
+        }
+        ShortestPaths paths = entries.get(sourceId);
+        if (paths != null)
+        {
+            hits++;
+            return paths;
+        }
+        misses++;
+        paths = graph.shortestPaths(sourceId);
+        long size = paths.getSizeInBytes();
+        if (size <= maxBytes)
+        {
+            entries.put(sourceId, paths);
+            currentBytes += size;
+            evict();
+        }
+        return paths;
+    }
+
+    private void evict()
+    {
+        Iterator<Map.Entry<Integer, ShortestPaths>> it = entries.entrySet().iterator();
+        while (currentBytes > maxBytes && it.hasNext())
+        {
+            currentBytes -= it.next().getValue().getSizeInBytes();
+            it.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * Drops every cached result.
+     */
+    public synchronized void invalidate()
+    {
+        if (!entries.isEmpty())
+        {
+            invalidations++;
+        }
+        entries.clear();
+        currentBytes = 0;
+    }
+
+    public synchronized int size()
+    {
+        return entries.size();
+    }
+
+    public synchronized long getSizeInBytes()
+    {
+        return currentBytes;
+    }
+
+    public synchronized long getHits()
+    {
+        return hits;
+    }
+
+    public synchronized long getMisses()
+    {
+        return misses;
+    }
+
+    public synchronized long getEvictions()
+    {
+        return evictions;
+    }
+
+    /**
+     * Returns how many times a graph change emptied a non-empty cache.
+     */
+    public synchronized long getInvalidations()
+    {
+        return invalidations;
+    }
+
+    public synchronized double getHitRate()
+    {
+        long total = hits + misses;
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    public synchronized String toString()
+    {
+        return String.format("ShortestPathCache[entries=%d bytes=%d/%d hits=%d misses=%d hitRate=%.3f evictions=%d invalidations=%d]",
+            entries.size(), currentBytes, maxBytes, hits, misses, getHitRate(), evictions, invalidations);
+    }
+}
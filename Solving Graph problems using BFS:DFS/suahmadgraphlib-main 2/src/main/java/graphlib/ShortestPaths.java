@@ -0,0 +1,214 @@
+package graphlib;
+
+import java.util.Arrays;
+
+/**
+ * Single-source shortest-path result over dense node ids: one distance and
+ * one predecessor per node, in primitive arrays. Unreachable nodes have
+ * distance {@link Double#POSITIVE_INFINITY} and predecessor -1.
+ */
+public class ShortestPaths
+{
+    private int source;
+    private int version;
+    private double[] distances;
+    private int[] predecessors;
+    // counters for metrics and JFR
+    long heapPushes;
+    long heapPops;
+    long edgesScanned;
+    int maxHeapSize;
+
+    ShortestPaths(int source, int version, double[] distances, int[] predecessors)
+    {
+        this.source = source;
+        this.version = version;
+        this.distances = distances;
+        this.predecessors = predecessors;
+    }
+
+    /**
+     * Runs Dijkstra from <code>source</code> with an indexed heap, so each
+     * node is in the heap at most once.
+     */
+    static ShortestPaths compute(CompactGraph g, int source, int version)
+    {
+        return compute(g, source, version, null);
+    }
+
+    /**
+     * Stops when <code>meter</code>, if not null, says so, and then leaves
+     * only the settled nodes reachable.
+     */
+    static ShortestPaths compute(CompactGraph g, int source, int version, WorkMeter meter)
+    {
+        int n = g.getNumNodes();
+        double[] distances = new double[n];
+        int[] predecessors = new int[n];
+        Arrays.fill(distances, Double.POSITIVE_INFINITY);
+        Arrays.fill(predecessors, -1);
+        int[] offsets = g.offsets;
+        int[] targets = g.targets;
+        double[] weights = g.weights;
+
+        IndexedMinHeap heap = new IndexedMinHeap(n);
+        distances[source] = 0.0;
+        heap.insertOrDecrease(source, 0.0);
+        ShortestPaths paths = new ShortestPaths(source, version, distances, predecessors);
+        paths.heapPushes = 1;
+        while (!heap.isEmpty())
+        {
+            if (meter != null && meter.shouldStop(paths.edgesScanned))
+            {
+                // drop the tentative distances
+                while (!heap.isEmpty())
+                {
+                    int node = heap.removeMin();
+                    distances[node] = Double.POSITIVE_INFINITY;
+                    predecessors[node] = -1;
+                }
+                break;
+            }
+            paths.maxHeapSize = Math.max(paths.maxHeapSize, heap.size());
+            int node = heap.removeMin();
+            paths.heapPops++;
+            paths.edgesScanned += offsets[node + 1] - offsets[node];
+            double distance = distances[node];
+            for (int e = offsets[node]; e < offsets[node + 1]; e++)
+            {
+                int neighbor = targets[e];
+                double newDistance = distance + weights[e];
+                if (newDistance < distances[neighbor])
+                {
+                    distances[neighbor] = newDistance;
+                    predecessors[neighbor] = node;
+                    heap.insertOrDecrease(neighbor, newDistance);
+                    paths.heapPushes++;
+                }
+            }
+        }
+        return paths;
+    }
+
+    /**
+     * The same as {@link #compute(CompactGraph, int, int)} over any
+     * {@link Adjacency}, e.g. an {@link OffHeapGraph}.
+     */
+    static ShortestPaths compute(Adjacency g, int source, int version)
+    {
+        int n = g.getNumNodes();
+        double[] distances = new double[n];
+        int[] predecessors = new int[n];
+        Arrays.fill(distances, Double.POSITIVE_INFINITY);
+        Arrays.fill(predecessors, -1);
+
+        IndexedMinHeap heap = new IndexedMinHeap(n);
+        distances[source] = 0.0;
+        heap.insertOrDecrease(source, 0.0);
+        ShortestPaths paths = new ShortestPaths(source, version, distances, predecessors);
+        paths.heapPushes = 1;
+        while (!heap.isEmpty())
+        {
+            paths.maxHeapSize = Math.max(paths.maxHeapSize, heap.size());
+            int node = heap.removeMin();
+            paths.heapPops++;
+            int end = g.getEndEdge(node);
+            paths.edgesScanned += end - g.getFirstEdge(node);
+            double distance = distances[node];
+            for (int e = g.getFirstEdge(node); e < end; e++)
+            {
+                int neighbor = g.getTarget(e);
+                double newDistance = distance + g.getWeight(e);
+                if (newDistance < distances[neighbor])
+                {
+                    distances[neighbor] = newDistance;
+                    predecessors[neighbor] = node;
+                    heap.insertOrDecrease(neighbor, newDistance);
+                    paths.heapPushes++;
+                }
+            }
+        }
+        return paths;
+    }
+
+    public int getSource()
+    {
+        return source;
+    }
+
+    /**
+     * Returns the {@link Graph#getVersion()} this result was computed at.
+     */
+    public int getVersion()
+    {
+        return version;
+    }
+
+    public int getNumNodes()
+    {
+        return distances.length;
+    }
+
+    public double getDistance(int node)
+    {
+        return distances[node];
+    }
+
+    public int getPredecessor(int node)
+    {
+        return predecessors[node];
+    }
+
+    public boolean isReachable(int node)
+    {
+        return distances[node] != Double.POSITIVE_INFINITY;
+    }
+
+    public int getReachedCount()
+    {
+        int count = 0;
+        for (double d : distances)
+        {
+            if (d != Double.POSITIVE_INFINITY)
+            {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the node ids on the shortest path from the source to
+     * <code>target</code>, both included, or an empty array if the target is
+     * unreachable.
+     */
+    public int[] getPath(int target)
+    {
+        if (!isReachable(target))
+        {
+            return new int[0];
+        }
+        int length = 1;
+        for (int node = target; node != source; node = predecessors[node])
+        {
+            length++;
+        }
+        int[] path = new int[length];
+        int node = target;
+        for (int i = length - 1; i >= 0; i--)
+        {
+            path[i] = node;
+            node = predecessors[node];
+        }
+        return path;
+    }
+
+    /**
+     * Returns roughly how much heap this result takes: 12 bytes per node plus
+     * array and object headers.
+     */
+    public long getSizeInBytes()
+    {
+        return 64 + 12L * distances.length;
+    }
+}
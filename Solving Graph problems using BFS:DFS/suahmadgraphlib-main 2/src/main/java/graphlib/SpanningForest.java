@@ -0,0 +1,60 @@
+package graphlib;
+
+/**
+ * A minimum spanning forest: one minimum spanning tree per connected
+ * component, as parallel arrays of edge endpoints and weights.
+ */
+public class SpanningForest
+{
+    private int numNodes;
+    private int[] sources;
+    private int[] targets;
+    private double[] weights;
+    private double totalWeight;
+
+    SpanningForest(int numNodes, int[] sources, int[] targets, double[] weights)
+    {
+        this.numNodes = numNodes;
+        this.sources = sources;
+        this.targets = targets;
+        this.weights = weights;
+        for (double weight : weights)
+        {
+            totalWeight += weight;
+        }
+    }
+
+    public double getTotalWeight()
+    {
+        return totalWeight;
+    }
+
+    public int getNumEdges()
+    {
+        return sources.length;
+    }
+
+    /**
+     * Returns the number of trees, which is the number of connected
+     * components, isolated nodes included.
+     */
+    public int getNumTrees()
+    {
+        return numNodes - sources.length;
+    }
+
+    public int getSource(int i)
+    {
+        return sources[i];
+    }
+
+    public int getTarget(int i)
+    {
+        return targets[i];
+    }
+
+    public double getWeight(int i)
+    {
+        return weights[i];
+    }
+}
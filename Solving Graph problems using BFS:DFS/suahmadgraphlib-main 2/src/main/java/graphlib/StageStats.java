@@ -0,0 +1,72 @@
+package graphlib;
+
+/**
+ * What one stage of a {@link PipelinedLoader} did: the bytes it handled,
+ * the time it spent working and the time it spent blocked on its queues.
+ * The stage with the least waiting is the bottleneck.
+ */
+public class StageStats
+{
+    private String name;
+    private long bytes;
+    private long records;
+    private long busyNanos;
+    private long waitNanos;
+
+    StageStats(String name, long bytes, long records, long busyNanos, long waitNanos)
+    {
+        this.name = name;
+        this.bytes = bytes;
+        this.records = records;
+        this.busyNanos = busyNanos;
+        this.waitNanos = waitNanos;
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    /**
+     * Returns the uncompressed bytes that went through the stage.
+     */
+    public long getBytes()
+    {
+        return bytes;
+    }
+
+    /**
+     * Returns the edge records the stage produced or consumed, or 0 for the
+     * read stage, which only moves bytes.
+     */
+    public long getRecords()
+    {
+        return records;
+    }
+
+    public long getBusyNanos()
+    {
+        return busyNanos;
+    }
+
+    public long getWaitNanos()
+    {
+        return waitNanos;
+    }
+
+    /**
+     * Returns the throughput of the stage on its own, in MB per second of
+     * busy time: what the whole load could reach if this were the only
+     * stage.
+     */
+    public double getMegabytesPerSecond()
+    {
+        return busyNanos == 0 ? 0.0 : bytes / 1e6 / (busyNanos / 1e9);
+    }
+
+    public String toString()
+    {
+        return String.format("%s: %.1f MB, %d records, busy %.1f ms, waiting %.1f ms, %.0f MB/s", name, bytes / 1e6,
+            records, busyNanos / 1e6, waitNanos / 1e6, getMegabytesPerSecond());
+    }
+}
@@ -0,0 +1,394 @@
+package graphlib;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Answers reachability and k-hop queries with shared breadth-first
+ * traversals.
+ *
+ * Queries wait in one queue. A worker takes everything queued and runs one
+ * multi-source BFS for up to 64 distinct sources at a time: each node holds
+ * a 64-bit mask of the sources that have reached it, so one scan of an edge
+ * advances every source at once. Queries that arrive while the workers are
+ * busy pile up and share the next traversal, so batches grow with the load.
+ *
+ * Sharing pays on small-world graphs, where the sources' frontiers soon
+ * overlap. On graphs with a large diameter, such as road networks, each
+ * source reaches a node at a different level anyway, and separate
+ * traversals, with a <code>maxSources</code> of 1, are faster.
+ */
+class TraversalBatcher
+{
+    static final int MAX_SOURCES = 64;
+
+    /**
+     * One query. A reachability query has a target; a k-hop query has a
+     * target of -1 and collects up to <code>limit</code> of the nodes within
+     * <code>maxHops</code> of the source.
+     */
+    static class Query
+    {
+        final int source;
+        final int target;
+        final int maxHops;
+        final int limit;
+        final CompletableFuture<Query> done = new CompletableFuture<>();
+        // the source's bit in the traversal that answers the query
+        int bit;
+        // results: hops to the target, or -1; nodes within maxHops
+        int hops = -1;
+        int count;
+        int[] nodes = new int[0];
+
+        Query(int source, int target, int maxHops, int limit)
+        {
+            this.source = source;
+            this.target = target;
+            this.maxHops = maxHops;
+            this.limit = limit;
+        }
+
+        static Query reachable(int source, int target)
+        {
+            return new Query(source, target, Integer.MAX_VALUE, 0);
+        }
+
+        static Query kHop(int source, int maxHops, int limit)
+        {
+            return new Query(source, -1, maxHops, limit);
+        }
+
+        private void addNode(int node)
+        {
+            if (count < limit)
+            {
+                if (count == nodes.length)
+                {
+                    nodes = Arrays.copyOf(nodes, Math.max(8, Math.min(limit, 2 * count)));
+                }
+                nodes[count] = node;
+            }
+            count++;
+        }
+    }
+
+    private volatile CompactGraph graph;
+    private BlockingQueue<Query> queue = new LinkedBlockingQueue<>();
+    private int maxSources;
+    private Thread[] workers;
+    private Histogram batchSizes = new Histogram();
+    private LongAdder traversals = new LongAdder();
+
+    TraversalBatcher(CompactGraph graph, int numWorkers, int maxSources)
+    {
+        if (maxSources < 1 || maxSources > MAX_SOURCES)
+        {
+            throw new IllegalArgumentException("Sources per traversal must be between 1 and " + MAX_SOURCES + ": " + maxSources);
+        }
+        this.graph = graph;
+        this.maxSources = maxSources;
+        workers = new Thread[numWorkers];
+        for (int i = 0; i < numWorkers; i++)
+        {
+            workers[i] = new Thread(this::work, "graphlib-batch-" + i);
+            workers[i].setDaemon(true);
+            workers[i].start();
+        }
+    }
+
+    /**
+     * Switches to a new snapshot; queries taken after this see it.
+     */
+    void setGraph(CompactGraph graph)
+    {
+        this.graph = graph;
+    }
+
+    CompletableFuture<Query> submit(Query query)
+    {
+        queue.add(query);
+        return query.done;
+    }
+
+    /**
+     * Returns the number of queries in each batch taken off the queue.
+     */
+    Histogram getBatchSizes()
+    {
+        return batchSizes;
+    }
+
+    long getTraversals()
+    {
+        return traversals.sum();
+    }
+
+    void close()
+    {
+        for (Thread worker : workers)
+        {
+            worker.interrupt();
+        }
+        List<Query> left = new ArrayList<>();
+        queue.drainTo(left);
+        for (Query query : left)
+        {
+            query.done.cancel(false);
+        }
+    }
+
+    private void work()
+    {
+        Scratch scratch = new Scratch();
+        List<Query> batch = new ArrayList<>();
+        try
+        {
+            while (true)
+            {
+                batch.add(queue.take());
+                queue.drainTo(batch);
+                batchSizes.record(batch.size());
+                run(graph, batch, scratch);
+                batch.clear();
+            }
+        }
+        catch (InterruptedException e)
+        {
+            for (Query query : batch)
+            {
+                query.done.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * Answers the queries, in traversals of up to <code>maxSources</code>
+     * distinct sources, and completes them.
+     */
+    void run(CompactGraph g, List<Query> queries, Scratch scratch)
+    {
+        List<Query> rest = queries;
+        while (!rest.isEmpty())
+        {
+            int[] sources = new int[maxSources];
+            int numSources = 0;
+            List<Query> group = new ArrayList<>();
+            List<Query> later = new ArrayList<>();
+            for (Query query : rest)
+            {
+                int bit = indexOf(sources, numSources, query.source);
+                if (bit < 0 && numSources < maxSources)
+                {
+                    bit = numSources;
+                    sources[numSources++] = query.source;
+                }
+                query.bit = bit;
+                (bit < 0 ? later : group).add(query);
+            }
+            try
+            {
+                traverse(g, Arrays.copyOf(sources, numSources), group, scratch);
+                for (Query query : group)
+                {
+                    query.done.complete(query);
+                }
+            }
+            catch (RuntimeException e)
+            {
+                // the traversal stopped before zeroing what it touched
+                scratch.discard();
+                for (Query query : group)
+                {
+                    query.done.completeExceptionally(e);
+                }
+            }
+            rest = later;
+        }
+    }
+
+    private static int indexOf(int[] values, int size, int value)
+    {
+        for (int i = 0; i < size; i++)
+        {
+            if (values[i] == value)
+            {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void traverse(CompactGraph g, int[] sources, List<Query> queries, Scratch scratch)
+    {
+        traversals.increment();
+        scratch.ensure(g.getNumNodes());
+        long[] seen = scratch.seen;
+        long[] frontier = scratch.frontier;
+        long[] next = scratch.next;
+        int[] frontierList = scratch.frontierList;
+        int[] nextList = scratch.nextList;
+        int[] touched = scratch.touched;
+        int numTouched = 0;
+
+        // queries by source bit
+        List<List<Query>> bySource = new ArrayList<>();
+        for (int i = 0; i < sources.length; i++)
+        {
+            bySource.add(new ArrayList<>());
+        }
+        List<Query> pendingReach = new ArrayList<>();
+        int maxHops = 0;
+        for (Query query : queries)
+        {
+            bySource.get(query.bit).add(query);
+            if (query.target >= 0)
+            {
+                if (query.target == query.source)
+                {
+                    query.hops = 0;
+                }
+                else
+                {
+                    pendingReach.add(query);
+                }
+            }
+            else
+            {
+                query.addNode(query.source);
+                maxHops = Math.max(maxHops, query.maxHops);
+            }
+        }
+
+        int frontierSize = 0;
+        for (int i = 0; i < sources.length; i++)
+        {
+            int s = sources[i];
+            seen[s] = 1L << i;
+            frontier[s] = 1L << i;
+            frontierList[frontierSize++] = s;
+            touched[numTouched++] = s;
+        }
+        int level = 0;
+        while (frontierSize > 0 && (!pendingReach.isEmpty() || level < maxHops))
+        {
+            level++;
+            int nextSize = 0;
+            for (int f = 0; f < frontierSize; f++)
+            {
+                int v = frontierList[f];
+                long mask = frontier[v];
+                frontier[v] = 0;
+                for (int e = g.getFirstEdge(v); e < g.getEndEdge(v); e++)
+                {
+                    int w = g.getTarget(e);
+                    long added = mask & ~seen[w];
+                    if (added != 0)
+                    {
+                        if (seen[w] == 0)
+                        {
+                            touched[numTouched++] = w;
+                        }
+                        if (next[w] == 0)
+                        {
+                            nextList[nextSize++] = w;
+                        }
+                        seen[w] |= added;
+                        next[w] |= added;
+                    }
+                }
+            }
+            if (level <= maxHops)
+            {
+                for (int i = 0; i < nextSize; i++)
+                {
+                    int w = nextList[i];
+                    for (long mask = next[w]; mask != 0; mask &= mask - 1)
+                    {
+                        for (Query query : bySource.get(Long.numberOfTrailingZeros(mask)))
+                        {
+                            if (query.target < 0 && level <= query.maxHops)
+                            {
+                                query.addNode(w);
+                            }
+                        }
+                    }
+                }
+            }
+            for (int i = pendingReach.size() - 1; i >= 0; i--)
+            {
+                Query query = pendingReach.get(i);
+                if ((seen[query.target] & (1L << query.bit)) != 0)
+                {
+                    query.hops = level;
+                    pendingReach.set(i, pendingReach.get(pendingReach.size() - 1));
+                    pendingReach.remove(pendingReach.size() - 1);
+                }
+            }
+            long[] swapMasks = frontier;
+            frontier = next;
+            next = swapMasks;
+            int[] swapList = frontierList;
+            frontierList = nextList;
+            nextList = swapList;
+            frontierSize = nextSize;
+        }
+        for (int f = 0; f < frontierSize; f++)
+        {
+            frontier[frontierList[f]] = 0;
+        }
+        for (int i = 0; i < numTouched; i++)
+        {
+            seen[touched[i]] = 0;
+        }
+        for (Query query : queries)
+        {
+            int kept = Math.min(query.count, query.limit);
+            if (query.nodes.length > kept)
+            {
+                query.nodes = Arrays.copyOf(query.nodes, kept);
+            }
+        }
+    }
+
+    /**
+     * One worker's arrays, all zero between traversals.
+     */
+    static class Scratch
+    {
+        long[] seen = new long[0];
+        long[] frontier = new long[0];
+        long[] next = new long[0];
+        int[] frontierList = new int[0];
+        int[] nextList = new int[0];
+        int[] touched = new int[0];
+
+        void ensure(int n)
+        {
+            if (seen.length < n)
+            {
+                seen = new long[n];
+                frontier = new long[n];
+                next = new long[n];
+                frontierList = new int[n];
+                nextList = new int[n];
+                touched = new int[n];
+            }
+        }
+
+        void discard()
+        {
+            seen = new long[0];
+            frontier = new long[0];
+            next = new long[0];
+            frontierList = new int[0];
+            nextList = new int[0];
+            touched = new int[0];
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package graphlib;
+
+/**
+ * What one int-id traversal did, filled in only when metrics or JFR want it.
+ */
+class TraversalCounters
+{
+    int visited;
+    long edgesScanned;
+    long duplicates;
+    int maxFrontier;
+}
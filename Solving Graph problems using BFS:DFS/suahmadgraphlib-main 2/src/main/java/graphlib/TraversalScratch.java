@@ -0,0 +1,63 @@
+package graphlib;
+
+/**
+ * Reusable work arrays for the int-id traversals, so that a traversal does
+ * not allocate once the arrays have grown to the size of the graph.
+ *
+ * Nodes are marked by writing the current epoch into <code>marks</code>, so
+ * starting a new traversal is O(1) instead of clearing the whole array.
+ */
+class TraversalScratch
+{
+    int[] buffer = new int[0];
+    int[] marks = new int[0];
+    private int epoch;
+    private boolean inUse;
+
+    /**
+     * Claims the arrays for one traversal, growing them if needed, and
+     * starts a new epoch. Returns a fresh scratch if this one is already in
+     * use, e.g. a visitor started another traversal or another thread is
+     * traversing the same snapshot.
+     */
+    TraversalScratch acquire(int numNodes, int bufferSize)
+    {
+        TraversalScratch scratch = claim() ? this : new TraversalScratch();
+        scratch.inUse = true;
+        if (scratch.buffer.length < bufferSize)
+        {
+            scratch.buffer = new int[bufferSize];
+        }
+        if (scratch.marks.length < numNodes)
+        {
+            scratch.marks = new int[numNodes];
+        }
+        if (scratch.epoch == Integer.MAX_VALUE)
+        {
+            java.util.Arrays.fill(scratch.marks, 0);
+            scratch.epoch = 0;
+        }
+        scratch.epoch++;
+        return scratch;
+    }
+
+    private synchronized boolean claim()
+    {
+        if (inUse)
+        {
+            return false;
+        }
+        inUse = true;
+        return true;
+    }
+
+    int getEpoch()
+    {
+        return epoch;
+    }
+
+    synchronized void release()
+    {
+        inUse = false;
+    }
+}
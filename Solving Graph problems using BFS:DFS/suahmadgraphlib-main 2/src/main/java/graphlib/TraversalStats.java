@@ -0,0 +1,86 @@
+package graphlib;
+
+/**
+ * Counters for one call of a traversal or shortest-path method, as passed to
+ * the listeners of {@link GraphMetrics}.
+ */
+public class TraversalStats
+{
+    private String operation;
+    private long nodesVisited;
+    private long edgesScanned;
+    private long duplicatePushes;
+    private long maxFrontier;
+    private long heapPushes;
+    private long heapPops;
+    private long wallNanos;
+
+    public TraversalStats(String operation, long nodesVisited, long edgesScanned, long duplicatePushes,
+        long maxFrontier, long heapPushes, long heapPops, long wallNanos)
+    {
+        this.operation = operation;
+        this.nodesVisited = nodesVisited;
+        this.edgesScanned = edgesScanned;
+        this.duplicatePushes = duplicatePushes;
+        this.maxFrontier = maxFrontier;
+        this.heapPushes = heapPushes;
+        this.heapPops = heapPops;
+        this.wallNanos = wallNanos;
+    }
+
+    /**
+     * Returns the method that ran, e.g. "bfs", "dfs2" or "dijkstra".
+     */
+    public String getOperation()
+    {
+        return operation;
+    }
+
+    public long getNodesVisited()
+    {
+        return nodesVisited;
+    }
+
+    public long getEdgesScanned()
+    {
+        return edgesScanned;
+    }
+
+    /**
+     * Returns how many queue or stack entries were popped for a node that
+     * had already been visited.
+     */
+    public long getDuplicatePushes()
+    {
+        return duplicatePushes;
+    }
+
+    /**
+     * Returns the high-water mark of the queue, stack or heap.
+     */
+    public long getMaxFrontier()
+    {
+        return maxFrontier;
+    }
+
+    public long getHeapPushes()
+    {
+        return heapPushes;
+    }
+
+    public long getHeapPops()
+    {
+        return heapPops;
+    }
+
+    public long getWallNanos()
+    {
+        return wallNanos;
+    }
+
+    public String toString()
+    {
+        return String.format("%s: visited=%d scanned=%d duplicates=%d maxFrontier=%d heapPushes=%d heapPops=%d wallNanos=%d",
+            operation, nodesVisited, edgesScanned, duplicatePushes, maxFrontier, heapPushes, heapPops, wallNanos);
+    }
+}
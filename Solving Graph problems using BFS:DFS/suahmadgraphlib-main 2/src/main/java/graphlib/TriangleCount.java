@@ -0,0 +1,80 @@
+package graphlib;
+
+/**
+ * Triangles of an undirected graph: the global count, the count at each
+ * node and the clustering coefficients derived from them.
+ */
+public class TriangleCount
+{
+    private long total;
+    private long[] triangles;
+    private int[] degrees;
+
+    TriangleCount(long total, long[] triangles, int[] degrees)
+    {
+        this.total = total;
+        this.triangles = triangles;
+        this.degrees = degrees;
+    }
+
+    public long getNumTriangles()
+    {
+        return total;
+    }
+
+    public long getTriangles(int node)
+    {
+        return triangles[node];
+    }
+
+    /**
+     * Returns the number of distinct neighbors of the node, not counting
+     * itself, with edges taken as undirected.
+     */
+    public int getDegree(int node)
+    {
+        return degrees[node];
+    }
+
+    /**
+     * Returns the fraction of pairs of neighbors of the node that are
+     * neighbors themselves, or 0 if it has fewer than two neighbors.
+     */
+    public double getClusteringCoefficient(int node)
+    {
+        long d = degrees[node];
+        return d < 2 ? 0 : 2.0 * triangles[node] / (d * (d - 1));
+    }
+
+    /**
+     * Returns the mean clustering coefficient over all nodes, counting nodes
+     * with fewer than two neighbors as 0.
+     */
+    public double getAverageClustering()
+    {
+        if (degrees.length == 0)
+        {
+            return 0;
+        }
+        double sum = 0;
+        for (int node = 0; node < degrees.length; node++)
+        {
+            sum += getClusteringCoefficient(node);
+        }
+        return sum / degrees.length;
+    }
+
+    /**
+     * Returns the global clustering coefficient: three times the number of
+     * triangles over the number of paths of length two.
+     */
+    public double getTransitivity()
+    {
+        double wedges = 0;
+        for (int d : degrees)
+        {
+            wedges += (double) d * (d - 1) / 2;
+        }
+        return wedges == 0 ? 0 : 3 * total / wedges;
+    }
+}
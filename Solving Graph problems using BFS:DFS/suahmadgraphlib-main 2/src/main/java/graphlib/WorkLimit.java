@@ -0,0 +1,121 @@
+package graphlib;
+
+import java.time.Duration;
+
+/**
+ * Limits on a long-running operation: a {@link CancellationToken}, a
+ * deadline, a budget of edges to scan, and the interrupt flag of the
+ * running thread. Any combination can be set; the
+ * operation stops at the first limit it hits and returns what it has so
+ * far, with a {@link WorkStatus} saying why.
+ *
+ * Operations check the limits between nodes. The edge budget is checked at
+ * every node, so a run may overshoot it by one node's edges. The token, the
+ * deadline and thread interruption are checked every 1024 nodes, to keep
+ * clock reads out of the inner loop. Interruption only stops limits made
+ * with {@link #withInterruption()}, so an interrupt flag a caller left set
+ * never cuts short a plain call, which runs under {@link #NONE}.
+ *
+ * Limits are immutable, so one can be shared by several operations, which
+ * then share its deadline and token but each get the whole edge budget.
+ */
+public final class WorkLimit
+{
+    public static final WorkLimit NONE = new WorkLimit(null, false, 0, Long.MAX_VALUE, false);
+
+    private final CancellationToken token;
+    private final boolean hasDeadline;
+    private final long deadlineNanos;
+    final long maxEdges;
+    private final boolean interruptible;
+
+    private WorkLimit(CancellationToken token, boolean hasDeadline, long deadlineNanos, long maxEdges,
+        boolean interruptible)
+    {
+        this.token = token;
+        this.hasDeadline = hasDeadline;
+        this.deadlineNanos = deadlineNanos;
+        this.maxEdges = maxEdges;
+        this.interruptible = interruptible;
+    }
+
+    public static WorkLimit token(CancellationToken token)
+    {
+        return NONE.withToken(token);
+    }
+
+    public static WorkLimit timeout(Duration timeout)
+    {
+        return NONE.withTimeout(timeout);
+    }
+
+    public static WorkLimit maxEdges(long maxEdges)
+    {
+        return NONE.withMaxEdges(maxEdges);
+    }
+
+    public static WorkLimit interruption()
+    {
+        return NONE.withInterruption();
+    }
+
+    public WorkLimit withToken(CancellationToken token)
+    {
+        return new WorkLimit(token, hasDeadline, deadlineNanos, maxEdges, interruptible);
+    }
+
+    /**
+     * Returns a limit with a deadline <code>timeout</code> from now.
+     */
+    public WorkLimit withTimeout(Duration timeout)
+    {
+        return new WorkLimit(token, true, System.nanoTime() + timeout.toNanos(), maxEdges, interruptible);
+    }
+
+    public WorkLimit withMaxEdges(long maxEdges)
+    {
+        if (maxEdges < 0)
+        {
+            throw new IllegalArgumentException("Edge budget must not be negative: " + maxEdges);
+        }
+        return new WorkLimit(token, hasDeadline, deadlineNanos, maxEdges, interruptible);
+    }
+
+    /**
+     * Returns a limit that also stops, as {@link WorkStatus#CANCELLED}, once
+     * the thread running the operation is interrupted. The flag is left set.
+     */
+    public WorkLimit withInterruption()
+    {
+        return new WorkLimit(token, hasDeadline, deadlineNanos, maxEdges, true);
+    }
+
+    /**
+     * Returns why the operation has to stop after scanning
+     * <code>edgesScanned</code> edges, or null if it may go on.
+     */
+    WorkStatus check(long edgesScanned)
+    {
+        if ((token != null && token.isCancelled()) || (interruptible && Thread.currentThread().isInterrupted()))
+        {
+            return WorkStatus.CANCELLED;
+        }
+        if (edgesScanned >= maxEdges)
+        {
+            return WorkStatus.BUDGET_EXHAUSTED;
+        }
+        if (hasDeadline && System.nanoTime() - deadlineNanos >= 0)
+        {
+            return WorkStatus.DEADLINE_EXCEEDED;
+        }
+        return null;
+    }
+
+    /**
+     * Returns a meter for one run of an operation.
+     */
+    WorkMeter start()
+    {
+        return new WorkMeter(this);
+    }
+}
@@ -0,0 +1,47 @@
+package graphlib;
+
+/**
+ * Checks a {@link WorkLimit} from an operation's inner loop: a countdown and
+ * a compare per call, and the full check only every 1024 calls or when the
+ * edge budget runs out. Belongs to one run on one thread.
+ */
+final class WorkMeter
+{
+    private static final int CHECK_INTERVAL = 1024;
+
+    private final WorkLimit limit;
+    private int countdown = 1;
+    private WorkStatus status = WorkStatus.COMPLETED;
+    // edges scanned by earlier parts of the same run, e.g. earlier sources
+    long priorEdges;
+
+    WorkMeter(WorkLimit limit)
+    {
+        this.limit = limit;
+    }
+
+    /**
+     * Returns true if the operation has to stop now, recording why.
+     */
+    boolean shouldStop(long edgesScanned)
+    {
+        long total = priorEdges + edgesScanned;
+        if (--countdown > 0 && total < limit.maxEdges)
+        {
+            return false;
+        }
+        countdown = CHECK_INTERVAL;
+        WorkStatus stop = limit.check(total);
+        if (stop == null)
+        {
+            return false;
+        }
+        status = stop;
+        return true;
+    }
+
+    WorkStatus getStatus()
+    {
+        return status;
+    }
+}
@@ -0,0 +1,21 @@
+package graphlib;
+
+/**
+ * How a limited operation ended.
+ */
+public enum WorkStatus
+{
+    /** The operation ran to the end; the result is complete. */
+    COMPLETED,
+    /** The token was cancelled, or the thread was interrupted under an interruptible limit. */
+    CANCELLED,
+    /** The deadline passed. */
+    DEADLINE_EXCEEDED,
+    /** The operation scanned as many edges as it was allowed. */
+    BUDGET_EXHAUSTED;
+
+    public boolean isComplete()
+    {
+        return this == COMPLETED;
+    }
+}
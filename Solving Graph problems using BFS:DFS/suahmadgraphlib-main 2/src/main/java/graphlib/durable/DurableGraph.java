@@ -0,0 +1,354 @@
+package graphlib.durable;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import graphlib.Graph;
+import graphlib.MutationListener;
+import graphlib.Node;
+
+/**
+ * Keeps a {@link Graph} durable in a directory, as a snapshot plus a
+ * write-ahead log of the mutations made since.
+ *
+ * <pre>
+ * DurableGraph store = new DurableGraph(dir);
+ * Graph g = store.open();
+ * g.getOrCreateNode("A").addDirectedEdge(g.getOrCreateNode("B"), 1.0);
+ * store.commit();
+ * </pre>
+ *
+ * {@link #open()} loads the newest snapshot and replays the log that
+ * follows it, then logs every change to the graph. Mutations
+ * only append to a buffer; {@link #commit()} makes everything logged so far
+ * durable with one write and one force, however many mutations that is,
+ * and {@link #setSyncInterval(Duration)} adds a background thread that
+ * does the same on a timer. A mutation is durable once a commit or sync
+ * that started after it has returned.
+ *
+ * When the log grows past the compaction threshold, {@link #commit()}
+ * writes a new snapshot and starts an empty log, so a restart replays at
+ * most about one threshold's worth of log. {@link #snapshot()} does the
+ * same on demand. Like the graph itself, commit and snapshot must not run
+ * concurrently with mutations.
+ *
+ * Files are <code>snapshot-N</code> and <code>log-N</code>, where log N
+ * holds the mutations made after snapshot N. Generation 0 has no snapshot.
+ */
+public class DurableGraph implements MutationListener, Closeable
+{
+    public static final long DEFAULT_COMPACTION_THRESHOLD = 64L << 20;
+
+    private final Path dir;
+    private long compactionThreshold = DEFAULT_COMPACTION_THRESHOLD;
+    private Duration syncInterval = Duration.ZERO;
+    private Graph graph;
+    private long generation;
+    private volatile EdgeLog log;
+    private ScheduledExecutorService syncer;
+    // the first failure of a background sync, rethrown by commit
+    private volatile IOException syncFailure;
+    private RecoveryStats recoveryStats;
+    private long snapshots;
+    // records and forces of the logs closed by compaction
+    private long closedRecords;
+    private long closedSyncs;
+
+    public DurableGraph(Path dir)
+    {
+        this.dir = dir;
+    }
+
+    /**
+     * Compacts when the log reaches this many bytes. Defaults to 64 MiB.
+     */
+    public void setCompactionThreshold(long bytes)
+    {
+        if (bytes < 1)
+        {
+            throw new IllegalArgumentException("Compaction threshold must be positive: " + bytes);
+        }
+        compactionThreshold = bytes;
+    }
+
+    /**
+     * Syncs the log in the background this often, bounding how much a crash
+     * can lose without calling {@link #commit()}. Zero, the default, means
+     * only commits sync. Takes effect on {@link #open()}.
+     */
+    public void setSyncInterval(Duration interval)
+    {
+        if (interval.isNegative())
+        {
+            throw new IllegalArgumentException("Sync interval must not be negative: " + interval);
+        }
+        syncInterval = interval;
+    }
+
+    /**
+     * Rebuilds the graph from the directory, creating it if needed, and
+     * starts logging its mutations.
+     */
+    public Graph open() throws IOException
+    {
+        if (graph != null)
+        {
+            throw new IllegalStateException("Already open");
+        }
+        long start = System.nanoTime();
+        Files.createDirectories(dir);
+        generation = findLatestSnapshot();
+        Graph g = new Graph();
+        long snapshotEdges = 0;
+        if (generation > 0)
+        {
+            snapshotEdges = GraphSnapshot.read(snapshotFile(generation), g);
+        }
+        Path logFile = logFile(generation);
+        long validLength = 0;
+        long discarded = 0;
+        long[] replayed = new long[1];
+        if (Files.exists(logFile))
+        {
+            validLength = EdgeLog.replay(logFile, generation, g, replayed);
+            discarded = Files.size(logFile) - Math.max(validLength, 0);
+        }
+        log = EdgeLog.open(logFile, generation, validLength);
+        deleteOtherGenerations();
+        recoveryStats = new RecoveryStats(generation, snapshotEdges, replayed[0], discarded,
+            System.nanoTime() - start);
+        graph = g;
+        g.setMutationListener(this);
+        if (!syncInterval.isZero())
+        {
+            syncer = Executors.newSingleThreadScheduledExecutor(r ->
+            {
+                Thread t = new Thread(r, "graphlib-log-sync");
+                t.setDaemon(true);
+                return t;
+            });
+            long nanos = syncInterval.toNanos();
+            syncer.scheduleWithFixedDelay(this::backgroundSync, nanos, nanos, TimeUnit.NANOSECONDS);
+        }
+        return g;
+    }
+
+    public Graph getGraph()
+    {
+        return graph;
+    }
+
+    public RecoveryStats getRecoveryStats()
+    {
+        return recoveryStats;
+    }
+
+    @Override
+    public void nodeAdded(Node node)
+    {
+        log.appendNode(node.getName());
+    }
+
+    @Override
+    public void edgeAdded(Node source, Node target, double weight)
+    {
+        log.appendEdge(source.getId(), target.getId(), weight);
+    }
+
+    @Override
+    public void edgeRemoved(Node source, Node target)
+    {
+        log.appendEdgeRemoval(source.getId(), target.getId());
+    }
+
+    @Override
+    public void nodeRemoved(Node node)
+    {
+        log.appendNodeRemoval(node.getId());
+    }
+
+    /**
+     * Makes every mutation made before the call durable, then compacts if
+     * the log has grown past the threshold.
+     */
+    public void commit() throws IOException
+    {
+        IOException failure = syncFailure;
+        if (failure != null)
+        {
+            throw new IOException("Background log sync failed", failure);
+        }
+        EdgeLog current = log;
+        current.sync();
+        if (current.getLength() >= compactionThreshold)
+        {
+            snapshot();
+        }
+    }
+
+    /**
+     * Writes the whole graph to a new snapshot and switches to an empty
+     * log, deleting the old snapshot and log.
+     */
+    public synchronized void snapshot() throws IOException
+    {
+        EdgeLog old = log;
+        old.sync();
+        long next = generation + 1;
+        GraphSnapshot.write(graph, snapshotFile(next));
+        forceDirectory();
+        // from here on a restart starts from the new snapshot
+        log = EdgeLog.open(logFile(next), next, 0);
+        closedRecords += old.getRecords();
+        closedSyncs += old.getSyncs();
+        old.close();
+        generation = next;
+        snapshots++;
+        deleteOtherGenerations();
+    }
+
+    private void backgroundSync()
+    {
+        try
+        {
+            log.sync();
+        }
+        catch (IOException e)
+        {
+            if (syncFailure == null)
+            {
+                syncFailure = e;
+            }
+        }
+    }
+
+    public long getGeneration()
+    {
+        return generation;
+    }
+
+    /**
+     * Returns the records logged since {@link #open()}.
+     */
+    public synchronized long getLoggedRecords()
+    {
+        return closedRecords + log.getRecords();
+    }
+
+    /**
+     * Returns the number of log forces since {@link #open()}; with group
+     * commit this is usually far below {@link #getLoggedRecords()}.
+     */
+    public synchronized long getSyncs()
+    {
+        return closedSyncs + log.getSyncs();
+    }
+
+    public synchronized long getSnapshots()
+    {
+        return snapshots;
+    }
+
+    public long getLogSize()
+    {
+        return log.getLength();
+    }
+
+    /**
+     * Syncs the log and stops logging. The graph stays usable, but later
+     * mutations are not recorded.
+     */
+    @Override
+    public void close() throws IOException
+    {
+        if (graph == null)
+        {
+            return;
+        }
+        if (syncer != null)
+        {
+            syncer.shutdownNow();
+        }
+        graph.setMutationListener(null);
+        log.close();
+        graph = null;
+    }
+
+    private Path snapshotFile(long generation)
+    {
+        return dir.resolve("snapshot-" + generation);
+    }
+
+    private Path logFile(long generation)
+    {
+        return dir.resolve("log-" + generation);
+    }
+
+    private long findLatestSnapshot() throws IOException
+    {
+        long latest = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "snapshot-*"))
+        {
+            for (Path file : files)
+            {
+                long generation = parseGeneration(file, "snapshot-");
+                latest = Math.max(latest, generation);
+            }
+        }
+        return latest;
+    }
+
+    // deletes snapshots and logs of other generations, and leftover temporary files
+    private void deleteOtherGenerations() throws IOException
+    {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir))
+        {
+            for (Path file : files)
+            {
+                String name = file.getFileName().toString();
+                long fileGeneration = name.startsWith("snapshot-") ? parseGeneration(file, "snapshot-")
+                    : name.startsWith("log-") ? parseGeneration(file, "log-") : generation;
+                if (fileGeneration != generation || name.endsWith(".tmp"))
+                {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    // returns -1 for names that do not end in a generation, e.g. temporary files
+    private static long parseGeneration(Path file, String prefix)
+    {
+        String suffix = file.getFileName().toString().substring(prefix.length());
+        try
+        {
+            return Long.parseLong(suffix);
+        }
+        catch (NumberFormatException e)
+        {
+            return -1;
+        }
+    }
+
+    // makes the rename of a new snapshot durable
+    private void forceDirectory()
+    {
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ))
+        {
+            channel.force(true);
+        }
+        catch (IOException e)
+        {
+            // not every platform can open a directory; the rename is still atomic
+        }
+    }
+}
@@ -0,0 +1,380 @@
+package graphlib.durable;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+import graphlib.Graph;
+
+/**
+ * Append-only log of graph mutations, written through a FileChannel.
+ *
+ * The file starts with a magic number and the generation of the snapshot
+ * it follows. Each record is
+ * <code>[int length][int crc32][byte type][payload]</code>, where the
+ * length and the CRC cover the type and payload. A node record holds the
+ * UTF-8 name; an edge record holds the source id, the target id and the
+ * weight. Node ids are not logged, since replaying the node records in
+ * order hands out the same dense ids. Edge removal records hold the two
+ * ids, and node removal records the id.
+ *
+ * Appends only copy into a buffer. {@link #sync()} writes the buffer and
+ * forces the file, and concurrent callers share one force: whoever gets
+ * the sync lock forces everything appended so far, and the callers queued
+ * behind it find their records already durable.
+ */
+class EdgeLog
+{
+    static final int MAGIC = 0x474C4F47;
+    static final int HEADER_SIZE = 8;
+    static final byte NODE = 1;
+    static final byte EDGE = 2;
+    static final byte REMOVE_EDGE = 3;
+    static final byte REMOVE_NODE = 4;
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final int EDGE_PAYLOAD_SIZE = 1 + 4 + 4 + 8;
+    private static final int REMOVE_EDGE_PAYLOAD_SIZE = 1 + 4 + 4;
+    private static final int REMOVE_NODE_PAYLOAD_SIZE = 1 + 4;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final CRC32 crc = new CRC32();
+    private final Object syncLock = new Object();
+    private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    // bytes written to the channel, not counting the buffer
+    private long written;
+    private volatile long synced;
+    private long records;
+    private long syncs;
+    private boolean closed;
+
+    private EdgeLog(Path file, FileChannel channel, long length)
+    {
+        this.file = file;
+        this.channel = channel;
+        this.written = length;
+        this.synced = length;
+    }
+
+    /**
+     * Opens the log for appending after its first <code>validLength</code>
+     * bytes, cutting off anything after them, or creates it with a header
+     * if it does not exist.
+     */
+    static EdgeLog open(Path file, long generation, long validLength) throws IOException
+    {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try
+        {
+            if (validLength < HEADER_SIZE)
+            {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                header.putInt(MAGIC).putInt((int) generation).flip();
+                channel.truncate(0);
+                while (header.hasRemaining())
+                {
+                    channel.write(header, HEADER_SIZE - header.remaining());
+                }
+                validLength = HEADER_SIZE;
+            }
+            else
+            {
+                // drop a torn record left by a crash
+                channel.truncate(validLength);
+            }
+            channel.force(true);
+            channel.position(validLength);
+            return new EdgeLog(file, channel, validLength);
+        }
+        catch (IOException e)
+        {
+            channel.close();
+            throw e;
+        }
+    }
+
+    Path getFile()
+    {
+        return file;
+    }
+
+    synchronized void appendNode(String name)
+    {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buf = reserve(RECORD_HEADER_SIZE + 1 + bytes.length);
+        int start = buf.position();
+        buf.putInt(1 + bytes.length).putInt(0).put(NODE).put(bytes);
+        finishRecord(buf, start);
+    }
+
+    synchronized void appendEdge(int source, int target, double weight)
+    {
+        ByteBuffer buf = reserve(RECORD_HEADER_SIZE + EDGE_PAYLOAD_SIZE);
+        int start = buf.position();
+        buf.putInt(EDGE_PAYLOAD_SIZE).putInt(0).put(EDGE).putInt(source).putInt(target).putDouble(weight);
+        finishRecord(buf, start);
+    }
+
+    synchronized void appendEdgeRemoval(int source, int target)
+    {
+        ByteBuffer buf = reserve(RECORD_HEADER_SIZE + REMOVE_EDGE_PAYLOAD_SIZE);
+        int start = buf.position();
+        buf.putInt(REMOVE_EDGE_PAYLOAD_SIZE).putInt(0).put(REMOVE_EDGE).putInt(source).putInt(target);
+        finishRecord(buf, start);
+    }
+
+    synchronized void appendNodeRemoval(int id)
+    {
+        ByteBuffer buf = reserve(RECORD_HEADER_SIZE + REMOVE_NODE_PAYLOAD_SIZE);
+        int start = buf.position();
+        buf.putInt(REMOVE_NODE_PAYLOAD_SIZE).putInt(0).put(REMOVE_NODE).putInt(id);
+        finishRecord(buf, start);
+    }
+
+    private ByteBuffer reserve(int size)
+    {
+        if (closed)
+        {
+            throw new IllegalStateException("Log " + file + " is closed");
+        }
+        if (buffer.remaining() < size)
+        {
+            try
+            {
+                drain();
+            }
+            catch (IOException e)
+            {
+                // appends come from graph mutations, which cannot throw
+                throw new UncheckedIOException(e);
+            }
+            if (buffer.capacity() < size)
+            {
+                buffer = ByteBuffer.allocate(size);
+            }
+        }
+        return buffer;
+    }
+
+    private void finishRecord(ByteBuffer buf, int start)
+    {
+        int payloadStart = start + RECORD_HEADER_SIZE;
+        crc.reset();
+        crc.update(buf.array(), payloadStart, buf.position() - payloadStart);
+        buf.putInt(start + 4, (int) crc.getValue());
+        records++;
+    }
+
+    // writes the buffer to the channel; callers hold the log's monitor
+    private void drain() throws IOException
+    {
+        buffer.flip();
+        try
+        {
+            while (buffer.hasRemaining())
+            {
+                written += channel.write(buffer);
+            }
+        }
+        finally
+        {
+            buffer.clear();
+        }
+    }
+
+    /**
+     * Makes every record appended before the call durable.
+     */
+    void sync() throws IOException
+    {
+        long target;
+        synchronized (this)
+        {
+            target = written + buffer.position();
+        }
+        if (synced >= target)
+        {
+            return;
+        }
+        synchronized (syncLock)
+        {
+            if (closed || synced >= target)
+            {
+                // a force that started after our appends already covered them
+                return;
+            }
+            long end;
+            synchronized (this)
+            {
+                drain();
+                end = written;
+            }
+            channel.force(false);
+            synced = end;
+            syncs++;
+        }
+    }
+
+    synchronized long getRecords()
+    {
+        return records;
+    }
+
+    long getSyncs()
+    {
+        synchronized (syncLock)
+        {
+            return syncs;
+        }
+    }
+
+    synchronized long getLength()
+    {
+        return written + buffer.position();
+    }
+
+    void close() throws IOException
+    {
+        synchronized (syncLock)
+        {
+            if (closed)
+            {
+                return;
+            }
+            try
+            {
+                synchronized (this)
+                {
+                    drain();
+                }
+                channel.force(false);
+            }
+            finally
+            {
+                synchronized (this)
+                {
+                    closed = true;
+                }
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * Replays the log into the graph and returns the length of its valid
+     * prefix, so that a record torn by a crash, and anything after it, is
+     * ignored. The count of replayed records goes into
+     * <code>counts[0]</code>.
+     */
+    static long replay(Path file, long generation, Graph graph, long[] counts) throws IOException
+    {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE)))
+        {
+            try
+            {
+                if (in.readInt() != MAGIC)
+                {
+                    throw new IOException(file + " is not a graph log");
+                }
+                if (in.readInt() != (int) generation)
+                {
+                    throw new IOException(file + " does not follow snapshot " + generation);
+                }
+            }
+            catch (EOFException e)
+            {
+                // crashed while writing the header
+                return 0;
+            }
+            long valid = HEADER_SIZE;
+            CRC32 crc = new CRC32();
+            byte[] payload = new byte[256];
+            while (true)
+            {
+                int length;
+                int expected;
+                try
+                {
+                    length = in.readInt();
+                    expected = in.readInt();
+                    if (length < 1 || length > Integer.MAX_VALUE - RECORD_HEADER_SIZE)
+                    {
+                        return valid;
+                    }
+                    if (payload.length < length)
+                    {
+                        payload = new byte[Math.max(length, payload.length * 2)];
+                    }
+                    in.readFully(payload, 0, length);
+                }
+                catch (EOFException e)
+                {
+                    return valid;
+                }
+                crc.reset();
+                crc.update(payload, 0, length);
+                if ((int) crc.getValue() != expected || !apply(payload, length, graph))
+                {
+                    return valid;
+                }
+                valid += RECORD_HEADER_SIZE + length;
+                counts[0]++;
+            }
+        }
+    }
+
+    private static boolean apply(byte[] payload, int length, Graph graph)
+    {
+        ByteBuffer record = ByteBuffer.wrap(payload, 0, length);
+        byte type = record.get();
+        if (type == NODE)
+        {
+            graph.getOrCreateNode(new String(payload, 1, length - 1, StandardCharsets.UTF_8));
+            return true;
+        }
+        if (type == EDGE && length == EDGE_PAYLOAD_SIZE)
+        {
+            int source = record.getInt();
+            int target = record.getInt();
+            double weight = record.getDouble();
+            if (source < 0 || source >= graph.getNumNodes() || target < 0 || target >= graph.getNumNodes())
+            {
+                return false;
+            }
+            graph.getNode(source).addDirectedEdge(graph.getNode(target), weight);
+            return true;
+        }
+        if (type == REMOVE_EDGE && length == REMOVE_EDGE_PAYLOAD_SIZE)
+        {
+            int source = record.getInt();
+            int target = record.getInt();
+            if (source < 0 || source >= graph.getNumNodes() || target < 0 || target >= graph.getNumNodes())
+            {
+                return false;
+            }
+            graph.getNode(source).removeDirectedEdge(graph.getNode(target));
+            return true;
+        }
+        if (type == REMOVE_NODE && length == REMOVE_NODE_PAYLOAD_SIZE)
+        {
+            int id = record.getInt();
+            if (id < 0 || id >= graph.getNumNodes())
+            {
+                return false;
+            }
+            graph.removeNode(graph.getNodeName(id));
+            return true;
+        }
+        return false;
+    }
+}
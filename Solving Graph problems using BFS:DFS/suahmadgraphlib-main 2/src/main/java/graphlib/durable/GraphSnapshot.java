@@ -0,0 +1,144 @@
+package graphlib.durable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+import graphlib.Graph;
+import graphlib.MutationBatch;
+import graphlib.Node;
+
+/**
+ * Whole-graph snapshot file: a magic number, the node count, every node
+ * name in id order, then every node's out-edge count and edges as
+ * (target id, weight) pairs, and a CRC32 of all of it at the end. A removed
+ * node keeps its name, so the ids stay the same, and has an edge count
+ * of -1.
+ *
+ * A snapshot is written to a temporary file, forced, and renamed into
+ * place, so a snapshot file that exists under its final name is complete.
+ */
+class GraphSnapshot
+{
+    static final int MAGIC = 0x474C534E;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Writes the graph and returns the number of edges written.
+     */
+    static long write(Graph graph, Path file) throws IOException
+    {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        long edges = 0;
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE))
+        {
+            CheckedOutputStream checked = new CheckedOutputStream(
+                new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE), new CRC32());
+            DataOutputStream out = new DataOutputStream(checked);
+            int numNodes = graph.getNumNodes();
+            out.writeInt(MAGIC);
+            out.writeInt(numNodes);
+            for (int id = 0; id < numNodes; id++)
+            {
+                byte[] name = graph.getNodeName(id).getBytes(StandardCharsets.UTF_8);
+                out.writeInt(name.length);
+                out.write(name);
+            }
+            for (int id = 0; id < numNodes; id++)
+            {
+                Node node = graph.getNode(id);
+                if (node.isRemoved())
+                {
+                    out.writeInt(-1);
+                    continue;
+                }
+                out.writeInt(node.getDegree());
+                for (int i = 0; i < node.getDegree(); i++)
+                {
+                    out.writeInt(node.getNeighbor(i).getId());
+                    out.writeDouble(node.getWeightAt(i));
+                    edges++;
+                }
+            }
+            long crc = checked.getChecksum().getValue();
+            out.writeLong(crc);
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return edges;
+    }
+
+    /**
+     * Reads a snapshot into an empty graph and returns the number of edges
+     * read.
+     */
+    static long read(Path file, Graph graph) throws IOException
+    {
+        long edges = 0;
+        try (CheckedInputStream checked = new CheckedInputStream(
+            new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE), new CRC32()))
+        {
+            DataInputStream in = new DataInputStream(checked);
+            if (in.readInt() != MAGIC)
+            {
+                throw new IOException(file + " is not a graph snapshot");
+            }
+            int numNodes = in.readInt();
+            MutationBatch removals = new MutationBatch();
+            byte[] name = new byte[64];
+            for (int id = 0; id < numNodes; id++)
+            {
+                int length = in.readInt();
+                if (name.length < length)
+                {
+                    name = new byte[Math.max(length, name.length * 2)];
+                }
+                in.readFully(name, 0, length);
+                graph.getOrCreateNode(new String(name, 0, length, StandardCharsets.UTF_8));
+            }
+            for (int id = 0; id < numNodes; id++)
+            {
+                Node node = graph.getNode(id);
+                int degree = in.readInt();
+                if (degree < 0)
+                {
+                    removals.removeNode(node.getName());
+                    continue;
+                }
+                for (int i = 0; i < degree; i++)
+                {
+                    int target = in.readInt();
+                    double weight = in.readDouble();
+                    if (target < 0 || target >= numNodes)
+                    {
+                        throw new IOException(file + " is corrupt: edge to node " + target);
+                    }
+                    node.addDirectedEdge(graph.getNode(target), weight);
+                    edges++;
+                }
+            }
+            long expected = checked.getChecksum().getValue();
+            if (in.readLong() != expected)
+            {
+                throw new IOException(file + " is corrupt: checksum mismatch");
+            }
+            // one pass for all removed nodes
+            graph.apply(removals);
+        }
+        return edges;
+    }
+}
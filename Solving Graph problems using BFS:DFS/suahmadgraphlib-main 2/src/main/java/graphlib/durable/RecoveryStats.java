@@ -0,0 +1,65 @@
+package graphlib.durable;
+
+/**
+ * What {@link DurableGraph#open()} found on disk and how long it took to
+ * rebuild the graph from it.
+ */
+public class RecoveryStats
+{
+    private long generation;
+    private long snapshotEdges;
+    private long replayedRecords;
+    private long discardedBytes;
+    private long elapsedNanos;
+
+    RecoveryStats(long generation, long snapshotEdges, long replayedRecords, long discardedBytes, long elapsedNanos)
+    {
+        this.generation = generation;
+        this.snapshotEdges = snapshotEdges;
+        this.replayedRecords = replayedRecords;
+        this.discardedBytes = discardedBytes;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Returns the generation of the snapshot loaded, or 0 if there was none.
+     */
+    public long getGeneration()
+    {
+        return generation;
+    }
+
+    public long getSnapshotEdges()
+    {
+        return snapshotEdges;
+    }
+
+    /**
+     * Returns the number of log records replayed on top of the snapshot.
+     */
+    public long getReplayedRecords()
+    {
+        return replayedRecords;
+    }
+
+    /**
+     * Returns the bytes cut off the end of the log, e.g. a record that was
+     * half written when the process died.
+     */
+    public long getDiscardedBytes()
+    {
+        return discardedBytes;
+    }
+
+    public long getElapsedNanos()
+    {
+        return elapsedNanos;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("generation %d: %d snapshot edges, %d log records replayed, %d bytes discarded, %.1f ms",
+            generation, snapshotEdges, replayedRecords, discardedBytes, elapsedNanos / 1e6);
+    }
+}
@@ -0,0 +1,326 @@
+package graphlib.external;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import graphlib.generate.EdgeSink;
+
+/**
+ * Writes an edge file for {@link ExternalGraph}, sorted by source and then
+ * target, with an external merge sort: edges are buffered up to
+ * <code>runEdges</code> at a time, each full buffer is sorted and written to
+ * a run file next to the output, and {@link #close()} merges the runs.
+ * At most {@link #MERGE_FAN_IN} runs are open at once: with more, groups of
+ * them are first merged into longer runs, a pass at a time, each pass
+ * rewriting the edges once. Memory use is the run buffer plus at most
+ * {@link #MERGE_FAN_IN} read buffers, however many edges are written.
+ *
+ * Duplicate edges are written once. Weights are dropped.
+ */
+public class EdgeFileWriter implements EdgeSink, Closeable
+{
+    public static final int DEFAULT_RUN_EDGES = 1 << 22;
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final int RUN_BUFFER_SIZE = 1 << 18;
+    public static final int MERGE_FAN_IN = 64;
+
+    private Path file;
+    private int numNodes;
+    private boolean undirected;
+    private long[] run;
+    private int runSize;
+    // the runs still to be merged, and every run file created so far
+    private List<Path> runFiles = new ArrayList<>();
+    private List<Path> createdFiles = new ArrayList<>();
+    private long numEdges = -1;
+
+    /**
+     * If <code>undirected</code> is true every edge is also written
+     * reversed, so a BFS follows it both ways.
+     */
+    public EdgeFileWriter(Path file, int numNodes, boolean undirected)
+    {
+        this(file, numNodes, undirected, DEFAULT_RUN_EDGES);
+    }
+
+    public EdgeFileWriter(Path file, int numNodes, boolean undirected, int runEdges)
+    {
+        if (runEdges < 1)
+        {
+            throw new IllegalArgumentException("Run size must be positive: " + runEdges);
+        }
+        this.file = file;
+        this.numNodes = numNodes;
+        this.undirected = undirected;
+        this.run = new long[runEdges];
+    }
+
+    public void edge(int source, int target, double weight)
+    {
+        addEdge(source, target);
+    }
+
+    public void addEdge(int source, int target)
+    {
+        if (source < 0 || source >= numNodes || target < 0 || target >= numNodes)
+        {
+            throw new IllegalArgumentException("Edge " + source + " -> " + target + " is outside 0.." + (numNodes - 1));
+        }
+        add(source, target);
+        if (undirected)
+        {
+            add(target, source);
+        }
+    }
+
+    private void add(int source, int target)
+    {
+        if (runSize == run.length)
+        {
+            try
+            {
+                writeRun();
+            }
+            catch (IOException e)
+            {
+                throw new UncheckedIOException(e);
+            }
+        }
+        run[runSize++] = ((long) source << 32) | target;
+    }
+
+    private void writeRun() throws IOException
+    {
+        Arrays.sort(run, 0, runSize);
+        Path runFile = newRunFile();
+        try (FileChannel channel = FileChannel.open(runFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING))
+        {
+            EdgeWriter writer = new EdgeWriter(channel, BUFFER_SIZE);
+            for (int i = 0; i < runSize; i++)
+            {
+                writer.write((int) (run[i] >>> 32), (int) run[i]);
+            }
+            writer.flush();
+        }
+        runFiles.add(runFile);
+        runSize = 0;
+    }
+
+    private Path newRunFile()
+    {
+        Path runFile = file.resolveSibling(file.getFileName() + ".run" + createdFiles.size());
+        createdFiles.add(runFile);
+        return runFile;
+    }
+
+    /**
+     * Opens the runs and returns their readers ordered by current edge,
+     * adding the channels to <code>channels</code> to be closed.
+     */
+    private static PriorityQueue<EdgeReader> openRuns(List<Path> runs, List<FileChannel> channels) throws IOException
+    {
+        PriorityQueue<EdgeReader> queue = new PriorityQueue<>(Math.max(1, runs.size()),
+            (a, b) -> Long.compare(key(a), key(b)));
+        for (Path runFile : runs)
+        {
+            FileChannel channel = FileChannel.open(runFile, StandardOpenOption.READ);
+            channels.add(channel);
+            EdgeReader reader = new EdgeReader(channel, 0, channel.size(), RUN_BUFFER_SIZE);
+            if (reader.next())
+            {
+                queue.add(reader);
+            }
+        }
+        return queue;
+    }
+
+    /**
+     * Merges one group of runs into a new run, dropping duplicates, and
+     * deletes the group.
+     */
+    private Path mergeRuns(List<Path> group) throws IOException
+    {
+        Path merged = newRunFile();
+        List<FileChannel> channels = new ArrayList<>();
+        try (FileChannel out = FileChannel.open(merged, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING))
+        {
+            PriorityQueue<EdgeReader> queue = openRuns(group, channels);
+            EdgeWriter writer = new EdgeWriter(out, BUFFER_SIZE);
+            long previous = -1;
+            EdgeReader reader;
+            while ((reader = queue.poll()) != null)
+            {
+                long key = key(reader);
+                if (reader.next())
+                {
+                    queue.add(reader);
+                }
+                if (key != previous)
+                {
+                    previous = key;
+                    writer.write((int) (key >>> 32), (int) key);
+                }
+            }
+            writer.flush();
+        }
+        finally
+        {
+            for (FileChannel channel : channels)
+            {
+                channel.close();
+            }
+        }
+        for (Path runFile : group)
+        {
+            Files.deleteIfExists(runFile);
+        }
+        return merged;
+    }
+
+    /**
+     * Returns the number of distinct edges written, once closed.
+     */
+    public long getNumEdges()
+    {
+        return numEdges;
+    }
+
+    /**
+     * Merges the runs into the edge file and deletes them.
+     */
+    public void close() throws IOException
+    {
+        if (numEdges >= 0)
+        {
+            return;
+        }
+        if (!runFiles.isEmpty() && runSize > 0)
+        {
+            writeRun();
+        }
+        // with no runs on disk, the output comes straight from the buffer
+        Arrays.sort(run, 0, runSize);
+        List<FileChannel> channels = new ArrayList<>();
+        try (FileChannel out = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING))
+        {
+            while (runFiles.size() > MERGE_FAN_IN)
+            {
+                List<Path> merged = new ArrayList<>();
+                for (int i = 0; i < runFiles.size(); i += MERGE_FAN_IN)
+                {
+                    List<Path> group = runFiles.subList(i, Math.min(runFiles.size(), i + MERGE_FAN_IN));
+                    merged.add(group.size() == 1 ? group.get(0) : mergeRuns(group));
+                }
+                runFiles = merged;
+            }
+            PriorityQueue<EdgeReader> queue = openRuns(runFiles, channels);
+
+            out.position(ExternalGraph.HEADER_BYTES);
+            EdgeWriter writer = new EdgeWriter(out, BUFFER_SIZE);
+            IntList blockStarts = new IntList();
+            long count = 0;
+            long previous = -1;
+            int next = 0;
+            while (true)
+            {
+                long key;
+                if (runFiles.isEmpty())
+                {
+                    if (next == runSize)
+                    {
+                        break;
+                    }
+                    key = run[next++];
+                }
+                else
+                {
+                    EdgeReader reader = queue.poll();
+                    if (reader == null)
+                    {
+                        break;
+                    }
+                    key = key(reader);
+                    if (reader.next())
+                    {
+                        queue.add(reader);
+                    }
+                }
+                if (key == previous)
+                {
+                    continue;
+                }
+                previous = key;
+                if (count % ExternalGraph.BLOCK_EDGES == 0)
+                {
+                    blockStarts.add((int) (key >>> 32));
+                }
+                writer.write((int) (key >>> 32), (int) key);
+                count++;
+            }
+            for (int i = 0; i < blockStarts.size; i++)
+            {
+                writer.writeInt(blockStarts.values[i]);
+            }
+            writer.flush();
+
+            ByteBuffer header = ByteBuffer.allocate(ExternalGraph.HEADER_BYTES);
+            header.putInt(ExternalGraph.MAGIC).putInt(ExternalGraph.FORMAT_VERSION).putInt(numNodes).putInt(0)
+                .putLong(count).flip();
+            while (header.hasRemaining())
+            {
+                out.write(header, header.position());
+            }
+            numEdges = count;
+        }
+        finally
+        {
+            for (FileChannel channel : channels)
+            {
+                channel.close();
+            }
+            deleteRuns();
+        }
+    }
+
+    private void deleteRuns() throws IOException
+    {
+        for (Path runFile : createdFiles)
+        {
+            Files.deleteIfExists(runFile);
+        }
+        run = null;
+    }
+
+    private static long key(EdgeReader reader)
+    {
+        return ((long) reader.source << 32) | reader.target;
+    }
+
+    private static class IntList
+    {
+        int[] values = new int[16];
+        int size;
+
+        void add(int value)
+        {
+            if (size == values.length)
+            {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package graphlib.external;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Sequential reader of (source, target) int pairs from a range of a file,
+ * through one large buffer.
+ */
+class EdgeReader
+{
+    private FileChannel channel;
+    private ByteBuffer buffer;
+    private long position;
+    private long end;
+    private long bytesRead;
+    int source;
+    int target;
+
+    EdgeReader(FileChannel channel, long start, long end, int bufferSize)
+    {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocateDirect(bufferSize & ~7);
+        this.end = end;
+        seek(start);
+    }
+
+    /**
+     * Moves to the edge at byte <code>offset</code> of the file.
+     */
+    void seek(long offset)
+    {
+        position = offset;
+        buffer.clear().limit(0);
+    }
+
+    /**
+     * Reads the next edge into {@link #source} and {@link #target}, or
+     * returns false at the end of the range.
+     */
+    boolean next() throws IOException
+    {
+        if (!buffer.hasRemaining())
+        {
+            if (position >= end)
+            {
+                return false;
+            }
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), end - position));
+            while (buffer.hasRemaining())
+            {
+                int n = channel.read(buffer, position + buffer.position());
+                if (n < 0)
+                {
+                    throw new IOException("Edge file ends early at byte " + (position + buffer.position()));
+                }
+            }
+            buffer.flip();
+            position += buffer.limit();
+            bytesRead += buffer.limit();
+        }
+        source = buffer.getInt();
+        target = buffer.getInt();
+        return true;
+    }
+
+    long getBytesRead()
+    {
+        return bytesRead;
+    }
+}
@@ -0,0 +1,54 @@
+package graphlib.external;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Appends (source, target) int pairs to a file through one large buffer.
+ */
+class EdgeWriter
+{
+    private FileChannel channel;
+    private ByteBuffer buffer;
+    private long bytesWritten;
+
+    EdgeWriter(FileChannel channel, int bufferSize)
+    {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocateDirect(bufferSize & ~7);
+    }
+
+    void write(int source, int target) throws IOException
+    {
+        if (buffer.remaining() < 8)
+        {
+            flush();
+        }
+        buffer.putInt(source).putInt(target);
+    }
+
+    void writeInt(int value) throws IOException
+    {
+        if (buffer.remaining() < 4)
+        {
+            flush();
+        }
+        buffer.putInt(value);
+    }
+
+    void flush() throws IOException
+    {
+        buffer.flip();
+        while (buffer.hasRemaining())
+        {
+            bytesWritten += channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    long getBytesWritten()
+    {
+        return bytesWritten;
+    }
+}
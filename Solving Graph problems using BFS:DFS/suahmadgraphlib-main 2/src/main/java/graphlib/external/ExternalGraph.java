@@ -0,0 +1,275 @@
+package graphlib.external;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import graphlib.IntNodeVisitor;
+
+/**
+ * A graph that stays on disk, in an edge file written by
+ * {@link EdgeFileWriter}, for graphs that do not fit in memory. Only
+ * per-node state is kept on the heap, a few bytes per node, and the edges
+ * are streamed with large sequential reads.
+ *
+ * The file holds a 24-byte header (magic, format version, node count, edge
+ * count), the edges as (source, target) int pairs sorted by source, and the
+ * first source of every block of {@link #BLOCK_EDGES} edges. That sparse
+ * index, 4 bytes per 64K edges, lets a BFS level skip straight to the first
+ * frontier node's edges.
+ */
+public class ExternalGraph implements Closeable
+{
+    static final int MAGIC = 0x47454447;
+    static final int FORMAT_VERSION = 1;
+    static final int HEADER_BYTES = 24;
+    static final int BLOCK_EDGES = 1 << 16;
+    private static final int BUFFER_SIZE = 1 << 22;
+
+    private FileChannel channel;
+    private int numNodes;
+    private long numEdges;
+    private int[] blockStarts;
+    private IoStats lastStats;
+
+    private ExternalGraph(FileChannel channel, int numNodes, long numEdges, int[] blockStarts)
+    {
+        this.channel = channel;
+        this.numNodes = numNodes;
+        this.numEdges = numEdges;
+        this.blockStarts = blockStarts;
+    }
+
+    public static ExternalGraph open(Path file) throws IOException
+    {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try
+        {
+            ByteBuffer header = read(channel, 0, HEADER_BYTES);
+            if (header.getInt() != MAGIC)
+            {
+                throw new IOException(file + " is not an edge file");
+            }
+            int version = header.getInt();
+            if (version != FORMAT_VERSION)
+            {
+                throw new IOException(file + " has unsupported format version " + version);
+            }
+            int numNodes = header.getInt();
+            header.getInt();
+            long numEdges = header.getLong();
+            int numBlocks = (int) ((numEdges + BLOCK_EDGES - 1) / BLOCK_EDGES);
+            ByteBuffer index = read(channel, HEADER_BYTES + 8 * numEdges, 4 * numBlocks);
+            int[] blockStarts = new int[numBlocks];
+            index.asIntBuffer().get(blockStarts);
+            return new ExternalGraph(channel, numNodes, numEdges, blockStarts);
+        }
+        catch (IOException | RuntimeException e)
+        {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining())
+        {
+            if (channel.read(buffer, position + buffer.position()) < 0)
+            {
+                throw new IOException("Edge file is truncated");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    public int getNumNodes()
+    {
+        return numNodes;
+    }
+
+    public long getNumEdges()
+    {
+        return numEdges;
+    }
+
+    /**
+     * Returns the cost of the last bfs or connectedComponents call.
+     */
+    public IoStats getLastStats()
+    {
+        return lastStats;
+    }
+
+    public void close() throws IOException
+    {
+        channel.close();
+    }
+
+    /**
+     * Level-synchronous BFS: each level is one sequential pass over the
+     * edges of the frontier's id range, so the number of passes is the
+     * depth of the BFS tree. Within a level, nodes are visited in id order.
+     * Returns the level of every node, or -1 for unreachable ones. Uses
+     * about 4.25 bytes of heap per node.
+     */
+    public int[] bfs(int startId, IntNodeVisitor visitor) throws IOException
+    {
+        if (startId < 0 || startId >= numNodes)
+        {
+            throw new IllegalArgumentException("Node id " + startId + " not found");
+        }
+        long startTime = System.nanoTime();
+        int[] levels = new int[numNodes];
+        Arrays.fill(levels, -1);
+        long[] frontier = new long[(numNodes + 63) >>> 6];
+        long[] next = new long[frontier.length];
+        EdgeReader reader = new EdgeReader(channel, HEADER_BYTES, HEADER_BYTES + 8 * numEdges, BUFFER_SIZE);
+        int passes = 0;
+        long edgesScanned = 0;
+
+        levels[startId] = 0;
+        visitor.visit(startId);
+        frontier[startId >>> 6] |= 1L << startId;
+        int min = startId;
+        int max = startId;
+        for (int level = 1; min <= max; level++)
+        {
+            int nextMin = Integer.MAX_VALUE;
+            int nextMax = -1;
+            reader.seek(HEADER_BYTES + 8L * BLOCK_EDGES * firstBlock(min));
+            passes++;
+            while (reader.next())
+            {
+                int source = reader.source;
+                if (source > max)
+                {
+                    break;
+                }
+                edgesScanned++;
+                int target = reader.target;
+                if ((frontier[source >>> 6] & (1L << source)) != 0 && levels[target] < 0)
+                {
+                    levels[target] = level;
+                    next[target >>> 6] |= 1L << target;
+                    nextMin = Math.min(nextMin, target);
+                    nextMax = Math.max(nextMax, target);
+                }
+            }
+            for (int word = nextMin >>> 6; word <= nextMax >>> 6 && nextMax >= 0; word++)
+            {
+                for (long bits = next[word]; bits != 0; bits &= bits - 1)
+                {
+                    visitor.visit((word << 6) + Long.numberOfTrailingZeros(bits));
+                }
+            }
+            // the next frontier becomes the current one; clear only the
+            // words the old frontier used
+            Arrays.fill(frontier, min >>> 6, (max >>> 6) + 1, 0L);
+            long[] swap = frontier;
+            frontier = next;
+            next = swap;
+            min = nextMin;
+            max = nextMax;
+        }
+        lastStats = new IoStats("bfs", passes, reader.getBytesRead(), edgesScanned, System.nanoTime() - startTime);
+        return levels;
+    }
+
+    /**
+     * Returns the index of the block holding the first edge of
+     * <code>node</code>, or of an earlier one.
+     */
+    private int firstBlock(int node)
+    {
+        int low = 0;
+        int high = blockStarts.length - 1;
+        int found = 0;
+        // the last block starting strictly before node may still hold its
+        // first edges
+        while (low <= high)
+        {
+            int mid = (low + high) >>> 1;
+            if (blockStarts[mid] < node)
+            {
+                found = mid;
+                low = mid + 1;
+            }
+            else
+            {
+                high = mid - 1;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Labels the weakly connected components with one sequential pass and
+     * an in-memory union-find, 8 bytes of heap per node. Components are
+     * numbered from 0 in order of their smallest node id.
+     */
+    public int[] connectedComponents() throws IOException
+    {
+        long startTime = System.nanoTime();
+        int[] parent = new int[numNodes];
+        for (int i = 0; i < numNodes; i++)
+        {
+            parent[i] = i;
+        }
+        EdgeReader reader = new EdgeReader(channel, HEADER_BYTES, HEADER_BYTES + 8 * numEdges, BUFFER_SIZE);
+        long edgesScanned = 0;
+        while (reader.next())
+        {
+            edgesScanned++;
+            int a = find(parent, reader.source);
+            int b = find(parent, reader.target);
+            // the smaller id becomes the root, so every root is the
+            // smallest id of its set
+            if (a < b)
+            {
+                parent[b] = a;
+            }
+            else if (b < a)
+            {
+                parent[a] = b;
+            }
+        }
+        int[] labels = new int[numNodes];
+        int count = 0;
+        for (int i = 0; i < numNodes; i++)
+        {
+            int root = find(parent, i);
+            labels[i] = root == i ? count++ : labels[root];
+        }
+        lastStats = new IoStats("connectedComponents", 1, reader.getBytesRead(), edgesScanned,
+            System.nanoTime() - startTime);
+        return labels;
+    }
+
+    private static int find(int[] parent, int node)
+    {
+        while (parent[node] != node)
+        {
+            // path halving
+            parent[node] = parent[parent[node]];
+            node = parent[node];
+        }
+        return node;
+    }
+
+    public int getNumComponents() throws IOException
+    {
+        int max = -1;
+        for (int label : connectedComponents())
+        {
+            max = Math.max(max, label);
+        }
+        return max + 1;
+    }
+}
@@ -0,0 +1,62 @@
+package graphlib.external;
+
+/**
+ * What one out-of-core operation cost: sequential passes over the edge
+ * file, bytes and edges read, and wall-clock time.
+ */
+public class IoStats
+{
+    private String operation;
+    private int passes;
+    private long bytesRead;
+    private long edgesScanned;
+    private long elapsedNanos;
+
+    IoStats(String operation, int passes, long bytesRead, long edgesScanned, long elapsedNanos)
+    {
+        this.operation = operation;
+        this.passes = passes;
+        this.bytesRead = bytesRead;
+        this.edgesScanned = edgesScanned;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public String getOperation()
+    {
+        return operation;
+    }
+
+    public int getPasses()
+    {
+        return passes;
+    }
+
+    public long getBytesRead()
+    {
+        return bytesRead;
+    }
+
+    public long getEdgesScanned()
+    {
+        return edgesScanned;
+    }
+
+    public long getElapsedNanos()
+    {
+        return elapsedNanos;
+    }
+
+    /**
+     * Returns the read throughput in MB per second.
+     */
+    public double getMegabytesPerSecond()
+    {
+        return elapsedNanos == 0 ? 0.0 : bytesRead / 1e6 / (elapsedNanos / 1e9);
+    }
+
+    public String toString()
+    {
+        return String.format("%s: %d passes, %.1f MB read, %d edges scanned, %.1f ms, %.0f MB/s", operation, passes,
+            bytesRead / 1e6, edgesScanned, elapsedNanos / 1e6, getMegabytesPerSecond());
+    }
+}
@@ -0,0 +1,93 @@
+package graphlib.generate;
+
+import java.util.SplittableRandom;
+
+/**
+ * Barabasi-Albert preferential attachment: starts from a clique of
+ * <code>edgesPerNode + 1</code> nodes, then every new node links to
+ * <code>edgesPerNode</code> distinct existing nodes chosen with probability
+ * proportional to their degree. Emits each undirected edge once, with
+ * weight 1.
+ *
+ * Keeps one int per edge endpoint in memory, i.e. 8 bytes per edge.
+ */
+public class BarabasiAlbertGenerator extends GraphGenerator
+{
+    private int numNodes;
+    private int edgesPerNode;
+
+    public BarabasiAlbertGenerator(int numNodes, int edgesPerNode, long seed)
+    {
+        super(seed);
+        if (edgesPerNode < 1 || numNodes <= edgesPerNode)
+        {
+            throw new IllegalArgumentException("need edgesPerNode >= 1 and more than edgesPerNode nodes");
+        }
+        if (2L * edgesPerNode * numNodes > Integer.MAX_VALUE - 8)
+        {
+            throw new IllegalArgumentException("too many edges for one endpoint array");
+        }
+        this.numNodes = numNodes;
+        this.edgesPerNode = edgesPerNode;
+    }
+
+    public int getNumNodes()
+    {
+        return numNodes;
+    }
+
+    public long getNumEdges()
+    {
+        long initial = (long) edgesPerNode * (edgesPerNode + 1) / 2;
+        return initial + (long) (numNodes - edgesPerNode - 1) * edgesPerNode;
+    }
+
+    public void generate(EdgeSink sink)
+    {
+        SplittableRandom random = new SplittableRandom(seed);
+        // every edge adds both endpoints, so picking a uniform entry picks a
+        // node with probability proportional to its degree
+        int[] endpoints = new int[(int) (2 * getNumEdges())];
+        int size = 0;
+        for (int u = 0; u <= edgesPerNode; u++)
+        {
+            for (int v = 0; v < u; v++)
+            {
+                sink.edge(u, v, 1.0);
+                endpoints[size++] = u;
+                endpoints[size++] = v;
+            }
+        }
+        int[] chosen = new int[edgesPerNode];
+        for (int u = edgesPerNode + 1; u < numNodes; u++)
+        {
+            int numChosen = 0;
+            while (numChosen < edgesPerNode)
+            {
+                int v = endpoints[random.nextInt(size)];
+                if (!contains(chosen, numChosen, v))
+                {
+                    chosen[numChosen++] = v;
+                }
+            }
+            for (int i = 0; i < edgesPerNode; i++)
+            {
+                sink.edge(u, chosen[i], 1.0);
+                endpoints[size++] = u;
+                endpoints[size++] = chosen[i];
+            }
+        }
+    }
+
+    private static boolean contains(int[] values, int length, int value)
+    {
+        for (int i = 0; i < length; i++)
+        {
+            if (values[i] == value)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,131 @@
+package graphlib.generate;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Streams edges as text in the format read by
+ * {@link graphlib.Graph#readUndirectedWeightedGraph} and friends: one
+ * <code>source target</code> or <code>source target weight</code> per line.
+ *
+ * Numbers are formatted straight into a byte buffer, so writing 10^8 edges
+ * does not create 10^8 strings. Weights are written with at most three
+ * decimals.
+ */
+public class EdgeListWriter implements EdgeSink, Closeable
+{
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private OutputStream out;
+    private boolean weighted;
+    private byte[] buffer = new byte[BUFFER_SIZE];
+    private int position;
+    private long numEdges;
+
+    public EdgeListWriter(OutputStream out, boolean weighted)
+    {
+        this.out = out;
+        this.weighted = weighted;
+    }
+
+    public void edge(int source, int target, double weight)
+    {
+        // longest line is two ints plus a weight, well under 64 bytes
+        if (position > BUFFER_SIZE - 64)
+        {
+            flushBuffer();
+        }
+        writeLong(source);
+        buffer[position++] = ' ';
+        writeLong(target);
+        if (weighted)
+        {
+            buffer[position++] = ' ';
+            writeWeight(weight);
+        }
+        buffer[position++] = '\n';
+        numEdges++;
+    }
+
+    public long getNumEdges()
+    {
+        return numEdges;
+    }
+
+    private void writeWeight(double weight)
+    {
+        long scaled = Math.round(weight * 1000);
+        if (scaled < 0)
+        {
+            buffer[position++] = '-';
+            scaled = -scaled;
+        }
+        writeLong(scaled / 1000);
+        int fraction = (int) (scaled % 1000);
+        if (fraction != 0)
+        {
+            buffer[position++] = '.';
+            buffer[position++] = (byte) ('0' + fraction / 100);
+            fraction %= 100;
+            if (fraction != 0)
+            {
+                buffer[position++] = (byte) ('0' + fraction / 10);
+                fraction %= 10;
+                if (fraction != 0)
+                {
+                    buffer[position++] = (byte) ('0' + fraction);
+                }
+            }
+        }
+    }
+
+    private void writeLong(long value)
+    {
+        if (value < 0)
+        {
+            buffer[position++] = '-';
+            value = -value;
+        }
+        // write the digits backwards, then reverse them in place
+        int start = position;
+        do
+        {
+            buffer[position++] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        while (value != 0);
+        for (int i = start, j = position - 1; i < j; i++, j--)
+        {
+            byte tmp = buffer[i];
+            buffer[i] = buffer[j];
+            buffer[j] = tmp;
+        }
+    }
+
+    private void flushBuffer()
+    {
+        try
+        {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void flush() throws IOException
+    {
+        flushBuffer();
+        out.flush();
+    }
+
+    public void close() throws IOException
+    {
+        flushBuffer();
+        out.close();
+    }
+}
@@ -0,0 +1,10 @@
+package graphlib.generate;
+
+/**
+ * Receives the edges produced by a {@link GraphGenerator}, one at a time, so
+ * that generators never need to hold the edge list in memory.
+ */
+public interface EdgeSink
+{
+    public void edge(int source, int target, double weight);
+}
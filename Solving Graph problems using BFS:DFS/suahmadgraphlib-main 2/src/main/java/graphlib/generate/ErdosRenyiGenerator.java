@@ -0,0 +1,54 @@
+package graphlib.generate;
+
+import java.util.SplittableRandom;
+
+/**
+ * Erdos-Renyi G(n, m) generator: <code>numEdges</code> edges whose endpoints
+ * are drawn uniformly at random. Self loops are rejected; duplicate edges are
+ * kept, and collapse when loaded into a Graph.
+ */
+public class ErdosRenyiGenerator extends GraphGenerator
+{
+    private int numNodes;
+    private long numEdges;
+    private int maxWeight;
+
+    public ErdosRenyiGenerator(int numNodes, long numEdges, long seed)
+    {
+        this(numNodes, numEdges, 100, seed);
+    }
+
+    public ErdosRenyiGenerator(int numNodes, long numEdges, int maxWeight, long seed)
+    {
+        super(seed);
+        if (numNodes < 2)
+        {
+            throw new IllegalArgumentException("need at least 2 nodes, not " + numNodes);
+        }
+        this.numNodes = numNodes;
+        this.numEdges = numEdges;
+        this.maxWeight = maxWeight;
+    }
+
+    public int getNumNodes()
+    {
+        return numNodes;
+    }
+
+    public void generate(EdgeSink sink)
+    {
+        SplittableRandom random = new SplittableRandom(seed);
+        long emitted = 0;
+        while (emitted < numEdges)
+        {
+            int source = random.nextInt(numNodes);
+            int target = random.nextInt(numNodes);
+            double weight = 1 + random.nextInt(maxWeight);
+            if (source != target)
+            {
+                sink.edge(source, target, weight);
+                emitted++;
+            }
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package graphlib.generate;
+
+import java.util.SplittableRandom;
+
+/**
+ * Random geometric graphs as a stand-in for road networks: nodes are points
+ * scattered uniformly over a square with on average one point per unit of
+ * area, and every pair of points closer than <code>radius</code> is joined by
+ * an undirected edge weighted by their Euclidean distance. A radius around
+ * 1.5 gives an average degree of about 7.
+ *
+ * Keeps the coordinates and a bucket index in memory, about 16 bytes per
+ * node; edges are streamed.
+ */
+public class GeometricGenerator extends GraphGenerator
+{
+    private int numNodes;
+    private double radius;
+    private double side;
+    private float[] xs;
+    private float[] ys;
+
+    public GeometricGenerator(int numNodes, double radius, long seed)
+    {
+        super(seed);
+        this.numNodes = numNodes;
+        this.radius = radius;
+        this.side = Math.sqrt(numNodes);
+    }
+
+    public int getNumNodes()
+    {
+        return numNodes;
+    }
+
+    /**
+     * Returns the x coordinate of a node, so that callers can use the
+     * positions, e.g. for A* or for drawing.
+     */
+    public double getX(int node)
+    {
+        placePoints();
+        return xs[node];
+    }
+
+    public double getY(int node)
+    {
+        placePoints();
+        return ys[node];
+    }
+
+    private void placePoints()
+    {
+        if (xs != null)
+        {
+            return;
+        }
+        SplittableRandom random = new SplittableRandom(seed);
+        xs = new float[numNodes];
+        ys = new float[numNodes];
+        for (int i = 0; i < numNodes; i++)
+        {
+            xs[i] = (float) (random.nextDouble() * side);
+            ys[i] = (float) (random.nextDouble() * side);
+        }
+    }
+
+    public void generate(EdgeSink sink)
+    {
+        placePoints();
+        // bucket the points into square cells of size radius, so each point
+        // only has to look at its own and the neighbouring cells
+        int cellsPerSide = Math.max(1, (int) (side / radius));
+        double cellSize = side / cellsPerSide;
+        int numCells = cellsPerSide * cellsPerSide;
+        int[] cellStart = new int[numCells + 1];
+        int[] cellOf = new int[numNodes];
+        for (int i = 0; i < numNodes; i++)
+        {
+            int cx = Math.min(cellsPerSide - 1, (int) (xs[i] / cellSize));
+            int cy = Math.min(cellsPerSide - 1, (int) (ys[i] / cellSize));
+            cellOf[i] = cy * cellsPerSide + cx;
+            cellStart[cellOf[i] + 1]++;
+        }
+        for (int c = 0; c < numCells; c++)
+        {
+            cellStart[c + 1] += cellStart[c];
+        }
+        int[] members = new int[numNodes];
+        int[] fill = new int[numCells];
+        for (int i = 0; i < numNodes; i++)
+        {
+            int c = cellOf[i];
+            members[cellStart[c] + fill[c]++] = i;
+        }
+        fill = null;
+
+        double radiusSquared = radius * radius;
+        for (int i = 0; i < numNodes; i++)
+        {
+            int cx = cellOf[i] % cellsPerSide;
+            int cy = cellOf[i] / cellsPerSide;
+            for (int y = Math.max(0, cy - 1); y <= Math.min(cellsPerSide - 1, cy + 1); y++)
+            {
+                for (int x = Math.max(0, cx - 1); x <= Math.min(cellsPerSide - 1, cx + 1); x++)
+                {
+                    int c = y * cellsPerSide + x;
+                    for (int k = cellStart[c]; k < cellStart[c + 1]; k++)
+                    {
+                        int j = members[k];
+                        // emit each pair once
+                        if (j <= i)
+                        {
+                            continue;
+                        }
+                        double dx = xs[i] - xs[j];
+                        double dy = ys[i] - ys[j];
+                        double d2 = dx * dx + dy * dy;
+                        if (d2 < radiusSquared)
+                        {
+                            sink.edge(i, j, Math.sqrt(d2));
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package graphlib.generate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import graphlib.Graph;
+import graphlib.GraphBuilder;
+
+/**
+ * Base class of the synthetic graph generators.
+ *
+ * A generator produces the same edges, in the same order, every time it runs
+ * with the same parameters and seed, whatever sink it writes to. Undirected
+ * shapes (grids, geometric graphs, Barabasi-Albert) emit each edge once, so
+ * build them with <code>toGraph(false)</code> or read them back with one of
+ * the undirected loaders.
+ */
+public abstract class GraphGenerator
+{
+    protected final long seed;
+
+    protected GraphGenerator(long seed)
+    {
+        this.seed = seed;
+    }
+
+    public long getSeed()
+    {
+        return seed;
+    }
+
+    public abstract int getNumNodes();
+
+    /**
+     * Sends every edge to the sink. Node ids are in the range
+     * <code>0 .. getNumNodes() - 1</code>.
+     */
+    public abstract void generate(EdgeSink sink);
+
+    /**
+     * Builds the graph in memory, with nodes named by their integer id.
+     */
+    public Graph toGraph(boolean directed)
+    {
+        GraphBuilder builder = new GraphBuilder(directed);
+        builder.addNumberedNodes(getNumNodes());
+        generate(builder);
+        return builder.build();
+    }
+
+    /**
+     * Streams the edge list to <code>out</code> in the text format of the
+     * readXxxGraph loaders, and returns the number of edges written. The
+     * stream is flushed but not closed.
+     */
+    public long writeEdgeList(OutputStream out, boolean weighted) throws IOException
+    {
+        EdgeListWriter writer = new EdgeListWriter(out, weighted);
+        generate(writer);
+        writer.flush();
+        return writer.getNumEdges();
+    }
+}
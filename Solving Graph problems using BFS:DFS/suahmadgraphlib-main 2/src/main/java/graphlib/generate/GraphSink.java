@@ -0,0 +1,43 @@
+package graphlib.generate;
+
+import graphlib.Graph;
+import graphlib.Node;
+
+/**
+ * Builds a {@link Graph} in memory. Nodes are named by their integer id and
+ * are created up front in id order, so <code>graph.getNodeId("17") == 17</code>.
+ */
+public class GraphSink implements EdgeSink
+{
+    private Graph graph;
+    private Node[] nodes;
+    private boolean directed;
+
+    public GraphSink(int numNodes, boolean directed)
+    {
+        this.graph = new Graph();
+        this.nodes = new Node[numNodes];
+        this.directed = directed;
+        for (int i = 0; i < numNodes; i++)
+        {
+            nodes[i] = graph.getOrCreateNode(Integer.toString(i));
+        }
+    }
+
+    public void edge(int source, int target, double weight)
+    {
+        if (directed)
+        {
+            nodes[source].addDirectedEdge(nodes[target], weight);
+        }
+        else
+        {
+            nodes[source].addUndirectedEdge(nodes[target], weight);
+        }
+    }
+
+    public Graph getGraph()
+    {
+        return graph;
+    }
+}
@@ -0,0 +1,58 @@
+package graphlib.generate;
+
+/**
+ * A rows x cols grid where cell (i, j) is node <code>i * cols + j</code>,
+ * connected to its 4 neighbours, or its 8 neighbours with diagonals. Emits
+ * each undirected edge once, with weight 1. Needs no memory at all, so it
+ * streams grids of any size.
+ */
+public class GridGenerator extends GraphGenerator
+{
+    private int rows;
+    private int cols;
+    private boolean diagonals;
+
+    public GridGenerator(int rows, int cols, boolean diagonals)
+    {
+        super(0);
+        if ((long) rows * cols > Integer.MAX_VALUE)
+        {
+            throw new IllegalArgumentException("grid has more than Integer.MAX_VALUE cells");
+        }
+        this.rows = rows;
+        this.cols = cols;
+        this.diagonals = diagonals;
+    }
+
+    public int getNumNodes()
+    {
+        return rows * cols;
+    }
+
+    public void generate(EdgeSink sink)
+    {
+        for (int i = 0; i < rows; i++)
+        {
+            for (int j = 0; j < cols; j++)
+            {
+                int node = i * cols + j;
+                if (j + 1 < cols)
+                {
+                    sink.edge(node, node + 1, 1.0);
+                }
+                if (i + 1 < rows)
+                {
+                    sink.edge(node, node + cols, 1.0);
+                    if (diagonals && j + 1 < cols)
+                    {
+                        sink.edge(node, node + cols + 1, 1.0);
+                    }
+                    if (diagonals && j > 0)
+                    {
+                        sink.edge(node, node + cols - 1, 1.0);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package graphlib.generate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Random island maps: a rows x cols raster of land (1) and water (0) made
+ * from smoothed value noise, so land forms blobs of roughly
+ * <code>featureSize</code> cells rather than salt-and-pepper.
+ *
+ * Whether a cell is land is a pure function of its coordinates and the seed,
+ * so rasters of any size stream row by row without being held in memory.
+ * {@link #writeIslandFile(OutputStream)} writes the format read by
+ * {@link graphlib.Graph#readIslandFile2}; {@link #generate(EdgeSink)} emits
+ * the same adjacency between land cells, where cell (i, j) is node
+ * <code>i * cols + j</code> and water cells are isolated nodes. Land cells
+ * next to each other across a side are joined, and so are land cells
+ * diagonally next to each other if either is off the border.
+ */
+public class IslandRasterGenerator extends GraphGenerator
+{
+    private int rows;
+    private int cols;
+    private double landFraction;
+    private double featureSize;
+
+    public IslandRasterGenerator(int rows, int cols, double landFraction, double featureSize, long seed)
+    {
+        super(seed);
+        if ((long) rows * cols > Integer.MAX_VALUE)
+        {
+            throw new IllegalArgumentException("raster has more than Integer.MAX_VALUE cells");
+        }
+        this.rows = rows;
+        this.cols = cols;
+        this.landFraction = landFraction;
+        this.featureSize = Math.max(1.0, featureSize);
+    }
+
+    public int getNumNodes()
+    {
+        return rows * cols;
+    }
+
+    public boolean isLand(int row, int col)
+    {
+        double x = col / featureSize;
+        double y = row / featureSize;
+        int x0 = (int) Math.floor(x);
+        int y0 = (int) Math.floor(y);
+        double fx = smooth(x - x0);
+        double fy = smooth(y - y0);
+        double top = lerp(lattice(x0, y0), lattice(x0 + 1, y0), fx);
+        double bottom = lerp(lattice(x0, y0 + 1), lattice(x0 + 1, y0 + 1), fx);
+        return lerp(top, bottom, fy) < landFraction;
+    }
+
+    private static double smooth(double t)
+    {
+        return t * t * (3 - 2 * t);
+    }
+
+    private static double lerp(double a, double b, double t)
+    {
+        return a + (b - a) * t;
+    }
+
+    // pseudo-random value in [0, 1) for a lattice point
+    private double lattice(int x, int y)
+    {
+        long h = seed ^ (x * 0x9E3779B97F4A7C15L) ^ (y * 0xC2B2AE3D27D4EB4FL);
+        h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+        h ^= h >>> 31;
+        return (h >>> 11) * 0x1.0p-53;
+    }
+
+    public void generate(EdgeSink sink)
+    {
+        boolean[] above = new boolean[cols];
+        boolean[] current = new boolean[cols];
+        for (int i = 0; i < rows; i++)
+        {
+            for (int j = 0; j < cols; j++)
+            {
+                current[j] = isLand(i, j);
+            }
+            for (int j = 0; j < cols; j++)
+            {
+                if (!current[j])
+                {
+                    continue;
+                }
+                int node = i * cols + j;
+                if (j > 0 && current[j - 1])
+                {
+                    sink.edge(node, node - 1, 1.0);
+                }
+                if (i > 0)
+                {
+                    if (above[j])
+                    {
+                        sink.edge(node, node - cols, 1.0);
+                    }
+                    if (j > 0 && above[j - 1] && (isInterior(i, j) || isInterior(i - 1, j - 1)))
+                    {
+                        sink.edge(node, node - cols - 1, 1.0);
+                    }
+                    if (j + 1 < cols && above[j + 1] && (isInterior(i, j) || isInterior(i - 1, j + 1)))
+                    {
+                        sink.edge(node, node - cols + 1, 1.0);
+                    }
+                }
+            }
+            boolean[] tmp = above;
+            above = current;
+            current = tmp;
+        }
+    }
+
+    private boolean isInterior(int row, int col)
+    {
+        return row > 0 && row < rows - 1 && col > 0 && col < cols - 1;
+    }
+
+    /**
+     * Writes the raster as "rows cols" followed by one line of 0s and 1s per
+     * row. The stream is flushed but not closed.
+     */
+    public void writeIslandFile(OutputStream out) throws IOException
+    {
+        out.write((rows + " " + cols + "\n").getBytes());
+        byte[] line = new byte[cols + 1];
+        line[cols] = '\n';
+        for (int i = 0; i < rows; i++)
+        {
+            for (int j = 0; j < cols; j++)
+            {
+                line[j] = (byte) (isLand(i, j) ? '1' : '0');
+            }
+            out.write(line);
+        }
+        out.flush();
+    }
+}
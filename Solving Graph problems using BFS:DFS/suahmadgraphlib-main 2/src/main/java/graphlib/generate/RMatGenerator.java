@@ -0,0 +1,107 @@
+package graphlib.generate;
+
+import java.util.SplittableRandom;
+
+/**
+ * R-MAT (recursive matrix) generator, the Kronecker-style model used by
+ * Graph500. Each edge picks one quadrant of the adjacency matrix per bit of
+ * the node id, with probabilities a, b, c and d = 1 - a - b - c, which gives
+ * the skewed degree distribution of web and social graphs.
+ *
+ * Node ids are scrambled with a bijection on <code>scale</code> bits so that
+ * the high-degree nodes are not all clustered at small ids. Self loops are
+ * rejected; duplicate edges are kept, and collapse when loaded into a Graph.
+ */
+public class RMatGenerator extends GraphGenerator
+{
+    private int scale;
+    private long numEdges;
+    private double a;
+    private double b;
+    private double c;
+    private int maxWeight;
+
+    /**
+     * Graph500 parameters: a = 0.57, b = c = 0.19, weights 1..100.
+     */
+    public RMatGenerator(int scale, long numEdges, long seed)
+    {
+        this(scale, numEdges, 0.57, 0.19, 0.19, 100, seed);
+    }
+
+    public RMatGenerator(int scale, long numEdges, double a, double b, double c, int maxWeight, long seed)
+    {
+        super(seed);
+        if (scale < 1 || scale > 30)
+        {
+            throw new IllegalArgumentException("scale must be between 1 and 30, not " + scale);
+        }
+        if (a < 0 || b < 0 || c < 0 || a + b + c > 1)
+        {
+            throw new IllegalArgumentException("a, b and c must be probabilities with a + b + c <= 1");
+        }
+        this.scale = scale;
+        this.numEdges = numEdges;
+        this.a = a;
+        this.b = b;
+        this.c = c;
+        this.maxWeight = maxWeight;
+    }
+
+    public int getNumNodes()
+    {
+        return 1 << scale;
+    }
+
+    public void generate(EdgeSink sink)
+    {
+        SplittableRandom random = new SplittableRandom(seed);
+        long emitted = 0;
+        while (emitted < numEdges)
+        {
+            int source = 0;
+            int target = 0;
+            for (int bit = 0; bit < scale; bit++)
+            {
+                double p = random.nextDouble();
+                source <<= 1;
+                target <<= 1;
+                if (p < a)
+                {
+                    // top left quadrant
+                }
+                else if (p < a + b)
+                {
+                    target |= 1;
+                }
+                else if (p < a + b + c)
+                {
+                    source |= 1;
+                }
+                else
+                {
+                    source |= 1;
+                    target |= 1;
+                }
+            }
+            double weight = 1 + random.nextInt(maxWeight);
+            if (source == target)
+            {
+                continue;
+            }
+            sink.edge(scramble(source), scramble(target), weight);
+            emitted++;
+        }
+    }
+
+    private int scramble(int id)
+    {
+        long mask = (1L << scale) - 1;
+        // multiplying by an odd constant and xor-shifting are both
+        // bijections modulo 2^scale
+        long x = (id * 0x9E3779B97F4A7C15L + seed) & mask;
+        x ^= x >>> (scale / 2 + 1);
+        x = (x * 0xBF58476D1CE4E5B9L) & mask;
+        return (int) x;
+    }
+}
@@ -0,0 +1,28 @@
+package graphlib.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Emitted by whole-graph computations such as getNumComponents and
+ * getReachableNodes.
+ */
+@Name("graphlib.Components")
+@Label("Graph Components")
+@Category("graphlib")
+@Description("A computation over every node of the graph")
+public class ComponentsEvent extends Event
+{
+    @Label("Operation")
+    public String operation;
+
+    @Label("Nodes")
+    public int nodes;
+
+    @Label("Components")
+    @Description("Number of components found, or -1 if not applicable")
+    public int components;
+}
@@ -0,0 +1,33 @@
+package graphlib.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Emitted by the readXxxGraph loaders and by inverseGraph.
+ */
+@Name("graphlib.GraphLoad")
+@Label("Graph Load")
+@Category("graphlib")
+@Description("Reading a graph from an input stream")
+public class GraphLoadEvent extends Event
+{
+    @Label("Format")
+    @Description("Which loader ran, e.g. undirected-weighted or island")
+    public String format;
+
+    @Label("Bytes Read")
+    @DataAmount(DataAmount.BYTES)
+    public long bytes;
+
+    @Label("Edges")
+    @Description("Edge lines or cells read from the input")
+    public long edges;
+
+    @Label("Nodes")
+    public int nodes;
+}
@@ -0,0 +1,30 @@
+package graphlib.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Emitted by the shortest-path methods of Graph.
+ */
+@Name("graphlib.ShortestPath")
+@Label("Shortest Paths")
+@Category("graphlib")
+@Description("One single-source shortest-path computation")
+public class ShortestPathEvent extends Event
+{
+    @Label("Algorithm")
+    public String algorithm;
+
+    @Label("Source Node")
+    public String source;
+
+    @Label("Reached")
+    @Description("Nodes with a finite distance from the source")
+    public long reachedCount;
+
+    @Label("Heap Pushes")
+    public long heapPushes;
+}
@@ -0,0 +1,30 @@
+package graphlib.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Emitted by every bfs and dfs variant of Graph.
+ */
+@Name("graphlib.Traversal")
+@Label("Graph Traversal")
+@Category("graphlib")
+@Description("One breadth-first or depth-first traversal")
+public class TraversalEvent extends Event
+{
+    @Label("Algorithm")
+    @Description("bfs, dfs, bfs2, dfs2, bfsIds or dfsIds")
+    public String algorithm;
+
+    @Label("Start Node")
+    public String startNode;
+
+    @Label("Visited")
+    public long visitedCount;
+
+    @Label("Edges Scanned")
+    public long edgesScanned;
+}
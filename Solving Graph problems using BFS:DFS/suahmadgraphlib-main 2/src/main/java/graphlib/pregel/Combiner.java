@@ -0,0 +1,55 @@
+package graphlib.pregel;
+
+/**
+ * Folds the messages sent to one vertex in a superstep into a single double,
+ * so that the engine never stores message lists. The operation must be
+ * associative and commutative, since messages arrive in any order.
+ */
+public interface Combiner
+{
+    public static final Combiner SUM = new Combiner()
+    {
+        public double identity()
+        {
+            return 0.0;
+        }
+
+        public double combine(double a, double b)
+        {
+            return a + b;
+        }
+    };
+
+    public static final Combiner MIN = new Combiner()
+    {
+        public double identity()
+        {
+            return Double.POSITIVE_INFINITY;
+        }
+
+        public double combine(double a, double b)
+        {
+            return Math.min(a, b);
+        }
+    };
+
+    public static final Combiner MAX = new Combiner()
+    {
+        public double identity()
+        {
+            return Double.NEGATIVE_INFINITY;
+        }
+
+        public double combine(double a, double b)
+        {
+            return Math.max(a, b);
+        }
+    };
+
+    /**
+     * The value of an empty inbox.
+     */
+    public double identity();
+
+    public double combine(double a, double b);
+}
@@ -0,0 +1,45 @@
+package graphlib.pregel;
+
+/**
+ * Connected components by min-label propagation: every vertex starts with
+ * its own id as label and passes on any smaller label it hears of. When no
+ * labels change, each vertex holds the smallest id in its component. Edges
+ * are followed as stored, so on a directed graph add both directions to
+ * get weakly connected components.
+ */
+public class ConnectedComponents implements VertexProgram
+{
+    /**
+     * Returns the component label of every vertex.
+     */
+    public static int[] run(PregelEngine engine)
+    {
+        double[] values = engine.run(new ConnectedComponents(), Integer.MAX_VALUE).getValues();
+        int[] labels = new int[values.length];
+        for (int i = 0; i < values.length; i++)
+        {
+            labels[i] = (int) values[i];
+        }
+        return labels;
+    }
+
+    public Combiner getCombiner()
+    {
+        return Combiner.MIN;
+    }
+
+    public void compute(Vertex vertex, Messages messages)
+    {
+        if (vertex.getSuperstep() == 0)
+        {
+            vertex.setValue(vertex.getId());
+            vertex.sendToAllNeighbors(vertex.getId());
+        }
+        else if (messages.get() < vertex.getValue())
+        {
+            vertex.setValue(messages.get());
+            vertex.sendToAllNeighbors(messages.get());
+        }
+        vertex.voteToHalt();
+    }
+}
@@ -0,0 +1,31 @@
+package graphlib.pregel;
+
+/**
+ * The messages sent to a vertex in the previous superstep, already folded
+ * by the program's {@link Combiner}.
+ */
+public class Messages
+{
+    private boolean empty;
+    private double combined;
+
+    void reset(boolean empty, double combined)
+    {
+        this.empty = empty;
+        this.combined = combined;
+    }
+
+    public boolean isEmpty()
+    {
+        return empty;
+    }
+
+    /**
+     * Returns the combined message, or the combiner's identity if there
+     * were none.
+     */
+    public double get()
+    {
+        return combined;
+    }
+}
@@ -0,0 +1,62 @@
+package graphlib.pregel;
+
+/**
+ * PageRank by power iteration. Each vertex spreads its rank evenly over its
+ * out-edges; rank held by vertices without out-edges is summed with the
+ * aggregator and spread evenly over all vertices, so ranks always add up
+ * to 1.
+ */
+public class PageRank implements VertexProgram
+{
+    private double damping;
+    private int iterations;
+
+    public PageRank(double damping, int iterations)
+    {
+        if (damping < 0 || damping > 1)
+        {
+            throw new IllegalArgumentException("Damping must be in 0..1: " + damping);
+        }
+        this.damping = damping;
+        this.iterations = iterations;
+    }
+
+    /**
+     * Returns the rank of every vertex after <code>iterations</code>
+     * rounds.
+     */
+    public static double[] run(PregelEngine engine, double damping, int iterations)
+    {
+        return engine.run(new PageRank(damping, iterations), iterations + 1).getValues();
+    }
+
+    public Combiner getCombiner()
+    {
+        return Combiner.SUM;
+    }
+
+    public void compute(Vertex vertex, Messages messages)
+    {
+        int n = vertex.getNumVertices();
+        if (vertex.getSuperstep() == 0)
+        {
+            vertex.setValue(1.0 / n);
+        }
+        else
+        {
+            vertex.setValue((1 - damping) / n + damping * (messages.get() + vertex.getAggregate() / n));
+        }
+        if (vertex.getSuperstep() == iterations)
+        {
+            vertex.voteToHalt();
+        }
+        else if (vertex.getOutDegree() > 0)
+        {
+            vertex.sendToAllNeighbors(vertex.getValue() / vertex.getOutDegree());
+        }
+        else
+        {
+            vertex.aggregate(vertex.getValue());
+        }
+    }
+}
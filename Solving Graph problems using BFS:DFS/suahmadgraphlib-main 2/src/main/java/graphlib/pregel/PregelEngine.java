@@ -0,0 +1,280 @@
+package graphlib.pregel;
+
+import java.io.Closeable;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import graphlib.CompactGraph;
+
+/**
+ * Runs {@link VertexProgram}s over a {@link CompactGraph} in bulk-synchronous
+ * supersteps, in the style of Pregel.
+ *
+ * Vertices are cut into chunks of about equal edge count, and worker
+ * threads claim chunks until none are left, so a few hubs do not leave the
+ * other threads idle. Messages are never queued: each vertex has one inbox
+ * slot per superstep, and senders fold into it with the program's
+ * {@link Combiner} by compare-and-set. Inboxes are double-buffered, so a
+ * superstep reads last superstep's messages while writing the next.
+ */
+public class PregelEngine implements Closeable
+{
+    private static final VarHandle LONGS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final int CHUNKS_PER_THREAD = 16;
+
+    private CompactGraph graph;
+    private int numThreads;
+    private ExecutorService pool;
+    // chunk i is vertices chunkStarts[i] .. chunkStarts[i + 1] - 1
+    private int[] chunkStarts;
+
+    public PregelEngine(CompactGraph graph, int numThreads)
+    {
+        if (numThreads < 1)
+        {
+            throw new IllegalArgumentException("Thread count must be positive: " + numThreads);
+        }
+        this.graph = graph;
+        this.numThreads = numThreads;
+        this.pool = numThreads > 1 ? Executors.newFixedThreadPool(numThreads, runnable ->
+        {
+            Thread thread = new Thread(runnable, "graphlib-pregel");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+        this.chunkStarts = chunk(graph, numThreads * CHUNKS_PER_THREAD);
+    }
+
+    private static int[] chunk(CompactGraph graph, int numChunks)
+    {
+        int n = graph.getNumNodes();
+        long target = Math.max(1, ((long) n + graph.getNumEdges()) / numChunks);
+        int[] starts = new int[numChunks + 2];
+        int size = 1;
+        long work = 0;
+        for (int v = 0; v < n; v++)
+        {
+            work += 1 + graph.getDegree(v);
+            if (work >= target && v + 1 < n && size < starts.length - 1)
+            {
+                starts[size++] = v + 1;
+                work = 0;
+            }
+        }
+        starts[size++] = n;
+        return Arrays.copyOf(starts, size);
+    }
+
+    public int getNumThreads()
+    {
+        return numThreads;
+    }
+
+    public CompactGraph getGraph()
+    {
+        return graph;
+    }
+
+    /**
+     * Runs supersteps until every vertex has voted to halt and no messages
+     * are in flight, or until <code>maxSupersteps</code> have run. Vertex
+     * values start at 0.
+     */
+    public PregelResult run(VertexProgram program, int maxSupersteps)
+    {
+        long startTime = System.nanoTime();
+        Run run = new Run(program);
+        long messagesSent = 0;
+        boolean converged = false;
+        while (run.superstep < maxSupersteps)
+        {
+            long sent = run.superstep();
+            messagesSent += sent;
+            run.superstep++;
+            if (sent == 0 && run.allHalted)
+            {
+                converged = true;
+                break;
+            }
+        }
+        return new PregelResult(run.values, run.superstep, messagesSent, System.nanoTime() - startTime, converged);
+    }
+
+    public void close()
+    {
+        if (pool != null)
+        {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * The state of one run.
+     */
+    class Run
+    {
+        private VertexProgram program;
+        private Combiner combiner;
+        private long identityBits;
+        int superstep;
+        double[] values;
+        boolean[] halted;
+        double previousAggregate;
+        boolean allHalted;
+        private long[] inbox;
+        private boolean[] hasMessage;
+        private long[] nextInbox;
+        private boolean[] nextHasMessage;
+        private Vertex[] vertices;
+        private Messages[] messages;
+
+        Run(VertexProgram program)
+        {
+            int n = graph.getNumNodes();
+            this.program = program;
+            this.combiner = program.getCombiner();
+            this.identityBits = Double.doubleToRawLongBits(combiner.identity());
+            this.values = new double[n];
+            this.halted = new boolean[n];
+            this.inbox = new long[n];
+            this.nextInbox = new long[n];
+            Arrays.fill(inbox, identityBits);
+            Arrays.fill(nextInbox, identityBits);
+            this.hasMessage = new boolean[n];
+            this.nextHasMessage = new boolean[n];
+            this.vertices = new Vertex[numThreads];
+            this.messages = new Messages[numThreads];
+            for (int i = 0; i < numThreads; i++)
+            {
+                vertices[i] = new Vertex(this, graph);
+                messages[i] = new Messages();
+            }
+        }
+
+        /**
+         * Runs one superstep and returns the number of messages sent.
+         */
+        long superstep()
+        {
+            AtomicInteger nextChunk = new AtomicInteger();
+            boolean[] active = new boolean[numThreads];
+            if (pool == null)
+            {
+                active[0] = work(0, nextChunk);
+            }
+            else
+            {
+                List<Callable<Boolean>> tasks = new ArrayList<>();
+                for (int i = 0; i < numThreads; i++)
+                {
+                    int worker = i;
+                    tasks.add(() -> work(worker, nextChunk));
+                }
+                try
+                {
+                    List<Future<Boolean>> results = pool.invokeAll(tasks);
+                    for (int i = 0; i < numThreads; i++)
+                    {
+                        active[i] = results.get(i).get();
+                    }
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted in superstep " + superstep, e);
+                }
+                catch (ExecutionException e)
+                {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof RuntimeException)
+                    {
+                        throw (RuntimeException) cause;
+                    }
+                    throw new IllegalStateException(cause);
+                }
+            }
+            long sent = 0;
+            double aggregate = 0.0;
+            allHalted = true;
+            for (int i = 0; i < numThreads; i++)
+            {
+                sent += vertices[i].messagesSent;
+                aggregate += vertices[i].aggregate;
+                vertices[i].messagesSent = 0;
+                vertices[i].aggregate = 0.0;
+                allHalted &= !active[i];
+            }
+            previousAggregate = aggregate;
+            // the inbox was cleared as it was read, so it takes the next
+            // superstep's messages
+            long[] swapInbox = inbox;
+            inbox = nextInbox;
+            nextInbox = swapInbox;
+            boolean[] swapFlags = hasMessage;
+            hasMessage = nextHasMessage;
+            nextHasMessage = swapFlags;
+            return sent;
+        }
+
+        /**
+         * Computes chunks until none are left. Returns true if any vertex
+         * it computed is still active.
+         */
+        private boolean work(int worker, AtomicInteger nextChunk)
+        {
+            Vertex vertex = vertices[worker];
+            Messages inboxView = messages[worker];
+            boolean anyActive = false;
+            for (int chunk = nextChunk.getAndIncrement(); chunk < chunkStarts.length - 1; chunk = nextChunk.getAndIncrement())
+            {
+                for (int v = chunkStarts[chunk]; v < chunkStarts[chunk + 1]; v++)
+                {
+                    boolean received = hasMessage[v];
+                    if (received || !halted[v])
+                    {
+                        halted[v] = false;
+                        inboxView.reset(!received, Double.longBitsToDouble(inbox[v]));
+                        vertex.moveTo(v);
+                        program.compute(vertex, inboxView);
+                        anyActive |= !halted[v];
+                        inbox[v] = identityBits;
+                        hasMessage[v] = false;
+                    }
+                }
+            }
+            return anyActive;
+        }
+
+        void send(int target, double message)
+        {
+            nextHasMessage[target] = true;
+            if (pool == null)
+            {
+                // a single worker has nothing to race with
+                nextInbox[target] = Double.doubleToRawLongBits(
+                    combiner.combine(Double.longBitsToDouble(nextInbox[target]), message));
+                return;
+            }
+            long current = (long) LONGS.getVolatile(nextInbox, target);
+            while (true)
+            {
+                long combined = Double.doubleToRawLongBits(combiner.combine(Double.longBitsToDouble(current), message));
+                long witness = (long) LONGS.compareAndExchange(nextInbox, target, current, combined);
+                if (witness == current)
+                {
+                    return;
+                }
+                current = witness;
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package graphlib.pregel;
+
+/**
+ * The final vertex values of a {@link PregelEngine} run, and what it cost.
+ */
+public class PregelResult
+{
+    private double[] values;
+    private int supersteps;
+    private long messagesSent;
+    private long elapsedNanos;
+    private boolean converged;
+
+    PregelResult(double[] values, int supersteps, long messagesSent, long elapsedNanos, boolean converged)
+    {
+        this.values = values;
+        this.supersteps = supersteps;
+        this.messagesSent = messagesSent;
+        this.elapsedNanos = elapsedNanos;
+        this.converged = converged;
+    }
+
+    public double[] getValues()
+    {
+        return values;
+    }
+
+    public double getValue(int vertex)
+    {
+        return values[vertex];
+    }
+
+    public int getSupersteps()
+    {
+        return supersteps;
+    }
+
+    public long getMessagesSent()
+    {
+        return messagesSent;
+    }
+
+    public long getElapsedNanos()
+    {
+        return elapsedNanos;
+    }
+
+    /**
+     * Returns true if every vertex halted with no messages in flight, false
+     * if the run stopped at the superstep limit.
+     */
+    public boolean isConverged()
+    {
+        return converged;
+    }
+}
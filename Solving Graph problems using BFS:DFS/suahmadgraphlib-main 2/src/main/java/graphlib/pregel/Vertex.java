@@ -0,0 +1,117 @@
+package graphlib.pregel;
+
+import graphlib.CompactGraph;
+
+/**
+ * The view a {@link VertexProgram} has of the vertex being computed. The
+ * engine reuses one instance per worker thread, so programs must not keep
+ * it after compute returns.
+ */
+public class Vertex
+{
+    private PregelEngine.Run run;
+    private CompactGraph graph;
+    private int id;
+    // per-worker sums, collected by the engine after each superstep
+    double aggregate;
+    long messagesSent;
+
+    Vertex(PregelEngine.Run run, CompactGraph graph)
+    {
+        this.run = run;
+        this.graph = graph;
+    }
+
+    void moveTo(int id)
+    {
+        this.id = id;
+    }
+
+    public int getId()
+    {
+        return id;
+    }
+
+    public int getSuperstep()
+    {
+        return run.superstep;
+    }
+
+    public int getNumVertices()
+    {
+        return graph.getNumNodes();
+    }
+
+    public double getValue()
+    {
+        return run.values[id];
+    }
+
+    public void setValue(double value)
+    {
+        run.values[id] = value;
+    }
+
+    public int getOutDegree()
+    {
+        return graph.getDegree(id);
+    }
+
+    /**
+     * Returns the target of the i-th out-edge, for i below
+     * {@link #getOutDegree()}.
+     */
+    public int getNeighbor(int i)
+    {
+        return graph.getTarget(graph.getFirstEdge(id) + i);
+    }
+
+    public double getEdgeWeight(int i)
+    {
+        return graph.getWeight(graph.getFirstEdge(id) + i);
+    }
+
+    public void sendTo(int target, double message)
+    {
+        if (target < 0 || target >= graph.getNumNodes())
+        {
+            throw new IllegalArgumentException("Vertex " + target + " not found");
+        }
+        run.send(target, message);
+        messagesSent++;
+    }
+
+    public void sendToAllNeighbors(double message)
+    {
+        for (int e = graph.getFirstEdge(id); e < graph.getEndEdge(id); e++)
+        {
+            run.send(graph.getTarget(e), message);
+        }
+        messagesSent += graph.getDegree(id);
+    }
+
+    /**
+     * Adds to this superstep's global sum, readable by every vertex in the
+     * next superstep through {@link #getAggregate()}.
+     */
+    public void aggregate(double value)
+    {
+        aggregate += value;
+    }
+
+    /**
+     * Returns the sum of the values aggregated in the previous superstep.
+     */
+    public double getAggregate()
+    {
+        return run.previousAggregate;
+    }
+
+    /**
+     * Deactivates the vertex until it receives a message.
+     */
+    public void voteToHalt()
+    {
+        run.halted[id] = true;
+    }
+}
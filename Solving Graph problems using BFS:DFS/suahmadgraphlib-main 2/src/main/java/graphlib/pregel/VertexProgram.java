@@ -0,0 +1,16 @@
+package graphlib.pregel;
+
+/**
+ * A vertex-centric algorithm for {@link PregelEngine}. In each superstep the
+ * engine calls {@link #compute(Vertex, Messages)} for every active vertex,
+ * in parallel, with the combined messages sent to it in the previous
+ * superstep. A vertex reads and writes only its own value and talks to
+ * others by sending messages; it may vote to halt, and is woken again by a
+ * message.
+ */
+public interface VertexProgram
+{
+    public Combiner getCombiner();
+
+    public void compute(Vertex vertex, Messages messages);
+}
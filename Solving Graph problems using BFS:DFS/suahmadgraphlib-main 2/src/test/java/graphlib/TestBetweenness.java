@@ -0,0 +1,127 @@
+package graphlib;
+
+import java.io.FileInputStream;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import graphlib.generate.ErdosRenyiGenerator;
+import graphlib.generate.RMatGenerator;
+
+public class TestBetweenness {
+
+    // all pairs distances and path counts, then the pair-by-pair definition
+    private static double[] bruteForce(CompactGraph g, boolean weighted) {
+        int n = g.getNumNodes();
+        double[][] d = new double[n][n];
+        for (int s = 0; s < n; s++) {
+            java.util.Arrays.fill(d[s], Double.POSITIVE_INFINITY);
+            d[s][s] = 0;
+            for (int e = g.getFirstEdge(s); e < g.getEndEdge(s); e++) {
+                int t = g.getTarget(e);
+                if (t != s) {
+                    d[s][t] = Math.min(d[s][t], weighted ? g.getWeight(e) : 1);
+                }
+            }
+        }
+        for (int k = 0; k < n; k++) {
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < n; j++) {
+                    d[i][j] = Math.min(d[i][j], d[i][k] + d[k][j]);
+                }
+            }
+        }
+        double[][] count = new double[n][n];
+        for (int s = 0; s < n; s++) {
+            final int source = s;
+            Integer[] byDistance = new Integer[n];
+            for (int i = 0; i < n; i++) {
+                byDistance[i] = i;
+            }
+            java.util.Arrays.sort(byDistance, (a, b) -> Double.compare(d[source][a], d[source][b]));
+            count[s][s] = 1;
+            for (int u : byDistance) {
+                if (d[s][u] == Double.POSITIVE_INFINITY) {
+                    break;
+                }
+                for (int e = g.getFirstEdge(u); e < g.getEndEdge(u); e++) {
+                    int t = g.getTarget(e);
+                    if (t != u && d[s][u] + (weighted ? g.getWeight(e) : 1) == d[s][t]) {
+                        count[s][t] += count[s][u];
+                    }
+                }
+            }
+        }
+        double[] scores = new double[n];
+        for (int s = 0; s < n; s++) {
+            for (int t = 0; t < n; t++) {
+                if (s == t || count[s][t] == 0) {
+                    continue;
+                }
+                for (int v = 0; v < n; v++) {
+                    if (v != s && v != t && d[s][v] + d[v][t] == d[s][t]) {
+                        scores[v] += count[s][v] * count[v][t] / count[s][t];
+                    }
+                }
+            }
+        }
+        return scores;
+    }
+
+    @Test
+    public void testMatchesBruteForce() {
+        CompactGraph directed = new ErdosRenyiGenerator(80, 240, 4, 1).toGraph(true).getCompactGraph();
+        CompactGraph undirected = new RMatGenerator(7, 300, 2).toGraph(false).getCompactGraph();
+        for (CompactGraph g : new CompactGraph[] {directed, undirected}) {
+            for (boolean weighted : new boolean[] {false, true}) {
+                double[] expected = bruteForce(g, weighted);
+                for (int threads : new int[] {1, 3}) {
+                    BetweennessCentrality result = Betweenness.exact(g, weighted, threads);
+                    assertTrue(result.isExact());
+                    for (int v = 0; v < expected.length; v++) {
+                        assertEquals(expected[v], result.getScore(v), 1e-9);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testStarAndTopNodes() {
+        Graph g = new Graph();
+        Node hub = g.getOrCreateNode("hub");
+        for (int i = 0; i < 5; i++) {
+            hub.addUndirectedEdge(g.getOrCreateNode("leaf" + i), 1);
+        }
+        g.getOrCreateNode("leaf0").addUndirectedEdge(g.getOrCreateNode("leaf1"), 1);
+        BetweennessCentrality result = Betweenness.exact(g.getCompactGraph(), false, 2);
+        // ordered pairs of leaves other than leaf0 and leaf1 themselves
+        assertEquals(5 * 4 - 2, result.getScore(hub.getId()));
+        assertEquals(0, result.getScore(g.getOrCreateNode("leaf0").getId()));
+        assertEquals(hub.getId(), result.getTopNodes(1)[0]);
+        assertEquals(6, result.getTopNodes(10).length);
+        assertEquals(0, result.getErrorBound(0.1));
+    }
+
+    @Test
+    public void testSamplingWithinBound() throws Exception {
+        CompactGraph g = Graph.readUndirectedWeightedGraph(new FileInputStream("datafiles/scotlandc.txt")).getCompactGraph();
+        int n = g.getNumNodes();
+        BetweennessCentrality exact = Betweenness.exact(g, true, 2);
+        BetweennessCentrality sampled = Betweenness.sample(g, true, n / 4, 11, 2);
+        assertFalse(sampled.isExact());
+        assertEquals(n / 4, sampled.getNumSources());
+        double bound = sampled.getErrorBound(0.01);
+        for (int v = 0; v < n; v++) {
+            assertEquals(exact.getScore(v), sampled.getScore(v), bound);
+        }
+        assertTrue(Betweenness.samplesFor(n, 0.1, 0.01) > 0);
+        // sampling every node is the exact computation
+        BetweennessCentrality all = Betweenness.sample(g, true, 2 * n, 3, 1);
+        assertTrue(all.isExact());
+        for (int v = 0; v < n; v++) {
+            assertEquals(exact.getScore(v), all.getScore(v), 1e-6);
+        }
+        assertThrows(IllegalArgumentException.class, () -> Betweenness.sample(g, true, 0, 1, 1));
+    }
+}
@@ -0,0 +1,106 @@
+package graphlib;
+
+import java.io.FileInputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import graphlib.generate.GeometricGenerator;
+import graphlib.generate.GridGenerator;
+import graphlib.generate.RMatGenerator;
+
+public class TestCompressedGraph {
+
+    private static int[] sortedNeighbors(CompactGraph g, int u) {
+        int[] list = new int[g.getDegree(u)];
+        for (int e = g.getFirstEdge(u); e < g.getEndEdge(u); e++) {
+            list[e - g.getFirstEdge(u)] = g.getTarget(e);
+        }
+        Arrays.sort(list);
+        return list;
+    }
+
+    private static void assertSameLists(CompactGraph expected, CompressedGraph actual) {
+        assertEquals(expected.getNumNodes(), actual.getNumNodes());
+        assertEquals(expected.getNumEdges(), actual.getNumEdges());
+        NeighborCursor cursor = actual.newCursor();
+        // random order, so lists are not always decoded after their references
+        Permutation order = Permutation.random(expected.getNumNodes(), 3);
+        for (int i = 0; i < expected.getNumNodes(); i++) {
+            int u = order.getOldId(i);
+            int[] list = sortedNeighbors(expected, u);
+            cursor.reset(u);
+            assertEquals(list.length, cursor.size());
+            assertEquals(list.length, actual.getDegree(u));
+            for (int j = 0; j < list.length; j++) {
+                assertTrue(cursor.hasNext());
+                assertEquals(list[j], cursor.next());
+                assertEquals(list[j], cursor.get(j));
+            }
+            assertFalse(cursor.hasNext());
+        }
+    }
+
+    @Test
+    public void testRoundTrip() {
+        CompactGraph rmat = new RMatGenerator(10, 6000, 4).toGraph(false).getCompactGraph();
+        CompactGraph grid = new GridGenerator(40, 40, true).toGraph(false).getCompactGraph();
+        for (CompactGraph g : new CompactGraph[] {rmat, grid, rmat.permute(GraphReordering.bfsOrder(rmat))}) {
+            assertSameLists(g, CompressedGraph.compress(g, 0, 0));
+            assertSameLists(g, CompressedGraph.compress(g));
+            assertSameLists(g, CompressedGraph.compress(g, 3, 1));
+        }
+    }
+
+    @Test
+    public void testEmptyAndSingleNodes() {
+        Graph g = new Graph();
+        g.getOrCreateNode("A");
+        g.getOrCreateNode("B").addDirectedEdge(g.getOrCreateNode("A"), 1.0);
+        CompressedGraph compressed = CompressedGraph.compress(g.getCompactGraph());
+        assertEquals(0, compressed.newCursor().reset(0).size());
+        assertEquals(0, compressed.newCursor().reset(1).next());
+        assertThrows(IllegalArgumentException.class, () -> compressed.newCursor().reset(2));
+    }
+
+    @Test
+    public void testBfsMatchesCompactGraph() {
+        CompactGraph g = new RMatGenerator(11, 12000, 9).toGraph(false).getCompactGraph();
+        CompressedGraph compressed = CompressedGraph.compress(g);
+        for (int start : new int[] {0, 100, 2000}) {
+            List<Integer> expected = new ArrayList<>();
+            List<Integer> actual = new ArrayList<>();
+            // permuting sorts each neighbor list, as the compressed graph does
+            g.permute(Permutation.identity(g.getNumNodes())).bfs(start, expected::add);
+            compressed.bfs(start, actual::add);
+            assertEquals(expected, actual);
+        }
+    }
+
+    @Test
+    public void testBitsPerEdge() throws Exception {
+        CompactGraph grid = new GridGenerator(200, 200, false).toGraph(false).getCompactGraph();
+        CompactGraph geometric = new GeometricGenerator(20000, 1.5, 1).toGraph(false).getCompactGraph();
+        geometric = geometric.permute(GraphReordering.bfsOrder(geometric));
+        CompactGraph rmat = new RMatGenerator(14, 200000, 1).toGraph(false).getCompactGraph();
+        CompactGraph scotland = Graph.readUndirectedWeightedGraph(new FileInputStream("datafiles/scotlandc.txt"))
+            .getCompactGraph();
+        String[] names = {"grid", "geometric", "rmat", "scotlandc"};
+        CompactGraph[] graphs = {grid, geometric, rmat, scotland};
+        for (int i = 0; i < graphs.length; i++) {
+            CompressedGraph gaps = CompressedGraph.compress(graphs[i], 0, 0);
+            CompressedGraph refs = CompressedGraph.compress(graphs[i]);
+            System.out.printf("%s: %d edges, %.2f bits/edge gaps only, %.2f with references (%.2f with offsets)\n",
+                names[i], refs.getNumEdges(), gaps.getBitsPerEdge(), refs.getBitsPerEdge(), refs.getBitsPerEdgeWithOffsets());
+            // a reference only costs header bits when it is not worth it
+            assertTrue(refs.getBitsPerEdge() <= gaps.getBitsPerEdge() * 1.01);
+        }
+        // far less than the 32 bits of an int target, and nearby
+        // points share neighbors that references can copy
+        assertTrue(CompressedGraph.compress(grid).getBitsPerEdge() < 20);
+        assertTrue(CompressedGraph.compress(geometric).getBitsPerEdge() < CompressedGraph.compress(geometric, 0, 0).getBitsPerEdge());
+    }
+}
@@ -0,0 +1,198 @@
+package graphlib;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import graphlib.durable.DurableGraph;
+import graphlib.durable.RecoveryStats;
+
+public class TestDurableGraph {
+
+    @TempDir
+    Path dir;
+
+    private static void addEdges(Graph g, int from, int to) {
+        for (int i = from; i < to; i++) {
+            g.getOrCreateNode("n" + i).addDirectedEdge(g.getOrCreateNode("n" + (i * 7 % 101)), i * 0.5);
+        }
+    }
+
+    private static void assertSameGraph(Graph expected, Graph actual) {
+        assertEquals(expected.getNumNodes(), actual.getNumNodes());
+        for (int id = 0; id < expected.getNumNodes(); id++) {
+            Node e = expected.getNode(id);
+            Node a = actual.getNode(id);
+            assertEquals(e.getName(), a.getName());
+            assertEquals(e.isRemoved(), a.isRemoved());
+            assertEquals(e.getNeighbors().size(), a.getNeighbors().size());
+            for (Node neighbor : e.getNeighbors()) {
+                Node other = actual.getNode(neighbor.getId());
+                assertTrue(a.hasEdge(other));
+                assertEquals(e.getWeight(neighbor), a.getWeight(other));
+            }
+        }
+    }
+
+    private Graph reopen(DurableGraph[] holder) throws IOException {
+        holder[0] = new DurableGraph(dir);
+        return holder[0].open();
+    }
+
+    @Test
+    public void testReplaysLog() throws IOException {
+        Graph expected = new Graph();
+        addEdges(expected, 0, 300);
+        expected.getOrCreateNode("Sk\u00e9ne").addUndirectedEdge(expected.getOrCreateNode("n0"), 2.0);
+
+        try (DurableGraph store = new DurableGraph(dir)) {
+            Graph g = store.open();
+            addEdges(g, 0, 300);
+            g.getOrCreateNode("Sk\u00e9ne").addUndirectedEdge(g.getOrCreateNode("n0"), 2.0);
+            store.commit();
+            // one force covers every record logged before the commit
+            assertEquals(1, store.getSyncs());
+            assertEquals(g.getNumNodes() + 302, store.getLoggedRecords());
+        }
+
+        DurableGraph[] store = new DurableGraph[1];
+        Graph g = reopen(store);
+        RecoveryStats stats = store[0].getRecoveryStats();
+        assertEquals(0, stats.getGeneration());
+        assertEquals(expected.getNumNodes() + 302, stats.getReplayedRecords());
+        assertEquals(0, stats.getDiscardedBytes());
+        assertSameGraph(expected, g);
+        store[0].close();
+    }
+
+    @Test
+    public void testCompactsIntoSnapshot() throws IOException {
+        Graph expected = new Graph();
+        addEdges(expected, 0, 1000);
+
+        try (DurableGraph store = new DurableGraph(dir)) {
+            store.setCompactionThreshold(2000);
+            Graph g = store.open();
+            for (int i = 0; i < 1000; i += 50) {
+                addEdges(g, i, i + 50);
+                store.commit();
+            }
+            assertTrue(store.getSnapshots() > 0);
+            assertTrue(store.getLogSize() < 3000);
+        }
+        // only the newest snapshot and its log are kept
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(2, files.collect(Collectors.toList()).size());
+        }
+
+        DurableGraph[] store = new DurableGraph[1];
+        Graph g = reopen(store);
+        RecoveryStats stats = store[0].getRecoveryStats();
+        assertTrue(stats.getGeneration() > 0);
+        assertTrue(stats.getSnapshotEdges() > 0);
+        assertTrue(stats.getReplayedRecords() < 1000);
+        assertSameGraph(expected, g);
+        store[0].close();
+    }
+
+    @Test
+    public void testDiscardsTornTail() throws IOException {
+        Graph expected = new Graph();
+        addEdges(expected, 0, 100);
+        try (DurableGraph store = new DurableGraph(dir)) {
+            addEdges(store.open(), 0, 100);
+        }
+        // a crash in the middle of writing the next record
+        try (FileChannel log = FileChannel.open(dir.resolve("log-0"), StandardOpenOption.APPEND)) {
+            log.write(ByteBuffer.wrap(new byte[] {0, 0, 0, 17, 1, 2, 3}));
+        }
+
+        DurableGraph[] store = new DurableGraph[1];
+        Graph g = reopen(store);
+        assertEquals(7, store[0].getRecoveryStats().getDiscardedBytes());
+        assertSameGraph(expected, g);
+
+        // logging carries on after the cut
+        addEdges(expected, 100, 120);
+        addEdges(g, 100, 120);
+        store[0].close();
+        g = reopen(store);
+        assertEquals(0, store[0].getRecoveryStats().getDiscardedBytes());
+        assertSameGraph(expected, g);
+        store[0].close();
+    }
+
+    @Test
+    public void testDropsRecordWithBadChecksum() throws IOException {
+        try (DurableGraph store = new DurableGraph(dir)) {
+            Graph g = store.open();
+            g.getOrCreateNode("A").addDirectedEdge(g.getOrCreateNode("B"), 1.0);
+        }
+        // flip a bit in the weight of the last record, the edge
+        Path file = dir.resolve("log-0");
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(file, bytes);
+
+        DurableGraph[] store = new DurableGraph[1];
+        Graph g = reopen(store);
+        assertEquals(2, g.getNumNodes());
+        assertFalse(g.getNode(0).hasEdge(g.getNode(1)));
+        assertEquals(2, store[0].getRecoveryStats().getReplayedRecords());
+        store[0].close();
+    }
+
+    @Test
+    public void testRemovalsSurviveRestart() throws IOException {
+        Graph expected = new Graph();
+        addEdges(expected, 0, 200);
+        MutationBatch batch = new MutationBatch();
+        batch.removeNode("n7");
+        batch.removeDirectedEdge("n3", "n21");
+        batch.addUndirectedEdge("n1", "n2", 9.0);
+        expected.apply(batch);
+        expected.getOrCreateNode("n50").removeDirectedEdge(expected.getOrCreateNode("n47"));
+        expected.removeNode("n60");
+
+        try (DurableGraph store = new DurableGraph(dir)) {
+            Graph g = store.open();
+            addEdges(g, 0, 200);
+            g.apply(batch);
+            // half the removals land in the snapshot, half in the log
+            store.snapshot();
+            g.getOrCreateNode("n50").removeDirectedEdge(g.getOrCreateNode("n47"));
+            g.removeNode("n60");
+        }
+
+        DurableGraph[] store = new DurableGraph[1];
+        Graph g = reopen(store);
+        assertEquals(2, g.getNumRemovedNodes());
+        assertTrue(g.getNode(g.getNameDictionary().find("n7")).isRemoved());
+        assertSameGraph(expected, g);
+        store[0].close();
+    }
+
+    @Test
+    public void testBackgroundSync() throws Exception {
+        try (DurableGraph store = new DurableGraph(dir)) {
+            store.setSyncInterval(Duration.ofMillis(5));
+            Graph g = store.open();
+            addEdges(g, 0, 10);
+            long deadline = System.nanoTime() + 10_000_000_000L;
+            while (store.getSyncs() == 0 && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            assertEquals(1, store.getSyncs());
+        }
+    }
+}
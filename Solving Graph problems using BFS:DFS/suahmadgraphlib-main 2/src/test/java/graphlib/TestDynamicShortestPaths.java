@@ -0,0 +1,103 @@
+package graphlib;
+
+import java.io.FileInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import graphlib.generate.GridGenerator;
+
+public class TestDynamicShortestPaths {
+
+    private static void assertMatchesDijkstra(Graph g, DynamicShortestPaths dynamic, String source) {
+        Map<Node, Double> expected = g.dijkstra(source);
+        for (Node node : g.getAllNodes()) {
+            double distance = expected.containsKey(node) ? expected.get(node) : Double.POSITIVE_INFINITY;
+            assertEquals(distance, dynamic.getDistance(source, node.getName()), 1e-9, node.getName());
+        }
+        // the predecessors form a tree of shortest paths
+        ShortestPaths paths = dynamic.getShortestPaths(source);
+        for (Node node : g.getAllNodes()) {
+            int predecessor = paths.getPredecessor(node.getId());
+            if (predecessor >= 0) {
+                double viaPredecessor = paths.getDistance(predecessor) + g.getNode(predecessor).getWeight(node);
+                assertEquals(paths.getDistance(node.getId()), viaPredecessor, 1e-9);
+            }
+        }
+    }
+
+    @Test
+    public void testRandomUpdatesOnScotland() throws Exception {
+        Graph g = Graph.readUndirectedWeightedGraph(new FileInputStream("datafiles/scotlandc.txt"));
+        List<Node> nodes = new ArrayList<>(g.getAllNodes());
+        DynamicShortestPaths dynamic = new DynamicShortestPaths(g);
+        String[] sources = {nodes.get(0).getName(), nodes.get(nodes.size() / 2).getName()};
+        for (String source : sources) {
+            dynamic.track(source);
+        }
+        Random random = new Random(17);
+        for (int i = 0; i < 300; i++) {
+            Node a = nodes.get(random.nextInt(nodes.size()));
+            Node[] neighbors = a.getNeighbors().toArray(new Node[0]);
+            Node b = neighbors[random.nextInt(neighbors.length)];
+            double factor = random.nextBoolean() ? 0.5 : 2.0;
+            dynamic.setUndirectedWeight(a.getName(), b.getName(), Math.max(1.0, a.getWeight(b) * factor));
+            for (String source : sources) {
+                assertMatchesDijkstra(g, dynamic, source);
+            }
+        }
+        assertEquals(300, dynamic.getRepairs());
+        assertEquals(0, dynamic.getRecomputes());
+    }
+
+    @Test
+    public void testNewEdgesAndUnreachable() {
+        Graph g = new Graph();
+        g.getOrCreateNode("A").addDirectedEdge(g.getOrCreateNode("B"), 1.0);
+        g.getOrCreateNode("C");
+        DynamicShortestPaths dynamic = new DynamicShortestPaths(g);
+        dynamic.track("A");
+        assertEquals(Double.POSITIVE_INFINITY, dynamic.getDistance("A", "C"));
+        dynamic.setWeight("B", "C", 2.0);
+        assertEquals(3.0, dynamic.getDistance("A", "C"));
+        dynamic.setWeight("A", "C", 2.5);
+        assertEquals(2.5, dynamic.getDistance("A", "C"));
+        assertEquals(0, dynamic.getPredecessor("A", "C"));
+        dynamic.setWeight("A", "C", 10.0);
+        assertEquals(3.0, dynamic.getDistance("A", "C"));
+        assertEquals(1, dynamic.getPredecessor("A", "C"));
+        assertMatchesDijkstra(g, dynamic, "A");
+        assertThrows(IllegalArgumentException.class, () -> dynamic.getDistance("B", "C"));
+        assertThrows(IllegalArgumentException.class, () -> dynamic.setWeight("A", "B", -1.0));
+    }
+
+    @Test
+    public void testRepairIsLocal() {
+        Graph g = new GridGenerator(100, 100, false).toGraph(false);
+        DynamicShortestPaths dynamic = new DynamicShortestPaths(g);
+        dynamic.track("0");
+        // a far corner edge only moves the few nodes around it
+        dynamic.setUndirectedWeight("9999", "9998", 0.001);
+        assertTrue(dynamic.getLastAffected() < 100, "affected " + dynamic.getLastAffected());
+        dynamic.setUndirectedWeight("9999", "9998", 1000.0);
+        assertTrue(dynamic.getLastAffected() < 100, "affected " + dynamic.getLastAffected());
+        assertMatchesDijkstra(g, dynamic, "0");
+    }
+
+    @Test
+    public void testOutsideChangeRecomputes() {
+        Graph g = new Graph();
+        g.getOrCreateNode("A").addDirectedEdge(g.getOrCreateNode("B"), 5.0);
+        DynamicShortestPaths dynamic = new DynamicShortestPaths(g);
+        dynamic.track("A");
+        Node c = g.getOrCreateNode("C");
+        g.getOrCreateNode("A").addDirectedEdge(c, 1.0);
+        c.addDirectedEdge(g.getOrCreateNode("B"), 1.0);
+        assertEquals(2.0, dynamic.getDistance("A", "B"));
+        assertEquals(1, dynamic.getRecomputes());
+    }
+}
@@ -0,0 +1,131 @@
+package graphlib;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import graphlib.external.EdgeFileWriter;
+import graphlib.external.ExternalGraph;
+import graphlib.external.IoStats;
+import graphlib.generate.GraphGenerator;
+import graphlib.generate.RMatGenerator;
+
+public class TestExternalGraph {
+
+    @TempDir
+    Path dir;
+
+    private static int[] levels(CompactGraph g, int start) {
+        int[] levels = new int[g.getNumNodes()];
+        Arrays.fill(levels, -1);
+        levels[start] = 0;
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        queue.add(start);
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            for (int e = g.getFirstEdge(node); e < g.getEndEdge(node); e++) {
+                int target = g.getTarget(e);
+                if (levels[target] < 0) {
+                    levels[target] = levels[node] + 1;
+                    queue.add(target);
+                }
+            }
+        }
+        return levels;
+    }
+
+    private Path write(GraphGenerator generator, int runEdges) throws IOException {
+        Path file = dir.resolve("edges.bin");
+        try (EdgeFileWriter writer = new EdgeFileWriter(file, generator.getNumNodes(), true, runEdges)) {
+            generator.generate(writer);
+        }
+        return file;
+    }
+
+    @Test
+    public void testBfsMatchesInMemory() throws IOException {
+        // more than one 64K-edge block, sorted from many small runs
+        GraphGenerator generator = new RMatGenerator(13, 60000, 2);
+        CompactGraph g = generator.toGraph(false).getCompactGraph();
+        try (ExternalGraph external = ExternalGraph.open(write(generator, 5000))) {
+            assertEquals(g.getNumNodes(), external.getNumNodes());
+            assertEquals(g.getNumEdges(), external.getNumEdges());
+            assertEquals(0, Files.list(dir).filter(p -> p.toString().contains(".run")).count());
+            for (int start : new int[] {0, 1000, 8000}) {
+                List<Integer> visited = new ArrayList<>();
+                int[] levels = external.bfs(start, visited::add);
+                assertArrayEquals(levels(g, start), levels);
+                // visited level by level
+                for (int i = 1; i < visited.size(); i++) {
+                    assertTrue(levels[visited.get(i - 1)] <= levels[visited.get(i)]);
+                }
+                assertEquals(Arrays.stream(levels).filter(l -> l >= 0).count(), visited.size());
+                IoStats stats = external.getLastStats();
+                assertEquals(Arrays.stream(levels).max().getAsInt() + 1, stats.getPasses());
+            }
+        }
+    }
+
+    @Test
+    public void testMergesManyRunsInPasses() throws IOException {
+        // 6000 edges in runs of 20 is 300 runs, more than one merge opens
+        GraphGenerator generator = new RMatGenerator(10, 3000, 9);
+        assertTrue(6000 / 20 > EdgeFileWriter.MERGE_FAN_IN);
+        CompactGraph g = generator.toGraph(false).getCompactGraph();
+        try (ExternalGraph external = ExternalGraph.open(write(generator, 20))) {
+            assertEquals(g.getNumEdges(), external.getNumEdges());
+            assertEquals(0, Files.list(dir).filter(p -> p.toString().contains(".run")).count());
+            assertArrayEquals(levels(g, 0), external.bfs(0, id -> { }));
+        }
+    }
+
+    @Test
+    public void testComponents() throws IOException {
+        GraphGenerator generator = new RMatGenerator(12, 3000, 5);
+        Graph graph = generator.toGraph(false);
+        try (ExternalGraph external = ExternalGraph.open(write(generator, 1000))) {
+            int[] labels = external.connectedComponents();
+            assertEquals(graph.getNumComponents(), external.getNumComponents());
+            assertEquals(0, labels[0]);
+            IoStats stats = external.getLastStats();
+            assertEquals(1, stats.getPasses());
+            assertEquals(external.getNumEdges(), stats.getEdgesScanned());
+            assertEquals(8 * external.getNumEdges(), stats.getBytesRead());
+
+            // endpoints of every edge share a label
+            CompactGraph g = graph.getCompactGraph();
+            for (int u = 0; u < g.getNumNodes(); u++) {
+                for (int e = g.getFirstEdge(u); e < g.getEndEdge(u); e++) {
+                    assertEquals(labels[u], labels[g.getTarget(e)]);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testDeduplicatesAndRejectsBadEdges() throws IOException {
+        Path file = dir.resolve("small.bin");
+        try (EdgeFileWriter writer = new EdgeFileWriter(file, 3, false, 2)) {
+            writer.addEdge(2, 0);
+            writer.addEdge(0, 1);
+            writer.addEdge(2, 0);
+            writer.addEdge(1, 2);
+            assertThrows(IllegalArgumentException.class, () -> writer.addEdge(0, 3));
+        }
+        try (ExternalGraph external = ExternalGraph.open(file)) {
+            assertEquals(3, external.getNumEdges());
+            assertArrayEquals(new int[] {0, 1, 2}, external.bfs(0, id -> { }));
+            assertArrayEquals(new int[] {1, 2, 0}, external.bfs(2, id -> { }));
+        }
+        Files.write(file, new byte[] {1, 2, 3});
+        assertThrows(IOException.class, () -> ExternalGraph.open(file));
+    }
+}
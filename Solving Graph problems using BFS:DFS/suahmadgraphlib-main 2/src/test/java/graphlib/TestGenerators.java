@@ -0,0 +1,146 @@
+package graphlib;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import graphlib.generate.BarabasiAlbertGenerator;
+import graphlib.generate.ErdosRenyiGenerator;
+import graphlib.generate.GeometricGenerator;
+import graphlib.generate.GraphGenerator;
+import graphlib.generate.GridGenerator;
+import graphlib.generate.IslandRasterGenerator;
+import graphlib.generate.RMatGenerator;
+
+public class TestGenerators {
+
+    private static byte[] edgeList(GraphGenerator generator, boolean weighted) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        generator.writeEdgeList(out, weighted);
+        return out.toByteArray();
+    }
+
+    private static int countEdges(Graph g) {
+        int count = 0;
+        for (Node node : g.getAllNodes()) {
+            count += node.getNeighbors().size();
+        }
+        return count;
+    }
+
+    @Test
+    public void testSameSeedSameEdges() throws Exception {
+        assertArrayEquals(edgeList(new RMatGenerator(10, 5000, 7), true), edgeList(new RMatGenerator(10, 5000, 7), true));
+        assertArrayEquals(edgeList(new ErdosRenyiGenerator(500, 2000, 7), true), edgeList(new ErdosRenyiGenerator(500, 2000, 7), true));
+        assertArrayEquals(edgeList(new BarabasiAlbertGenerator(500, 3, 7), false), edgeList(new BarabasiAlbertGenerator(500, 3, 7), false));
+        assertArrayEquals(edgeList(new GeometricGenerator(500, 1.5, 7), true), edgeList(new GeometricGenerator(500, 1.5, 7), true));
+        assertFalse(java.util.Arrays.equals(edgeList(new RMatGenerator(10, 5000, 7), true), edgeList(new RMatGenerator(10, 5000, 8), true)));
+    }
+
+    @Test
+    public void testGrid() {
+        Graph g = new GridGenerator(3, 4, false).toGraph(false);
+        assertEquals(12, g.getNumNodes());
+        // 3 * 3 horizontal and 2 * 4 vertical edges, stored in both directions
+        assertEquals(2 * 17, countEdges(g));
+        assertEquals(1, g.getNumComponents());
+        assertEquals(5, g.getNodeId("5"));
+
+        Graph diagonal = new GridGenerator(3, 4, true).toGraph(false);
+        assertEquals(2 * (17 + 12), countEdges(diagonal));
+    }
+
+    @Test
+    public void testEdgeListMatchesGraph() throws Exception {
+        GraphGenerator generator = new ErdosRenyiGenerator(200, 600, 3);
+        Graph inMemory = generator.toGraph(true);
+        Graph loaded = Graph.readDirectedWeightedGraph(new ByteArrayInputStream(edgeList(generator, true)));
+        assertEquals(countEdges(inMemory), countEdges(loaded));
+        for (Node node : loaded.getAllNodes()) {
+            Node same = inMemory.getOrCreateNode(node.getName());
+            for (Node neighbor : node.getNeighbors()) {
+                Node sameNeighbor = inMemory.getOrCreateNode(neighbor.getName());
+                assertEquals(same.getWeight(sameNeighbor), node.getWeight(neighbor));
+            }
+        }
+    }
+
+    @Test
+    public void testRMatIsSkewed() {
+        Graph g = new RMatGenerator(12, 1 << 15, 1).toGraph(false);
+        int max = 0;
+        for (Node node : g.getAllNodes()) {
+            assertFalse(node.hasEdge(node));
+            max = Math.max(max, node.getNeighbors().size());
+        }
+        // average degree is at most 16, the hubs are far above it
+        assertTrue(max > 100, "max degree " + max);
+    }
+
+    @Test
+    public void testBarabasiAlbert() {
+        BarabasiAlbertGenerator generator = new BarabasiAlbertGenerator(1000, 3, 5);
+        Graph g = generator.toGraph(false);
+        assertEquals(2 * generator.getNumEdges(), countEdges(g));
+        assertEquals(1, g.getNumComponents());
+    }
+
+    @Test
+    public void testGeometricWeights() throws Exception {
+        Graph g = Graph.readUndirectedWeightedGraph(new ByteArrayInputStream(edgeList(new GeometricGenerator(1000, 1.5, 9), true)));
+        for (Node node : g.getAllNodes()) {
+            for (Node neighbor : node.getNeighbors()) {
+                assertTrue(node.getWeight(neighbor) <= 1.5);
+            }
+        }
+        assertTrue(countEdges(g) > 1000 * 4);
+    }
+
+    @Test
+    public void testIslandRaster() throws Exception {
+        IslandRasterGenerator generator = new IslandRasterGenerator(40, 60, 0.4, 6, 11);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        generator.writeIslandFile(out);
+        Graph fromFile = Graph.readIslandFile2(new ByteArrayInputStream(out.toByteArray()));
+
+        int land = 0;
+        for (int i = 0; i < 40; i++) {
+            for (int j = 0; j < 60; j++) {
+                if (generator.isLand(i, j)) {
+                    land++;
+                    assertTrue(fromFile.containsNode(fromFile.nameMaker(i, j)));
+                }
+            }
+        }
+        assertEquals(land, fromFile.getNumNodes());
+        assertTrue(land > 0 && land < 40 * 60);
+
+        // water cells are isolated nodes in the generated graph
+        Graph generated = generator.toGraph(false);
+        assertEquals(40 * 60, generated.getNumNodes());
+        assertTrue(generated.getNumComponents() > 40 * 60 - land);
+
+        // and land cells have the same neighbours either way
+        for (int i = 0; i < 40; i++) {
+            for (int j = 0; j < 60; j++) {
+                if (!generator.isLand(i, j)) {
+                    continue;
+                }
+                Set<String> expected = new HashSet<>();
+                for (Node neighbor : fromFile.getOrCreateNode(fromFile.nameMaker(i, j)).getNeighbors()) {
+                    expected.add(neighbor.getName());
+                }
+                Set<String> actual = new HashSet<>();
+                for (Node neighbor : generated.getNode(i * 60 + j).getNeighbors()) {
+                    int cell = neighbor.getId();
+                    actual.add(generated.nameMaker(cell / 60, cell % 60));
+                }
+                assertEquals(expected, actual, "cell " + i + "," + j);
+            }
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package graphlib;
+
+import java.io.FileInputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import graphlib.generate.GraphSink;
+import graphlib.generate.RMatGenerator;
+
+public class TestGraphBuilder {
+
+    private static List<String> edges(Graph g) {
+        List<String> edges = new ArrayList<>();
+        for (Node node : g.getAllNodes()) {
+            edges.add(node.getId() + " " + node.getName());
+            for (Node neighbor : node.getNeighbors()) {
+                edges.add(node + "->" + neighbor + ":" + node.getWeight(neighbor));
+            }
+        }
+        edges.sort(null);
+        return edges;
+    }
+
+    @Test
+    public void testMatchesLoader() throws Exception {
+        Graph expected = Graph.readUndirectedWeightedGraph(new FileInputStream("datafiles/scotlandc.txt"));
+        GraphBuilder builder = new GraphBuilder(false);
+        for (String line : Files.readAllLines(Paths.get("datafiles/scotlandc.txt"))) {
+            String[] fields = line.trim().split("\\s+");
+            if (fields.length == 3) {
+                builder.addEdge(fields[0], fields[1], Double.parseDouble(fields[2]));
+            }
+        }
+        Graph built = builder.build();
+        assertEquals(edges(expected), edges(built));
+        assertEquals(0, builder.getNumEdges());
+    }
+
+    @Test
+    public void testDuplicatePolicies() {
+        String[] sources = {"a", "b", "a", "a", "c"};
+        String[] targets = {"b", "a", "b", "c", "c"};
+        double[] weights = {5, 3, 7, 1, 2};
+        DuplicatePolicy[] policies = {DuplicatePolicy.MIN, DuplicatePolicy.MAX, DuplicatePolicy.LAST};
+        for (int p = 0; p < policies.length; p++) {
+            GraphBuilder builder = new GraphBuilder(false);
+            builder.setDuplicatePolicy(policies[p]);
+            builder.addEdges(sources, targets, weights);
+            Graph g = builder.build();
+            Node a = g.getOrCreateNode("a");
+            Node b = g.getOrCreateNode("b");
+            Node c = g.getOrCreateNode("c");
+            // undirected, so a-b was added three times: 5, 3, 7
+            double ab = a.getWeight(b);
+            assertEquals(ab, b.getWeight(a));
+            assertEquals(new double[] {3, 7, 7}[p], ab);
+            assertEquals(1.0, a.getWeight(c));
+            // a self loop is kept once
+            assertEquals(2, c.getNeighbors().size());
+            assertEquals(2.0, c.getWeight(c));
+        }
+    }
+
+    @Test
+    public void testDirectedIdsAndIsolatedNodes() {
+        GraphBuilder builder = new GraphBuilder(true);
+        int x = builder.addNode("x");
+        int y = builder.addNode("y");
+        builder.addNode("lonely");
+        builder.addEdge(y, x, 2.0);
+        builder.addEdges(new int[] {x, x}, new int[] {y, y}, new double[] {4.0, 1.0});
+        assertThrows(IllegalArgumentException.class, () -> builder.addEdge(x, 7, 1.0));
+        assertThrows(IllegalArgumentException.class,
+            () -> builder.addEdges(new int[] {x}, new int[0], new double[0]));
+        Graph g = builder.build();
+        assertEquals(3, g.getNumNodes());
+        assertEquals(x, g.getNodeId("x"));
+        assertTrue(g.getOrCreateNode("lonely").getNeighbors().isEmpty());
+        assertEquals(1.0, g.getNode(x).getWeight(g.getNode(y)));
+        assertEquals(1, g.getNode(x).getNeighbors().size());
+        assertEquals(2.0, g.getNode(y).getWeight(g.getNode(x)));
+        // the built graph works like any other
+        assertEquals(3, g.getCompactGraph().getNumNodes());
+        g.getNode(x).addDirectedEdge(g.getOrCreateNode("z"), 1.0);
+        assertEquals(3, g.getCompactGraph().getNumEdges());
+    }
+
+    @Test
+    public void testEdgeSinkMatchesGraphSink() {
+        RMatGenerator generator = new RMatGenerator(10, 8000, 7);
+        GraphSink sink = new GraphSink(generator.getNumNodes(), false);
+        generator.generate(sink);
+        GraphBuilder builder = new GraphBuilder(false);
+        builder.addNumberedNodes(generator.getNumNodes());
+        generator.generate(builder);
+        assertEquals(edges(sink.getGraph()), edges(builder.build()));
+
+        GraphBuilder named = new GraphBuilder(false);
+        named.addNode("a");
+        assertThrows(IllegalStateException.class, () -> named.edge(0, 1, 1.0));
+    }
+}
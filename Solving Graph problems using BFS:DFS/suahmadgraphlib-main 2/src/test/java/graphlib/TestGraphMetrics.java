@@ -0,0 +1,105 @@
+package graphlib;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestGraphMetrics {
+
+    private InputStream stringToInputStream(String graphData) {
+        return new ByteArrayInputStream(graphData.getBytes());
+    }
+
+    // A is joined to B and C, and B and C are joined, so C is queued twice
+    private Graph triangle() {
+        return Graph.readUndirectedWeightedGraph(stringToInputStream("A B 1\nA C 5\nB C 1\nC D 2"));
+    }
+
+    @Test
+    public void testDisabledByDefault() {
+        Graph g = triangle();
+        assertNull(g.getMetrics());
+        g.bfs("A", node -> {});
+        g.dijkstra("A");
+    }
+
+    @Test
+    public void testBfsCounters() {
+        Graph g = triangle();
+        GraphMetrics metrics = new GraphMetrics();
+        List<TraversalStats> calls = new ArrayList<>();
+        metrics.addListener(calls::add);
+        g.setMetrics(metrics);
+
+        g.bfs("A", node -> {});
+        assertEquals(1, calls.size());
+        TraversalStats stats = calls.get(0);
+        assertEquals("bfs", stats.getOperation());
+        assertEquals(4, stats.getNodesVisited());
+        // every edge is stored in both directions
+        assertEquals(8, stats.getEdgesScanned());
+        assertEquals(1, stats.getDuplicatePushes());
+        assertTrue(stats.getWallNanos() >= 0);
+
+        g.bfs(g.getNodeId("A"), id -> {});
+        g.dfs2("A", node -> {});
+        assertEquals("bfsIds", calls.get(1).getOperation());
+        assertEquals(8, calls.get(1).getEdgesScanned());
+        assertEquals(0, calls.get(1).getDuplicatePushes());
+        assertEquals("dfs2", calls.get(2).getOperation());
+        assertEquals(4, calls.get(2).getNodesVisited());
+    }
+
+    @Test
+    public void testDijkstraCounters() {
+        Graph g = triangle();
+        GraphMetrics metrics = new GraphMetrics();
+        g.setMetrics(metrics);
+        g.dijkstra("A");
+
+        Histogram pushes = metrics.getHistogram("dijkstra", "heap_pushes");
+        Histogram pops = metrics.getHistogram("dijkstra", "heap_pops");
+        assertEquals(1, pushes.getCount());
+        assertTrue(pushes.getSum() >= 4);
+        assertTrue(pops.getSum() >= 4 && pops.getSum() <= pushes.getSum());
+        assertEquals(4, metrics.getHistogram("dijkstra", "nodes_visited").getSum());
+    }
+
+    @Test
+    public void testScrape() {
+        Graph g = triangle();
+        GraphMetrics metrics = new GraphMetrics();
+        g.setMetrics(metrics);
+        g.bfs("A", node -> {});
+        g.bfs("D", node -> {});
+
+        String text = metrics.scrape();
+        assertTrue(text.contains("# TYPE graphlib_edges_scanned histogram\n"));
+        assertTrue(text.contains("graphlib_nodes_visited_bucket{operation=\"bfs\",le=\"4\"} 2\n"));
+        assertTrue(text.contains("graphlib_nodes_visited_bucket{operation=\"bfs\",le=\"+Inf\"} 2\n"));
+        assertTrue(text.contains("graphlib_nodes_visited_count{operation=\"bfs\"} 2\n"));
+        assertTrue(text.contains("graphlib_nodes_visited_sum{operation=\"bfs\"} 8\n"));
+        assertFalse(text.contains("operation=\"dfs\""));
+
+        g.setMetrics(null);
+        g.bfs("A", node -> {});
+        assertEquals(2, metrics.getHistogram("bfs", "nodes_visited").getCount());
+    }
+
+    @Test
+    public void testHistogramBuckets() {
+        Histogram h = new Histogram();
+        for (long v : new long[] {0, 1, 2, 3, 4, 5, 1000}) {
+            h.record(v);
+        }
+        assertEquals(7, h.getCount());
+        assertEquals(1015, h.getSum());
+        assertEquals(1000, h.getMax());
+        assertEquals(4, h.getQuantileUpperBound(0.7));
+        assertEquals(1000, h.getQuantileUpperBound(1.0));
+    }
+}
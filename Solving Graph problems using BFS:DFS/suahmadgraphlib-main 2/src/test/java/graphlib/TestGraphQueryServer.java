@@ -0,0 +1,245 @@
+package graphlib;
+
+import java.io.FileInputStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import graphlib.generate.RMatGenerator;
+
+public class TestGraphQueryServer {
+
+    private static HttpResponse<String> get(GraphQueryServer server, String path) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + server.getPort() + path)).build();
+        return HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static String encode(String name) {
+        return URLEncoder.encode(name, StandardCharsets.UTF_8);
+    }
+
+    // hop counts from one BFS, the way each request runs today
+    private static int[] levels(CompactGraph g, int source) {
+        int[] level = new int[g.getNumNodes()];
+        Arrays.fill(level, -1);
+        level[source] = 0;
+        int[] queue = new int[g.getNumNodes()];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = source;
+        while (head < tail) {
+            int v = queue[head++];
+            for (int e = g.getFirstEdge(v); e < g.getEndEdge(v); e++) {
+                if (level[g.getTarget(e)] < 0) {
+                    level[g.getTarget(e)] = level[v] + 1;
+                    queue[tail++] = g.getTarget(e);
+                }
+            }
+        }
+        return level;
+    }
+
+    @Test
+    public void testBatchedTraversalsMatchBfs() {
+        CompactGraph g = new RMatGenerator(10, 4000, 8).toGraph(true).getCompactGraph();
+        // 100 distinct sources: two traversals of up to 64, or one per source
+        for (int maxSources : new int[] {TraversalBatcher.MAX_SOURCES, 1}) {
+            List<TraversalBatcher.Query> queries = new ArrayList<>();
+            for (int i = 0; i < 300; i++) {
+                int source = (i * 7) % 100;
+                queries.add(i % 3 == 0
+                    ? TraversalBatcher.Query.kHop(source, i % 4, 50)
+                    : TraversalBatcher.Query.reachable(source, (i * 31) % g.getNumNodes()));
+            }
+            TraversalBatcher batcher = new TraversalBatcher(g, 1, maxSources);
+            batcher.close();
+            batcher.run(g, queries, new TraversalBatcher.Scratch());
+            assertEquals(maxSources == 1 ? 100 : 2, batcher.getTraversals());
+            for (TraversalBatcher.Query query : queries) {
+                assertTrue(query.done.isDone());
+                int[] level = levels(g, query.source);
+                if (query.target >= 0) {
+                    assertEquals(level[query.target], query.hops);
+                } else {
+                    int within = 0;
+                    for (int l : level) {
+                        if (l >= 0 && l <= query.maxHops) {
+                            within++;
+                        }
+                    }
+                    assertEquals(within, query.count);
+                    assertEquals(Math.min(within, 50), query.nodes.length);
+                    for (int node : query.nodes) {
+                        assertTrue(level[node] >= 0 && level[node] <= query.maxHops);
+                    }
+                }
+            }
+        }
+
+        // a traversal that fails part way leaves the scratch clean for the next
+        TraversalBatcher batcher = new TraversalBatcher(g, 1, TraversalBatcher.MAX_SOURCES);
+        batcher.close();
+        TraversalBatcher.Scratch scratch = new TraversalBatcher.Scratch();
+        TraversalBatcher.Query bad = TraversalBatcher.Query.reachable(0, g.getNumNodes() + 1);
+        batcher.run(g, List.of(bad), scratch);
+        assertTrue(bad.done.isCompletedExceptionally());
+        int[] level = levels(g, 0);
+        for (int target = 0; target < g.getNumNodes(); target += 97) {
+            TraversalBatcher.Query query = TraversalBatcher.Query.reachable(0, target);
+            batcher.run(g, List.of(query), scratch);
+            assertEquals(level[target], query.hops);
+        }
+    }
+
+    @Test
+    public void testEndpoints() throws Exception {
+        Graph g = Graph.readUndirectedWeightedGraph(new FileInputStream("datafiles/scotlandc.txt"));
+        try (GraphQueryServer server = new GraphQueryServer(g).start(0)) {
+            String a = g.getNodeName(0);
+            String b = g.getNodeName(g.getNumNodes() - 1);
+            ShortestPaths expected = g.shortestPaths(0);
+            int[] level = levels(g.getCompactGraph(), 0);
+
+            HttpResponse<String> response = get(server, "/reachable?from=" + encode(a) + "&to=" + encode(b));
+            assertEquals(200, response.statusCode());
+            assertTrue(response.body().contains("\"reachable\":" + (level[g.getNumNodes() - 1] >= 0)));
+            assertTrue(response.body().contains("\"hops\":" + level[g.getNumNodes() - 1]));
+
+            response = get(server, "/path?from=" + encode(a) + "&to=" + encode(b));
+            assertEquals(200, response.statusCode());
+            assertTrue(response.body().contains("\"distance\":" + expected.getDistance(g.getNumNodes() - 1)));
+
+            int within = 0;
+            for (int l : level) {
+                if (l >= 0 && l <= 2) {
+                    within++;
+                }
+            }
+            response = get(server, "/khop?from=" + encode(a) + "&k=2&limit=1");
+            assertEquals(200, response.statusCode());
+            assertTrue(response.body().contains("\"count\":" + within));
+            assertTrue(response.body().endsWith("\"nodes\":[" + GraphQueryServer.json(a) + "]}"));
+
+            response = get(server, "/component?node=" + encode(a));
+            assertEquals(200, response.statusCode());
+            assertTrue(response.body().contains("\"component\":0"));
+
+            assertEquals(404, get(server, "/path?from=nowhere&to=" + encode(b)).statusCode());
+            assertEquals(400, get(server, "/khop?from=" + encode(a)).statusCode());
+            assertEquals(400, get(server, "/khop?from=" + encode(a) + "&k=x").statusCode());
+
+            assertEquals(3, server.getLatencyHistogram("khop").getCount());
+            String metrics = get(server, "/metrics").body();
+            assertTrue(metrics.contains("graphlib_query_latency_micros_count{endpoint=\"path\"} 2"));
+            assertTrue(metrics.contains("graphlib_query_batch_size_count"));
+        }
+    }
+
+    @Test
+    public void testConcurrentQueries() throws Exception {
+        Graph g = new RMatGenerator(12, 30000, 4).toGraph(false);
+        CompactGraph compact = g.getCompactGraph();
+        ExecutorService clients = Executors.newFixedThreadPool(16);
+        try (GraphQueryServer server = new GraphQueryServer(g).setAdmissionTimeout(10000).start(0)) {
+            List<Future<String>> bodies = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                String path = i % 2 == 0
+                    ? "/reachable?from=" + (i % 5) + "&to=" + i
+                    : "/path?from=" + (i % 5) + "&to=" + i;
+                bodies.add(clients.submit(() -> get(server, path).body()));
+            }
+            for (int i = 0; i < 200; i++) {
+                String body = bodies.get(i).get();
+                int source = g.getNodeId(String.valueOf(i % 5));
+                int target = g.getNodeId(String.valueOf(i));
+                if (i % 2 == 0) {
+                    assertTrue(body.contains("\"hops\":" + levels(compact, source)[target]), body);
+                } else {
+                    assertTrue(body.contains("\"distance\":" + compact.shortestPaths(source).getDistance(target))
+                        || !compact.shortestPaths(source).isReachable(target), body);
+                }
+            }
+            assertTrue(server.getBatchedTraversals() <= 100);
+            assertEquals(0, server.getRejectedQueries());
+        } finally {
+            clients.shutdown();
+        }
+    }
+
+    @Test
+    public void testAdmissionControl() throws Exception {
+        Graph g = new RMatGenerator(14, 200000, 4).toGraph(false);
+        ExecutorService clients = Executors.newFixedThreadPool(32);
+        try (GraphQueryServer server = new GraphQueryServer(g).setMaxConcurrentQueries(1).setMaxWaitingQueries(0)
+                .setAdmissionTimeout(0).start(0)) {
+            List<Future<HttpResponse<String>>> responses = new ArrayList<>();
+            for (int i = 0; i < 256; i++) {
+                String path = "/path?from=" + i + "&to=" + (i + 1000);
+                responses.add(clients.submit(() -> get(server, path)));
+            }
+            int ok = 0;
+            int busy = 0;
+            for (Future<HttpResponse<String>> future : responses) {
+                HttpResponse<String> response = future.get();
+                if (response.statusCode() == 503) {
+                    assertEquals("1", response.headers().firstValue("Retry-After").orElse(null));
+                    busy++;
+                } else {
+                    assertEquals(200, response.statusCode());
+                    ok++;
+                }
+            }
+            // one query runs at a time and none may wait, so most of a flood is turned away
+            assertTrue(ok > 0);
+            assertTrue(busy > 0);
+            assertEquals(busy, server.getRejectedQueries());
+            assertEquals(256, server.getLatencyHistogram("path").getCount());
+        } finally {
+            clients.shutdown();
+        }
+    }
+
+    @Test
+    public void testRefresh() throws Exception {
+        Graph g = new Graph();
+        g.getOrCreateNode("A").addUndirectedEdge(g.getOrCreateNode("B"), 1);
+        try (GraphQueryServer server = new GraphQueryServer(g).start(0)) {
+            assertEquals(200, get(server, "/reachable?from=A&to=B").statusCode());
+
+            // new nodes are seen after a refresh
+            g.getOrCreateNode("B").addUndirectedEdge(g.getOrCreateNode("C"), 1);
+            assertEquals(404, get(server, "/reachable?from=A&to=C").statusCode());
+            server.refresh();
+            assertTrue(get(server, "/reachable?from=A&to=C").body().contains("\"hops\":2"));
+
+            // names resolve against the snapshot, not the live graph
+            g.removeNode("C");
+            assertEquals(200, get(server, "/reachable?from=A&to=C").statusCode());
+            assertTrue(get(server, "/path?from=A&to=C").body().contains("\"path\":[\"A\",\"B\",\"C\"]"));
+            server.refresh();
+            assertEquals(404, get(server, "/reachable?from=A&to=C").statusCode());
+        }
+    }
+
+    @Test
+    public void testParseQuery() {
+        Map<String, String> params = GraphQueryServer.parseQuery("from=a%20b&to=12%2C3&x");
+        assertEquals("a b", params.get("from"));
+        assertEquals("12,3", params.get("to"));
+        assertEquals(2, params.size());
+        assertEquals("\"a\\\"b\"", GraphQueryServer.json("a\"b"));
+    }
+}
@@ -0,0 +1,88 @@
+package graphlib;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import graphlib.generate.GridGenerator;
+import graphlib.generate.RMatGenerator;
+
+public class TestGraphReordering {
+
+    private static List<Permutation> allOrders(CompactGraph g) {
+        List<Permutation> orders = new ArrayList<>();
+        orders.add(GraphReordering.reverseCuthillMcKee(g));
+        orders.add(GraphReordering.degreeDescending(g));
+        orders.add(GraphReordering.bfsOrder(g));
+        orders.add(GraphReordering.gorder(g, 5));
+        return orders;
+    }
+
+    @Test
+    public void testPermutation() {
+        Permutation p = Permutation.fromOrder(new int[] {2, 0, 1});
+        assertEquals(0, p.getNewId(2));
+        assertEquals(2, p.getOldId(0));
+        assertEquals(1, p.inverse().getOldId(0));
+        assertArrayEquals(new int[] {2, 1}, p.toOldIds(new int[] {0, 2}));
+        assertThrows(IllegalArgumentException.class, () -> Permutation.fromOrder(new int[] {0, 0}));
+    }
+
+    @Test
+    public void testOrdersArePermutations() {
+        CompactGraph g = new RMatGenerator(10, 4000, 3).toGraph(false).getCompactGraph();
+        for (Permutation p : allOrders(g)) {
+            assertEquals(g.getNumNodes(), p.size());
+            for (int u = 0; u < p.size(); u++) {
+                assertEquals(u, p.getOldId(p.getNewId(u)));
+            }
+        }
+        Permutation degree = GraphReordering.degreeDescending(g);
+        for (int i = 1; i < g.getNumNodes(); i++) {
+            assertTrue(g.getDegree(degree.getOldId(i - 1)) >= g.getDegree(degree.getOldId(i)));
+        }
+    }
+
+    @Test
+    public void testResultsMapBack() {
+        Graph graph = new RMatGenerator(9, 2000, 5).toGraph(false);
+        CompactGraph g = graph.getCompactGraph();
+        for (Permutation p : allOrders(g)) {
+            CompactGraph permuted = g.permute(p);
+            assertEquals(g.getNumEdges(), permuted.getNumEdges());
+
+            Set<String> expected = new HashSet<>();
+            g.bfs(0, id -> expected.add(graph.getNodeName(id)));
+            Set<String> actual = new HashSet<>();
+            permuted.bfs(p.getNewId(0), id -> actual.add(graph.getNodeName(p.getOldId(id))));
+            assertEquals(expected, actual);
+
+            ShortestPaths before = g.shortestPaths(0);
+            ShortestPaths after = permuted.shortestPaths(p.getNewId(0));
+            for (int u = 0; u < g.getNumNodes(); u++) {
+                assertEquals(before.getDistance(u), after.getDistance(p.getNewId(u)), 1e-9);
+            }
+        }
+    }
+
+    @Test
+    public void testReorderingRestoresLocality() {
+        CompactGraph grid = new GridGenerator(100, 100, false).toGraph(false).getCompactGraph();
+        CompactGraph shuffled = grid.permute(Permutation.random(grid.getNumNodes(), 9));
+        double scattered = GraphReordering.averageLogGap(shuffled);
+        double rcm = GraphReordering.averageLogGap(shuffled.permute(GraphReordering.reverseCuthillMcKee(shuffled)));
+        double bfs = GraphReordering.averageLogGap(shuffled.permute(GraphReordering.bfsOrder(shuffled)));
+        double gorder = GraphReordering.averageLogGap(shuffled.permute(GraphReordering.gorder(shuffled, 5)));
+        System.out.printf("100x100 grid average log gap: shuffled %.2f, rcm %.2f, bfs %.2f, gorder %.2f\n",
+            scattered, rcm, bfs, gorder);
+        assertTrue(rcm < scattered * 0.6);
+        assertTrue(bfs < scattered * 0.6);
+        assertTrue(gorder < scattered * 0.6);
+        // RCM keeps grid neighbors within about one diagonal of each other
+        assertTrue(rcm < Math.log(200) / Math.log(2), "rcm gap " + rcm);
+    }
+}
@@ -0,0 +1,122 @@
+package graphlib;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import graphlib.generate.GeometricGenerator;
+import graphlib.generate.RMatGenerator;
+
+public class TestHyperAnf {
+
+    // exact[t] = N(t) by a BFS from every node; the last entry is N(inf)
+    private static long[] exactNeighborhood(CompactGraph g, long[] reachable) {
+        int n = g.getNumNodes();
+        long[] function = new long[n + 1];
+        int[] distance = new int[n];
+        int[] queue = new int[n];
+        int maxDistance = 0;
+        for (int s = 0; s < n; s++) {
+            Arrays.fill(distance, -1);
+            distance[s] = 0;
+            queue[0] = s;
+            int head = 0;
+            int tail = 1;
+            while (head < tail) {
+                int u = queue[head++];
+                function[distance[u]]++;
+                maxDistance = Math.max(maxDistance, distance[u]);
+                for (int e = g.getFirstEdge(u); e < g.getEndEdge(u); e++) {
+                    int v = g.getTarget(e);
+                    if (distance[v] < 0) {
+                        distance[v] = distance[u] + 1;
+                        queue[tail++] = v;
+                    }
+                }
+            }
+            reachable[s] = tail;
+        }
+        long[] cumulative = new long[maxDistance + 1];
+        long total = 0;
+        for (int t = 0; t <= maxDistance; t++) {
+            total += function[t];
+            cumulative[t] = total;
+        }
+        return cumulative;
+    }
+
+    private static void assertCloseToExact(Graph graph) {
+        CompactGraph g = graph.getCompactGraph();
+        long[] reachable = new long[g.getNumNodes()];
+        long[] exact = exactNeighborhood(g, reachable);
+        NeighborhoodFunction one = HyperAnf.run(g, 10, 1000, 1, 1);
+        NeighborhoodFunction four = HyperAnf.run(g, 10, 1000, 1, 4);
+        assertTrue(one.isConverged());
+        assertArrayEquals(one.getNeighborhoodFunction(), four.getNeighborhoodFunction());
+        assertArrayEquals(one.getReachableSizes(), four.getReachableSizes());
+
+        // the counters stop changing by the diameter, or just before it if
+        // the last nodes reached happen not to raise any register
+        assertTrue(one.getIterations() <= exact.length - 1);
+        assertTrue(one.getIterations() >= exact.length - 3);
+        // every counter uses the same hash, so their errors add up rather
+        // than cancel out in N(t)
+        double tolerance = 3 * one.getRelativeStandardError();
+        for (int t = 0; t < exact.length; t++) {
+            assertEquals(exact[t], one.getNeighborhood(t), tolerance * exact[t], "N(" + t + ")");
+        }
+        double error = 0;
+        for (int u = 0; u < reachable.length; u++) {
+            error += Math.abs(one.getReachableSize(u) - reachable[u]) / reachable[u];
+        }
+        // mean error within the standard error of 1.04 / 32
+        assertTrue(error / reachable.length < one.getRelativeStandardError(), "mean error " + error / reachable.length);
+    }
+
+    @Test
+    public void testGeneratedGraphs() {
+        assertCloseToExact(new RMatGenerator(11, 8000, 3).toGraph(true));
+        assertCloseToExact(new GeometricGenerator(2000, 2.0, 5).toGraph(false));
+    }
+
+    @Test
+    public void testPathDiameter() {
+        Graph g = new Graph();
+        for (int i = 0; i < 100; i++) {
+            g.getOrCreateNode("n" + i).addUndirectedEdge(g.getOrCreateNode("n" + (i + 1)), 1.0);
+        }
+        NeighborhoodFunction function = HyperAnf.run(g.getCompactGraph(), 10, 1000, 7, 2);
+        assertTrue(function.getIterations() <= 100);
+        assertEquals(101, function.getReachableSize(0), 101 * 0.1);
+        double diameter = function.getEffectiveDiameter();
+        // exactly, 90% of the 101^2 pairs are within distance 68.6
+        assertEquals(68.6, diameter, 68.6 * 0.1);
+        assertEquals(0, function.getEffectiveDiameter(0.001));
+
+        NeighborhoodFunction cut = HyperAnf.run(g.getCompactGraph(), 10, 5, 7, 1);
+        assertFalse(cut.isConverged());
+        assertEquals(5, cut.getIterations());
+        assertEquals(cut.getNeighborhood(5), cut.getNeighborhood(50));
+        assertEquals(6, cut.getReachableSize(0), 1);
+    }
+
+    @Test
+    public void testReachableCounts() {
+        Graph g = new Graph();
+        Node a = g.getOrCreateNode("a");
+        a.addDirectedEdge(g.getOrCreateNode("b"), 1.0);
+        g.getOrCreateNode("b").addDirectedEdge(g.getOrCreateNode("c"), 1.0);
+        g.getOrCreateNode("gone").addDirectedEdge(a, 1.0);
+        g.removeNode("gone");
+        Map<String, Double> counts = g.getReachableCounts(6, 1);
+        assertEquals(3, counts.size());
+        // small counts are exact but for collisions, here none
+        assertEquals(3.0, counts.get("a"), 0.1);
+        assertEquals(2.0, counts.get("b"), 0.1);
+        assertEquals(1.0, counts.get("c"), 0.1);
+        assertThrows(IllegalArgumentException.class, () -> g.getReachableCounts(3, 1));
+        assertThrows(IllegalArgumentException.class, () -> HyperAnf.run(g.getCompactGraph(), 6, -1, 0, 1));
+    }
+}
@@ -0,0 +1,142 @@
+package graphlib;
+
+import java.io.FileInputStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestIntTraversal {
+
+    static class CountingVisitor implements IntNodeVisitor {
+        private int count = 0;
+
+        public void visit(int nodeId) {
+            count += 1;
+        }
+
+        public int getCount() {
+            return count;
+        }
+    }
+
+    private static Graph grid(int rows, int cols) {
+        Graph g = new Graph();
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                Node node = g.getOrCreateNode(g.nameMaker(i, j));
+                if (i > 0) {
+                    node.addUnweightedUndirectedEdge(g.getOrCreateNode(g.nameMaker(i - 1, j)));
+                }
+                if (j > 0) {
+                    node.addUnweightedUndirectedEdge(g.getOrCreateNode(g.nameMaker(i, j - 1)));
+                }
+            }
+        }
+        return g;
+    }
+
+    private static long allocatedBytes() {
+        com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    @Test
+    public void testIdsAreDense() {
+        Graph g = new Graph();
+        Node a = g.getOrCreateNode("A");
+        Node b = g.getOrCreateNode("B");
+        assertEquals(0, a.getId());
+        assertEquals(1, b.getId());
+        assertEquals(2, g.getNumNodes());
+        assertSame(b, g.getNode(g.getNodeId("B")));
+        assertEquals(-1, g.getNodeId("C"));
+        assertEquals(-1, new Node("D").getId());
+    }
+
+    @Test
+    public void testSameOrderAsNodeVisitor() throws Exception {
+        Graph g = Graph.readUndirectedUnweightedGraph(new FileInputStream("datafiles/graph5.txt"));
+        for (Node start : g.getAllNodes()) {
+            List<Node> expected = new ArrayList<>();
+            List<Node> actual = new ArrayList<>();
+            g.bfs(start.getName(), node -> expected.add(node));
+            g.bfs(start.getId(), id -> actual.add(g.getNode(id)));
+            assertEquals(expected, actual);
+
+            expected.clear();
+            actual.clear();
+            g.dfs(start.getName(), node -> expected.add(node));
+            g.dfs(start.getId(), id -> actual.add(g.getNode(id)));
+            assertEquals(expected, actual);
+        }
+    }
+
+    @Test
+    public void testSnapshotFollowsNewEdges() {
+        Graph g = new Graph();
+        Node a = g.getOrCreateNode("A");
+        Node b = g.getOrCreateNode("B");
+        CountingVisitor before = new CountingVisitor();
+        g.bfs(a.getId(), before);
+        assertEquals(1, before.getCount());
+
+        a.addUnweightedDirectedEdge(b);
+        CountingVisitor after = new CountingVisitor();
+        g.bfs(a.getId(), after);
+        assertEquals(2, after.getCount());
+    }
+
+    @Test
+    public void testNestedTraversal() {
+        Graph g = grid(3, 3);
+        CountingVisitor inner = new CountingVisitor();
+        CountingVisitor outer = new CountingVisitor() {
+            public void visit(int nodeId) {
+                super.visit(nodeId);
+                g.dfs(nodeId, inner);
+            }
+        };
+        g.bfs(0, outer);
+        assertEquals(9, outer.getCount());
+        assertEquals(81, inner.getCount());
+    }
+
+    @Test
+    public void testUnknownId() {
+        Graph g = grid(2, 2);
+        assertThrows(IllegalArgumentException.class, () -> g.bfs(4, new CountingVisitor()));
+        assertThrows(IllegalArgumentException.class, () -> g.dfs(-1, new CountingVisitor()));
+    }
+
+    @Test
+    public void testAllocationProfile() {
+        Graph g = grid(100, 100);
+        int start = g.getNodeId(g.nameMaker(50, 50));
+        CountingVisitor bfsVisitor = new CountingVisitor();
+        CountingVisitor dfsVisitor = new CountingVisitor();
+        // warm up, which builds the snapshot and sizes the work arrays
+        g.bfs(start, bfsVisitor);
+        g.dfs(start, dfsVisitor);
+
+        // what reading the counter costs by itself
+        long before = allocatedBytes();
+        long overhead = allocatedBytes() - before;
+
+        before = allocatedBytes();
+        g.bfs(start, bfsVisitor);
+        g.dfs(start, dfsVisitor);
+        long intBytes = allocatedBytes() - before - overhead;
+
+        before = allocatedBytes();
+        g.bfs(g.nameMaker(50, 50), node -> {});
+        long nodeBytes = allocatedBytes() - before;
+
+        System.out.printf("bytes per traversal: int ids %d, NodeVisitor %d\n", intBytes / 2, nodeBytes);
+        assertEquals(20000, bfsVisitor.getCount());
+        assertEquals(20000, dfsVisitor.getCount());
+        assertTrue(intBytes < 1024, "int traversal allocated " + intBytes + " bytes");
+    }
+}
@@ -0,0 +1,92 @@
+package graphlib;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+public class TestJfrEvents {
+
+    private static List<RecordedEvent> record(Runnable work) throws Exception {
+        Path file = Files.createTempFile("graphlib", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("graphlib.GraphLoad");
+            recording.enable("graphlib.Traversal");
+            recording.enable("graphlib.ShortestPath");
+            recording.enable("graphlib.Components");
+            recording.start();
+            work.run();
+            recording.stop();
+            recording.dump(file);
+            return RecordingFile.readAllEvents(file);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static List<RecordedEvent> ofType(List<RecordedEvent> events, String name) {
+        return events.stream()
+            .filter(e -> e.getEventType().getName().equals(name))
+            .collect(Collectors.toList());
+    }
+
+    @Test
+    public void testGraphEvents() throws Exception {
+        byte[] input = "A B 1\nB C 2\nD E 3\n".getBytes();
+        List<RecordedEvent> events = record(() -> {
+            Graph g = Graph.readUndirectedWeightedGraph(new ByteArrayInputStream(input));
+            g.bfs("A", node -> {});
+            g.dfs(g.getNodeId("D"), id -> {});
+            g.dijkstra("A");
+            g.getNumComponents();
+        });
+
+        List<RecordedEvent> loads = ofType(events, "graphlib.GraphLoad");
+        assertEquals(1, loads.size());
+        assertEquals("undirected-weighted", loads.get(0).getString("format"));
+        assertEquals(input.length, loads.get(0).getLong("bytes"));
+        assertEquals(3, loads.get(0).getLong("edges"));
+        assertEquals(5, loads.get(0).getInt("nodes"));
+
+        // getNumComponents commits no traversal of its own per component
+        List<RecordedEvent> traversals = ofType(events, "graphlib.Traversal");
+        assertEquals(2, traversals.size());
+        RecordedEvent bfs = traversals.get(0);
+        assertEquals("bfs", bfs.getString("algorithm"));
+        assertEquals("A", bfs.getString("startNode"));
+        assertEquals(3, bfs.getLong("visitedCount"));
+        RecordedEvent dfsIds = traversals.get(1);
+        assertEquals("dfsIds", dfsIds.getString("algorithm"));
+        assertEquals("D", dfsIds.getString("startNode"));
+        assertEquals(2, dfsIds.getLong("visitedCount"));
+
+        List<RecordedEvent> paths = ofType(events, "graphlib.ShortestPath");
+        assertEquals(1, paths.size());
+        assertEquals("A", paths.get(0).getString("source"));
+        assertEquals(3, paths.get(0).getLong("reachedCount"));
+
+        List<RecordedEvent> components = ofType(events, "graphlib.Components");
+        assertEquals(1, components.size());
+        assertEquals(2, components.get(0).getInt("components"));
+        assertEquals(5, components.get(0).getInt("nodes"));
+    }
+
+    @Test
+    public void testInverseGraphEvent() throws Exception {
+        List<RecordedEvent> events = record(() -> Graph.inverseGraph(new ByteArrayInputStream("A B\nB C".getBytes())));
+        List<RecordedEvent> loads = ofType(events, "graphlib.GraphLoad");
+        // one event for the whole load, counting the edge A - C once
+        assertEquals(1, loads.size());
+        assertEquals("inverse", loads.get(0).getString("format"));
+        assertEquals(1, loads.get(0).getLong("edges"));
+        assertEquals(7, loads.get(0).getLong("bytes"));
+    }
+}
@@ -0,0 +1,78 @@
+package graphlib;
+
+import java.io.FileInputStream;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import graphlib.generate.GeometricGenerator;
+import graphlib.generate.RMatGenerator;
+
+public class TestLandmarkIndex {
+
+    private static void assertExact(CompactGraph g, LandmarkIndex index, long seed) {
+        Random random = new Random(seed);
+        for (int q = 0; q < 50; q++) {
+            int s = random.nextInt(g.getNumNodes());
+            int t = random.nextInt(g.getNumNodes());
+            ShortestPaths expected = g.shortestPaths(s);
+            double d = expected.getDistance(t);
+            assertTrue(index.lowerBound(s, t) <= d + 1e-9, "lower bound");
+            assertTrue(index.upperBound(s, t) >= d - 1e-9, "upper bound");
+
+            Route route = index.findPath(s, t);
+            assertEquals(d, route.getDistance(), 1e-9);
+            if (d != Double.POSITIVE_INFINITY) {
+                int[] path = route.getPath();
+                assertEquals(s, path[0]);
+                assertEquals(t, path[path.length - 1]);
+                assertTrue(route.getSettledNodes() <= expected.getReachedCount());
+            }
+        }
+    }
+
+    @Test
+    public void testExactOnScotland() throws Exception {
+        CompactGraph g = Graph.readUndirectedWeightedGraph(new FileInputStream("datafiles/scotlandc.txt"))
+            .getCompactGraph();
+        for (LandmarkSelection selection : LandmarkSelection.values()) {
+            assertExact(g, LandmarkIndex.build(g, 4, selection, 1), 2);
+        }
+    }
+
+    @Test
+    public void testExactOnDirectedGraph() {
+        // directed and not strongly connected, so bounds must handle infinity
+        CompactGraph g = new RMatGenerator(10, 4000, 6).toGraph(true).getCompactGraph();
+        for (LandmarkSelection selection : LandmarkSelection.values()) {
+            LandmarkIndex index = LandmarkIndex.build(g, 8, selection, 3);
+            assertEquals(8, index.getNumLandmarks());
+            assertEquals(8, java.util.Arrays.stream(index.getLandmarks()).distinct().count());
+            assertExact(g, index, 4);
+        }
+    }
+
+    @Test
+    public void testSettlesFewerNodesThanDijkstra() {
+        CompactGraph g = new GeometricGenerator(20000, 1.5, 5).toGraph(false).getCompactGraph();
+        LandmarkIndex index = LandmarkIndex.build(g, 16, LandmarkSelection.AVOID, 5);
+        Random random = new Random(6);
+        long settled = 0;
+        long dijkstra = 0;
+        long approximate = 0;
+        for (int q = 0; q < 50; q++) {
+            int s = random.nextInt(g.getNumNodes());
+            int t = random.nextInt(g.getNumNodes());
+            Route route = index.findPath(s, t);
+            settled += route.getSettledNodes();
+            Route loose = index.findPath(s, t, 0.2);
+            approximate += loose.getSettledNodes();
+            assertTrue(loose.getDistance() <= 1.2 * route.getDistance() + 1e-9);
+            dijkstra += g.shortestPaths(s).getReachedCount();
+        }
+        System.out.printf("ALT settled %d nodes, with epsilon 0.2 %d, Dijkstra %d\n", settled, approximate, dijkstra);
+        assertTrue(settled * 4 < dijkstra);
+        assertTrue(approximate <= settled);
+    }
+}
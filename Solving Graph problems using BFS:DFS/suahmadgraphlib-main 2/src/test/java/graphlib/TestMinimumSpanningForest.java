@@ -0,0 +1,103 @@
+package graphlib;
+
+import java.io.FileInputStream;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import graphlib.generate.ErdosRenyiGenerator;
+import graphlib.generate.GeometricGenerator;
+import graphlib.generate.GridGenerator;
+import graphlib.generate.RMatGenerator;
+
+public class TestMinimumSpanningForest {
+
+    private static int countComponents(CompactGraph g) {
+        int[] component = new int[g.getNumNodes()];
+        java.util.Arrays.fill(component, -1);
+        int count = 0;
+        for (int s = 0; s < g.getNumNodes(); s++) {
+            if (component[s] < 0) {
+                int label = count++;
+                g.bfs(s, node -> component[node] = label);
+            }
+        }
+        return count;
+    }
+
+    // checks the edges exist and form a forest spanning every component
+    private static void assertSpanningForest(CompactGraph g, SpanningForest forest) {
+        int[] parent = new int[g.getNumNodes()];
+        for (int i = 0; i < parent.length; i++) {
+            parent[i] = i;
+        }
+        for (int i = 0; i < forest.getNumEdges(); i++) {
+            int u = forest.getSource(i);
+            boolean found = false;
+            for (int e = g.getFirstEdge(u); e < g.getEndEdge(u); e++) {
+                found |= g.getTarget(e) == forest.getTarget(i) && g.getWeight(e) == forest.getWeight(i);
+            }
+            assertTrue(found);
+            int a = u;
+            int b = forest.getTarget(i);
+            while (parent[a] != a) {
+                a = parent[a];
+            }
+            while (parent[b] != b) {
+                b = parent[b];
+            }
+            assertNotEquals(a, b, "cycle");
+            parent[a] = b;
+        }
+        assertEquals(countComponents(g), forest.getNumTrees());
+    }
+
+    private static void assertSameForest(CompactGraph g) {
+        SpanningForest expected = MinimumSpanningForest.kruskal(g);
+        assertSpanningForest(g, expected);
+        for (int threads : new int[] {1, 4}) {
+            SpanningForest forest = MinimumSpanningForest.boruvka(g, threads);
+            assertSpanningForest(g, forest);
+            assertEquals(expected.getNumEdges(), forest.getNumEdges());
+            assertEquals(expected.getTotalWeight(), forest.getTotalWeight(), 1e-6);
+        }
+    }
+
+    @Test
+    public void testScotland() throws Exception {
+        Graph g = Graph.readUndirectedWeightedGraph(new FileInputStream("datafiles/scotlandc.txt"));
+        assertSameForest(g.getCompactGraph());
+    }
+
+    @Test
+    public void testGeneratedGraphs() {
+        assertSameForest(new RMatGenerator(12, 30000, 5).toGraph(false).getCompactGraph());
+        assertSameForest(new GeometricGenerator(5000, 1.2, 7).toGraph(false).getCompactGraph());
+        // few distinct weights, so lots of ties
+        assertSameForest(new ErdosRenyiGenerator(5000, 12000, 3, 9).toGraph(false).getCompactGraph());
+        assertSameForest(new GridGenerator(60, 60, false).toGraph(false).getCompactGraph());
+    }
+
+    @Test
+    public void testSmallForest() {
+        Graph g = new Graph();
+        Node a = g.getOrCreateNode("A");
+        Node b = g.getOrCreateNode("B");
+        Node c = g.getOrCreateNode("C");
+        Node d = g.getOrCreateNode("D");
+        Node e = g.getOrCreateNode("E");
+        g.getOrCreateNode("F");
+        a.addUndirectedEdge(b, 4);
+        b.addUndirectedEdge(c, 1);
+        a.addUndirectedEdge(c, 2);
+        d.addUndirectedEdge(e, 5);
+        for (SpanningForest forest : new SpanningForest[] {
+                MinimumSpanningForest.kruskal(g.getCompactGraph()),
+                MinimumSpanningForest.boruvka(g.getCompactGraph(), 2)}) {
+            assertEquals(8.0, forest.getTotalWeight());
+            assertEquals(3, forest.getNumEdges());
+            assertEquals(3, forest.getNumTrees());
+        }
+        assertThrows(IllegalArgumentException.class, () -> MinimumSpanningForest.boruvka(g.getCompactGraph(), 0));
+    }
+}
@@ -0,0 +1,141 @@
+package graphlib;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestMutationBatch {
+
+    private static Graph ring(int n) {
+        Graph g = new Graph();
+        for (int i = 0; i < n; i++) {
+            g.getOrCreateNode("n" + i).addUndirectedEdge(g.getOrCreateNode("n" + (i + 1) % n), i + 1.0);
+        }
+        return g;
+    }
+
+    private static List<String> edges(Graph g) {
+        List<String> edges = new ArrayList<>();
+        for (Node node : g.getAllNodes()) {
+            for (Node neighbor : node.getNeighbors()) {
+                edges.add(node + "->" + neighbor + ":" + node.getWeight(neighbor));
+            }
+        }
+        edges.sort(null);
+        return edges;
+    }
+
+    @Test
+    public void testRemoveEdges() {
+        Graph g = ring(4);
+        Node a = g.getOrCreateNode("n0");
+        Node b = g.getOrCreateNode("n1");
+        int version = g.getVersion();
+        assertTrue(a.removeDirectedEdge(b));
+        assertFalse(a.removeDirectedEdge(b));
+        assertTrue(b.hasEdge(a));
+        assertNotEquals(version, g.getVersion());
+        assertTrue(b.removeUndirectedEdge(a));
+        assertFalse(b.hasEdge(a));
+        assertFalse(a.removeUndirectedEdge(b));
+        // the cached snapshot follows
+        assertEquals(6, g.getCompactGraph().getNumEdges());
+    }
+
+    @Test
+    public void testRemoveNode() {
+        Graph g = ring(5);
+        Node gone = g.getOrCreateNode("n2");
+        assertTrue(g.removeNode("n2"));
+        assertFalse(g.removeNode("n2"));
+        assertTrue(gone.isRemoved());
+        assertFalse(g.containsNode("n2"));
+        assertEquals(-1, g.getNodeId("n2"));
+        assertFalse(g.getNode(1).hasEdge(gone));
+        assertFalse(g.getNode(3).hasEdge(gone));
+        assertEquals(4, g.getAllNodes().size());
+        assertEquals(5, g.getNumNodes());
+        assertEquals(1, g.getNumRemovedNodes());
+        assertEquals(1, g.getNumComponents());
+        assertThrows(IllegalArgumentException.class, () -> g.bfs("n2", node -> { }));
+        assertThrows(IllegalStateException.class, () -> g.getNode(1).addDirectedEdge(gone, 1.0));
+
+        // getting it by name brings it back under its old id, without edges
+        Node back = g.getOrCreateNode("n2");
+        assertSame(gone, back);
+        assertEquals(2, back.getId());
+        assertFalse(back.isRemoved());
+        assertTrue(back.getNeighbors().isEmpty());
+        assertEquals(0, g.getNumRemovedNodes());
+        assertEquals(2, g.getNumComponents());
+    }
+
+    @Test
+    public void testBatchMatchesOneByOne() {
+        Graph expected = ring(50);
+        Graph actual = ring(50);
+        MutationBatch batch = new MutationBatch();
+        for (int i = 0; i < 50; i += 3) {
+            String a = "n" + i;
+            String b = "n" + (i * 7 % 50);
+            String c = "n" + (i + 1) % 50;
+            expected.getOrCreateNode(a).addDirectedEdge(expected.getOrCreateNode(b), i);
+            batch.addDirectedEdge(a, b, i);
+            expected.getOrCreateNode(a).removeUndirectedEdge(expected.getOrCreateNode(c));
+            batch.removeUndirectedEdge(a, c);
+            expected.getOrCreateNode(c).addUndirectedEdge(expected.getOrCreateNode("x" + i), 0.5);
+            batch.addUndirectedEdge(c, "x" + i, 0.5);
+        }
+        batch.removeDirectedEdge("n1", "missing");
+        int version = actual.getVersion();
+        actual.apply(batch);
+        assertEquals(edges(expected), edges(actual));
+        assertNotEquals(version, actual.getVersion());
+        assertFalse(actual.containsNode("missing"));
+    }
+
+    @Test
+    public void testBatchRemovesNodesLast() {
+        Graph g = ring(6);
+        ShortestPathCache cache = new ShortestPathCache(g, 1 << 20);
+        assertEquals(3.0, cache.get("n0").getDistance(g.getNodeId("n2")));
+
+        MutationBatch batch = new MutationBatch();
+        batch.removeNode("n1");
+        batch.removeNode("n1");
+        batch.addUndirectedEdge("n0", "n1", 1.0);
+        batch.addUndirectedEdge("n4", "n2", 1.0);
+        batch.removeNode("n5");
+        g.apply(batch);
+
+        assertEquals(2, g.getNumRemovedNodes());
+        assertTrue(g.getNode(0).getNeighbors().isEmpty());
+        assertEquals(List.of("n2->n3:3.0", "n2->n4:1.0", "n3->n2:3.0", "n3->n4:4.0",
+            "n4->n2:1.0", "n4->n3:4.0"), edges(g));
+        // derived structures see the batch through the version
+        assertFalse(cache.get("n0").isReachable(g.getNodeId("n2")));
+        assertEquals(2, g.getNumComponents());
+    }
+
+    @Test
+    public void testAllNodesIsALiveView() {
+        Graph g = new Graph();
+        Node a = g.getOrCreateNode("a");
+        Node b = g.getOrCreateNode("b");
+        Collection<Node> nodes = g.getAllNodes();
+        g.removeNode("a");
+        assertSame(nodes, g.getAllNodes());
+        assertEquals(1, nodes.size());
+        assertFalse(nodes.contains(a));
+        assertTrue(nodes.contains(b));
+        assertEquals(List.of(b), new ArrayList<>(nodes));
+        g.getOrCreateNode("c");
+        g.getOrCreateNode("a");
+        assertEquals(3, nodes.size());
+        assertEquals(List.of("a", "b", "c"), nodes.stream().map(Node::getName).toList());
+        assertThrows(UnsupportedOperationException.class, () -> nodes.remove(b));
+    }
+}
@@ -0,0 +1,84 @@
+package graphlib;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestNameDictionary {
+
+    @Test
+    public void testFindOrAdd() {
+        NameDictionary names = new NameDictionary();
+        assertEquals(-1, names.find("A"));
+        assertEquals(0, names.findOrAdd("A"));
+        assertEquals(1, names.findOrAdd("B"));
+        assertEquals(0, names.findOrAdd("A"));
+        assertEquals(2, names.size());
+        assertEquals("B", names.getName(1));
+        assertEquals(-1, names.find(""));
+        assertEquals(2, names.findOrAdd(""));
+        assertEquals("", names.getName(2));
+    }
+
+    @Test
+    public void testNonAsciiAndByteSlices() {
+        NameDictionary names = new NameDictionary();
+        int id = names.findOrAdd("Sk\u00e9ne");
+        assertEquals(id, names.find("Sk\u00e9ne"));
+        assertEquals("Sk\u00e9ne", names.getName(id));
+
+        byte[] line = "x 12,34 y".getBytes(StandardCharsets.UTF_8);
+        int slice = names.findOrAdd(line, 2, 5);
+        assertEquals(slice, names.find("12,34"));
+        assertEquals("12,34", names.getName(slice));
+    }
+
+    @Test
+    public void testGrowsAndRehashes() {
+        NameDictionary names = new NameDictionary();
+        for (int i = 0; i < 100000; i++) {
+            assertEquals(i, names.findOrAdd(i / 300 + "," + i % 300));
+        }
+        for (int i = 0; i < 100000; i++) {
+            assertEquals(i, names.find(i / 300 + "," + i % 300));
+        }
+        assertEquals(-1, names.find("1000,0"));
+    }
+
+    @Test
+    public void testPoolGrowthIsCapped() {
+        assertEquals(2048, NameDictionary.grownPoolSize(1024, 1025));
+        assertEquals(5000, NameDictionary.grownPoolSize(1024, 5000));
+        // doubling would overflow an int
+        assertEquals(NameDictionary.MAX_POOL_SIZE, NameDictionary.grownPoolSize(1 << 30, (1L << 30) + 1));
+        assertEquals(NameDictionary.MAX_POOL_SIZE, NameDictionary.grownPoolSize(NameDictionary.MAX_POOL_SIZE - 10, NameDictionary.MAX_POOL_SIZE));
+        assertThrows(IllegalStateException.class, () -> NameDictionary.grownPoolSize(NameDictionary.MAX_POOL_SIZE, NameDictionary.MAX_POOL_SIZE + 1L));
+    }
+
+    @Test
+    public void testGraphUsesDictionary() {
+        Graph g = new Graph();
+        Node a = g.getOrCreateNode("A");
+        assertTrue(g.containsNode("A"));
+        assertFalse(g.containsNode("B"));
+        assertEquals("A", a.getName());
+        assertEquals("A", a.toString());
+        assertSame(a, g.getOrCreateNode("A"));
+        assertEquals(1, g.getNameDictionary().size());
+    }
+
+    @Test
+    public void testMemorySaved() {
+        Graph g = new Graph();
+        for (int i = 0; i < 1000; i++) {
+            for (int j = 0; j < 1000; j++) {
+                g.getOrCreateNode(g.nameMaker(i, j));
+            }
+        }
+        NameDictionary names = g.getNameDictionary();
+        System.out.printf("1M island names: dictionary %d bytes, String keys %d bytes, saved %d bytes\n",
+            names.getSizeInBytes(), names.getStringMapSizeInBytes(), names.getSavedBytes());
+        assertTrue(names.getSavedBytes() > names.getSizeInBytes());
+    }
+}
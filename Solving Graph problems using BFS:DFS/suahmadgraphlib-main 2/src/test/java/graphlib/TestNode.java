@@ -1,5 +1,13 @@
 package graphlib;
 
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -36,4 +44,148 @@ public class TestNode
         assert nodeB.getWeight(nodeA) == 1.0;
     }
 
+    @Test
+    public void testIndexedAccess()
+    {
+        Node nodeA = new Node("A");
+        Node nodeB = new Node("B");
+        Node nodeC = new Node("C");
+        nodeA.addDirectedEdge(nodeB, 2.0);
+        nodeA.addDirectedEdge(nodeC, 3.0);
+        nodeA.addDirectedEdge(nodeB, 4.0);
+        assertEquals(2, nodeA.getDegree());
+        assertSame(nodeB, nodeA.getNeighbor(0));
+        assertEquals(4.0, nodeA.getWeightAt(0));
+        assertSame(nodeC, nodeA.getNeighbor(1));
+        assertEquals(3.0, nodeA.getWeightAt(1));
+        assertThrows(IndexOutOfBoundsException.class, () -> nodeA.getNeighbor(2));
+        assertThrows(NullPointerException.class, () -> nodeB.getWeight(nodeA));
+        assertThrows(UnsupportedOperationException.class, () -> nodeA.getNeighbors().add(nodeA));
+    }
+
+    @Test
+    public void testNeighborIteratorFailsFast()
+    {
+        Node nodeA = new Node("A");
+        Node nodeB = new Node("B");
+        Node nodeC = new Node("C");
+        nodeA.addDirectedEdge(nodeB, 1.0);
+        nodeA.addDirectedEdge(nodeC, 1.0);
+        Iterator<Node> removing = nodeA.getNeighbors().iterator();
+        removing.next();
+        nodeA.removeDirectedEdge(nodeB);
+        assertThrows(ConcurrentModificationException.class, removing::next);
+
+        Iterator<Node> adding = nodeA.getNeighbors().iterator();
+        adding.next();
+        nodeA.addDirectedEdge(nodeB, 2.0);
+        assertThrows(ConcurrentModificationException.class, adding::next);
+
+        // re-weighting an edge is not a structural change
+        Iterator<Node> reweighting = nodeA.getNeighbors().iterator();
+        reweighting.next();
+        nodeA.addDirectedEdge(nodeC, 3.0);
+        assertSame(nodeB, reweighting.next());
+    }
+
+    @Test
+    public void testRemoveThroughNeighbors()
+    {
+        // enough neighbors for the hash index; removal swaps the last edge in
+        Graph graph = new Graph();
+        Node source = graph.getOrCreateNode("source");
+        for (int i = 0; i < 20; i++)
+        {
+            source.addDirectedEdge(graph.getOrCreateNode("n" + i), i);
+        }
+        assertSame(source.getNeighbors(), source.getNeighbors());
+        Set<String> seen = new HashSet<>();
+        Iterator<Node> it = source.getNeighbors().iterator();
+        assertThrows(IllegalStateException.class, it::remove);
+        while (it.hasNext())
+        {
+            Node neighbor = it.next();
+            seen.add(neighbor.getName());
+            if (Integer.parseInt(neighbor.getName().substring(1)) % 2 == 0)
+            {
+                it.remove();
+                assertThrows(IllegalStateException.class, it::remove);
+            }
+        }
+        assertEquals(20, seen.size());
+        assertEquals(10, source.getDegree());
+        assertEquals(10, graph.getCompactGraph().getNumEdges());
+        for (int i = 0; i < 20; i++)
+        {
+            Node neighbor = graph.getOrCreateNode("n" + i);
+            assertEquals(i % 2 != 0, source.getNeighbors().contains(neighbor));
+            if (i % 2 != 0)
+            {
+                assertEquals(i, source.getWeight(neighbor));
+            }
+        }
+        assertTrue(source.getNeighbors().remove(graph.getOrCreateNode("n1")));
+        assertFalse(source.getNeighbors().remove(graph.getOrCreateNode("n1")));
+        assertEquals(9, graph.getCompactGraph().getNumEdges());
+    }
+
+    @Test
+    public void testForeignNodesRejected()
+    {
+        Graph graph = new Graph();
+        Node owned = graph.getOrCreateNode("A");
+        Node free = new Node("B");
+        Node other = new Graph().getOrCreateNode("C");
+        assertThrows(IllegalArgumentException.class, () -> owned.addDirectedEdge(free, 1.0));
+        assertThrows(IllegalArgumentException.class, () -> owned.addDirectedEdge(other, 1.0));
+        assertThrows(IllegalArgumentException.class, () -> free.addUndirectedEdge(owned, 1.0));
+        assertThrows(IllegalArgumentException.class, () -> free.addUnweightedUndirectedEdge(owned));
+        assertEquals(0, free.getDegree());
+        assertEquals(0, graph.getCompactGraph().getNumEdges());
+    }
+
+    @Test
+    public void testEdgesMatchMapAcrossRemovals()
+    {
+        // enough neighbors that lookups go through the hash index, with
+        // graph-owned and free-standing nodes mixed; only a free-standing
+        // source takes edges to both
+        Graph graph = new Graph();
+        Node source = new Node("source");
+        Node[] targets = new Node[200];
+        for (int i = 0; i < targets.length; i++)
+        {
+            targets[i] = i % 3 == 0 ? new Node("free" + i) : graph.getOrCreateNode("n" + i);
+        }
+        Map<Node, Double> expected = new HashMap<>();
+        Random random = new Random(7);
+        for (int step = 0; step < 5000; step++)
+        {
+            Node target = targets[random.nextInt(targets.length)];
+            if (random.nextInt(3) == 0)
+            {
+                assertEquals(expected.remove(target) != null, source.removeDirectedEdge(target));
+            }
+            else
+            {
+                double weight = random.nextInt(100);
+                source.addDirectedEdge(target, weight);
+                expected.put(target, weight);
+            }
+            assertEquals(expected.size(), source.getDegree());
+        }
+        for (Node target : targets)
+        {
+            assertEquals(expected.containsKey(target), source.hasEdge(target));
+        }
+        for (Map.Entry<Node, Double> entry : expected.entrySet())
+        {
+            assertEquals(entry.getValue(), source.getWeight(entry.getKey()));
+        }
+        assertEquals(expected.keySet(), new HashSet<>(source.getNeighbors()));
+        for (int i = 0; i < source.getDegree(); i++)
+        {
+            assertEquals(expected.get(source.getNeighbor(i)), source.getWeightAt(i));
+        }
+    }
 }
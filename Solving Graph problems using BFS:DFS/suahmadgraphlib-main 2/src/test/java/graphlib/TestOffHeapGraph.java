@@ -0,0 +1,98 @@
+package graphlib;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import graphlib.generate.RMatGenerator;
+
+public class TestOffHeapGraph {
+
+    @TempDir
+    Path dir;
+
+    private static CompactGraph sample() {
+        return new RMatGenerator(10, 5000, 11).toGraph(false).getCompactGraph();
+    }
+
+    private static void assertSameGraph(CompactGraph expected, OffHeapGraph actual) {
+        assertEquals(expected.getNumNodes(), actual.getNumNodes());
+        assertEquals(expected.getNumEdges(), actual.getNumEdges());
+        for (int u = 0; u < expected.getNumNodes(); u++) {
+            assertEquals(expected.getFirstEdge(u), actual.getFirstEdge(u));
+            assertEquals(expected.getEndEdge(u), actual.getEndEdge(u));
+        }
+        for (int e = 0; e < expected.getNumEdges(); e++) {
+            assertEquals(expected.getTarget(e), actual.getTarget(e));
+            assertEquals(expected.getWeight(e), actual.getWeight(e));
+        }
+    }
+
+    @Test
+    public void testTraversalsMatchCompactGraph() {
+        CompactGraph g = sample();
+        // 64-byte chunks, so that every array spans many buffers
+        try (OffHeapGraph offHeap = OffHeapGraph.copyOf(g, 6)) {
+            assertSameGraph(g, offHeap);
+            for (int start : new int[] {0, 17, 500}) {
+                List<Integer> expected = new ArrayList<>();
+                List<Integer> actual = new ArrayList<>();
+                g.bfs(start, expected::add);
+                offHeap.bfs(start, actual::add);
+                assertEquals(expected, actual);
+
+                expected.clear();
+                actual.clear();
+                g.dfs(start, expected::add);
+                offHeap.dfs(start, actual::add);
+                assertEquals(expected, actual);
+
+                ShortestPaths before = g.shortestPaths(start);
+                ShortestPaths after = offHeap.shortestPaths(start);
+                for (int u = 0; u < g.getNumNodes(); u++) {
+                    assertEquals(before.getDistance(u), after.getDistance(u));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testWriteAndMap() throws IOException {
+        CompactGraph g = sample();
+        Path file = dir.resolve("graph.bin");
+        OffHeapGraph.write(g, file);
+        try (OffHeapGraph mapped = OffHeapGraph.map(file, 7)) {
+            assertSameGraph(g, mapped);
+            assertEquals(4L * (g.getNumNodes() + 1) + 12L * g.getNumEdges(), mapped.getOffHeapBytes());
+        }
+    }
+
+    @Test
+    public void testBadFiles() throws IOException {
+        Path notAGraph = dir.resolve("text.bin");
+        Files.write(notAGraph, "1,2,3.0\n4,5,6.0\n".getBytes());
+        assertThrows(IOException.class, () -> OffHeapGraph.map(notAGraph));
+
+        Path truncated = dir.resolve("truncated.bin");
+        OffHeapGraph.write(sample(), truncated);
+        Files.write(truncated, java.util.Arrays.copyOf(Files.readAllBytes(truncated), 100));
+        assertThrows(IOException.class, () -> OffHeapGraph.map(truncated));
+    }
+
+    @Test
+    public void testClosed() {
+        OffHeapGraph offHeap = OffHeapGraph.copyOf(sample());
+        offHeap.close();
+        assertThrows(IllegalStateException.class, () -> offHeap.bfs(0, id -> { }));
+        assertThrows(IllegalStateException.class, () -> offHeap.getFirstEdge(0));
+        assertThrows(IllegalStateException.class, () -> offHeap.getEndEdge(0));
+        assertThrows(IllegalStateException.class, () -> offHeap.getTarget(0));
+        assertThrows(IllegalStateException.class, () -> offHeap.getWeight(0));
+    }
+}
@@ -0,0 +1,109 @@
+package graphlib;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import graphlib.generate.GeometricGenerator;
+
+public class TestPipelinedLoader {
+
+    private static void assertSameGraph(Graph expected, Graph actual) {
+        assertEquals(expected.getNumNodes(), actual.getNumNodes());
+        for (int id = 0; id < expected.getNumNodes(); id++) {
+            Node a = expected.getNode(id);
+            Node b = actual.getNode(id);
+            assertEquals(a.getName(), b.getName());
+            assertEquals(a.getNeighbors().size(), b.getNeighbors().size());
+            for (Node neighbor : a.getNeighbors()) {
+                Node other = actual.getNode(neighbor.getId());
+                assertTrue(b.hasEdge(other));
+                assertEquals(a.getWeight(neighbor), b.getWeight(other));
+            }
+        }
+    }
+
+    private static Graph scanner(byte[] data, boolean directed, boolean weighted) {
+        ByteArrayInputStream in = new ByteArrayInputStream(data);
+        if (weighted) {
+            return directed ? Graph.readDirectedWeightedGraph(in) : Graph.readUndirectedWeightedGraph(in);
+        }
+        return directed ? Graph.readDirectedUnweightedGraph(in) : Graph.readUndirectedUnweightedGraph(in);
+    }
+
+    @Test
+    public void testAllFormatsMatchScanner() throws Exception {
+        for (boolean weighted : new boolean[] {false, true}) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            new GeometricGenerator(3000, 2.0, 1).writeEdgeList(out, weighted);
+            byte[] data = out.toByteArray();
+            for (boolean directed : new boolean[] {false, true}) {
+                PipelinedLoader loader = new PipelinedLoader(directed, weighted).setChunkSize(4096).setQueueCapacity(2);
+                Graph graph = loader.load(new ByteArrayInputStream(data));
+                assertSameGraph(scanner(data, directed, weighted), graph);
+
+                LoadStats stats = loader.getLastStats();
+                assertEquals(3, stats.getStages().size());
+                assertEquals(data.length, stats.getCompressedBytes());
+                for (StageStats stage : stats.getStages()) {
+                    assertEquals(data.length, stage.getBytes());
+                }
+                long edges = stats.getStage("parse").getRecords();
+                assertEquals(edges, stats.getStage("build").getRecords());
+                assertTrue(edges > 0);
+                assertNotNull(stats.getBottleneck());
+            }
+        }
+    }
+
+    @Test
+    public void testGzipAndFiles() throws Exception {
+        byte[] data = Files.readAllBytes(Paths.get("datafiles/scotlandc.txt"));
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(data);
+        }
+        PipelinedLoader loader = new PipelinedLoader(false, true);
+        Graph graph = loader.load(new ByteArrayInputStream(compressed.toByteArray()));
+        assertSameGraph(scanner(data, false, true), graph);
+        assertEquals(compressed.size(), loader.getLastStats().getCompressedBytes());
+        assertEquals(data.length, loader.getLastStats().getStage("read").getBytes());
+
+        assertSameGraph(scanner(data, false, true), loader.load(Paths.get("datafiles/scotlandc.txt")));
+    }
+
+    @Test
+    public void testLinesLongerThanChunks() throws Exception {
+        String name = "x".repeat(100);
+        byte[] data = (name + "1 " + name + "2 1.5\r\n\n" + name + "2 " + name + "3 2.25e1").getBytes(StandardCharsets.UTF_8);
+        Graph graph = new PipelinedLoader(true, true).setChunkSize(16).load(new ByteArrayInputStream(data));
+        assertSameGraph(scanner(data, true, true), graph);
+        assertEquals(22.5, graph.getNode(1).getWeight(graph.getNode(2)));
+    }
+
+    @Test
+    public void testParseWeight() {
+        for (String weight : new String[] {"0", "1", "-2.5", "+3.25", "0.1", "123456789.123456", "1e3", "1234567890123456789", ".5"}) {
+            byte[] bytes = weight.getBytes(StandardCharsets.US_ASCII);
+            assertEquals(Double.parseDouble(weight), PipelinedLoader.parseWeight(bytes, 0, bytes.length));
+        }
+    }
+
+    @Test
+    public void testErrors() {
+        PipelinedLoader loader = new PipelinedLoader(false, true);
+        assertThrows(IOException.class, () -> loader.load(new ByteArrayInputStream("a b 1\nc d\ne f 2\n".getBytes())));
+        assertThrows(IOException.class, () -> loader.load(new ByteArrayInputStream("a b 1\nc d x\n".getBytes())));
+        assertThrows(IOException.class, () -> loader.load(new ByteArrayInputStream("a b".getBytes())));
+        byte[] zstd = {0x28, (byte) 0xB5, 0x2F, (byte) 0xFD, 0, 0};
+        assertThrows(IOException.class, () -> loader.load(new ByteArrayInputStream(zstd)));
+        assertThrows(IllegalArgumentException.class, () -> loader.setChunkSize(0));
+    }
+}
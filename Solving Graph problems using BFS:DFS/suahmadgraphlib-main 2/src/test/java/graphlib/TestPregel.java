@@ -0,0 +1,120 @@
+package graphlib;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import graphlib.generate.RMatGenerator;
+import graphlib.pregel.Combiner;
+import graphlib.pregel.ConnectedComponents;
+import graphlib.pregel.Messages;
+import graphlib.pregel.PageRank;
+import graphlib.pregel.PregelEngine;
+import graphlib.pregel.PregelResult;
+import graphlib.pregel.Vertex;
+import graphlib.pregel.VertexProgram;
+
+public class TestPregel {
+
+    private static double[] sequentialPageRank(CompactGraph g, double d, int iterations) {
+        int n = g.getNumNodes();
+        double[] rank = new double[n];
+        java.util.Arrays.fill(rank, 1.0 / n);
+        for (int it = 0; it < iterations; it++) {
+            double[] next = new double[n];
+            double dangling = 0;
+            for (int u = 0; u < n; u++) {
+                if (g.getDegree(u) == 0) {
+                    dangling += rank[u];
+                }
+                for (int e = g.getFirstEdge(u); e < g.getEndEdge(u); e++) {
+                    next[g.getTarget(e)] += rank[u] / g.getDegree(u);
+                }
+            }
+            for (int u = 0; u < n; u++) {
+                next[u] = (1 - d) / n + d * (next[u] + dangling / n);
+            }
+            rank = next;
+        }
+        return rank;
+    }
+
+    @Test
+    public void testPageRankMatchesPowerIteration() {
+        CompactGraph g = new RMatGenerator(10, 8000, 3).toGraph(true).getCompactGraph();
+        double[] expected = sequentialPageRank(g, 0.85, 20);
+        for (int threads : new int[] {1, 4}) {
+            try (PregelEngine engine = new PregelEngine(g, threads)) {
+                double[] ranks = PageRank.run(engine, 0.85, 20);
+                double sum = 0;
+                for (int u = 0; u < g.getNumNodes(); u++) {
+                    assertEquals(expected[u], ranks[u], 1e-12);
+                    sum += ranks[u];
+                }
+                assertEquals(1.0, sum, 1e-9);
+            }
+        }
+    }
+
+    @Test
+    public void testConnectedComponents() {
+        Graph graph = new RMatGenerator(12, 3000, 8).toGraph(false);
+        CompactGraph g = graph.getCompactGraph();
+        int[] single;
+        try (PregelEngine engine = new PregelEngine(g, 1)) {
+            single = ConnectedComponents.run(engine);
+        }
+        try (PregelEngine engine = new PregelEngine(g, 8)) {
+            assertArrayEquals(single, ConnectedComponents.run(engine));
+        }
+        Set<Integer> labels = new HashSet<>();
+        for (int u = 0; u < g.getNumNodes(); u++) {
+            // each label is the smallest id in its component
+            assertTrue(single[u] <= u);
+            assertEquals(single[u], single[single[u]]);
+            for (int e = g.getFirstEdge(u); e < g.getEndEdge(u); e++) {
+                assertEquals(single[u], single[g.getTarget(e)]);
+            }
+            labels.add(single[u]);
+        }
+        assertEquals(graph.getNumComponents(), labels.size());
+    }
+
+    @Test
+    public void testHaltingAndWakeUp() {
+        // a path 0 -> 1 -> 2 -> 3: only the head starts a message, and each
+        // halted vertex is woken by the message from its predecessor
+        Graph graph = new Graph();
+        for (int i = 0; i < 3; i++) {
+            graph.getOrCreateNode("v" + i).addDirectedEdge(graph.getOrCreateNode("v" + (i + 1)), 1.0);
+        }
+        VertexProgram hops = new VertexProgram() {
+            public Combiner getCombiner() {
+                return Combiner.MAX;
+            }
+
+            public void compute(Vertex vertex, Messages messages) {
+                if (vertex.getSuperstep() == 0 && vertex.getId() == 0) {
+                    vertex.sendToAllNeighbors(1);
+                } else if (!messages.isEmpty()) {
+                    vertex.setValue(messages.get());
+                    vertex.sendToAllNeighbors(messages.get() + 1);
+                }
+                vertex.voteToHalt();
+            }
+        };
+        try (PregelEngine engine = new PregelEngine(graph.getCompactGraph(), 2)) {
+            PregelResult result = engine.run(hops, 100);
+            assertTrue(result.isConverged());
+            assertEquals(4, result.getSupersteps());
+            assertEquals(3, result.getMessagesSent());
+            assertArrayEquals(new double[] {0, 1, 2, 3}, result.getValues());
+
+            PregelResult cut = engine.run(hops, 2);
+            assertFalse(cut.isConverged());
+            assertArrayEquals(new double[] {0, 1, 0, 0}, cut.getValues());
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package graphlib;
+
+import java.io.FileInputStream;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestShortestPathCache {
+
+    @Test
+    public void testMatchesDijkstra() throws Exception {
+        Graph g = Graph.readUndirectedWeightedGraph(new FileInputStream("datafiles/scotlandc.txt"));
+        for (Node source : g.getAllNodes()) {
+            Map<Node, Double> expected = g.dijkstra(source.getName());
+            ShortestPaths paths = g.shortestPaths(source.getName());
+            assertEquals(expected.size(), paths.getReachedCount());
+            for (Map.Entry<Node, Double> entry : expected.entrySet()) {
+                int id = entry.getKey().getId();
+                assertEquals(entry.getValue(), paths.getDistance(id), 1e-9);
+
+                // the path adds up to the distance
+                int[] path = paths.getPath(id);
+                assertEquals(source.getId(), path[0]);
+                assertEquals(id, path[path.length - 1]);
+                double total = 0;
+                for (int i = 1; i < path.length; i++) {
+                    total += g.getNode(path[i - 1]).getWeight(g.getNode(path[i]));
+                }
+                assertEquals(entry.getValue(), total, 1e-9);
+            }
+        }
+    }
+
+    @Test
+    public void testUnreachable() {
+        Graph g = new Graph();
+        Node a = g.getOrCreateNode("A");
+        Node b = g.getOrCreateNode("B");
+        g.getOrCreateNode("C");
+        a.addDirectedEdge(b, 2.5);
+        ShortestPaths paths = g.shortestPaths("B");
+        assertFalse(paths.isReachable(a.getId()));
+        assertEquals(Double.POSITIVE_INFINITY, paths.getDistance(a.getId()));
+        assertEquals(-1, paths.getPredecessor(a.getId()));
+        assertEquals(0, paths.getPath(a.getId()).length);
+    }
+
+    @Test
+    public void testHitsAndInvalidation() {
+        Graph g = new Graph();
+        Node a = g.getOrCreateNode("A");
+        Node b = g.getOrCreateNode("B");
+        Node c = g.getOrCreateNode("C");
+        a.addUndirectedEdge(b, 1.0);
+        b.addUndirectedEdge(c, 1.0);
+
+        ShortestPathCache cache = new ShortestPathCache(g, 1 << 20);
+        ShortestPaths first = cache.get("A");
+        assertSame(first, cache.get("A"));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals(2.0, first.getDistance(c.getId()));
+
+        // a shortcut through the Node API makes the cached result stale
+        a.addDirectedEdge(c, 0.5);
+        ShortestPaths second = cache.get("A");
+        assertNotSame(first, second);
+        assertEquals(0.5, second.getDistance(c.getId()));
+        assertEquals(1, cache.getInvalidations());
+        assertEquals(1.0 / 3, cache.getHitRate(), 1e-9);
+    }
+
+    @Test
+    public void testSizeBoundedLru() {
+        Graph g = new Graph();
+        for (int i = 0; i < 10; i++) {
+            g.getOrCreateNode("n" + i).addUndirectedEdge(g.getOrCreateNode("n" + (i + 1)), 1.0);
+        }
+        long entrySize = g.shortestPaths(0).getSizeInBytes();
+        ShortestPathCache cache = new ShortestPathCache(g, 2 * entrySize);
+        cache.get(0);
+        cache.get(1);
+        cache.get(0);
+        cache.get(2);
+        // 1 was least recently used
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictions());
+        assertTrue(cache.getSizeInBytes() <= 2 * entrySize);
+        long misses = cache.getMisses();
+        cache.get(0);
+        assertEquals(misses, cache.getMisses());
+        cache.get(1);
+        assertEquals(misses + 1, cache.getMisses());
+    }
+}
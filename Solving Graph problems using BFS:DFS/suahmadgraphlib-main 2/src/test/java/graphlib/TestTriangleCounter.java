@@ -0,0 +1,90 @@
+package graphlib;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import graphlib.generate.BarabasiAlbertGenerator;
+import graphlib.generate.GeometricGenerator;
+import graphlib.generate.RMatGenerator;
+
+public class TestTriangleCounter {
+
+    // nested hash probes over the undirected graph, the way it is done today
+    private static long[] bruteForce(Graph g) {
+        List<Node> nodes = new ArrayList<>(g.getAllNodes());
+        long[] triangles = new long[nodes.size()];
+        for (Node u : nodes) {
+            List<Node> neighbors = new ArrayList<>();
+            for (Node v : u.getNeighbors()) {
+                if (v != u) {
+                    neighbors.add(v);
+                }
+            }
+            for (int i = 0; i < neighbors.size(); i++) {
+                for (int j = i + 1; j < neighbors.size(); j++) {
+                    if (neighbors.get(i).hasEdge(neighbors.get(j))) {
+                        triangles[u.getId()]++;
+                    }
+                }
+            }
+        }
+        return triangles;
+    }
+
+    private static void assertMatchesBruteForce(Graph g) {
+        long[] expected = bruteForce(g);
+        long sum = 0;
+        for (long t : expected) {
+            sum += t;
+        }
+        for (int threads : new int[] {1, 4}) {
+            TriangleCount count = TriangleCounter.count(g.getCompactGraph(), threads);
+            assertEquals(sum / 3, count.getNumTriangles());
+            for (int u = 0; u < expected.length; u++) {
+                assertEquals(expected[u], count.getTriangles(u));
+            }
+        }
+    }
+
+    @Test
+    public void testGeneratedGraphs() {
+        assertMatchesBruteForce(new RMatGenerator(11, 20000, 3).toGraph(false));
+        assertMatchesBruteForce(new BarabasiAlbertGenerator(3000, 5, 4).toGraph(false));
+        assertMatchesBruteForce(new GeometricGenerator(3000, 2.0, 5).toGraph(false));
+    }
+
+    @Test
+    public void testClustering() {
+        Graph g = new Graph();
+        Node[] k4 = new Node[4];
+        for (int i = 0; i < 4; i++) {
+            k4[i] = g.getOrCreateNode("k" + i);
+            for (int j = 0; j < i; j++) {
+                k4[i].addUndirectedEdge(k4[j], 1);
+            }
+        }
+        // a star hanging off k0, with a self loop and a repeated one-way edge
+        Node hub = g.getOrCreateNode("hub");
+        hub.addUndirectedEdge(k4[0], 1);
+        for (int i = 0; i < 3; i++) {
+            hub.addUndirectedEdge(g.getOrCreateNode("leaf" + i), 1);
+        }
+        hub.addDirectedEdge(hub, 1);
+        g.getOrCreateNode("leaf0").addDirectedEdge(hub, 2);
+
+        TriangleCount count = TriangleCounter.count(g.getCompactGraph(), 2);
+        assertEquals(4, count.getNumTriangles());
+        assertEquals(1.0, count.getClusteringCoefficient(k4[1].getId()));
+        assertEquals(4, count.getDegree(k4[0].getId()));
+        assertEquals(0.5, count.getClusteringCoefficient(k4[0].getId()));
+        assertEquals(4, count.getDegree(hub.getId()));
+        assertEquals(0.0, count.getClusteringCoefficient(hub.getId()));
+        assertEquals(0.0, count.getClusteringCoefficient(g.getOrCreateNode("leaf1").getId()));
+        assertEquals((3 * 1.0 + 0.5) / 8, count.getAverageClustering(), 1e-12);
+        // 12 wedges in k4, 3 more at k0 and 6 at the hub
+        assertEquals(3 * 4 / 21.0, count.getTransitivity(), 1e-12);
+    }
+}
@@ -0,0 +1,167 @@
+package graphlib;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestWorkLimit {
+
+    private static Graph path(int n) {
+        Graph g = new Graph();
+        for (int i = 0; i + 1 < n; i++) {
+            g.getOrCreateNode("n" + i).addUndirectedEdge(g.getOrCreateNode("n" + (i + 1)), 1.0);
+        }
+        return g;
+    }
+
+    @Test
+    public void testNoLimitMatchesPlainCall() throws Exception {
+        Graph g = Graph.readUndirectedWeightedGraph(new FileInputStream("datafiles/scotlandc.txt"));
+        String source = g.getNode(0).getName();
+        List<Node> expected = new ArrayList<>();
+        g.dfs(source, expected::add);
+        List<Node> actual = new ArrayList<>();
+        assertEquals(WorkStatus.COMPLETED, g.dfs(source, actual::add, WorkLimit.NONE));
+        assertEquals(expected, actual);
+
+        PartialResult<Map<Node, Double>> distances = g.dijkstra(source, WorkLimit.NONE);
+        assertTrue(distances.isComplete());
+        assertEquals(g.dijkstra(source), distances.getValue());
+    }
+
+    @Test
+    public void testBudgetStopsWithPrefix() {
+        Graph g = path(5000);
+        List<Integer> full = new ArrayList<>();
+        g.bfs(0, full::add);
+
+        List<Integer> partial = new ArrayList<>();
+        assertEquals(WorkStatus.BUDGET_EXHAUSTED, g.bfs(0, partial::add, WorkLimit.maxEdges(100)));
+        assertTrue(partial.size() > 0 && partial.size() < full.size());
+        assertEquals(full.subList(0, partial.size()), partial);
+
+        List<Node> names = new ArrayList<>();
+        assertEquals(WorkStatus.BUDGET_EXHAUSTED, g.dfs("n0", names::add, WorkLimit.maxEdges(100)));
+        assertTrue(names.size() < 5000);
+
+        PartialResult<Map<String, Set<String>>> reachable = g.getReachableNodes(WorkLimit.maxEdges(20000));
+        assertEquals(WorkStatus.BUDGET_EXHAUSTED, reachable.getStatus());
+        // only finished sources are kept, and each one reaches the whole path
+        assertTrue(reachable.getValue().size() < 5000);
+        for (Set<String> set : reachable.getValue().values()) {
+            assertEquals(5000, set.size());
+        }
+    }
+
+    @Test
+    public void testXfsAndComponentsStop() {
+        Graph g = path(5000);
+        g.getOrCreateNode("x").addUndirectedEdge(g.getOrCreateNode("y"), 1.0);
+        List<Node> full = new ArrayList<>();
+        g.bfs2("n0", full::add);
+        List<Node> partial = new ArrayList<>();
+        assertEquals(WorkStatus.BUDGET_EXHAUSTED, g.bfs2("n0", partial::add, WorkLimit.maxEdges(100)));
+        assertTrue(partial.size() > 0 && partial.size() < full.size());
+        assertEquals(full.subList(0, partial.size()), partial);
+        List<Node> depth = new ArrayList<>();
+        assertEquals(WorkStatus.COMPLETED, g.dfs2("n0", depth::add, WorkLimit.NONE));
+        assertEquals(5000, depth.size());
+
+        assertEquals(2, g.getNumComponents());
+        PartialResult<Integer> complete = g.getNumComponents(WorkLimit.maxEdges(100000));
+        assertTrue(complete.isComplete());
+        assertEquals(2, complete.getValue());
+        // the path is cut short, so no component is finished
+        PartialResult<Integer> components = g.getNumComponents(WorkLimit.maxEdges(100));
+        assertEquals(WorkStatus.BUDGET_EXHAUSTED, components.getStatus());
+        assertEquals(0, components.getValue());
+    }
+
+    @Test
+    public void testCancelledToken() {
+        Graph g = path(100);
+        CancellationToken token = new CancellationToken();
+        token.cancel();
+        List<Integer> visited = new ArrayList<>();
+        assertEquals(WorkStatus.CANCELLED, g.dfs(0, visited::add, WorkLimit.token(token)));
+        assertTrue(visited.isEmpty());
+        assertEquals(WorkStatus.CANCELLED, g.getCompactGraph().bfs(0, visited::add, WorkLimit.token(token)));
+        assertFalse(g.shortestPaths(0, WorkLimit.token(token)).isComplete());
+    }
+
+    @Test
+    public void testInterruptFlagOnlyStopsInterruptibleLimits() {
+        Graph g = path(5000);
+        Thread.currentThread().interrupt();
+        try {
+            // plain calls run under NONE and must finish anyway
+            List<Node> dfs = new ArrayList<>();
+            g.dfs("n0", dfs::add);
+            assertEquals(5000, dfs.size());
+            List<Node> bfs = new ArrayList<>();
+            g.bfs("n0", bfs::add);
+            assertEquals(5000, bfs.size());
+            List<Integer> ids = new ArrayList<>();
+            g.bfs(0, ids::add);
+            assertEquals(5000, ids.size());
+            assertEquals(5000, g.dijkstra("n0").size());
+            assertEquals(5000, g.shortestPaths(0).getReachedCount());
+            assertEquals(1, g.getNumComponents());
+            assertTrue(Thread.currentThread().isInterrupted());
+
+            assertEquals(WorkStatus.CANCELLED, g.dfs("n0", n -> { }, WorkLimit.interruption()));
+            assertEquals(WorkStatus.CANCELLED,
+                g.bfs(0, id -> { }, WorkLimit.maxEdges(1000000).withInterruption()));
+            assertTrue(Thread.currentThread().isInterrupted());
+        } finally {
+            Thread.interrupted();
+        }
+    }
+
+    @Test
+    public void testDeadline() {
+        Graph g = path(100);
+        WorkLimit expired = WorkLimit.timeout(Duration.ofNanos(-1));
+        assertEquals(WorkStatus.DEADLINE_EXCEEDED, g.bfs("n0", n -> { }, expired));
+        assertEquals(WorkStatus.COMPLETED, g.bfs("n0", n -> { }, WorkLimit.timeout(Duration.ofMinutes(1))));
+    }
+
+    @Test
+    public void testPartialShortestPathsAreExact() throws Exception {
+        Graph g = Graph.readUndirectedWeightedGraph(new FileInputStream("datafiles/scotlandc.txt"));
+        ShortestPaths full = g.shortestPaths(0);
+        PartialResult<ShortestPaths> partial = g.shortestPaths(0, WorkLimit.maxEdges(50));
+        assertEquals(WorkStatus.BUDGET_EXHAUSTED, partial.getStatus());
+        ShortestPaths paths = partial.getValue();
+        assertTrue(paths.getReachedCount() > 0 && paths.getReachedCount() < full.getReachedCount());
+        for (int id = 0; id < g.getAllNodes().size(); id++) {
+            if (paths.isReachable(id)) {
+                assertEquals(full.getDistance(id), paths.getDistance(id), 1e-9);
+            }
+        }
+    }
+
+    @Test
+    public void testPartialInverseGraph() {
+        String text = "A B\nB C\nC D\nD E\n";
+        Graph complete = Graph.inverseGraph(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)));
+        PartialResult<Graph> partial = Graph.inverseGraph(
+            new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)), WorkLimit.maxEdges(6));
+        assertEquals(WorkStatus.BUDGET_EXHAUSTED, partial.getStatus());
+        // A and B were handled, so their inverse edges are all there
+        Graph g = partial.getValue();
+        for (String name : new String[] {"A", "B"}) {
+            Node expected = complete.getOrCreateNode(name);
+            Node actual = g.getOrCreateNode(name);
+            assertEquals(expected.getNeighbors().size(), actual.getNeighbors().size());
+        }
+    }
+}